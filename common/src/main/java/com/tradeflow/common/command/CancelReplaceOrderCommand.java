@@ -0,0 +1,44 @@
+package com.tradeflow.common.command;
+
+import com.tradeflow.common.enums.OrderSide;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Command sent from OMS to Matching Engine to cancel or amend a resting
+ * order. Travels on the same queue as new orders, so it is applied after
+ * the order it refers to.
+ *
+ * {@code newQuantity} is the new total order quantity (filled part
+ * included); null or zero cancels whatever is left. A null
+ * {@code newPrice} keeps the current price. A quantity decrease at the
+ * same price keeps time priority; a price change loses it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancelReplaceOrderCommand {
+
+    private UUID commandId;
+
+    private UUID orderId;
+
+    private UUID userId;
+
+    private String symbol;
+
+    private OrderSide side;
+
+    private BigDecimal newPrice;
+
+    private BigDecimal newQuantity;
+
+    private Instant commandTimestamp;
+}
@@ -19,7 +19,9 @@ public final class KafkaTopics {
     public static final String TRADES_EXECUTED = "trades.executed";
 
     // Order book updates
-    public static final String ORDERBOOK_UPDATES = "orderbook.updates";
+    public static final String ORDERBOOK_UPDATES = "orderbook.updates"; // periodic full snapshots
+    public static final String ORDERBOOK_DELTAS = "orderbook.deltas"; // incremental L2 changes
+    public static final String ORDERBOOK_ORDERS = "orderbook.orders"; // market-by-order (L3) events
 
     // Market data
     public static final String TICKER_UPDATES = "ticker.updates";
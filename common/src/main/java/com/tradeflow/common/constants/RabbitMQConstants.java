@@ -26,6 +26,7 @@ public final class RabbitMQConstants {
     public static final String ROUTING_WALLET_SETTLE = "wallet.settle";
     public static final String ROUTING_ORDER_RESPONSE = "order.response";
     public static final String ROUTING_ORDER_TO_MATCHING = "order.to.matching";
+    public static final String ROUTING_ORDER_CANCEL_REPLACE = "order.cancel.replace";
 
     // Dead Letter
     public static final String DLX_EXCHANGE = "tradeflow.dlx.exchange";
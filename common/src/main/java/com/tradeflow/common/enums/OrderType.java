@@ -1,9 +1,17 @@
 package com.tradeflow.common.enums;
 
 /**
- * Order type enumeration - Limit or Market
+ * Order type enumeration - Limit, Market, or a stop that becomes one of them
  */
 public enum OrderType {
     LIMIT,
-    MARKET
+    MARKET,
+    /**
+     * Becomes a market order once a trade prints at or through the stop price
+     */
+    STOP,
+    /**
+     * Becomes a limit order once a trade prints at or through the stop price
+     */
+    STOP_LIMIT
 }
@@ -0,0 +1,10 @@
+package com.tradeflow.common.enums;
+
+/**
+ * Time in force - how long an order stays working
+ */
+public enum TimeInForce {
+    GTC, // Good till cancelled: a limit remainder rests on the book
+    IOC, // Immediate or cancel: fill what crosses now, cancel the rest
+    FOK // Fill or kill: fill the whole quantity now or nothing at all
+}
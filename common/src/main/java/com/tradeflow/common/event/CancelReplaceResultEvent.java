@@ -0,0 +1,46 @@
+package com.tradeflow.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Event published by Matching Engine once a cancel/replace command has been
+ * applied to the book. OMS waits for it before releasing funds, since only
+ * the engine knows how much of the order was still unfilled.
+ *
+ * Quantities are unfilled (working) quantities; {@code remainingQuantity}
+ * is what the order was left or re-entered with, before any immediate
+ * match (reported as ordinary trades).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancelReplaceResultEvent {
+
+    public enum Status {
+        CANCELLED, REDUCED, REPLACED, UNCHANGED, NOT_FOUND
+    }
+
+    private UUID commandId;
+
+    private UUID orderId;
+
+    private String symbol;
+
+    private Status status;
+
+    private BigDecimal previousPrice;
+    private BigDecimal previousRemainingQuantity;
+
+    private BigDecimal price;
+    private BigDecimal remainingQuantity;
+
+    private Instant timestamp;
+}
@@ -0,0 +1,55 @@
+package com.tradeflow.common.event;
+
+import com.tradeflow.common.enums.OrderSide;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Market-by-order (L3) update: individual resting-order changes, in the
+ * order the matching engine applied them. Published by Matching Engine to
+ * Kafka for symbols with the feed enabled.
+ *
+ * Sequences are per symbol and increase by one per order event, so a
+ * consumer detects a gap when an event's sequence is not its last seen + 1.
+ * Orders are identified by an anonymous handle that also gives their time
+ * priority within a price level.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarketByOrderEvent {
+
+    private String symbol;
+
+    private List<OrderChange> events;
+
+    private Instant timestamp;
+
+    public enum Action {
+        ADD, REDUCE, EXECUTE, DELETE
+    }
+
+    /**
+     * One order change; {@code quantity} is the amount added, reduced,
+     * executed or deleted, and an order with no remaining quantity is gone
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderChange {
+        private long sequence;
+        private Action action;
+        private long orderHandle;
+        private OrderSide side;
+        private BigDecimal price;
+        private BigDecimal quantity;
+        private BigDecimal remainingQuantity;
+    }
+}
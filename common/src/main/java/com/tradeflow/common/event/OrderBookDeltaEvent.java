@@ -0,0 +1,49 @@
+package com.tradeflow.common.event;
+
+import com.tradeflow.common.enums.OrderSide;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Incremental (L2) order book update: only the levels that changed.
+ * Published by Matching Engine to Kafka.
+ *
+ * Update ids are per symbol and increase by one per book change. A consumer
+ * applies deltas whose {@code firstUpdateId} is its last seen id + 1; on a
+ * gap it resyncs from the next {@link OrderBookUpdateEvent} snapshot and
+ * drops deltas with {@code updateId} at or below the snapshot's.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBookDeltaEvent {
+
+    private String symbol;
+
+    // First and last update ids covered by this delta
+    private long firstUpdateId;
+    private long updateId;
+
+    private List<LevelChange> changes;
+
+    private Instant timestamp;
+
+    /**
+     * New aggregated quantity at a price; zero means the level was removed
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LevelChange {
+        private OrderSide side;
+        private BigDecimal price;
+        private BigDecimal quantity;
+    }
+}
@@ -10,8 +10,8 @@ import java.time.Instant;
 import java.util.List;
 
 /**
- * Event published when the order book changes.
- * Published by Matching Engine to Kafka.
+ * Full top-of-book snapshot, published periodically by Matching Engine to
+ * Kafka alongside the {@link OrderBookDeltaEvent} stream.
  */
 @Data
 @Builder
@@ -21,6 +21,9 @@ public class OrderBookUpdateEvent {
 
     private String symbol;
 
+    // Id of the last book update reflected in this snapshot
+    private long updateId;
+
     private List<PriceLevel> bids;
 
     private List<PriceLevel> asks;
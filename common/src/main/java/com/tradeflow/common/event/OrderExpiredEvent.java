@@ -0,0 +1,36 @@
+package com.tradeflow.common.event;
+
+import com.tradeflow.common.enums.TimeInForce;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Event published by Matching Engine when an immediate-or-cancel or
+ * fill-or-kill order leaves quantity unfilled. That quantity never rests,
+ * so OMS releases the funds reserved for it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderExpiredEvent {
+
+    private UUID orderId;
+
+    private String symbol;
+
+    private TimeInForce timeInForce;
+
+    // Filled by this order's own trades (reported separately)
+    private BigDecimal filledQuantity;
+
+    private BigDecimal expiredQuantity;
+
+    private Instant timestamp;
+}
@@ -2,6 +2,7 @@ package com.tradeflow.common.event;
 
 import com.tradeflow.common.enums.OrderSide;
 import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -24,7 +25,9 @@ public class OrderToMatchingEvent {
     private String symbol;
     private OrderSide side;
     private OrderType type;
+    private TimeInForce timeInForce;
     private BigDecimal price;
+    private BigDecimal stopPrice; // STOP and STOP_LIMIT only
     private BigDecimal quantity;
     private Instant timestamp;
 }
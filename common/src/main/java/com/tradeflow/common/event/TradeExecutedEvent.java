@@ -21,6 +21,9 @@ public class TradeExecutedEvent {
 
     private UUID tradeId;
 
+    // Per-symbol monotonic trade sequence (engine epoch + counter) behind tradeId
+    private long tradeSequence;
+
     private String symbol;
 
     // Buy side
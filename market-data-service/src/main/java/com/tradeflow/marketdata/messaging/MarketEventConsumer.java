@@ -1,6 +1,7 @@
 package com.tradeflow.marketdata.messaging;
 
 import com.tradeflow.common.constants.KafkaTopics;
+import com.tradeflow.common.event.OrderBookDeltaEvent;
 import com.tradeflow.common.event.OrderBookUpdateEvent;
 import com.tradeflow.common.event.TradeExecutedEvent;
 import lombok.RequiredArgsConstructor;
@@ -49,4 +50,17 @@ public class MarketEventConsumer {
                 "/topic/orderbook/" + event.getSymbol().toLowerCase(),
                 event);
     }
+
+    /**
+     * Handle incremental order book updates
+     */
+    @KafkaListener(topics = KafkaTopics.ORDERBOOK_DELTAS, groupId = "market-data-service")
+    public void handleOrderBookDelta(OrderBookDeltaEvent event) {
+        log.debug("Order book delta for {} (update {})", event.getSymbol(), event.getUpdateId());
+
+        // Clients apply deltas on top of the snapshots from /topic/orderbook/{symbol}
+        messagingTemplate.convertAndSend(
+                "/topic/orderbook/" + event.getSymbol().toLowerCase() + "/deltas",
+                event);
+    }
 }
@@ -0,0 +1,64 @@
+package com.tradeflow.matching.benchmarks;
+
+import com.tradeflow.matching.orderbook.BookOrder;
+import com.tradeflow.matching.orderbook.OrderBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resting orders that never cross: the level insert / append path.
+ * Each invocation fills an empty book with a batch of passive orders
+ * spread over 100 ticks per side.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddNoMatchBenchmark {
+
+    private static final int BATCH = 10_000;
+
+    @Param({"SKIP_LIST", "TICK_LADDER"})
+    private BookType bookType;
+
+    private BookOrder[] orders;
+    private OrderBook book;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        OrderFlow flow = new OrderFlow(42);
+        orders = new BookOrder[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            orders[i] = flow.passive(100);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyBook() {
+        book = bookType.create();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void addPassive(Blackhole blackhole) {
+        for (BookOrder order : orders) {
+            blackhole.consume(book.addOrder(order));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.tradeflow.matching.benchmarks;
+
+import com.tradeflow.matching.orderbook.OrderBook;
+import com.tradeflow.matching.orderbook.SkipListOrderBook;
+import com.tradeflow.matching.orderbook.TickLadderOrderBook;
+
+/**
+ * Order book implementations under benchmark
+ */
+public enum BookType {
+    SKIP_LIST,
+    TICK_LADDER;
+
+    // Window of the tick ladder, as configured for liquid symbols
+    private static final int LADDER_CAPACITY = 8192;
+
+    OrderBook create() {
+        return create(false);
+    }
+
+    /**
+     * @param offHeap keep resting orders in direct memory
+     */
+    OrderBook create(boolean offHeap) {
+        return switch (this) {
+            case SKIP_LIST -> new SkipListOrderBook(OrderFlow.SYMBOL, offHeap);
+            case TICK_LADDER -> new TickLadderOrderBook(OrderFlow.SYMBOL, OrderFlow.TICK, LADDER_CAPACITY, offHeap);
+        };
+    }
+}
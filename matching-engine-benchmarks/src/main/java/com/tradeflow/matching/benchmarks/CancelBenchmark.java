@@ -0,0 +1,76 @@
+package com.tradeflow.matching.benchmarks;
+
+import com.tradeflow.matching.orderbook.BookOrder;
+import com.tradeflow.matching.orderbook.OrderBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancels at different book depths. The book is held at a steady
+ * {@code depth} resting orders: each operation cancels a random resting
+ * order and re-adds it, so the figure is one cancel plus one passive add.
+ * Run with resting orders on and off the heap.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CancelBenchmark {
+
+    // Pre-drawn victims, cycled through
+    private static final int PICKS = 1 << 16;
+
+    @Param({"SKIP_LIST", "TICK_LADDER"})
+    private BookType bookType;
+
+    @Param({"1000", "10000", "100000"})
+    private int depth;
+
+    @Param({"false", "true"})
+    private boolean offHeap;
+
+    private BookOrder[] resting;
+    private int[] picks;
+    private int next;
+    private OrderBook book;
+
+    @Setup(Level.Trial)
+    public void loadBook() {
+        OrderFlow flow = new OrderFlow(42);
+        book = bookType.create(offHeap);
+        resting = new BookOrder[depth];
+        for (int i = 0; i < depth; i++) {
+            resting[i] = flow.passive(1000);
+            book.addOrder(resting[i]);
+        }
+        SplittableRandom random = new SplittableRandom(7);
+        picks = new int[PICKS];
+        for (int i = 0; i < PICKS; i++) {
+            picks[i] = random.nextInt(depth);
+        }
+    }
+
+    @Benchmark
+    public boolean cancelAndReplace(Blackhole blackhole) {
+        BookOrder order = resting[picks[next++ & (PICKS - 1)]];
+        boolean cancelled = book.cancelOrder(order.getOrderId(), order.getSide());
+        blackhole.consume(book.addOrder(order));
+        return cancelled;
+    }
+}
@@ -0,0 +1,66 @@
+package com.tradeflow.matching.benchmarks;
+
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.engine.MatchingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A realistic mix through {@link MatchingEngine}: mostly passive adds and
+ * cancels with some crossing and market orders (see {@link OrderFlow#mixed}).
+ * The seeded stream is replayed from the start against a fresh engine each
+ * time it runs out, so every pass sees the same book evolution.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MixedFlowBenchmark {
+
+    private static final int STREAM_LENGTH = 1 << 18;
+
+    @Param({"SKIP_LIST", "TICK_LADDER"})
+    private BookType bookType;
+
+    private OrderFlow.Op[] ops;
+    private int next;
+    private MatchingConfigProperties properties;
+    private MatchingEngine engine;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        ops = new OrderFlow(42).mixed(STREAM_LENGTH);
+        properties = new MatchingConfigProperties();
+        properties.getDefaultBook().setType(MatchingConfigProperties.BookType.valueOf(bookType.name()));
+        engine = new MatchingEngine(properties);
+    }
+
+    @Benchmark
+    public void mixed(Blackhole blackhole) {
+        if (next == STREAM_LENGTH) {
+            next = 0;
+            engine = new MatchingEngine(properties);
+        }
+        OrderFlow.Op op = ops[next++];
+        if (op.order() != null) {
+            blackhole.consume(engine.processOrder(op.order()));
+        } else {
+            blackhole.consume(engine.cancelOrder(OrderFlow.SYMBOL, op.cancelId(), op.cancelSide()));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.tradeflow.matching.benchmarks;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.matching.orderbook.BookOrder;
+import com.tradeflow.matching.orderbook.FixedPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Seeded synthetic order streams. Prices sit on a 0.01 tick grid around a
+ * fixed mid; the same seed always produces the same stream, so runs are
+ * comparable across changes.
+ */
+final class OrderFlow {
+
+    static final String SYMBOL = "BENCHUSDT";
+
+    static final long TICK = FixedPoint.ONE / 100;
+    static final long MID = 50_000 * FixedPoint.ONE;
+
+    private final SplittableRandom random;
+    private final long idPrefix;
+    private long nextId;
+
+    OrderFlow(long seed) {
+        this.random = new SplittableRandom(seed);
+        this.idPrefix = seed;
+    }
+
+    /**
+     * Price {@code ticks} away from the mid on the passive side: below it for
+     * bids, above it for asks ({@code ticks >= 1} never crosses)
+     */
+    static long passivePrice(OrderSide side, int ticks) {
+        return side == OrderSide.BUY ? MID - ticks * TICK : MID + ticks * TICK;
+    }
+
+    static OrderSide opposite(OrderSide side) {
+        return side == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY;
+    }
+
+    /**
+     * Size between 0.001 and 1.000
+     */
+    long quantity() {
+        return (1 + random.nextInt(1000)) * (FixedPoint.ONE / 1000);
+    }
+
+    OrderSide side() {
+        return random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+    }
+
+    BookOrder limit(OrderSide side, long price, long quantity) {
+        return order(side, OrderType.LIMIT, price, quantity);
+    }
+
+    BookOrder market(OrderSide side, long quantity) {
+        return order(side, OrderType.MARKET, 0, quantity);
+    }
+
+    /**
+     * Resting order on a random side, 1..{@code levels} ticks from the mid
+     */
+    BookOrder passive(int levels) {
+        OrderSide side = side();
+        return limit(side, passivePrice(side, 1 + random.nextInt(levels)), quantity());
+    }
+
+    private BookOrder order(OrderSide side, OrderType type, long price, long quantity) {
+        UUID id = new UUID(idPrefix, nextId++);
+        return BookOrder.builder()
+                .orderId(id)
+                .userId(id)
+                .symbol(SYMBOL)
+                .side(side)
+                .type(type)
+                .price(price)
+                .originalQuantity(quantity)
+                .remainingQuantity(quantity)
+                .build();
+    }
+
+    /**
+     * One step of a mixed flow: a new order, or a cancel of an earlier one
+     */
+    record Op(BookOrder order, UUID cancelId, OrderSide cancelSide) {
+    }
+
+    /**
+     * Realistic mix: 60% passive limits within 50 ticks, 25% cancels of
+     * earlier passive orders, 10% limits crossing up to 5 ticks through the
+     * touch, 5% market orders. Cancels may target orders that have since
+     * filled, as they do in production.
+     */
+    Op[] mixed(int length) {
+        Op[] ops = new Op[length];
+        List<BookOrder> resting = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            int roll = random.nextInt(100);
+            if (roll < 25 && !resting.isEmpty()) {
+                int index = random.nextInt(resting.size());
+                BookOrder cancelled = resting.get(index);
+                resting.set(index, resting.get(resting.size() - 1));
+                resting.remove(resting.size() - 1);
+                ops[i] = new Op(null, cancelled.getOrderId(), cancelled.getSide());
+            } else if (roll < 85) {
+                BookOrder order = passive(50);
+                resting.add(order);
+                ops[i] = new Op(order, null, null);
+            } else if (roll < 95) {
+                OrderSide side = side();
+                long price = passivePrice(opposite(side), 1 + random.nextInt(5));
+                ops[i] = new Op(limit(side, price, quantity()), null, null);
+            } else {
+                ops[i] = new Op(market(side(), quantity()), null, null);
+            }
+        }
+        return ops;
+    }
+}
@@ -0,0 +1,56 @@
+package com.tradeflow.matching.benchmarks;
+
+import com.tradeflow.matching.orderbook.OrderBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-of-book snapshots, as served to the REST API and feed bootstraps,
+ * over a book of about 2000 populated levels per side
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    private static final int LEVELS = 2000;
+
+    private static final int ORDERS = 20_000;
+
+    @Param({"SKIP_LIST", "TICK_LADDER"})
+    private BookType bookType;
+
+    @Param({"10", "100", "1000"})
+    private int depth;
+
+    private OrderBook book;
+
+    @Setup(Level.Trial)
+    public void loadBook() {
+        OrderFlow flow = new OrderFlow(42);
+        book = bookType.create();
+        for (int i = 0; i < ORDERS; i++) {
+            book.addOrder(flow.passive(LEVELS));
+        }
+    }
+
+    @Benchmark
+    public OrderBook.OrderBookSnapshot snapshot() {
+        return book.getSnapshot(depth);
+    }
+}
@@ -0,0 +1,79 @@
+package com.tradeflow.matching.benchmarks;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.matching.orderbook.BookOrder;
+import com.tradeflow.matching.orderbook.FixedPoint;
+import com.tradeflow.matching.orderbook.OrderBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggressive orders sweeping K price levels. Each invocation loads an ask
+ * side of one order per level, then market buys consume it K levels at a
+ * time, so every sweep crosses exactly {@code levels} levels.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SweepBenchmark {
+
+    private static final int SWEEPS = 1000;
+
+    private static final long LEVEL_QUANTITY = FixedPoint.ONE / 10;
+
+    @Param({"SKIP_LIST", "TICK_LADDER"})
+    private BookType bookType;
+
+    @Param({"1", "10", "100"})
+    private int levels;
+
+    private BookOrder[] makers;
+    private BookOrder[] takers;
+    private OrderBook book;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        OrderFlow flow = new OrderFlow(42);
+        makers = new BookOrder[SWEEPS * levels];
+        for (int i = 0; i < makers.length; i++) {
+            makers[i] = flow.limit(OrderSide.SELL, OrderFlow.passivePrice(OrderSide.SELL, 1 + i), LEVEL_QUANTITY);
+        }
+        takers = new BookOrder[SWEEPS];
+        for (int i = 0; i < SWEEPS; i++) {
+            takers[i] = flow.market(OrderSide.BUY, levels * LEVEL_QUANTITY);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void loadBook() {
+        book = bookType.create();
+        for (BookOrder maker : makers) {
+            book.addOrder(maker);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SWEEPS)
+    public void sweep(Blackhole blackhole) {
+        for (BookOrder taker : takers) {
+            blackhole.consume(book.addOrder(taker));
+        }
+    }
+}
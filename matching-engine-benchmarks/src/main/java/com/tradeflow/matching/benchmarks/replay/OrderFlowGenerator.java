@@ -0,0 +1,176 @@
+package com.tradeflow.matching.benchmarks.replay;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.matching.engine.EngineCommand;
+import com.tradeflow.matching.journal.CommandJournal;
+import com.tradeflow.matching.orderbook.BookOrder;
+import com.tradeflow.matching.orderbook.FixedPoint;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Writes a deterministic order flow for {@link ReplayHarness}.
+ *
+ * The flow is stored in the command journal format, so the harness replays
+ * generated flows and journals captured from a running engine alike. The
+ * same seed and settings always produce the same bytes.
+ *
+ * Per symbol, the mid price drifts in a random walk on a 0.01 tick grid.
+ * Sizes follow a Pareto distribution (many small orders, a heavy tail of
+ * large ones). The mix is 55% passive limits, 10% limits crossing the mid,
+ * 5% market orders and 30% cancels of earlier passive orders, some of which
+ * will have filled by then.
+ *
+ * Usage: {@code OrderFlowGenerator --out <dir> [--seed 42] [--orders 1000000] [--symbols 1]}
+ */
+public final class OrderFlowGenerator {
+
+    private static final long TICK = FixedPoint.ONE / 100;
+    private static final long START_MID = 50_000 * FixedPoint.ONE;
+
+    // Pareto sizes: minimum 0.001, shape 1.5, capped at 50
+    private static final double MIN_SIZE = 0.001;
+    private static final double SIZE_SHAPE = 1.5;
+    private static final double MAX_SIZE = 50;
+
+    // Mean distance of passive orders from the mid, in ticks
+    private static final double PASSIVE_MEAN_TICKS = 8;
+
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private final SplittableRandom random;
+    private final String[] symbols;
+    private final long[] mids;
+    private final List<List<BookOrder>> resting = new ArrayList<>();
+    private final long seed;
+    private long nextId;
+
+    OrderFlowGenerator(long seed, int symbolCount) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.symbols = new String[symbolCount];
+        this.mids = new long[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            symbols[i] = symbolName(i);
+            mids[i] = START_MID;
+            resting.add(new ArrayList<>());
+        }
+    }
+
+    static String symbolName(int index) {
+        return String.format("S%04dUSDT", index);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Arguments arguments = Arguments.parse(args);
+        Path out = Path.of(arguments.required("out"));
+        long seed = arguments.getLong("seed", 42);
+        long orders = arguments.getLong("orders", 1_000_000);
+        int symbolCount = (int) arguments.getLong("symbols", 1);
+
+        clear(out);
+        OrderFlowGenerator generator = new OrderFlowGenerator(seed, symbolCount);
+        try (CommandJournal journal = new CommandJournal(out, SEGMENT_SIZE, 0, 0)) {
+            journal.replay(0, command -> {
+            });
+            EngineCommand command = new EngineCommand();
+            for (long i = 0; i < orders; i++) {
+                generator.next(command, i);
+                journal.append(command);
+            }
+        }
+        System.out.printf("Wrote %,d commands for %d symbol(s) with seed %d to %s%n",
+                orders, symbolCount, seed, out.toAbsolutePath());
+    }
+
+    /**
+     * Fill {@code command} with the {@code index}-th command of the flow
+     */
+    void next(EngineCommand command, long index) {
+        int s = random.nextInt(symbols.length);
+        String symbol = symbols[s];
+        // Drift the mid by up to one tick either way
+        mids[s] += (random.nextInt(3) - 1) * TICK;
+        long mid = mids[s];
+        List<BookOrder> live = resting.get(s);
+
+        command.setSymbol(symbol);
+        command.setOrder(null);
+        command.setOrderId(null);
+        command.setSide(null);
+
+        int roll = random.nextInt(100);
+        if (roll < 30 && !live.isEmpty()) {
+            int victim = random.nextInt(live.size());
+            BookOrder order = live.get(victim);
+            live.set(victim, live.get(live.size() - 1));
+            live.remove(live.size() - 1);
+            command.setType(EngineCommand.Type.CANCEL_ORDER);
+            command.setOrderId(order.getOrderId());
+            command.setSide(order.getSide());
+            return;
+        }
+
+        OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+        int direction = side == OrderSide.BUY ? -1 : 1;
+        BookOrder order;
+        if (roll < 85) {
+            long ticks = 1 + (long) (-Math.log(1 - random.nextDouble()) * PASSIVE_MEAN_TICKS);
+            order = order(index, symbol, side, OrderType.LIMIT, mid + direction * ticks * TICK);
+            live.add(order);
+        } else if (roll < 95) {
+            long ticks = 1 + random.nextInt(5);
+            order = order(index, symbol, side, OrderType.LIMIT, mid - direction * ticks * TICK);
+        } else {
+            order = order(index, symbol, side, OrderType.MARKET, 0);
+        }
+        command.setType(EngineCommand.Type.NEW_ORDER);
+        command.setOrder(order);
+    }
+
+    private BookOrder order(long index, String symbol, OrderSide side, OrderType type, long price) {
+        UUID id = new UUID(seed, nextId++);
+        long quantity = paretoSize();
+        return BookOrder.builder()
+                .orderId(id)
+                .userId(id)
+                .symbol(symbol)
+                .side(side)
+                .type(type)
+                .price(price)
+                .originalQuantity(quantity)
+                .remainingQuantity(quantity)
+                // Synthetic clock, one order per microsecond
+                .timestamp(Instant.ofEpochSecond(0, index * 1_000))
+                .build();
+    }
+
+    private long paretoSize() {
+        double size = MIN_SIZE / Math.pow(1 - random.nextDouble(), 1 / SIZE_SHAPE);
+        // Whole lots of the minimum size
+        long lots = (long) (Math.min(size, MAX_SIZE) / MIN_SIZE);
+        return lots * (long) (MIN_SIZE * FixedPoint.ONE);
+    }
+
+    private static void clear(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                if (file.getFileName().toString().startsWith("segment-")) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
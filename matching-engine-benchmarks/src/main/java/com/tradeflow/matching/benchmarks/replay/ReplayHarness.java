@@ -0,0 +1,276 @@
+package com.tradeflow.matching.benchmarks.replay;
+
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.engine.EngineCommand;
+import com.tradeflow.matching.engine.MatchingEngine;
+import com.tradeflow.matching.journal.CommandJournal;
+import com.tradeflow.matching.orderbook.MatchResult;
+import com.tradeflow.matching.orderbook.OrderBook;
+import com.tradeflow.matching.orderbook.Trade;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.CRC32C;
+
+/**
+ * Replays an order flow through {@link MatchingEngine} as fast as it will go.
+ *
+ * The flow (see {@link OrderFlowGenerator}, or any engine journal) is read
+ * into memory first. Symbols are split over {@code --shards} threads the way
+ * the matching pipeline splits them, each running its commands straight
+ * through the engine and draining book deltas after every command as a
+ * shard does. Warm-up passes run on fresh engines before the measured pass.
+ *
+ * Reports orders and trades per second, per-command latency percentiles
+ * and a checksum over the trades and final books, so two engine versions
+ * can be compared on identical input: equal checksums mean equal matching.
+ *
+ * Usage: {@code ReplayHarness --flow <dir> [--shards 1] [--warmup 2] [--book SKIP_LIST]}
+ */
+public final class ReplayHarness {
+
+    private static final long JOURNAL_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private final List<EngineCommand> commands;
+    private final MatchingConfigProperties properties;
+    private final int shards;
+
+    ReplayHarness(List<EngineCommand> commands, MatchingConfigProperties properties, int shards) {
+        this.commands = commands;
+        this.properties = properties;
+        this.shards = shards;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Arguments arguments = Arguments.parse(args);
+        Path flow = Path.of(arguments.required("flow"));
+        int shards = (int) arguments.getLong("shards", 1);
+        int warmup = (int) arguments.getLong("warmup", 2);
+        MatchingConfigProperties properties = new MatchingConfigProperties();
+        properties.getDefaultBook().setType(
+                MatchingConfigProperties.BookType.valueOf(arguments.get("book", "SKIP_LIST")));
+
+        List<EngineCommand> commands = load(flow);
+        ReplayHarness harness = new ReplayHarness(commands, properties, shards);
+        System.out.printf("Loaded %,d commands from %s; %s books, %d shard(s)%n",
+                commands.size(), flow.toAbsolutePath(), properties.getDefaultBook().getType(), shards);
+
+        for (int i = 0; i < warmup; i++) {
+            Report report = harness.run();
+            System.out.printf("Warm-up %d: %,.0f orders/s%n", i + 1, report.ordersPerSecond());
+        }
+        harness.run().print();
+    }
+
+    /**
+     * Read every command of a flow into memory
+     */
+    static List<EngineCommand> load(Path flow) {
+        List<EngineCommand> commands = new ArrayList<>();
+        try (CommandJournal journal = new CommandJournal(flow, JOURNAL_SEGMENT_SIZE, 0, 0)) {
+            journal.replay(0, record -> {
+                EngineCommand copy = new EngineCommand();
+                copy.setType(record.getType());
+                copy.setSymbol(record.getSymbol());
+                copy.setOrder(record.getOrder());
+                copy.setOrderId(record.getOrderId());
+                copy.setSide(record.getSide());
+                copy.setPrice(record.getPrice());
+                copy.setQuantity(record.getQuantity());
+                commands.add(copy);
+            });
+        }
+        return commands;
+    }
+
+    /**
+     * One pass over the flow on a fresh engine
+     */
+    Report run() throws InterruptedException {
+        MatchingEngine engine = new MatchingEngine(properties);
+        List<List<EngineCommand>> partitions = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (EngineCommand command : commands) {
+            partitions.get(Math.floorMod(command.getSymbol().toUpperCase().hashCode(), shards)).add(command);
+        }
+
+        ShardRun[] runs = new ShardRun[shards];
+        Thread[] threads = new Thread[shards];
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < shards; i++) {
+            ShardRun run = new ShardRun(engine, partitions.get(i), start);
+            runs[i] = run;
+            threads[i] = new Thread(run, "replay-shard-" + i);
+            threads[i].start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - began;
+
+        long orders = 0;
+        long trades = 0;
+        long[] latencies = new long[commands.size()];
+        int filled = 0;
+        TreeMap<String, Long> tradeHashes = new TreeMap<>();
+        for (ShardRun run : runs) {
+            if (run.failure != null) {
+                throw new IllegalStateException("Replay shard failed", run.failure);
+            }
+            orders += run.orders;
+            trades += run.trades;
+            System.arraycopy(run.latencies, 0, latencies, filled, run.latencies.length);
+            filled += run.latencies.length;
+            tradeHashes.putAll(run.tradeHashes);
+        }
+        Arrays.sort(latencies);
+        return new Report(commands.size(), orders, trades, elapsed, latencies,
+                checksum(engine, tradeHashes));
+    }
+
+    /**
+     * CRC32C over every symbol, in name order, of its trade hash and the
+     * price, quantity and order count of each level of its final book.
+     * Built from the public book API rather than the snapshot encoding so
+     * it stays comparable across engine versions.
+     */
+    static long checksum(MatchingEngine engine, TreeMap<String, Long> tradeHashes) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(24);
+        for (Map.Entry<String, Long> entry : tradeHashes.entrySet()) {
+            crc.update(entry.getKey().getBytes(StandardCharsets.US_ASCII));
+            crc.update(buffer.clear().putLong(entry.getValue()).flip());
+            // The replay drives books without shards, so no views are published; read the book itself
+            OrderBook.OrderBookSnapshot snapshot = engine.getOrderBook(entry.getKey())
+                    .getSnapshot(Integer.MAX_VALUE);
+            for (List<OrderBook.PriceLevel> side : List.of(snapshot.bids(), snapshot.asks())) {
+                for (OrderBook.PriceLevel level : side) {
+                    crc.update(buffer.clear()
+                            .putLong(level.price())
+                            .putLong(level.quantity())
+                            .putLong(level.orderCount())
+                            .flip());
+                }
+                // Side separator
+                crc.update(buffer.clear().putLong(-1).flip());
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Commands of the symbols owned by one shard, run on their own thread
+     */
+    private static final class ShardRun implements Runnable {
+
+        private final MatchingEngine engine;
+        private final List<EngineCommand> commands;
+        private final CountDownLatch start;
+
+        private final long[] latencies;
+        // Per symbol rolling hash of (price, quantity, maker, taker) of every trade
+        private final TreeMap<String, Long> tradeHashes = new TreeMap<>();
+        private long orders;
+        private long trades;
+        private Throwable failure;
+
+        private ShardRun(MatchingEngine engine, List<EngineCommand> commands, CountDownLatch start) {
+            this.engine = engine;
+            this.commands = commands;
+            this.start = start;
+            this.latencies = new long[commands.size()];
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+                for (int i = 0; i < latencies.length; i++) {
+                    EngineCommand command = commands.get(i);
+                    long began = System.nanoTime();
+                    MatchResult result = execute(command);
+                    latencies[i] = System.nanoTime() - began;
+                    if (result != null) {
+                        orders++;
+                        trades += result.getTrades().size();
+                        hashTrades(command.getSymbol(), result);
+                    }
+                }
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+
+        private MatchResult execute(EngineCommand command) {
+            MatchResult result = null;
+            switch (command.getType()) {
+                case NEW_ORDER -> result = engine.processOrder(command.getOrder());
+                case CANCEL_ORDER -> engine.cancelOrder(command.getSymbol(), command.getOrderId(), command.getSide());
+                case CANCEL_REPLACE -> {
+                    OrderBook.CancelReplaceResult replaced = engine.cancelReplace(command.getSymbol(),
+                            command.getOrderId(), command.getSide(), command.getPrice(), command.getQuantity());
+                    result = replaced.match();
+                }
+            }
+            OrderBook book = engine.getOrderBook(command.getSymbol());
+            if (book != null) {
+                book.drainChanges();
+            }
+            return result;
+        }
+
+        private void hashTrades(String symbol, MatchResult result) {
+            if (!result.hasTrades()) {
+                tradeHashes.putIfAbsent(symbol, 0L);
+                return;
+            }
+            long hash = tradeHashes.getOrDefault(symbol, 0L);
+            for (Trade trade : result.getTrades()) {
+                hash = 31 * hash + trade.getPrice();
+                hash = 31 * hash + trade.getQuantity();
+                hash = 31 * hash + trade.getMakerOrderId().hashCode();
+                hash = 31 * hash + trade.getTakerOrderId().hashCode();
+            }
+            tradeHashes.put(symbol, hash);
+        }
+    }
+
+    record Report(long commands, long orders, long trades, long elapsedNanos, long[] sortedLatencies,
+                  long checksum) {
+
+        double ordersPerSecond() {
+            return orders * 1e9 / elapsedNanos;
+        }
+
+        double tradesPerSecond() {
+            return trades * 1e9 / elapsedNanos;
+        }
+
+        long percentile(double p) {
+            int index = (int) Math.ceil(p / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+        }
+
+        void print() {
+            System.out.printf("Commands:   %,d in %.3f s (%,.0f/s)%n",
+                    commands, elapsedNanos / 1e9, commands * 1e9 / elapsedNanos);
+            System.out.printf("Orders:     %,d (%,.0f/s)%n", orders, ordersPerSecond());
+            System.out.printf("Trades:     %,d (%,.0f/s)%n", trades, tradesPerSecond());
+            System.out.printf("Latency ns: p50=%,d p90=%,d p99=%,d p99.9=%,d p99.99=%,d max=%,d%n",
+                    percentile(50), percentile(90), percentile(99), percentile(99.9), percentile(99.99),
+                    sortedLatencies.length > 0 ? sortedLatencies[sortedLatencies.length - 1] : 0);
+            System.out.printf("Checksum:   %08x%n", checksum);
+        }
+    }
+}
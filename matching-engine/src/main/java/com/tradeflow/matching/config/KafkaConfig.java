@@ -1,9 +1,12 @@
 package com.tradeflow.matching.config;
 
 import com.tradeflow.common.constants.KafkaTopics;
+import com.tradeflow.matching.messaging.KafkaOrderConsumer;
+import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,6 +15,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
@@ -24,8 +28,11 @@ import java.util.Objects;
  * Uses Platform Threads (not Virtual Threads) for CPU-bound processing.
  */
 @Configuration
+@RequiredArgsConstructor
 public class KafkaConfig {
 
+    private final MatchingConfigProperties matchingProperties;
+
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
@@ -33,23 +40,47 @@ public class KafkaConfig {
     // Producer Configuration
     // ============================================
 
+    /**
+     * Trades producer (trades.executed)
+     */
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
+        return producerFactory(matchingProperties.getPublishing().getTrades());
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate() {
+        return new KafkaTemplate<>(Objects.requireNonNull(producerFactory()));
+    }
+
+    /**
+     * Market data producer (orderbook.deltas, orderbook.updates), tuned separately
+     */
+    @Bean
+    public ProducerFactory<String, Object> marketDataProducerFactory() {
+        return producerFactory(matchingProperties.getPublishing().getMarketData());
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> marketDataKafkaTemplate() {
+        return new KafkaTemplate<>(Objects.requireNonNull(marketDataProducerFactory()));
+    }
+
+    private ProducerFactory<String, Object> producerFactory(MatchingConfigProperties.Producer tuning) {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ACKS_CONFIG, tuning.getAcks());
         config.put(ProducerConfig.RETRIES_CONFIG, 3);
-        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        // Idempotence requires acks=all
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "all".equals(tuning.getAcks()));
+        config.put(ProducerConfig.LINGER_MS_CONFIG, (int) tuning.getLinger().toMillis());
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, (int) tuning.getBatchSize().toBytes());
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, tuning.getCompression());
         return Objects.requireNonNull(new DefaultKafkaProducerFactory<>(config));
     }
 
-    @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(Objects.requireNonNull(producerFactory()));
-    }
-
     // ============================================
     // Consumer Configuration
     // ============================================
@@ -77,15 +108,40 @@ public class KafkaConfig {
         return factory;
     }
 
+    /**
+     * Order ingest from orders.to-matching (Kafka transport only). One
+     * consumer per engine, so rebalances of all its partitions run on one
+     * thread; {@link KafkaOrderConsumer} acknowledges once orders are published.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> orderKafkaListenerContainerFactory(
+            KafkaOrderConsumer orderConsumer) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(Objects.requireNonNull(consumerFactory()));
+        factory.setConcurrency(1);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(orderConsumer);
+        factory.setAutoStartup(matchingProperties.getIngest().getTransport()
+                == MatchingConfigProperties.OrderTransport.KAFKA);
+        return factory;
+    }
+
     // ============================================
     // Topic Declarations
     // ============================================
 
+    /**
+     * Books are rebuilt from a partition checkpoint plus the records after
+     * it, so records are kept for the configured retention, by time only
+     */
     @Bean
     public NewTopic ordersToMatchingTopic() {
+        MatchingConfigProperties.Ingest ingest = matchingProperties.getIngest();
         return TopicBuilder.name(KafkaTopics.ORDERS_TO_MATCHING)
-                .partitions(3)
+                .partitions(ingest.getPartitions())
                 .replicas(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(ingest.getRetention().toMillis()))
+                .config(TopicConfig.RETENTION_BYTES_CONFIG, "-1")
                 .build();
     }
 
@@ -104,4 +160,20 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
+
+    @Bean
+    public NewTopic orderBookDeltasTopic() {
+        return TopicBuilder.name(KafkaTopics.ORDERBOOK_DELTAS)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    public NewTopic orderBookOrdersTopic() {
+        return TopicBuilder.name(KafkaTopics.ORDERBOOK_ORDERS)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
 }
@@ -0,0 +1,471 @@
+package com.tradeflow.matching.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import com.tradeflow.matching.engine.IdleStrategy;
+import com.tradeflow.matching.replication.ReplicationRole;
+
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for the Matching Engine
+ */
+@Configuration
+@ConfigurationProperties(prefix = "tradeflow.matching")
+@Data
+public class MatchingConfigProperties {
+
+    /**
+     * Book settings used for symbols without an explicit entry
+     */
+    private Book defaultBook = new Book();
+
+    /**
+     * Per-symbol book settings, keyed by upper-case symbol (e.g. BTCUSDT)
+     */
+    private Map<String, Book> books = new HashMap<>();
+
+    /**
+     * Where orders and cancel/replace commands arrive from
+     */
+    private Ingest ingest = new Ingest();
+
+    /**
+     * Matching pipeline threading and buffering
+     */
+    private Pipeline pipeline = new Pipeline();
+
+    /**
+     * Command journal used to rebuild books after a restart
+     */
+    private Journal journal = new Journal();
+
+    /**
+     * Kafka publishing of trades and market data
+     */
+    private Publishing publishing = new Publishing();
+
+    /**
+     * Per-stage latency histograms of the matching path
+     */
+    private Latency latency = new Latency();
+
+    /**
+     * Primary/standby replication of the journaled command stream
+     */
+    private Replication replication = new Replication();
+
+    /**
+     * Resolve book settings for a symbol
+     */
+    public Book bookFor(String symbol) {
+        return books.getOrDefault(symbol, defaultBook);
+    }
+
+    public enum BookType {
+        /**
+         * Sorted skip-list levels, suits sparse or unknown price distributions
+         */
+        SKIP_LIST,
+
+        /**
+         * Tick-indexed circular array, suits books that are dense around the touch
+         */
+        TICK_LADDER
+    }
+
+    public enum OrderStorage {
+        /**
+         * Primitive arrays on the Java heap
+         */
+        HEAP,
+
+        /**
+         * Fixed-width direct memory slots the garbage collector never scans,
+         * for books with millions of resting orders
+         */
+        OFF_HEAP
+    }
+
+    public enum OrderTransport {
+        /**
+         * The shared matching order queue; one engine holds every symbol
+         */
+        RABBITMQ,
+
+        /**
+         * The orders.to-matching topic keyed by symbol; each engine holds the
+         * symbols of the partitions assigned to it
+         */
+        KAFKA
+    }
+
+    @Data
+    public static class Ingest {
+        /**
+         * Order source; must match what OMS publishes to. KAFKA rebuilds books
+         * from partition checkpoints and the topic, so it needs the journal
+         * and replication off.
+         */
+        private OrderTransport transport = OrderTransport.RABBITMQ;
+
+        /**
+         * Partitions of orders.to-matching, i.e. the most engines symbols can
+         * be spread over. Symbols map to partitions by key hash, so changing
+         * it on an existing topic moves symbols away from their history.
+         */
+        private int partitions = 3;
+
+        /**
+         * How long a revoked partition's in-flight orders may take to be
+         * published before the partition is handed over anyway
+         */
+        private Duration revokeDrainTimeout = Duration.ofSeconds(5);
+
+        /**
+         * How often the books of each partition are checkpointed (to Redis)
+         * with the offset they were taken at. A newly assigned partition is
+         * restored from its checkpoint and read from that offset on, not
+         * from the beginning.
+         */
+        private Duration checkpointInterval = Duration.ofMinutes(1);
+
+        /**
+         * How long orders.to-matching keeps records. Books are rebuilt from
+         * a checkpoint plus the records after it, so this must comfortably
+         * exceed the checkpoint interval, and any time checkpoints may fail
+         * to be written.
+         */
+        private Duration retention = Duration.ofDays(7);
+    }
+
+    @Data
+    public static class Book {
+        /**
+         * Order book implementation
+         */
+        private BookType type = BookType.SKIP_LIST;
+
+        /**
+         * Price increment of one ladder slot (TICK_LADDER only)
+         */
+        private BigDecimal tickSize = new BigDecimal("0.01");
+
+        /**
+         * Number of ticks held in the ladder window, power of two (TICK_LADDER only)
+         */
+        private int ladderCapacity = 8192;
+
+        /**
+         * Where resting orders are kept. OFF_HEAP takes them out of the heap
+         * at the cost of a level lookup per fill and cancel; size
+         * -XX:MaxDirectMemorySize for about 88 bytes per resting order.
+         */
+        private OrderStorage orderStorage = OrderStorage.HEAP;
+
+        /**
+         * Minimum time between two published book deltas; changes in between are
+         * merged into the next one. 0 publishes after every order. Trades are
+         * never conflated.
+         */
+        private Duration conflationInterval = Duration.ofMillis(50);
+
+        /**
+         * Publish straight away, ignoring the interval, when best bid/ask price or size changes
+         */
+        private boolean flushOnTopOfBookChange = false;
+
+        /**
+         * Publish the market-by-order (L3) feed; when off, books record nothing for it
+         */
+        private boolean marketByOrder = false;
+
+        /**
+         * Ids of the most recent orders each book remembers after they
+         * filled or were cancelled, so an order delivered again (e.g. after
+         * a crash between journal sync and broker ack) is rejected instead
+         * of matched twice. 0 only rejects orders still in the book.
+         */
+        private int duplicateWindow = 8192;
+    }
+
+    @Data
+    public static class Pipeline {
+        /**
+         * Number of matching shards; each owns one matching and one output thread
+         */
+        private int shards = 2;
+
+        /**
+         * Inbound command ring size per shard, power of two
+         */
+        private int ringSize = 8192;
+
+        /**
+         * Output ring size per shard, power of two
+         */
+        private int outputRingSize = 8192;
+
+        /**
+         * How shard threads wait for work. BUSY_SPIN is lowest latency but
+         * burns a core per thread; pin those threads with taskset/isolcpus.
+         */
+        private IdleStrategy idleStrategy = IdleStrategy.BACKOFF;
+
+        /**
+         * Levels per side in the periodic full book snapshots
+         */
+        private int bookUpdateDepth = 10;
+
+        /**
+         * How often a full book snapshot is published next to the L2 deltas
+         */
+        private Duration bookSnapshotInterval = Duration.ofSeconds(1);
+
+        /**
+         * Levels per side in the book snapshots served to depth requests.
+         * Only caps those responses; fill estimates always walk the full book.
+         */
+        private int viewDepth = 50;
+
+        /**
+         * Minimum time between two copies of a book's full depth, which fill
+         * estimates are priced against. Views published in between keep the
+         * last copy, so estimates may lag the book by up to this long; each
+         * copy costs O(levels) on the matching thread. 0 copies with every
+         * view.
+         */
+        private Duration fillEstimateInterval = Duration.ofMillis(100);
+
+        /**
+         * RabbitMQ listener threads decoding into the shard rings. Per-symbol
+         * ordering across threads is only kept with a single consumer.
+         */
+        private int listenerConcurrency = 1;
+
+        /**
+         * Unacknowledged deliveries RabbitMQ may push to each listener
+         */
+        private int listenerPrefetch = 250;
+
+        /**
+         * Deliveries handed to the listener at once and acked together;
+         * 1 settles every delivery on its own
+         */
+        private int listenerBatchSize = 50;
+
+        /**
+         * How long the listener waits for more deliveries before handing
+         * over a partial batch
+         */
+        private Duration listenerBatchTimeout = Duration.ofMillis(5);
+    }
+
+    @Data
+    public static class Journal {
+        /**
+         * Journal accepted commands before matching and replay them on startup
+         */
+        private boolean enabled = true;
+
+        /**
+         * Base directory; each shard journals into its own shard-N subdirectory.
+         * Symbols map to shards by hash, so keep the shard count fixed for the
+         * lifetime of a journal.
+         */
+        private String directory = "data/journal";
+
+        /**
+         * Size of each memory-mapped segment file
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Force the journal to disk after this many commands; 0 leaves flushing
+         * to the OS (survives a process crash, not a power loss). Deliveries are
+         * only acknowledged once their commands have been forced.
+         */
+        private int fsyncBatchSize = 256;
+
+        /**
+         * Upper bound on how long a journaled command waits for its fsync
+         */
+        private Duration fsyncInterval = Duration.ofMillis(2);
+
+        /**
+         * How often each shard snapshots its books (also done on shutdown);
+         * 0 snapshots only on shutdown
+         */
+        private Duration snapshotInterval = Duration.ofMinutes(5);
+
+        /**
+         * Snapshots kept per shard; journal segments older than the oldest kept
+         * snapshot are deleted. 0 disables snapshots.
+         */
+        private int snapshotsRetained = 2;
+    }
+
+    @Data
+    public static class Publishing {
+        /**
+         * Trade records sent to Kafka but not yet acknowledged by it. When
+         * reached, the output stage blocks, which backs up the shard rings and
+         * in turn the RabbitMQ listeners.
+         */
+        private int maxInFlightTrades = 8192;
+
+        /**
+         * Where trades Kafka did not acknowledge are kept until they are
+         * resent successfully
+         */
+        private String outboxDirectory = "data/trade-outbox";
+
+        /**
+         * Where confirmations RabbitMQ did not accept for OMS are kept until
+         * they are resent successfully
+         */
+        private String responseOutboxDirectory = "data/response-outbox";
+
+        /**
+         * First delay before resending parked trades or confirmations;
+         * doubled after every failed attempt, up to {@code maxRetryBackoff}
+         */
+        private Duration retryBackoff = Duration.ofMillis(100);
+
+        private Duration maxRetryBackoff = Duration.ofSeconds(30);
+
+        /**
+         * Producer for trades.executed: durable, small linger
+         */
+        private Producer trades = new Producer(Duration.ofMillis(1), DataSize.ofKilobytes(64), "lz4", "all");
+
+        /**
+         * Producer for orderbook.deltas / orderbook.updates: throughput over durability
+         */
+        private Producer marketData = new Producer(Duration.ofMillis(5), DataSize.ofKilobytes(256), "lz4", "1");
+    }
+
+    @Data
+    public static class Latency {
+        /**
+         * Time each stage of every order and record it per symbol
+         */
+        private boolean enabled = true;
+
+        /**
+         * How often histograms are rolled over; exported percentiles cover the last interval
+         */
+        private Duration interval = Duration.ofSeconds(10);
+
+        /**
+         * Largest recordable latency; longer ones are recorded as this
+         */
+        private Duration highestTrackable = Duration.ofMinutes(1);
+
+        /**
+         * Histogram precision in significant decimal digits (1-5); each one
+         * more costs about ten times the memory per symbol and stage
+         */
+        private int significantDigits = 2;
+    }
+
+    @Data
+    public static class Replication {
+        /**
+         * NONE runs stand-alone; a PRIMARY streams its journaled commands to a
+         * STANDBY, which applies them without consuming orders until promoted.
+         * Both need the journal, and the same shard count.
+         */
+        private ReplicationRole role = ReplicationRole.NONE;
+
+        /**
+         * Address the primary (or a promoted standby) accepts standbys on
+         */
+        private String bindAddress = "0.0.0.0";
+
+        /**
+         * Port the primary (or a promoted standby) accepts standbys on; 0 disables it
+         */
+        private int port = 9184;
+
+        /**
+         * Primary a standby replicates from
+         */
+        private String primaryHost = "localhost";
+
+        private int primaryPort = 9184;
+
+        /**
+         * Hold back acknowledgements until the standby has applied the commands,
+         * so a promoted standby has everything OMS was told about
+         */
+        private boolean synchronous = true;
+
+        /**
+         * How long the primary waits for the standby before dropping it and
+         * carrying on alone
+         */
+        private Duration ackTimeout = Duration.ofMillis(500);
+
+        /**
+         * Primary sends a heartbeat when idle this long
+         */
+        private Duration heartbeatInterval = Duration.ofMillis(100);
+
+        /**
+         * Standby considers the primary gone after this long without data
+         */
+        private Duration peerTimeout = Duration.ofSeconds(1);
+
+        /**
+         * How long a standby waits before reconnecting
+         */
+        private Duration reconnectDelay = Duration.ofSeconds(1);
+
+        /**
+         * How often the primary sends a checksum of its books for the standby
+         * to compare against; each costs one copy of the shard's books
+         */
+        private Duration checksumInterval = Duration.ofSeconds(10);
+
+        /**
+         * Records buffered per shard for the standby, power of two; when full
+         * the matching thread waits for the sender
+         */
+        private int ringSize = 8192;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Producer {
+        /**
+         * How long the producer waits to fill a batch (linger.ms)
+         */
+        private Duration linger;
+
+        /**
+         * Maximum batch size per partition (batch.size)
+         */
+        private DataSize batchSize;
+
+        /**
+         * compression.type: none, gzip, snappy, lz4 or zstd
+         */
+        private String compression;
+
+        /**
+         * acks: all enables idempotence, 1 or 0 trade durability for latency
+         */
+        private String acks;
+    }
+}
@@ -1,6 +1,8 @@
 package com.tradeflow.matching.config;
 
 import com.tradeflow.common.constants.RabbitMQConstants;
+import com.tradeflow.matching.replication.ReplicationRole;
+import lombok.RequiredArgsConstructor;
 import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
@@ -18,8 +20,11 @@ import org.springframework.context.annotation.Configuration;
  * RabbitMQ configuration for receiving orders from OMS.
  */
 @Configuration
+@RequiredArgsConstructor
 public class RabbitMQConfig {
 
+    private final MatchingConfigProperties matchingProperties;
+
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -55,6 +60,13 @@ public class RabbitMQConfig {
                 .with(RabbitMQConstants.ROUTING_ORDER_TO_MATCHING);
     }
 
+    @Bean
+    public Binding matchingCancelReplaceBinding() {
+        return BindingBuilder.bind(matchingOrderQueue())
+                .to(orderExchange())
+                .with(RabbitMQConstants.ROUTING_ORDER_CANCEL_REPLACE);
+    }
+
     @Bean
     public Binding matchingOrderDlqBinding() {
         return BindingBuilder.bind(matchingOrderDlq())
@@ -64,11 +76,22 @@ public class RabbitMQConfig {
 
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory) {
+        MatchingConfigProperties.Pipeline pipeline = matchingProperties.getPipeline();
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(jsonMessageConverter());
         factory.setAcknowledgeMode(AcknowledgeMode.MANUAL); // manual ack aligns with listener basicAck/basicNack
-        factory.setPrefetchCount(10);
+        factory.setPrefetchCount(Math.max(pipeline.getListenerPrefetch(), pipeline.getListenerBatchSize()));
+        // Listener threads only decode; matching runs on the pipeline shards
+        factory.setConcurrentConsumers(pipeline.getListenerConcurrency());
+        // Hand the listener raw deliveries in batches, acked with one multiple ack
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(Math.max(1, pipeline.getListenerBatchSize()));
+        factory.setReceiveTimeout(pipeline.getListenerBatchTimeout().toMillis());
+        // A standby only consumes orders once promoted; with Kafka ingest, never
+        factory.setAutoStartup(matchingProperties.getReplication().getRole() != ReplicationRole.STANDBY
+                && matchingProperties.getIngest().getTransport() == MatchingConfigProperties.OrderTransport.RABBITMQ);
         return factory;
     }
 }
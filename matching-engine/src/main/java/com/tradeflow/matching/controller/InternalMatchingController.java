@@ -0,0 +1,34 @@
+package com.tradeflow.matching.controller;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.matching.engine.MatchingEngine;
+import com.tradeflow.matching.orderbook.OrderBook;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Service-to-service queries, kept apart from the monitoring API.
+ * Values stay fixed-point longs (8 implied decimals) on the wire, so a call
+ * is one walk over the published book view with no decimal conversion or logging.
+ */
+@RestController
+@RequestMapping("/internal/matching")
+@RequiredArgsConstructor
+public class InternalMatchingController {
+
+    private final MatchingEngine matchingEngine;
+
+    /**
+     * Quote cost of filling {@code quantity}, used by OMS to size market
+     * buy reservations
+     */
+    @GetMapping("/{symbol}/fill-cost")
+    public ResponseEntity<OrderBook.FillEstimate> getFillCost(
+            @PathVariable String symbol,
+            @RequestParam OrderSide side,
+            @RequestParam long quantity) {
+        OrderBook.FillEstimate estimate = matchingEngine.estimateFill(symbol, side, quantity);
+        return estimate != null ? ResponseEntity.ok(estimate) : ResponseEntity.notFound().build();
+    }
+}
@@ -1,17 +1,26 @@
 package com.tradeflow.matching.controller;
 
+import com.tradeflow.common.enums.OrderSide;
 import com.tradeflow.matching.engine.MatchingEngine;
+import com.tradeflow.matching.metrics.LatencyMetrics;
+import com.tradeflow.matching.orderbook.FixedPoint;
 import com.tradeflow.matching.orderbook.OrderBook;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
 import java.util.List;
 
 /**
  * REST Controller for Matching Engine monitoring and order book queries.
- * These are read-only endpoints for monitoring purposes.
+ * These are read-only endpoints for monitoring purposes, served from the
+ * book views the matching threads publish, never from the live books.
+ * Fixed-point engine values are converted to BigDecimal here.
  */
 @RestController
 @RequestMapping("/api/matching")
@@ -20,12 +29,13 @@ import java.util.List;
 public class MatchingController {
 
     private final MatchingEngine matchingEngine;
+    private final LatencyMetrics latencyMetrics;
 
     /**
      * Get order book snapshot for a symbol
      */
     @GetMapping("/orderbook/{symbol}")
-    public ResponseEntity<OrderBook.OrderBookSnapshot> getOrderBook(
+    public ResponseEntity<OrderBookResponse> getOrderBook(
             @PathVariable String symbol,
             @RequestParam(defaultValue = "10") int depth) {
         log.debug("Getting order book for {} (depth: {})", symbol, depth);
@@ -34,21 +44,75 @@ public class MatchingController {
         if (snapshot == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(snapshot);
+        return ResponseEntity.ok(OrderBookResponse.from(snapshot));
     }
 
     /**
      * Get book statistics for a symbol
      */
     @GetMapping("/stats/{symbol}")
-    public ResponseEntity<MatchingEngine.BookStats> getStats(@PathVariable String symbol) {
+    public ResponseEntity<BookStatsResponse> getStats(@PathVariable String symbol) {
         log.debug("Getting stats for {}", symbol);
 
         MatchingEngine.BookStats stats = matchingEngine.getBookStats(symbol);
         if (stats == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok(BookStatsResponse.from(stats));
+    }
+
+    /**
+     * Quote cost of filling a quantity against the book, without matching
+     */
+    @GetMapping("/cost/{symbol}")
+    public ResponseEntity<FillEstimateResponse> getFillCost(
+            @PathVariable String symbol,
+            @RequestParam OrderSide side,
+            @RequestParam BigDecimal quantity) {
+        OrderBook.FillEstimate estimate = matchingEngine.estimateFill(symbol, side, FixedPoint.toLong(quantity));
+        if (estimate == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(FillEstimateResponse.from(symbol, side, estimate));
+    }
+
+    /**
+     * Quantity fillable for a quote budget, without matching
+     */
+    @GetMapping("/fillable/{symbol}")
+    public ResponseEntity<FillEstimateResponse> getFillableQuantity(
+            @PathVariable String symbol,
+            @RequestParam OrderSide side,
+            @RequestParam BigDecimal notional) {
+        OrderBook.FillEstimate estimate = matchingEngine.estimateFillForNotional(
+                symbol, side, FixedPoint.toLong(notional));
+        if (estimate == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(FillEstimateResponse.from(symbol, side, estimate));
+    }
+
+    /**
+     * Symbols with recorded stage latencies
+     */
+    @GetMapping("/latency")
+    public ResponseEntity<List<String>> getLatencySymbols() {
+        return ResponseEntity.ok(latencyMetrics.getSymbols());
+    }
+
+    /**
+     * Dump the full stage latency histograms of a symbol (microseconds),
+     * since startup or for the last completed interval only
+     */
+    @GetMapping(value = "/latency/{symbol}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getLatencyHistograms(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "false") boolean lastInterval) {
+        String histograms = latencyMetrics.dump(symbol.toUpperCase(), lastInterval);
+        if (histograms == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(histograms);
     }
 
     /**
@@ -72,4 +136,81 @@ public class MatchingController {
 
     public record HealthStatus(String status, int activeSymbols, long timestamp) {
     }
+
+    public record PriceLevelResponse(BigDecimal price, BigDecimal quantity, int orderCount) {
+
+        static PriceLevelResponse from(OrderBook.PriceLevel level) {
+            return new PriceLevelResponse(
+                    FixedPoint.toBigDecimal(level.price()),
+                    FixedPoint.toBigDecimal(level.quantity()),
+                    level.orderCount());
+        }
+    }
+
+    public record OrderBookResponse(
+            String symbol,
+            long updateId,
+            List<PriceLevelResponse> bids,
+            List<PriceLevelResponse> asks,
+            Instant timestamp) {
+
+        static OrderBookResponse from(OrderBook.OrderBookSnapshot snapshot) {
+            return new OrderBookResponse(
+                    snapshot.symbol(),
+                    snapshot.updateId(),
+                    snapshot.bids().stream().map(PriceLevelResponse::from).toList(),
+                    snapshot.asks().stream().map(PriceLevelResponse::from).toList(),
+                    snapshot.timestamp());
+        }
+    }
+
+    public record FillEstimateResponse(
+            String symbol,
+            OrderSide side,
+            BigDecimal quantity,
+            BigDecimal notional,
+            BigDecimal averagePrice,
+            BigDecimal worstPrice,
+            boolean bookExhausted) {
+
+        static FillEstimateResponse from(String symbol, OrderSide side, OrderBook.FillEstimate estimate) {
+            BigDecimal quantity = FixedPoint.toBigDecimal(estimate.quantity());
+            BigDecimal notional = FixedPoint.toBigDecimal(estimate.notional());
+            return new FillEstimateResponse(
+                    symbol,
+                    side,
+                    quantity,
+                    notional,
+                    estimate.quantity() > 0
+                            ? notional.divide(quantity, FixedPoint.SCALE, RoundingMode.HALF_UP)
+                            : null,
+                    estimate.worstPrice() != OrderBook.NO_PRICE ? FixedPoint.toBigDecimal(estimate.worstPrice()) : null,
+                    estimate.exhausted());
+        }
+    }
+
+    public record BookStatsResponse(
+            String symbol,
+            BigDecimal bestBid,
+            BigDecimal bestAsk,
+            BigDecimal spread,
+            int bidDepth,
+            int askDepth,
+            int stopOrders) {
+
+        static BookStatsResponse from(MatchingEngine.BookStats stats) {
+            return new BookStatsResponse(
+                    stats.symbol(),
+                    toPrice(stats.bestBid()),
+                    toPrice(stats.bestAsk()),
+                    toPrice(stats.spread()),
+                    stats.bidDepth(),
+                    stats.askDepth(),
+                    stats.stopOrders());
+        }
+
+        private static BigDecimal toPrice(long value) {
+            return value != OrderBook.NO_PRICE ? FixedPoint.toBigDecimal(value) : null;
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package com.tradeflow.matching.controller;
+
+import com.tradeflow.matching.engine.MatchingPipeline;
+import com.tradeflow.matching.messaging.OrderConsumer;
+import com.tradeflow.matching.replication.ReplicationStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Primary/standby replication status and standby promotion
+ */
+@RestController
+@RequestMapping("/api/matching/replication")
+@RequiredArgsConstructor
+@Slf4j
+public class ReplicationController {
+
+    private final MatchingPipeline matchingPipeline;
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+
+    /**
+     * Role and per-shard replication progress
+     */
+    @GetMapping
+    public ResponseEntity<ReplicationStatus> getStatus() {
+        return ResponseEntity.ok(matchingPipeline.replicationStatus());
+    }
+
+    /**
+     * Promote this standby to primary and start consuming orders
+     */
+    @PostMapping("/promote")
+    public ResponseEntity<PromotionResponse> promote() throws InterruptedException {
+        log.warn("Promoting standby to primary");
+        long millis;
+        try {
+            millis = matchingPipeline.promote();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(new PromotionResponse(false, e.getMessage(), 0));
+        }
+        listenerRegistry.getListenerContainer(OrderConsumer.LISTENER_ID).start();
+        return ResponseEntity.ok(new PromotionResponse(true, "Promoted to primary", millis));
+    }
+
+    public record PromotionResponse(boolean promoted, String message, long elapsedMillis) {
+    }
+}
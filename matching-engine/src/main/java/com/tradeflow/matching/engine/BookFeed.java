@@ -0,0 +1,87 @@
+package com.tradeflow.matching.engine;
+
+import com.tradeflow.matching.metrics.SymbolLatency;
+import com.tradeflow.matching.orderbook.OrderBook;
+
+/**
+ * Market data publishing state of one book, owned by its shard's matching
+ * thread. Book changes are conflated: at most one delta goes out per
+ * {@code intervalNanos}, except that a top-of-book change can be flushed
+ * straight away.
+ */
+final class BookFeed {
+
+    final String symbol;
+    final OrderBook book;
+    final long intervalNanos;
+    final boolean flushOnTopOfBookChange;
+
+    // Stage latencies of this symbol; null when not recorded
+    final SymbolLatency latency;
+
+    // Waiting in the shard's list of feeds with unpublished changes
+    boolean pending;
+    // Waiting in the shard's list of books whose view is out of date
+    boolean viewStale;
+    // Waiting in the shard's list of views with an outdated depth copy
+    boolean depthLagging;
+    // When the depth behind the view's fill estimates was last copied
+    long depthCopiedNanos;
+    long lastPublishNanos;
+
+    // Book update id and top of book as of the last published delta
+    // (nothing published yet for a new feed)
+    private long publishedUpdateId = -1;
+    private long bidPrice;
+    private long bidQuantity;
+    private long askPrice;
+    private long askQuantity;
+
+    BookFeed(String symbol, OrderBook book, long intervalNanos, boolean flushOnTopOfBookChange,
+            SymbolLatency latency) {
+        this.symbol = symbol;
+        this.book = book;
+        this.intervalNanos = intervalNanos;
+        this.flushOnTopOfBookChange = flushOnTopOfBookChange;
+        this.latency = latency;
+        // Allow the first change to go out immediately
+        this.lastPublishNanos = System.nanoTime() - intervalNanos;
+    }
+
+    /**
+     * Whether the book has changed since the last published delta
+     */
+    boolean hasChanges() {
+        return book.getUpdateId() != publishedUpdateId;
+    }
+
+    /**
+     * Whether unpublished book changes should go out now rather than wait
+     */
+    boolean publishDue(long now) {
+        if (now - lastPublishNanos >= intervalNanos) {
+            return true;
+        }
+        return flushOnTopOfBookChange
+                && (book.getBestBid() != bidPrice || book.getBestBidQuantity() != bidQuantity
+                        || book.getBestAsk() != askPrice || book.getBestAskQuantity() != askQuantity);
+    }
+
+    /**
+     * Drain the book's changes for publishing
+     */
+    OrderBook.BookDelta drain(long now) {
+        pending = false;
+        lastPublishNanos = now;
+        rememberState();
+        return book.drainChanges();
+    }
+
+    private void rememberState() {
+        publishedUpdateId = book.getUpdateId();
+        bidPrice = book.getBestBid();
+        bidQuantity = book.getBestBidQuantity();
+        askPrice = book.getBestAsk();
+        askQuantity = book.getBestAskQuantity();
+    }
+}
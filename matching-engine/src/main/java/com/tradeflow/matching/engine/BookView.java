@@ -0,0 +1,99 @@
+package com.tradeflow.matching.engine;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.matching.orderbook.BookDepth;
+import com.tradeflow.matching.orderbook.OrderBook;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable top-of-book view of one book, built by its shard's matching
+ * thread after a batch of commands and read by any thread without touching
+ * the book: best levels per side (best first), level counts and parked
+ * stops, as of update id {@code updateId}.
+ *
+ * Fill estimates are priced against the cumulative depth of every level,
+ * not just the listed ones. That depth is copied at most once per fill
+ * estimate interval, so it may be from an earlier update than the levels.
+ */
+public record BookView(
+        String symbol,
+        long updateId,
+        List<OrderBook.PriceLevel> bids,
+        List<OrderBook.PriceLevel> asks,
+        int bidDepth,
+        int askDepth,
+        int stopOrders,
+        BookDepth depth,
+        Instant timestamp) {
+
+    /**
+     * Copy the top {@code depth} levels per side, the full-depth totals and
+     * the stats of a book
+     */
+    static BookView of(OrderBook book, int depth) {
+        return of(book, depth, book.getDepth());
+    }
+
+    /**
+     * Like {@link #of(OrderBook, int)}, pricing fills against {@code fullDepth}
+     */
+    static BookView of(OrderBook book, int depth, BookDepth fullDepth) {
+        OrderBook.OrderBookSnapshot snapshot = book.getSnapshot(depth);
+        return new BookView(
+                snapshot.symbol(),
+                snapshot.updateId(),
+                List.copyOf(snapshot.bids()),
+                List.copyOf(snapshot.asks()),
+                book.getBidDepth(),
+                book.getAskDepth(),
+                book.getStopOrderCount(),
+                fullDepth,
+                snapshot.timestamp());
+    }
+
+    public long bestBid() {
+        return bids.isEmpty() ? OrderBook.NO_PRICE : bids.get(0).price();
+    }
+
+    public long bestAsk() {
+        return asks.isEmpty() ? OrderBook.NO_PRICE : asks.get(0).price();
+    }
+
+    public long spread() {
+        return bids.isEmpty() || asks.isEmpty() ? OrderBook.NO_PRICE : bestAsk() - bestBid();
+    }
+
+    /**
+     * Snapshot of up to {@code depth} levels per side (no more than were published)
+     */
+    public OrderBook.OrderBookSnapshot snapshot(int depth) {
+        int limit = Math.max(depth, 0);
+        return new OrderBook.OrderBookSnapshot(symbol, updateId,
+                bids.subList(0, Math.min(limit, bids.size())),
+                asks.subList(0, Math.min(limit, asks.size())),
+                timestamp);
+    }
+
+    public MatchingEngine.BookStats stats() {
+        return new MatchingEngine.BookStats(symbol, bestBid(), bestAsk(), spread(),
+                bidDepth, askDepth, stopOrders);
+    }
+
+    /**
+     * Price filling {@code quantity} from the best level outwards, like
+     * {@link OrderBook#estimateFill}; every level counts, listed or not
+     */
+    public OrderBook.FillEstimate estimateFill(OrderSide takerSide, long quantity) {
+        return depth.estimateFill(takerSide, quantity);
+    }
+
+    /**
+     * Quantity fillable for {@code budget} of notional from the best level
+     * outwards, like {@link OrderBook#estimateFillForNotional}
+     */
+    public OrderBook.FillEstimate estimateFillForNotional(OrderSide takerSide, long budget) {
+        return depth.estimateFillForNotional(takerSide, budget);
+    }
+}
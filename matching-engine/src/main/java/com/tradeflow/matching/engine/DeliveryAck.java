@@ -0,0 +1,19 @@
+package com.tradeflow.matching.engine;
+
+/**
+ * Settles the inbound message a pipeline command came from, once its
+ * outputs have been published (or processing failed).
+ */
+public interface DeliveryAck {
+
+    void ack();
+
+    void reject(Throwable cause);
+
+    /**
+     * Settle without redelivery, for deliveries that can never be processed
+     * (e.g. cannot be decoded). Never used once a command has been applied:
+     * its trades go to the outbox instead.
+     */
+    void deadLetter(Throwable cause);
+}
@@ -0,0 +1,77 @@
+package com.tradeflow.matching.engine;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.matching.orderbook.BookOrder;
+import lombok.Data;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reusable inbound ring entry: one command for a matching shard
+ */
+@Data
+public class EngineCommand {
+
+    public enum Type {
+        NEW_ORDER,
+        CANCEL_ORDER,
+        CANCEL_REPLACE,
+        // Drop a book this engine no longer owns; never journaled
+        RELEASE_BOOK,
+        // Copy a book's state for a partition checkpoint; never journaled
+        COPY_BOOK,
+        // Replace a book with checkpointed state; never journaled
+        RESTORE_BOOK
+    }
+
+    private Type type;
+    private String symbol;
+
+    // NEW_ORDER
+    private BookOrder order;
+
+    // CANCEL_ORDER, CANCEL_REPLACE
+    private UUID orderId;
+    private OrderSide side;
+
+    // CANCEL_REPLACE: new price (NO_PRICE keeps it) and new total quantity (0 cancels)
+    private long price;
+    private long quantity;
+
+    // CANCEL_REPLACE: echoed in the confirmation, not journaled
+    private UUID requestId;
+
+    // COPY_BOOK: completed with the book's state (null if there is no book)
+    private CompletableFuture<ByteBuffer> bookCopy;
+
+    // RESTORE_BOOK
+    private ByteBuffer bookState;
+
+    private DeliveryAck ack;
+
+    // Rebuilding a book from already-processed input: applied, not published
+    private boolean replay;
+
+    // System.nanoTime when the listener started decoding it and when it was queued
+    private long receivedNanos;
+    private long submittedNanos;
+
+    void clear() {
+        type = null;
+        symbol = null;
+        order = null;
+        orderId = null;
+        side = null;
+        price = 0;
+        quantity = 0;
+        requestId = null;
+        bookCopy = null;
+        bookState = null;
+        ack = null;
+        replay = false;
+        receivedNanos = 0;
+        submittedNanos = 0;
+    }
+}
@@ -0,0 +1,83 @@
+package com.tradeflow.matching.engine;
+
+import com.tradeflow.matching.metrics.SymbolLatency;
+import com.tradeflow.matching.orderbook.MatchResult;
+import com.tradeflow.matching.orderbook.OrderBook;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reusable outbound ring entry: what one command produced on the matching
+ * thread, handed to the output stage for publishing and acknowledgement.
+ */
+@Data
+public class EngineOutput {
+
+    // Command that produced this output; null for periodic book snapshots
+    private EngineCommand.Type type;
+    private String symbol;
+
+    // NEW_ORDER
+    private MatchResult result;
+    // NEW_ORDER already accepted before: not matched again, only settled
+    private boolean duplicate;
+
+    // CANCEL_ORDER
+    private boolean cancelled;
+
+    // CANCEL_REPLACE
+    private UUID orderId;
+    private UUID requestId;
+    private OrderBook.CancelReplaceResult cancelReplace;
+
+    // Levels the command changed, captured on the matching thread
+    private OrderBook.BookDelta delta;
+
+    // Market-by-order events the command caused, if the symbol publishes them
+    private List<OrderBook.OrderEvent> orderEvents;
+
+    // Periodic full book snapshot
+    private OrderBook.OrderBookSnapshot snapshot;
+
+    private DeliveryAck ack;
+
+    // Set when the command could not be processed
+    private Throwable failure;
+
+    // Where stage latencies of the symbol are recorded; null when disabled
+    private SymbolLatency latency;
+
+    // Stage boundaries (System.nanoTime), 0 for stages the output did not go
+    // through. For a periodic snapshot, matched to built spans building it.
+    private long receivedNanos;
+    private long submittedNanos;
+    private long dequeuedNanos;
+    private long matchedNanos;
+    private long builtNanos;
+    private long outputNanos;
+
+    void clear() {
+        type = null;
+        symbol = null;
+        result = null;
+        duplicate = false;
+        cancelled = false;
+        orderId = null;
+        requestId = null;
+        cancelReplace = null;
+        delta = null;
+        orderEvents = null;
+        snapshot = null;
+        ack = null;
+        failure = null;
+        latency = null;
+        receivedNanos = 0;
+        submittedNanos = 0;
+        dequeuedNanos = 0;
+        matchedNanos = 0;
+        builtNanos = 0;
+        outputNanos = 0;
+    }
+}
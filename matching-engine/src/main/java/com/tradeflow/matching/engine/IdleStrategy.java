@@ -0,0 +1,40 @@
+package com.tradeflow.matching.engine;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * What a pipeline thread does when its ring is empty
+ */
+public enum IdleStrategy {
+
+    /**
+     * Spin on the CPU; lowest latency, burns a core (use with isolated/pinned cores)
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle(int idleCount) {
+            Thread.onSpinWait();
+        }
+    },
+
+    /**
+     * Spin briefly, then yield, then park for short intervals
+     */
+    BACKOFF {
+        @Override
+        public void idle(int idleCount) {
+            if (idleCount < 100) {
+                Thread.onSpinWait();
+            } else if (idleCount < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(50_000);
+            }
+        }
+    };
+
+    /**
+     * @param idleCount consecutive empty polls so far
+     */
+    public abstract void idle(int idleCount);
+}
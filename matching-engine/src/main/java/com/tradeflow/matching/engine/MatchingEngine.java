@@ -1,11 +1,18 @@
 package com.tradeflow.matching.engine;
 
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.orderbook.BookDepth;
 import com.tradeflow.matching.orderbook.BookOrder;
+import com.tradeflow.matching.orderbook.FixedPoint;
 import com.tradeflow.matching.orderbook.MatchResult;
 import com.tradeflow.matching.orderbook.OrderBook;
+import com.tradeflow.matching.orderbook.SkipListOrderBook;
+import com.tradeflow.matching.orderbook.TickLadderOrderBook;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -15,14 +22,24 @@ import java.util.concurrent.ConcurrentHashMap;
  * Matching Engine managing multiple order books.
  * Each symbol has its own order book.
  * Uses Platform Threads (not Virtual Threads) for CPU-bound matching.
+ *
+ * Books are only touched by their shard's matching thread. Queries from
+ * other threads are served from the {@link BookView} the shard publishes
+ * after each batch, so they never read a book mid-match or hold matching up.
  */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class MatchingEngine {
 
+    private final MatchingConfigProperties properties;
+
     // Order books per symbol
     private final Map<String, OrderBook> orderBooks = new ConcurrentHashMap<>();
 
+    // Latest published view per symbol, replaced (never mutated) by the owning matching thread
+    private final Map<String, BookView> views = new ConcurrentHashMap<>();
+
     /**
      * Process an incoming order
      */
@@ -34,7 +51,10 @@ public class MatchingEngine {
         OrderBook book = getOrCreateOrderBook(order.getSymbol());
         MatchResult result = book.addOrder(order);
 
-        if (result.hasTrades()) {
+        if (result.getExpiredQuantity() > 0) {
+            log.info("Order {} ({}) filled {}, expired {}", order.getOrderId(), order.getTimeInForce(),
+                    result.getFilledQuantity(), result.getExpiredQuantity());
+        } else if (result.hasTrades()) {
             log.info("Order {} matched: {} trades, filled {}",
                     order.getOrderId(), result.getTrades().size(), result.getFilledQuantity());
         } else {
@@ -44,6 +64,30 @@ public class MatchingEngine {
         return result;
     }
 
+    /**
+     * Whether an order was already accepted by its book (see
+     * {@link OrderBook#isKnownOrder}), i.e. this is a redelivery
+     */
+    public boolean isDuplicate(BookOrder order) {
+        OrderBook book = orderBooks.get(order.getSymbol().toUpperCase());
+        return book != null && book.isKnownOrder(order.getOrderId());
+    }
+
+    /**
+     * Match the next stop order of a symbol triggered by its trades, as the
+     * market or limit order it became; null if none is waiting. Called after
+     * every order that may have traded, until it returns null.
+     */
+    public MatchResult processTriggered(String symbol) {
+        OrderBook book = orderBooks.get(symbol.toUpperCase());
+        BookOrder triggered = book != null ? book.pollTriggered() : null;
+        if (triggered == null) {
+            return null;
+        }
+        log.info("Stop order {} triggered at {}", triggered.getOrderId(), triggered.getStopPrice());
+        return processOrder(triggered);
+    }
+
     /**
      * Cancel an order from the book
      */
@@ -56,54 +100,183 @@ public class MatchingEngine {
         return book.cancelOrder(orderId, side);
     }
 
+    /**
+     * Cancel or amend a resting order (see {@link OrderBook#cancelReplace})
+     */
+    public OrderBook.CancelReplaceResult cancelReplace(String symbol, UUID orderId,
+            com.tradeflow.common.enums.OrderSide side, long newPrice, long newQuantity) {
+        OrderBook book = orderBooks.get(symbol.toUpperCase());
+        if (book == null) {
+            log.warn("Order book not found for symbol: {}", symbol);
+            return OrderBook.CancelReplaceResult.notFound();
+        }
+        OrderBook.CancelReplaceResult result = book.cancelReplace(orderId, side, newPrice, newQuantity);
+        log.info("Cancel/replace of order {}: {}", orderId, result.status());
+        return result;
+    }
+
+    /**
+     * Re-apply a journaled order during recovery, without per-order logging.
+     * A duplicate is skipped, as it was when first delivered.
+     */
+    public void replayOrder(BookOrder order) {
+        OrderBook book = getOrCreateOrderBook(order.getSymbol());
+        if (book.isKnownOrder(order.getOrderId())) {
+            return;
+        }
+        book.addOrder(order);
+        replayTriggered(book);
+    }
+
+    /**
+     * Re-apply a journaled cancel during recovery
+     */
+    public void replayCancel(String symbol, UUID orderId, com.tradeflow.common.enums.OrderSide side) {
+        OrderBook book = orderBooks.get(symbol.toUpperCase());
+        if (book != null) {
+            book.cancelOrder(orderId, side);
+        }
+    }
+
+    /**
+     * Re-apply a journaled cancel/replace during recovery
+     */
+    public void replayCancelReplace(String symbol, UUID orderId, com.tradeflow.common.enums.OrderSide side,
+            long newPrice, long newQuantity) {
+        OrderBook book = orderBooks.get(symbol.toUpperCase());
+        if (book != null) {
+            book.cancelReplace(orderId, side, newPrice, newQuantity);
+            replayTriggered(book);
+        }
+    }
+
+    /**
+     * Match the stops a replayed command triggered, as they were the first time
+     */
+    private static void replayTriggered(OrderBook book) {
+        for (BookOrder triggered = book.pollTriggered(); triggered != null; triggered = book.pollTriggered()) {
+            book.addOrder(triggered);
+        }
+    }
+
+    /**
+     * Order book for a symbol, or null if none exists
+     */
+    public OrderBook getOrderBook(String symbol) {
+        return orderBooks.get(symbol.toUpperCase());
+    }
+
+    /**
+     * Recreate a book from serialized state during recovery
+     */
+    public void restoreOrderBook(String symbol, ByteBuffer state) {
+        OrderBook book = createOrderBook(symbol.toUpperCase());
+        book.readState(state);
+        orderBooks.put(symbol.toUpperCase(), book);
+    }
+
+    /**
+     * Drop a book, e.g. before a standby reloads its shard from the primary
+     */
+    public void removeOrderBook(String symbol) {
+        orderBooks.remove(symbol.toUpperCase());
+        views.remove(symbol.toUpperCase());
+    }
+
+    /**
+     * Publish a fresh view of a book for readers on other threads; called
+     * by the book's matching thread between commands. Unless
+     * {@code copyDepth}, fill estimates keep the previous view's depth.
+     */
+    void publishView(OrderBook book, boolean copyDepth) {
+        BookView previous = views.get(book.getSymbol());
+        BookDepth depth = copyDepth || previous == null ? book.getDepth() : previous.depth();
+        views.put(book.getSymbol(), BookView.of(book, properties.getPipeline().getViewDepth(), depth));
+    }
+
+    /**
+     * Latest published view of a book, or null if none has been published
+     */
+    public BookView getView(String symbol) {
+        return views.get(symbol.toUpperCase());
+    }
+
     /**
      * Get or create order book for symbol
      */
     private OrderBook getOrCreateOrderBook(String symbol) {
-        return orderBooks.computeIfAbsent(symbol.toUpperCase(), OrderBook::new);
+        return orderBooks.computeIfAbsent(symbol.toUpperCase(), this::createOrderBook);
     }
 
     /**
-     * Get order book snapshot
+     * Create the configured book implementation for a symbol
+     */
+    private OrderBook createOrderBook(String symbol) {
+        MatchingConfigProperties.Book config = properties.bookFor(symbol);
+        boolean offHeap = config.getOrderStorage() == MatchingConfigProperties.OrderStorage.OFF_HEAP;
+        OrderBook book = switch (config.getType()) {
+            case SKIP_LIST -> new SkipListOrderBook(symbol, offHeap);
+            case TICK_LADDER -> new TickLadderOrderBook(
+                    symbol, FixedPoint.toLong(config.getTickSize()), config.getLadderCapacity(), offHeap);
+        };
+        book.setOrderEventsEnabled(config.isMarketByOrder());
+        book.setDuplicateWindow(config.getDuplicateWindow());
+        return book;
+    }
+
+    /**
+     * Get order book snapshot, capped at the published view depth
      */
     public OrderBook.OrderBookSnapshot getSnapshot(String symbol, int depth) {
-        OrderBook book = orderBooks.get(symbol.toUpperCase());
-        if (book == null) {
-            return null;
-        }
-        return book.getSnapshot(depth);
+        BookView view = getView(symbol);
+        return view != null ? view.snapshot(depth) : null;
+    }
+
+    /**
+     * Price filling {@code quantity} against the published view without
+     * matching, every level included, or null if no book exists
+     */
+    public OrderBook.FillEstimate estimateFill(String symbol, com.tradeflow.common.enums.OrderSide takerSide,
+            long quantity) {
+        BookView view = getView(symbol);
+        return view != null ? view.estimateFill(takerSide, quantity) : null;
+    }
+
+    /**
+     * Quantity fillable for a quote budget against the published view
+     * without matching, every level included, or null if no book exists
+     */
+    public OrderBook.FillEstimate estimateFillForNotional(String symbol, com.tradeflow.common.enums.OrderSide takerSide,
+            long notional) {
+        BookView view = getView(symbol);
+        return view != null ? view.estimateFillForNotional(takerSide, notional) : null;
     }
 
     /**
      * Get all active symbols
      */
     public List<String> getActiveSymbols() {
-        return List.copyOf(orderBooks.keySet());
+        return List.copyOf(views.keySet());
     }
 
     /**
      * Get book statistics
      */
     public BookStats getBookStats(String symbol) {
-        OrderBook book = orderBooks.get(symbol.toUpperCase());
-        if (book == null) {
-            return null;
-        }
-        return new BookStats(
-                symbol,
-                book.getBestBid(),
-                book.getBestAsk(),
-                book.getSpread(),
-                book.getBidDepth(),
-                book.getAskDepth());
+        BookView view = getView(symbol);
+        return view != null ? view.stats() : null;
     }
 
+    /**
+     * Book statistics with fixed-point prices ({@link OrderBook#NO_PRICE} when absent)
+     */
     public record BookStats(
             String symbol,
-            java.math.BigDecimal bestBid,
-            java.math.BigDecimal bestAsk,
-            java.math.BigDecimal spread,
+            long bestBid,
+            long bestAsk,
+            long spread,
             int bidDepth,
-            int askDepth) {
+            int askDepth,
+            int stopOrders) {
     }
 }
@@ -0,0 +1,382 @@
+package com.tradeflow.matching.engine;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.journal.CommandJournal;
+import com.tradeflow.matching.journal.SnapshotStore;
+import com.tradeflow.matching.metrics.LatencyMetrics;
+import com.tradeflow.matching.replication.ReplicationLink;
+import com.tradeflow.matching.replication.ReplicationRole;
+import com.tradeflow.matching.replication.ReplicationServer;
+import com.tradeflow.matching.replication.ReplicationStatus;
+import com.tradeflow.matching.replication.StandbyReplica;
+import com.tradeflow.matching.orderbook.BookOrder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Single-writer matching pipeline.
+ *
+ * Ingestion threads (message listeners) decode and {@code submit} commands
+ * onto the ring of the shard that owns the symbol. Each shard matches on its
+ * own thread without locks and hands results to a separate output thread that
+ * publishes them and acknowledges the inbound delivery. Symbols are spread
+ * over shards by hash, so more symbols scale across more cores.
+ *
+ * On startup each shard loads its newest snapshot and replays the journal
+ * after it before accepting new commands, so books come back exactly as
+ * they were.
+ *
+ * With replication, a primary streams each shard's journal to a standby
+ * engine. A standby does not start its shards: it applies the stream until
+ * {@link #promote()}, which starts them on the replicated books as they
+ * stand, without reloading anything.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MatchingPipeline {
+
+    private final MatchingEngine matchingEngine;
+    private final OutputHandler outputHandler;
+    private final MatchingConfigProperties properties;
+    private final LatencyMetrics latencyMetrics;
+
+    private MatchingShard[] shards;
+
+    private volatile ReplicationRole role;
+    private ReplicationLink[] links;
+    private StandbyReplica[] replicas;
+    private ReplicationServer replicationServer;
+
+    // Writes snapshot copies handed off by the matching threads
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "matching-snapshot-writer"));
+
+    @PostConstruct
+    public void start() {
+        MatchingConfigProperties.Journal journalConfig = properties.getJournal();
+        MatchingConfigProperties.Replication replication = properties.getReplication();
+        role = replication.getRole();
+        if (role != ReplicationRole.NONE && !journalConfig.isEnabled()) {
+            throw new IllegalStateException("Replication role " + role + " needs the journal enabled");
+        }
+        if (properties.getIngest().getTransport() == MatchingConfigProperties.OrderTransport.KAFKA
+                && (journalConfig.isEnabled() || role != ReplicationRole.NONE)) {
+            // Books are rebuilt from the topic; a local journal would restore symbols owned elsewhere
+            throw new IllegalStateException("Kafka ingest needs the journal and replication disabled");
+        }
+
+        boolean snapshotting = journalConfig.isEnabled() && journalConfig.getSnapshotsRetained() > 0;
+        shards = new MatchingShard[properties.getPipeline().getShards()];
+        links = role != ReplicationRole.NONE ? new ReplicationLink[shards.length] : null;
+        for (int i = 0; i < shards.length; i++) {
+            if (links != null) {
+                links[i] = new ReplicationLink(i, replication);
+            }
+            shards[i] = new MatchingShard(i, matchingEngine, outputHandler, properties, latencyMetrics,
+                    createJournal(i),
+                    snapshotting ? new SnapshotStore(shardDirectory(i), journalConfig.getSnapshotsRetained()) : null,
+                    snapshotWriter,
+                    links != null ? links[i] : null);
+        }
+
+        if (role == ReplicationRole.STANDBY) {
+            replicas = new StandbyReplica[shards.length];
+            for (int i = 0; i < shards.length; i++) {
+                replicas[i] = new StandbyReplica(shards[i], shards.length, replication);
+                replicas[i].start();
+            }
+            log.info("Matching pipeline standing by for {}:{} with {} shards",
+                    replication.getPrimaryHost(), replication.getPrimaryPort(), shards.length);
+            return;
+        }
+
+        for (MatchingShard shard : shards) {
+            shard.recover();
+        }
+        startShards();
+        log.info("Matching pipeline started with {} shards", shards.length);
+    }
+
+    private void startShards() {
+        if (links != null) {
+            for (ReplicationLink link : links) {
+                link.start();
+            }
+        }
+        for (MatchingShard shard : shards) {
+            shard.start();
+        }
+        MatchingConfigProperties.Replication replication = properties.getReplication();
+        if (links != null && replication.getPort() > 0) {
+            try {
+                replicationServer = new ReplicationServer(replication.getBindAddress(), replication.getPort(), links);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to listen for standbys on port " + replication.getPort(), e);
+            }
+            replicationServer.start();
+        }
+    }
+
+    /**
+     * Turn this standby into the primary: stop replicating and start matching
+     * on the replicated books. Only promote once the old primary is down;
+     * nothing stops both from consuming orders.
+     *
+     * @return time taken, in milliseconds
+     */
+    public synchronized long promote() throws InterruptedException {
+        if (role != ReplicationRole.STANDBY) {
+            throw new IllegalStateException("Only a standby can be promoted, this engine is " + role);
+        }
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < shards.length; i++) {
+            replicas[i].stop();
+            if (!replicas[i].isBootstrapped()) {
+                log.warn("Shard {} never received books from the primary; recovering from its local journal", i);
+                shards[i].recover();
+            }
+        }
+        role = ReplicationRole.PRIMARY;
+        try {
+            startShards();
+        } catch (UncheckedIOException e) {
+            // Matching runs; only a new standby cannot attach
+            log.error("Promoted, but {}", e.getMessage(), e);
+        }
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        log.info("Promoted to primary in {} ms", millis);
+        return millis;
+    }
+
+    /**
+     * Replication role and progress of each shard
+     */
+    public ReplicationStatus replicationStatus() {
+        List<ReplicationStatus.Shard> shardStatus = new ArrayList<>();
+        ReplicationRole current = role;
+        for (int i = 0; i < shards.length; i++) {
+            if (current == ReplicationRole.STANDBY) {
+                StandbyReplica replica = replicas[i];
+                shardStatus.add(new ReplicationStatus.Shard(i, replica.isConnected(), replica.position(),
+                        replica.verifiedPosition(), replica.mismatches()));
+            } else if (links != null) {
+                ReplicationLink link = links[i];
+                shardStatus.add(new ReplicationStatus.Shard(i, link.isConnected(), link.acknowledgedPosition(),
+                        link.lastChecksumPosition(), 0));
+            }
+        }
+        return new ReplicationStatus(current, shardStatus);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (replicationServer != null) {
+            try {
+                replicationServer.close();
+            } catch (IOException e) {
+                log.warn("Failed to close replication server: {}", e.getMessage());
+            }
+        }
+        if (role == ReplicationRole.STANDBY) {
+            for (StandbyReplica replica : replicas) {
+                replica.stop();
+            }
+        }
+        for (MatchingShard shard : shards) {
+            shard.stop();
+        }
+        // After the shards, so their last records still reach the standby
+        if (links != null && role == ReplicationRole.PRIMARY) {
+            for (ReplicationLink link : links) {
+                link.stop();
+            }
+        }
+        snapshotWriter.shutdown();
+    }
+
+    private CommandJournal createJournal(int shard) {
+        MatchingConfigProperties.Journal config = properties.getJournal();
+        if (!config.isEnabled()) {
+            return null;
+        }
+        return new CommandJournal(
+                shardDirectory(shard),
+                config.getSegmentSize().toBytes(),
+                config.getFsyncBatchSize(),
+                config.getFsyncInterval().toNanos());
+    }
+
+    private Path shardDirectory(int shard) {
+        return Path.of(properties.getJournal().getDirectory(), "shard-" + shard);
+    }
+
+    /**
+     * Queue a new order for matching; {@code receivedNanos} is the
+     * {@link System#nanoTime()} its delivery arrived at, for stage latencies
+     */
+    public void submitOrder(BookOrder order, DeliveryAck ack, long receivedNanos) {
+        String symbol = order.getSymbol().toUpperCase();
+        RingBuffer<EngineCommand> ring = shardFor(symbol).inbound;
+        long sequence = ring.claim();
+        EngineCommand command = ring.get(sequence);
+        command.setType(EngineCommand.Type.NEW_ORDER);
+        command.setSymbol(symbol);
+        command.setOrder(order);
+        command.setAck(ack);
+        command.setReceivedNanos(receivedNanos);
+        command.setSubmittedNanos(System.nanoTime());
+        ring.publish(sequence);
+    }
+
+    /**
+     * Queue a cancel for a resting order
+     */
+    public void submitCancel(String symbol, UUID orderId, OrderSide side, DeliveryAck ack, long receivedNanos) {
+        String key = symbol.toUpperCase();
+        RingBuffer<EngineCommand> ring = shardFor(key).inbound;
+        long sequence = ring.claim();
+        EngineCommand command = ring.get(sequence);
+        command.setType(EngineCommand.Type.CANCEL_ORDER);
+        command.setSymbol(key);
+        command.setOrderId(orderId);
+        command.setSide(side);
+        command.setAck(ack);
+        command.setReceivedNanos(receivedNanos);
+        command.setSubmittedNanos(System.nanoTime());
+        ring.publish(sequence);
+    }
+
+    /**
+     * Queue a cancel/replace for a resting order; {@code newQuantity} 0 cancels
+     * it and {@code newPrice} 0 keeps its price
+     */
+    public void submitCancelReplace(String symbol, UUID orderId, OrderSide side, long newPrice, long newQuantity,
+            UUID requestId, DeliveryAck ack, long receivedNanos) {
+        String key = symbol.toUpperCase();
+        RingBuffer<EngineCommand> ring = shardFor(key).inbound;
+        long sequence = ring.claim();
+        EngineCommand command = ring.get(sequence);
+        command.setType(EngineCommand.Type.CANCEL_REPLACE);
+        command.setSymbol(key);
+        command.setOrderId(orderId);
+        command.setSide(side);
+        command.setPrice(newPrice);
+        command.setQuantity(newQuantity);
+        command.setRequestId(requestId);
+        command.setAck(ack);
+        command.setReceivedNanos(receivedNanos);
+        command.setSubmittedNanos(System.nanoTime());
+        ring.publish(sequence);
+    }
+
+    /**
+     * Queue an already-processed order to rebuild its book; nothing is published
+     */
+    public void replayOrder(BookOrder order) {
+        String symbol = order.getSymbol().toUpperCase();
+        RingBuffer<EngineCommand> ring = shardFor(symbol).inbound;
+        long sequence = ring.claim();
+        EngineCommand command = ring.get(sequence);
+        command.setType(EngineCommand.Type.NEW_ORDER);
+        command.setSymbol(symbol);
+        command.setOrder(order);
+        command.setReplay(true);
+        ring.publish(sequence);
+    }
+
+    /**
+     * Queue an already-processed cancel/replace to rebuild its book; nothing is published
+     */
+    public void replayCancelReplace(String symbol, UUID orderId, OrderSide side, long newPrice, long newQuantity) {
+        String key = symbol.toUpperCase();
+        RingBuffer<EngineCommand> ring = shardFor(key).inbound;
+        long sequence = ring.claim();
+        EngineCommand command = ring.get(sequence);
+        command.setType(EngineCommand.Type.CANCEL_REPLACE);
+        command.setSymbol(key);
+        command.setOrderId(orderId);
+        command.setSide(side);
+        command.setPrice(newPrice);
+        command.setQuantity(newQuantity);
+        command.setReplay(true);
+        ring.publish(sequence);
+    }
+
+    /**
+     * Queue dropping a book, after every command already queued for it
+     */
+    public void releaseBook(String symbol) {
+        String key = symbol.toUpperCase();
+        RingBuffer<EngineCommand> ring = shardFor(key).inbound;
+        long sequence = ring.claim();
+        EngineCommand command = ring.get(sequence);
+        command.setType(EngineCommand.Type.RELEASE_BOOK);
+        command.setSymbol(key);
+        ring.publish(sequence);
+    }
+
+    /**
+     * Copy a book's state once every command already queued for it has
+     * been applied
+     *
+     * @return completes on the book's matching thread, with null if the
+     * engine has no such book
+     */
+    public CompletableFuture<ByteBuffer> copyBook(String symbol) {
+        String key = symbol.toUpperCase();
+        RingBuffer<EngineCommand> ring = shardFor(key).inbound;
+        CompletableFuture<ByteBuffer> copy = new CompletableFuture<>();
+        long sequence = ring.claim();
+        EngineCommand command = ring.get(sequence);
+        command.setType(EngineCommand.Type.COPY_BOOK);
+        command.setSymbol(key);
+        command.setBookCopy(copy);
+        ring.publish(sequence);
+        return copy;
+    }
+
+    /**
+     * Queue replacing a book with state from {@link #copyBook}; nothing is published
+     */
+    public void restoreBook(String symbol, ByteBuffer state) {
+        String key = symbol.toUpperCase();
+        RingBuffer<EngineCommand> ring = shardFor(key).inbound;
+        long sequence = ring.claim();
+        EngineCommand command = ring.get(sequence);
+        command.setType(EngineCommand.Type.RESTORE_BOOK);
+        command.setSymbol(key);
+        command.setBookState(state);
+        ring.publish(sequence);
+    }
+
+    /**
+     * Shard index that owns a symbol
+     */
+    public int shardOf(String symbol) {
+        return Math.floorMod(symbol.toUpperCase().hashCode(), shards.length);
+    }
+
+    private MatchingShard shardFor(String symbol) {
+        MatchingShard shard = shards[shardOf(symbol)];
+        if (!shard.isRunning()) {
+            throw new IllegalStateException("Matching pipeline is stopped");
+        }
+        return shard;
+    }
+}
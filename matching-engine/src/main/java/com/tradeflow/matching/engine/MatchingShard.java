@@ -0,0 +1,758 @@
+package com.tradeflow.matching.engine;
+
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.journal.CommandJournal;
+import com.tradeflow.matching.journal.SnapshotStore;
+import com.tradeflow.matching.metrics.LatencyMetrics;
+import com.tradeflow.matching.metrics.LatencyStage;
+import com.tradeflow.matching.metrics.SymbolLatency;
+import com.tradeflow.matching.orderbook.MatchResult;
+import com.tradeflow.matching.orderbook.OrderBook;
+import com.tradeflow.matching.replication.ReplicatedShard;
+import com.tradeflow.matching.replication.ReplicationLink;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32C;
+
+/**
+ * One matching shard: a single writer thread that owns the order books of
+ * the symbols routed to it, fed by a preallocated inbound ring, plus an
+ * output thread that drains results to the {@link OutputHandler}.
+ *
+ * Books are only ever touched by the shard's matching thread, so matching
+ * takes no locks. With a journal, each command is appended before it is
+ * matched and its output is only released to the output thread (and so
+ * acknowledged) once the journal has been synced per the fsync policy.
+ *
+ * A NEW_ORDER whose id its book already knows is a redelivery of an order
+ * that was matched before (its ack was lost); it is settled without being
+ * journaled or matched again.
+ *
+ * Book deltas are conflated per symbol (see {@link BookFeed}); trades,
+ * market-by-order events and acknowledgements always go out with the
+ * command that produced them. After each drained batch, every book it
+ * changed gets a new {@link BookView} for queries from other threads; the
+ * full-depth copy behind its fill estimates is refreshed at most once per
+ * fill estimate interval, and caught up once that passes.
+ *
+ * Snapshots copy the books into byte buffers on the matching thread between
+ * commands, then hand them to a background writer, which also deletes the
+ * journal segments the retained snapshots make redundant. Under Kafka
+ * ingest, single books are copied and restored the same way, by command,
+ * for partition checkpoints.
+ *
+ * As a replication primary, every journaled command is also handed to the
+ * shard's {@link ReplicationLink}, with a copy of the books whenever a
+ * standby (re)connects and a book checksum now and then; in synchronous
+ * mode outputs are only released once the standby has applied them. As a
+ * standby, the shard is not started: a replica thread drives it through
+ * {@link ReplicatedShard} until promotion.
+ *
+ * Stage latencies: the matching thread only stamps each output with a few
+ * {@link System#nanoTime()} readings; the output thread records them into
+ * the symbol's histograms once the output is published.
+ */
+@Slf4j
+final class MatchingShard implements ReplicatedShard {
+
+    private static final int DRAIN_LIMIT = 256;
+
+    private final int id;
+    private final MatchingEngine engine;
+    private final OutputHandler outputHandler;
+    private final MatchingConfigProperties properties;
+    private final LatencyMetrics latencyMetrics;
+    private final IdleStrategy idleStrategy;
+    private final int bookUpdateDepth;
+    private final long bookSnapshotIntervalNanos;
+    private final CommandJournal journal;
+    private final SnapshotStore snapshots;
+    private final Executor snapshotWriter;
+    private final long snapshotIntervalNanos;
+    private final ReplicationLink replication;
+    private final long checksumIntervalNanos;
+    private final long fillEstimateIntervalNanos;
+
+    final RingBuffer<EngineCommand> inbound;
+    private final RingBuffer<EngineOutput> outbound;
+
+    private final Thread matchingThread;
+    private final Thread outputThread;
+
+    private volatile boolean running;
+
+    // Outputs claimed by the matching thread but held back until the journal sync
+    private long lastClaimed = -1;
+    private long lastReleased = -1;
+
+    // Books this shard owns, by symbol, and those with conflated changes (matching thread only)
+    private final Map<String, BookFeed> feeds = new HashMap<>();
+    private final List<BookFeed> pendingFeeds = new ArrayList<>();
+    // Books changed since their view was last published (matching thread only)
+    private final List<BookFeed> staleViews = new ArrayList<>();
+    // Books whose view prices fills against an outdated depth copy (matching thread only)
+    private final List<BookFeed> laggingDepths = new ArrayList<>();
+
+    private final AtomicBoolean snapshotInFlight = new AtomicBoolean();
+    private long nextSnapshotNanos;
+    private long nextBookSnapshotNanos;
+    private long nextChecksumNanos;
+
+    // Decoded replicated record (standby only)
+    private final EngineCommand replicaCommand = new EngineCommand();
+
+    MatchingShard(int id, MatchingEngine engine, OutputHandler outputHandler, MatchingConfigProperties properties,
+            LatencyMetrics latencyMetrics, CommandJournal journal, SnapshotStore snapshots, Executor snapshotWriter,
+            ReplicationLink replication) {
+        MatchingConfigProperties.Pipeline config = properties.getPipeline();
+        this.id = id;
+        this.engine = engine;
+        this.outputHandler = outputHandler;
+        this.properties = properties;
+        this.latencyMetrics = latencyMetrics;
+        this.idleStrategy = config.getIdleStrategy();
+        this.bookUpdateDepth = config.getBookUpdateDepth();
+        this.bookSnapshotIntervalNanos = config.getBookSnapshotInterval().toNanos();
+        this.journal = journal;
+        this.snapshots = snapshots;
+        this.snapshotWriter = snapshotWriter;
+        this.snapshotIntervalNanos = snapshots != null ? properties.getJournal().getSnapshotInterval().toNanos() : 0;
+        this.replication = replication;
+        this.checksumIntervalNanos = properties.getReplication().getChecksumInterval().toNanos();
+        this.fillEstimateIntervalNanos = config.getFillEstimateInterval().toNanos();
+        this.inbound = new RingBuffer<>(config.getRingSize(), EngineCommand::new);
+        this.outbound = new RingBuffer<>(config.getOutputRingSize(), EngineOutput::new);
+        this.matchingThread = new Thread(this::matchLoop, "matching-shard-" + id);
+        this.outputThread = new Thread(this::outputLoop, "matching-output-" + id);
+    }
+
+    /**
+     * Rebuild this shard's books from the newest snapshot plus the journal
+     * tail after it. Must run before {@link #start()}.
+     */
+    void recover() {
+        if (journal == null) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        long fromPosition = snapshots == null ? 0 : snapshots.load((symbol, state) -> {
+            engine.restoreOrderBook(symbol, state);
+            viewChanged(feed(symbol));
+        });
+        long count = journal.replay(fromPosition, this::apply);
+        publishViews();
+        log.info("Shard {} recovered {} books, replaying {} journaled commands from position {} in {} ms",
+                id, feeds.size(), count, fromPosition, (System.nanoTime() - startNanos) / 1_000_000);
+        nextSnapshotNanos = System.nanoTime() + snapshotIntervalNanos;
+    }
+
+    void start() {
+        running = true;
+        matchingThread.start();
+        outputThread.start();
+        log.info("Matching shard {} started (ring {}, output ring {})",
+                id, inbound.capacity(), outbound.capacity());
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        matchingThread.join();
+        outputThread.join();
+        if (journal != null) {
+            journal.close();
+        }
+        log.info("Matching shard {} stopped", id);
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    // ============================================
+    // Matching thread
+    // ============================================
+
+    private void matchLoop() {
+        int idle = 0;
+        // Keep draining after stop so accepted commands are not dropped
+        while (running || inbound.backlog() > 0) {
+            int drained = inbound.drain(this::onCommand, DRAIN_LIMIT);
+            if (!staleViews.isEmpty()) {
+                publishViews();
+            }
+            if (lastClaimed > lastReleased && (journal == null || journal.syncDue())) {
+                releaseOutputs();
+            }
+            long now = System.nanoTime();
+            if (!pendingFeeds.isEmpty()) {
+                flushPendingFeeds(now, false);
+            }
+            if (!laggingDepths.isEmpty()) {
+                catchUpDepths(now, false);
+            }
+            if (now - nextBookSnapshotNanos >= 0) {
+                publishBookSnapshots(now);
+            }
+            if (snapshotIntervalNanos > 0 && now - nextSnapshotNanos >= 0) {
+                takeSnapshot(false);
+            }
+            if (replication != null) {
+                if (replication.attachPending()) {
+                    attachStandby(now);
+                } else if (replication.isStreaming() && now - nextChecksumNanos >= 0) {
+                    nextChecksumNanos = now + checksumIntervalNanos;
+                    replication.checksum(journal.position(), checksum());
+                }
+            }
+            if (drained > 0) {
+                idle = 0;
+            } else {
+                idleStrategy.idle(idle++);
+            }
+        }
+        flushPendingFeeds(System.nanoTime(), true);
+        releaseOutputs();
+        publishViews();
+        catchUpDepths(System.nanoTime(), true);
+
+        // Final snapshot so the next start replays (almost) nothing
+        while (snapshotInFlight.get()) {
+            idleStrategy.idle(Integer.MAX_VALUE);
+        }
+        takeSnapshot(true);
+    }
+
+    /**
+     * Feed for a symbol's book, created on first use; null if the book does not exist
+     */
+    private BookFeed feed(String symbol) {
+        BookFeed feed = feeds.get(symbol);
+        if (feed == null) {
+            OrderBook book = engine.getOrderBook(symbol);
+            if (book == null) {
+                return null;
+            }
+            MatchingConfigProperties.Book config = properties.bookFor(symbol);
+            feed = new BookFeed(symbol, book,
+                    config.getConflationInterval().toNanos(), config.isFlushOnTopOfBookChange(),
+                    latencyMetrics.forSymbol(symbol));
+            // Allow the first view to copy the depth straight away
+            feed.depthCopiedNanos = System.nanoTime() - fillEstimateIntervalNanos;
+            feeds.put(symbol, feed);
+        }
+        return feed;
+    }
+
+    /**
+     * Attach a command's book changes to its output if the feed is due,
+     * otherwise leave them to accumulate in the book until it is
+     */
+    private void publishChanges(BookFeed feed, EngineOutput output, long now) {
+        if (feed == null || !feed.hasChanges()) {
+            return;
+        }
+        if (feed.publishDue(now)) {
+            output.setDelta(feed.drain(now));
+        } else if (!feed.pending) {
+            feed.pending = true;
+            pendingFeeds.add(feed);
+        }
+    }
+
+    /**
+     * Publish conflated changes whose interval has passed (or all, on shutdown)
+     */
+    private void flushPendingFeeds(long now, boolean all) {
+        for (int i = pendingFeeds.size() - 1; i >= 0; i--) {
+            BookFeed feed = pendingFeeds.get(i);
+            if (all || now - feed.lastPublishNanos >= feed.intervalNanos) {
+                pendingFeeds.remove(i);
+                claimOutput(feed.symbol).setDelta(feed.drain(now));
+            }
+        }
+    }
+
+    /**
+     * Note that a book changed, so its view is republished after the batch
+     */
+    private void viewChanged(BookFeed feed) {
+        if (feed != null && !feed.viewStale) {
+            feed.viewStale = true;
+            staleViews.add(feed);
+        }
+    }
+
+    /**
+     * Replace the published view of every book changed since the last call.
+     * A book whose depth was copied less than the fill estimate interval ago
+     * keeps that copy and is queued to catch up.
+     */
+    private void publishViews() {
+        long now = System.nanoTime();
+        for (BookFeed feed : staleViews) {
+            feed.viewStale = false;
+            if (now - feed.depthCopiedNanos >= fillEstimateIntervalNanos) {
+                feed.depthCopiedNanos = now;
+                engine.publishView(feed.book, true);
+            } else {
+                engine.publishView(feed.book, false);
+                if (!feed.depthLagging) {
+                    feed.depthLagging = true;
+                    laggingDepths.add(feed);
+                }
+            }
+        }
+        staleViews.clear();
+    }
+
+    /**
+     * Republish the views of lagging books whose interval has passed (or
+     * all, on shutdown) with a fresh depth copy. One whose depth was copied
+     * since it started lagging is republished as well; the book hands out
+     * the same copy again if its depth is unchanged.
+     */
+    private void catchUpDepths(long now, boolean all) {
+        for (int i = laggingDepths.size() - 1; i >= 0; i--) {
+            BookFeed feed = laggingDepths.get(i);
+            if (all || now - feed.depthCopiedNanos >= fillEstimateIntervalNanos) {
+                laggingDepths.remove(i);
+                feed.depthLagging = false;
+                feed.depthCopiedNanos = now;
+                engine.publishView(feed.book, true);
+            }
+        }
+    }
+
+    /**
+     * Queue a full top-N snapshot of every owned book for publishing. Each
+     * carries the book's current update id, so feed consumers can line it
+     * up with the deltas; pending conflated changes go out first.
+     */
+    private void publishBookSnapshots(long now) {
+        nextBookSnapshotNanos = now + bookSnapshotIntervalNanos;
+        flushPendingFeeds(now, true);
+        for (BookFeed feed : feeds.values()) {
+            EngineOutput output = claimOutput(feed.symbol);
+            long start = System.nanoTime();
+            output.setSnapshot(feed.book.getSnapshot(bookUpdateDepth));
+            output.setLatency(feed.latency);
+            output.setMatchedNanos(start);
+            output.setBuiltNanos(System.nanoTime());
+        }
+    }
+
+    /**
+     * Claim an output entry not tied to a command (held back like the rest)
+     */
+    private EngineOutput claimOutput(String symbol) {
+        if (lastClaimed - lastReleased >= outbound.capacity()) {
+            // Output ring is full of held-back entries: sync now
+            releaseOutputs();
+        }
+        long sequence = outbound.claim();
+        lastClaimed = sequence;
+        EngineOutput output = outbound.get(sequence);
+        output.setSymbol(symbol);
+        return output;
+    }
+
+    /**
+     * Copy every owned book at the current journal position (a safe point
+     * between commands) and write the copy off-thread, or inline on shutdown
+     */
+    private void takeSnapshot(boolean inline) {
+        nextSnapshotNanos = System.nanoTime() + snapshotIntervalNanos;
+        if (snapshots == null) {
+            return;
+        }
+        if (!snapshotInFlight.compareAndSet(false, true)) {
+            log.warn("Shard {} snapshot still being written, skipping this one", id);
+            return;
+        }
+
+        // Never let a snapshot get ahead of the durable journal
+        releaseOutputs();
+        long position = journal.position();
+        Map<String, ByteBuffer> books = copyBooks();
+
+        Runnable write = () -> {
+            try {
+                long retainedFrom = snapshots.write(position, books);
+                journal.deleteSegmentsBefore(retainedFrom);
+            } catch (Exception e) {
+                log.error("Shard {} failed to write snapshot at position {}: {}", id, position, e.getMessage(), e);
+            } finally {
+                snapshotInFlight.set(false);
+            }
+        };
+        if (inline) {
+            write.run();
+        } else {
+            snapshotWriter.execute(write);
+        }
+    }
+
+    /**
+     * Serialized state of every owned book, by symbol
+     */
+    private Map<String, ByteBuffer> copyBooks() {
+        Map<String, ByteBuffer> books = new TreeMap<>();
+        for (BookFeed feed : feeds.values()) {
+            ByteBuffer state = ByteBuffer.allocate(feed.book.stateSize());
+            feed.book.writeState(state);
+            books.put(feed.symbol, state.flip());
+        }
+        return books;
+    }
+
+    /**
+     * Start streaming to a newly connected standby from a copy of the books
+     * at the current journal position
+     */
+    private void attachStandby(long now) {
+        replication.attach(journal.position(), copyBooks());
+        nextChecksumNanos = now + checksumIntervalNanos;
+    }
+
+    /**
+     * Sync the journal (and, in synchronous replication, wait for the
+     * standby), then let the output thread publish and ack everything
+     * matched so far
+     */
+    private void releaseOutputs() {
+        if (journal != null) {
+            journal.sync();
+        }
+        if (replication != null) {
+            replication.awaitAcknowledged(journal.position(), idleStrategy);
+        }
+        for (long sequence = lastReleased + 1; sequence <= lastClaimed; sequence++) {
+            outbound.publish(sequence);
+        }
+        lastReleased = lastClaimed;
+    }
+
+    private void onCommand(EngineCommand command) {
+        if (command.isReplay() || isBookCommand(command.getType())) {
+            // Rebuilding, copying or dropping a book: nothing is journaled or published
+            try {
+                switch (command.getType()) {
+                    case RELEASE_BOOK -> releaseBook(command.getSymbol());
+                    case COPY_BOOK -> command.getBookCopy().complete(copyBook(command.getSymbol()));
+                    case RESTORE_BOOK -> restoreBook(command.getSymbol(), command.getBookState());
+                    default -> apply(command);
+                }
+            } catch (Exception e) {
+                log.error("Shard {} failed to process {} for {}: {}",
+                        id, command.getType(), command.getSymbol(), e.getMessage(), e);
+                if (command.getBookCopy() != null) {
+                    command.getBookCopy().completeExceptionally(e);
+                }
+            } finally {
+                command.clear();
+            }
+            return;
+        }
+        String symbol = command.getSymbol();
+        EngineOutput output = claimOutput(symbol);
+        output.setType(command.getType());
+        output.setAck(command.getAck());
+        output.setReceivedNanos(command.getReceivedNanos());
+        output.setSubmittedNanos(command.getSubmittedNanos());
+        output.setDequeuedNanos(System.nanoTime());
+        if (command.getType() == EngineCommand.Type.NEW_ORDER && engine.isDuplicate(command.getOrder())) {
+            // Redelivered after it was journaled but before its ack reached
+            // the broker: settle it without journaling or matching it again
+            log.warn("Shard {} dropped duplicate order {} for {}", id, command.getOrder().getOrderId(), symbol);
+            output.setDuplicate(true);
+            command.clear();
+            return;
+        }
+        try {
+            if (journal != null) {
+                journal.append(command);
+                if (replication != null && replication.isStreaming()) {
+                    replication.record(journal.lastRecord());
+                }
+            }
+            switch (command.getType()) {
+                case NEW_ORDER -> output.setResult(engine.processOrder(command.getOrder()));
+                case CANCEL_ORDER -> output.setCancelled(
+                        engine.cancelOrder(command.getSymbol(), command.getOrderId(), command.getSide()));
+                case CANCEL_REPLACE -> {
+                    output.setOrderId(command.getOrderId());
+                    output.setRequestId(command.getRequestId());
+                    output.setCancelReplace(engine.cancelReplace(command.getSymbol(), command.getOrderId(),
+                            command.getSide(), command.getPrice(), command.getQuantity()));
+                }
+            }
+            completeOutput(output, symbol);
+        } catch (Exception e) {
+            log.error("Shard {} failed to process {} for {}: {}",
+                    id, command.getType(), symbol, e.getMessage(), e);
+            output.setFailure(e);
+        } finally {
+            command.clear();
+        }
+        matchTriggeredStops(symbol);
+        viewChanged(feed(symbol));
+    }
+
+    /**
+     * Match the stop orders a command's trades triggered, and those their
+     * trades trigger in turn, before the next command. Each gets an output
+     * of its own, with no delivery to settle. Nothing is journaled: replaying
+     * the command triggers them again.
+     */
+    private void matchTriggeredStops(String symbol) {
+        while (true) {
+            long dequeued = System.nanoTime();
+            MatchResult result;
+            try {
+                result = engine.processTriggered(symbol);
+            } catch (Exception e) {
+                // The stop was taken off the trigger book; carry on with the next
+                log.error("Shard {} failed to match a triggered stop for {}: {}", id, symbol, e.getMessage(), e);
+                continue;
+            }
+            if (result == null) {
+                return;
+            }
+            EngineOutput output = claimOutput(symbol);
+            output.setType(EngineCommand.Type.NEW_ORDER);
+            output.setDequeuedNanos(dequeued);
+            output.setResult(result);
+            completeOutput(output, symbol);
+        }
+    }
+
+    /**
+     * Attach what matching changed in the book: order events and, unless
+     * conflated, the level delta
+     */
+    private void completeOutput(EngineOutput output, String symbol) {
+        long matched = System.nanoTime();
+        output.setMatchedNanos(matched);
+        BookFeed feed = feed(symbol);
+        if (feed != null) {
+            output.setLatency(feed.latency);
+            List<OrderBook.OrderEvent> orderEvents = feed.book.drainOrderEvents();
+            if (!orderEvents.isEmpty()) {
+                output.setOrderEvents(orderEvents);
+            }
+        }
+        publishChanges(feed, output, matched);
+        output.setBuiltNanos(System.nanoTime());
+    }
+
+    private static boolean isBookCommand(EngineCommand.Type type) {
+        return type == EngineCommand.Type.RELEASE_BOOK || type == EngineCommand.Type.COPY_BOOK
+                || type == EngineCommand.Type.RESTORE_BOOK;
+    }
+
+    /**
+     * Serialized state of one book as of the commands queued before this
+     * one, or null if the shard has no such book
+     */
+    private ByteBuffer copyBook(String symbol) {
+        OrderBook book = engine.getOrderBook(symbol);
+        if (book == null) {
+            return null;
+        }
+        ByteBuffer state = ByteBuffer.allocate(book.stateSize());
+        book.writeState(state);
+        return state.flip();
+    }
+
+    /**
+     * Replace a book, if any, with checkpointed state
+     */
+    private void restoreBook(String symbol, ByteBuffer state) {
+        if (feeds.containsKey(symbol) || engine.getOrderBook(symbol) != null) {
+            releaseBook(symbol);
+        }
+        engine.restoreOrderBook(symbol, state.duplicate());
+        viewChanged(feed(symbol));
+    }
+
+    /**
+     * Forget a book another engine now owns, with any unpublished changes
+     */
+    private void releaseBook(String symbol) {
+        BookFeed feed = feeds.remove(symbol);
+        if (feed != null && feed.pending) {
+            pendingFeeds.remove(feed);
+        }
+        if (feed != null && feed.viewStale) {
+            staleViews.remove(feed);
+        }
+        if (feed != null && feed.depthLagging) {
+            laggingDepths.remove(feed);
+        }
+        engine.removeOrderBook(symbol);
+        log.info("Shard {} released book {}", id, symbol);
+    }
+
+    /**
+     * Re-apply a journaled (or otherwise already processed) command; nothing is published
+     */
+    private void apply(EngineCommand command) {
+        String symbol = command.getSymbol();
+        try {
+            switch (command.getType()) {
+                case NEW_ORDER -> engine.replayOrder(command.getOrder());
+                case CANCEL_ORDER -> engine.replayCancel(command.getSymbol(), command.getOrderId(), command.getSide());
+                case CANCEL_REPLACE -> engine.replayCancelReplace(command.getSymbol(), command.getOrderId(),
+                        command.getSide(), command.getPrice(), command.getQuantity());
+            }
+            // No market data goes out during replay; only the update id moves on
+            BookFeed feed = feed(symbol);
+            if (feed != null) {
+                feed.book.drainChanges();
+                feed.book.drainOrderEvents();
+            }
+        } catch (Exception e) {
+            // Failed the same way when it was first processed
+            log.warn("Shard {} replay of {} for {} failed: {}",
+                    id, command.getType(), symbol, e.getMessage());
+        }
+        viewChanged(feed(symbol));
+    }
+
+    // ============================================
+    // Standby (replica thread, until promotion)
+    // ============================================
+
+    @Override
+    public int id() {
+        return id;
+    }
+
+    @Override
+    public long position() {
+        return journal.position();
+    }
+
+    @Override
+    public void restore(long position, Map<String, ByteBuffer> books) {
+        for (String symbol : feeds.keySet()) {
+            engine.removeOrderBook(symbol);
+        }
+        feeds.clear();
+        pendingFeeds.clear();
+        staleViews.clear();
+        laggingDepths.clear();
+        for (Map.Entry<String, ByteBuffer> book : books.entrySet()) {
+            engine.restoreOrderBook(book.getKey(), book.getValue().duplicate());
+            viewChanged(feed(book.getKey()));
+        }
+        publishViews();
+        journal.reset(position);
+        if (snapshots != null) {
+            // Restart from these books, not from what this engine had before
+            try {
+                snapshots.deleteAll();
+                snapshots.write(position, books);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to snapshot replicated books of shard " + id, e);
+            }
+        }
+        nextSnapshotNanos = System.nanoTime() + snapshotIntervalNanos;
+    }
+
+    @Override
+    public long apply(ByteBuffer record) {
+        long recordPosition = journal.read(record, replicaCommand);
+        try {
+            if (recordPosition != journal.position()) {
+                throw new IllegalStateException("Replicated record " + recordPosition
+                        + " does not follow journal position " + journal.position());
+            }
+            journal.append(replicaCommand);
+            apply(replicaCommand);
+        } finally {
+            replicaCommand.clear();
+        }
+        return journal.position();
+    }
+
+    @Override
+    public void flush() {
+        if (journal.syncDue()) {
+            journal.sync();
+        }
+        publishViews();
+        if (!laggingDepths.isEmpty()) {
+            catchUpDepths(System.nanoTime(), false);
+        }
+    }
+
+    @Override
+    public long checksum() {
+        CRC32C crc = new CRC32C();
+        for (Map.Entry<String, ByteBuffer> book : copyBooks().entrySet()) {
+            crc.update(book.getKey().getBytes(StandardCharsets.US_ASCII));
+            crc.update(book.getValue());
+        }
+        return crc.getValue();
+    }
+
+    // ============================================
+    // Output thread
+    // ============================================
+
+    private void outputLoop() {
+        int idle = 0;
+        while (running || matchingThread.isAlive() || outbound.backlog() > 0) {
+            if (outbound.drain(this::onOutput, DRAIN_LIMIT) > 0) {
+                idle = 0;
+            } else {
+                idleStrategy.idle(idle++);
+            }
+        }
+    }
+
+    private void onOutput(EngineOutput output) {
+        try {
+            output.setOutputNanos(System.nanoTime());
+            outputHandler.onOutput(output);
+            if (output.getLatency() != null) {
+                recordLatency(output.getLatency(), output, System.nanoTime());
+            }
+        } catch (Exception e) {
+            log.error("Shard {} output stage failed for {}: {}", id, output.getSymbol(), e.getMessage(), e);
+        } finally {
+            output.clear();
+        }
+    }
+
+    /**
+     * Record the stages an output went through, up to it being published
+     */
+    private static void recordLatency(SymbolLatency latency, EngineOutput output, long publishedNanos) {
+        if (output.getType() == null) {
+            if (output.getSnapshot() != null) {
+                latency.record(LatencyStage.BOOK_SNAPSHOT, output.getMatchedNanos(), output.getBuiltNanos());
+            }
+            return;
+        }
+        latency.record(LatencyStage.DECODE, output.getReceivedNanos(), output.getSubmittedNanos());
+        latency.record(LatencyStage.QUEUE, output.getSubmittedNanos(), output.getDequeuedNanos());
+        latency.record(LatencyStage.MATCH, output.getDequeuedNanos(), output.getMatchedNanos());
+        latency.record(LatencyStage.BOOK_UPDATE, output.getMatchedNanos(), output.getBuiltNanos());
+        latency.record(LatencyStage.OUTPUT_QUEUE, output.getBuiltNanos(), output.getOutputNanos());
+        latency.record(LatencyStage.PUBLISH, output.getOutputNanos(), publishedNanos);
+        latency.record(LatencyStage.TOTAL, output.getReceivedNanos(), publishedNanos);
+    }
+}
@@ -0,0 +1,10 @@
+package com.tradeflow.matching.engine;
+
+/**
+ * Output stage of the matching pipeline: publishes what a command produced
+ * and settles its delivery. Called on the shard's output thread.
+ */
+public interface OutputHandler {
+
+    void onOutput(EngineOutput output);
+}
@@ -0,0 +1,111 @@
+package com.tradeflow.matching.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer / single-consumer ring of preallocated, reusable
+ * entries.
+ *
+ * Producers {@link #claim()} a sequence, fill the entry returned by
+ * {@link #get(long)} and {@link #publish(long)} it. When the ring is full,
+ * claiming blocks, which back-pressures the producer. The single consumer
+ * drains published entries in sequence order. Entries are recycled, so the
+ * consumer must copy out anything it keeps past the handler call.
+ */
+public final class RingBuffer<E> {
+
+    private final Object[] entries;
+    private final int mask;
+
+    // Sequence last published into each slot (-1 = never)
+    private final AtomicLongArray published;
+
+    // Last sequence claimed by any producer
+    private final AtomicLong claimed = new AtomicLong(-1);
+
+    // Last sequence fully handled by the consumer
+    private volatile long consumed = -1;
+
+    public RingBuffer(int size, Supplier<E> factory) {
+        if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + size);
+        }
+        entries = new Object[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = factory.get();
+        }
+        mask = size - 1;
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Claim the next sequence, waiting while the ring is full
+     */
+    public long claim() {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - entries.length;
+        int spins = 0;
+        while (wrapPoint > consumed) {
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(1_000);
+            }
+        }
+        return sequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    /**
+     * Make a claimed and filled entry visible to the consumer
+     */
+    public void publish(long sequence) {
+        published.setRelease((int) sequence & mask, sequence);
+    }
+
+    /**
+     * Hand up to {@code limit} published entries, in order, to the handler.
+     * Consumer thread only. An entry whose handler throws is still consumed.
+     *
+     * @return number of entries handled
+     */
+    public int drain(Consumer<E> handler, int limit) {
+        long next = consumed + 1;
+        int count = 0;
+        try {
+            while (count < limit && published.getAcquire((int) next & mask) == next) {
+                E entry = get(next);
+                next++;
+                count++;
+                handler.accept(entry);
+            }
+        } finally {
+            if (count > 0) {
+                consumed = next - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Entries claimed but not yet handled by the consumer
+     */
+    public long backlog() {
+        return claimed.get() - consumed;
+    }
+}
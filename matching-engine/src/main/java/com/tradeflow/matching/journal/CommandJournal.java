@@ -0,0 +1,476 @@
+package com.tradeflow.matching.journal;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
+import com.tradeflow.matching.engine.EngineCommand;
+import com.tradeflow.matching.orderbook.BookOrder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of the commands accepted by one matching shard.
+ *
+ * Records go into fixed-size memory-mapped segment files named after the
+ * position (record number) of their first record. Each record is
+ * {@code [int length][int crc32c][body]}; a zero length marks the end of the
+ * written data and a bad checksum marks a torn tail, so reading stops at the
+ * last complete record. Writes land in the page cache and survive a process
+ * crash; {@link #sync()} forces them to disk for power-loss durability.
+ *
+ * Records are also the unit of replication: a primary ships the body of
+ * each {@link #lastRecord() appended record} to its standby, which
+ * {@link #read reads} it and appends it to its own journal at the same
+ * position.
+ *
+ * Single-threaded: owned by the shard's matching thread.
+ */
+@Slf4j
+public final class CommandJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final TimeInForce[] TIME_IN_FORCE = TimeInForce.values();
+
+    private final Path directory;
+    private final long segmentSize;
+    private final int fsyncBatchSize;
+    private final long fsyncIntervalNanos;
+
+    // Encoded symbol bytes, and decoded symbols shared across replayed records
+    private final Map<String, byte[]> symbolBytes = new HashMap<>();
+    private final Map<String, String> symbols = new HashMap<>();
+
+    private final CRC32C crc = new CRC32C();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+
+    // Next record position and its byte offset in the current segment
+    private long position;
+    private int offset;
+
+    // Offset and body length of the last appended record
+    private int lastRecordOffset;
+    private int lastRecordLength;
+
+    // Offset up to which the current segment has been forced
+    private int syncedOffset;
+    private int unsyncedRecords;
+    private long firstUnsyncedNanos;
+
+    /**
+     * @param segmentSize    bytes per segment file
+     * @param fsyncBatchSize force to disk after this many records; 0 leaves
+     *                       flushing to the OS
+     * @param fsyncInterval  force to disk once the oldest unforced record is
+     *                       this old, in nanoseconds
+     */
+    public CommandJournal(Path directory, long segmentSize, int fsyncBatchSize, long fsyncInterval) {
+        if (segmentSize < 4096 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentSize must be between 4KB and 2GB: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncBatchSize = fsyncBatchSize;
+        this.fsyncIntervalNanos = fsyncInterval;
+    }
+
+    /**
+     * Position the next appended record will get
+     */
+    public long position() {
+        return position;
+    }
+
+    // ============================================
+    // Replay
+    // ============================================
+
+    /**
+     * Hand every complete record from {@code fromPosition} on to the handler
+     * in order, then open the journal for appending after the last one.
+     *
+     * @param fromPosition first position to replay, e.g. the position a
+     *                     snapshot was taken at
+     * @return number of records replayed
+     */
+    public long replay(long fromPosition, Consumer<EngineCommand> handler) {
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = listSegments();
+            EngineCommand command = new EngineCommand();
+            long count = 0;
+            boolean started = false;
+            position = fromPosition;
+
+            for (int i = 0; i < segments.size(); i++) {
+                Path path = segments.get(i);
+                if (i + 1 < segments.size() && segmentPosition(segments.get(i + 1)) <= fromPosition) {
+                    // Entirely before the starting position
+                    continue;
+                }
+                long first = segmentPosition(path);
+                if (started ? first != position : first > fromPosition) {
+                    throw new IllegalStateException("Journal gap before " + path + ": expected position " + position);
+                }
+                started = true;
+                position = first;
+                try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                    ByteBuffer buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                    offset = 0;
+                    while (readRecord(buffer, command)) {
+                        if (position >= fromPosition) {
+                            handler.accept(command);
+                            count++;
+                        }
+                        command.setOrder(null);
+                        position++;
+                    }
+                }
+            }
+            if (position < fromPosition) {
+                // Unforced tail lost after the snapshot was written: the snapshot already covers it
+                log.warn("Journal {} ends at {}, before snapshot position {}; continuing from the snapshot",
+                        directory, position, fromPosition);
+                position = fromPosition;
+                started = false;
+            }
+
+            openForAppend(started ? segments.get(segments.size() - 1) : null);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay journal in " + directory, e);
+        }
+    }
+
+    private boolean readRecord(ByteBuffer buffer, EngineCommand command) {
+        if (offset + HEADER_SIZE > buffer.limit()) {
+            return false;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + HEADER_SIZE + length > buffer.limit()) {
+            return false;
+        }
+        int checksum = buffer.getInt(offset + 4);
+        crc.reset();
+        crc.update(buffer.slice(offset + HEADER_SIZE, length));
+        if ((int) crc.getValue() != checksum) {
+            log.warn("Torn journal record at position {} in {}, ignoring tail", position, directory);
+            return false;
+        }
+
+        long recordPosition = read(buffer.slice(offset + HEADER_SIZE, length), command);
+        if (recordPosition != position) {
+            throw new IllegalStateException("Journal record " + recordPosition + " found at position " + position);
+        }
+        offset += HEADER_SIZE + length;
+        return true;
+    }
+
+    /**
+     * Decode a record body, e.g. one received from a replication primary
+     *
+     * @return position the record was written at
+     */
+    public long read(ByteBuffer body, EngineCommand command) {
+        long recordPosition = body.getLong();
+        decode(body, command);
+        return recordPosition;
+    }
+
+    private void decode(ByteBuffer body, EngineCommand command) {
+        EngineCommand.Type type = EngineCommand.Type.values()[body.get()];
+        byte[] symbolRaw = new byte[body.getShort()];
+        body.get(symbolRaw);
+        String symbol = symbols.computeIfAbsent(
+                new String(symbolRaw, StandardCharsets.US_ASCII), s -> s);
+
+        command.setType(type);
+        command.setSymbol(symbol);
+        command.setAck(null);
+        switch (type) {
+            case NEW_ORDER -> {
+                UUID orderId = new UUID(body.getLong(), body.getLong());
+                UUID userId = new UUID(body.getLong(), body.getLong());
+                OrderSide side = SIDES[body.get()];
+                OrderType orderType = ORDER_TYPES[body.get()];
+                TimeInForce timeInForce = TIME_IN_FORCE[body.get()];
+                long price = body.getLong();
+                long quantity = body.getLong();
+                long timestampNanos = body.getLong();
+                // Only stop orders carry a stop price, so earlier records still read
+                long stopPrice = orderType == OrderType.STOP || orderType == OrderType.STOP_LIMIT
+                        ? body.getLong()
+                        : 0L;
+                command.setOrder(BookOrder.builder()
+                        .orderId(orderId)
+                        .userId(userId)
+                        .symbol(symbol)
+                        .side(side)
+                        .type(orderType)
+                        .timeInForce(timeInForce)
+                        .price(price)
+                        .stopPrice(stopPrice)
+                        .originalQuantity(quantity)
+                        .remainingQuantity(quantity)
+                        .timestamp(Instant.ofEpochSecond(0, timestampNanos))
+                        .sequenceNumber(0)
+                        .build());
+            }
+            case CANCEL_ORDER -> {
+                command.setOrderId(new UUID(body.getLong(), body.getLong()));
+                command.setSide(SIDES[body.get()]);
+            }
+            case CANCEL_REPLACE -> {
+                command.setOrderId(new UUID(body.getLong(), body.getLong()));
+                command.setSide(SIDES[body.get()]);
+                command.setPrice(body.getLong());
+                command.setQuantity(body.getLong());
+            }
+        }
+    }
+
+    // ============================================
+    // Append
+    // ============================================
+
+    /**
+     * Write a command ahead of matching it
+     *
+     * @return position of the record
+     */
+    public long append(EngineCommand command) {
+        byte[] symbol = symbolBytes.computeIfAbsent(command.getSymbol(),
+                s -> s.getBytes(StandardCharsets.US_ASCII));
+        int length = 8 + 1 + 2 + symbol.length + switch (command.getType()) {
+            case NEW_ORDER -> 32 + 1 + 1 + 1 + 8 + 8 + 8 + (command.getOrder().isStop() ? 8 : 0);
+            case CANCEL_ORDER -> 16 + 1;
+            case CANCEL_REPLACE -> 16 + 1 + 8 + 8;
+            case RELEASE_BOOK, COPY_BOOK, RESTORE_BOOK ->
+                    throw new IllegalArgumentException(command.getType() + " commands are not journaled");
+        };
+        if (offset + HEADER_SIZE + length > segment.capacity()) {
+            roll();
+        }
+
+        ByteBuffer body = segment.slice(offset + HEADER_SIZE, length);
+        body.putLong(position);
+        body.put((byte) command.getType().ordinal());
+        body.putShort((short) symbol.length);
+        body.put(symbol);
+        switch (command.getType()) {
+            case NEW_ORDER -> {
+                BookOrder order = command.getOrder();
+                putUuid(body, order.getOrderId());
+                putUuid(body, order.getUserId());
+                body.put((byte) order.getSide().ordinal());
+                body.put((byte) order.getType().ordinal());
+                body.put((byte) order.getTimeInForce().ordinal());
+                body.putLong(order.getPrice());
+                body.putLong(order.getRemainingQuantity());
+                Instant timestamp = order.getTimestamp();
+                body.putLong(timestamp != null
+                        ? timestamp.getEpochSecond() * 1_000_000_000L + timestamp.getNano()
+                        : 0L);
+                if (order.isStop()) {
+                    body.putLong(order.getStopPrice());
+                }
+            }
+            case CANCEL_ORDER -> {
+                putUuid(body, command.getOrderId());
+                body.put((byte) command.getSide().ordinal());
+            }
+            case CANCEL_REPLACE -> {
+                putUuid(body, command.getOrderId());
+                body.put((byte) command.getSide().ordinal());
+                body.putLong(command.getPrice());
+                body.putLong(command.getQuantity());
+            }
+        }
+
+        crc.reset();
+        crc.update(body.flip());
+        segment.putInt(offset + 4, (int) crc.getValue());
+        // Length last, so a reader never sees a length without its body
+        segment.putInt(offset, length);
+
+        lastRecordOffset = offset;
+        lastRecordLength = length;
+        offset += HEADER_SIZE + length;
+        if (unsyncedRecords++ == 0) {
+            firstUnsyncedNanos = System.nanoTime();
+        }
+        return position++;
+    }
+
+    /**
+     * Body of the last appended record (without its length and checksum),
+     * valid until the next append
+     */
+    public ByteBuffer lastRecord() {
+        return segment.slice(lastRecordOffset + HEADER_SIZE, lastRecordLength);
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id != null ? id.getMostSignificantBits() : 0L);
+        buffer.putLong(id != null ? id.getLeastSignificantBits() : 0L);
+    }
+
+    /**
+     * Whether unforced records have reached the fsync batch size or age.
+     * Always true when fsync is disabled, since there is nothing to wait for.
+     */
+    public boolean syncDue() {
+        if (fsyncBatchSize <= 0 || unsyncedRecords == 0) {
+            return true;
+        }
+        return unsyncedRecords >= fsyncBatchSize
+                || System.nanoTime() - firstUnsyncedNanos >= fsyncIntervalNanos;
+    }
+
+    /**
+     * Force appended records to disk (no-op when fsync is disabled)
+     */
+    public void sync() {
+        if (fsyncBatchSize > 0 && offset > syncedOffset) {
+            segment.force(syncedOffset, offset - syncedOffset);
+        }
+        syncedOffset = offset;
+        unsyncedRecords = 0;
+    }
+
+    private void roll() {
+        sync();
+        try {
+            channel.close();
+            openSegment(segmentPath(position), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll journal segment in " + directory, e);
+        }
+        log.info("Rolled journal {} to new segment at position {}", directory, position);
+    }
+
+    private void openForAppend(Path last) throws IOException {
+        if (last == null) {
+            openSegment(segmentPath(position), true);
+        } else {
+            // Continue after the last complete record of the newest segment
+            int tail = offset;
+            openSegment(last, false);
+            offset = tail;
+            syncedOffset = tail;
+        }
+        log.info("Journal {} open for append at position {}", directory, position);
+    }
+
+    private void openSegment(Path path, boolean create) throws IOException {
+        channel = create
+                ? FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        offset = 0;
+        syncedOffset = 0;
+    }
+
+    /**
+     * Discard every segment and start an empty journal whose next record
+     * gets {@code position}, e.g. after a standby loaded its primary's books
+     * as of that position
+     */
+    public void reset(long position) {
+        close();
+        try {
+            Files.createDirectories(directory);
+            for (Path path : listSegments()) {
+                Files.delete(path);
+            }
+            this.position = position;
+            unsyncedRecords = 0;
+            openSegment(segmentPath(position), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to reset journal in " + directory, e);
+        }
+        log.info("Journal {} reset to position {}", directory, position);
+    }
+
+    /**
+     * Delete segments holding only records before {@code position}. The
+     * segment being appended to is never deleted. Safe to call from a
+     * thread other than the writer.
+     *
+     * @return number of segments deleted
+     */
+    public int deleteSegmentsBefore(long position) throws IOException {
+        List<Path> segments = listSegments();
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (segmentPosition(segments.get(i + 1)) > position) {
+                break;
+            }
+            Files.deleteIfExists(segments.get(i));
+            deleted++;
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} journal segments before position {} in {}", deleted, position, directory);
+        }
+        return deleted;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long firstPosition) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstPosition, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentPosition(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        sync();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close journal {}: {}", directory, e.getMessage());
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,182 @@
+package com.tradeflow.matching.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshots of one shard's order books.
+ *
+ * A snapshot file holds the journal position it was taken at plus the
+ * serialized state of each book, and ends with a CRC32C of its contents:
+ * {@code [magic][version][position][bookCount]([symbol][stateLength][state])*[crc]}.
+ * Files are written to a temporary name, forced and atomically renamed, so
+ * a crash never leaves a half-written snapshot under the final name.
+ */
+@Slf4j
+public final class SnapshotStore {
+
+    private static final int MAGIC = 0x5446534E; // "TFSN"
+    private static final int VERSION = 5;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private final Path directory;
+    private final int retained;
+
+    /**
+     * @param retained number of newest snapshots kept; older ones are deleted
+     */
+    public SnapshotStore(Path directory, int retained) {
+        this.directory = directory;
+        this.retained = Math.max(1, retained);
+    }
+
+    /**
+     * Load the newest readable snapshot, handing each book's state to the
+     * restorer. Falls back to older snapshots if the newest is corrupt.
+     *
+     * @return journal position to replay from (0 without a snapshot)
+     */
+    public long load(BiConsumer<String, ByteBuffer> restorer) {
+        try {
+            Files.createDirectories(directory);
+            List<Path> snapshots = listSnapshots();
+            for (int i = snapshots.size() - 1; i >= 0; i--) {
+                Path path = snapshots.get(i);
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+                if (!verify(buffer)) {
+                    log.warn("Skipping corrupt snapshot {}", path);
+                    continue;
+                }
+                buffer.position(8);
+                long position = buffer.getLong();
+                int books = buffer.getInt();
+                for (int b = 0; b < books; b++) {
+                    byte[] symbol = new byte[buffer.getShort()];
+                    buffer.get(symbol);
+                    int length = buffer.getInt();
+                    restorer.accept(new String(symbol, StandardCharsets.US_ASCII),
+                            buffer.slice(buffer.position(), length));
+                    buffer.position(buffer.position() + length);
+                }
+                log.info("Loaded snapshot {} ({} books, journal position {})", path, books, position);
+                return position;
+            }
+            return 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load snapshot from " + directory, e);
+        }
+    }
+
+    private static boolean verify(ByteBuffer buffer) {
+        int length = buffer.limit();
+        if (length < 24 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(0, length - 4));
+        return (int) crc.getValue() == buffer.getInt(length - 4);
+    }
+
+    /**
+     * Write a snapshot taken at a journal position and prune old snapshots.
+     * Book states must be flipped and ready to read.
+     *
+     * @return journal position of the oldest retained snapshot; journal
+     * records before it are no longer needed
+     */
+    public long write(long position, Map<String, ByteBuffer> books) throws IOException {
+        int size = 4 + 4 + 8 + 4 + 4;
+        for (Map.Entry<String, ByteBuffer> entry : books.entrySet()) {
+            size += 2 + entry.getKey().length() + 4 + entry.getValue().remaining();
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putLong(position);
+        out.putInt(books.size());
+        for (Map.Entry<String, ByteBuffer> entry : books.entrySet()) {
+            byte[] symbol = entry.getKey().getBytes(StandardCharsets.US_ASCII);
+            out.putShort((short) symbol.length);
+            out.put(symbol);
+            out.putInt(entry.getValue().remaining());
+            out.put(entry.getValue());
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+        out.flip();
+
+        Path target = snapshotPath(position);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Wrote snapshot {} ({} books, {} bytes)", target, books.size(), size);
+
+        return prune();
+    }
+
+    /**
+     * Delete every snapshot, e.g. before taking over another engine's books
+     */
+    public void deleteAll() throws IOException {
+        Files.createDirectories(directory);
+        for (Path path : listSnapshots()) {
+            Files.delete(path);
+        }
+    }
+
+    private long prune() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        int excess = snapshots.size() - retained;
+        for (int i = 0; i < excess; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+            log.debug("Deleted old snapshot {}", snapshots.get(i));
+        }
+        return snapshotPosition(snapshots.get(Math.max(0, excess)));
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+            }).sorted(Comparator.comparing(Path::getFileName)).forEach(snapshots::add);
+        }
+        return snapshots;
+    }
+
+    private Path snapshotPath(long position) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, position, SNAPSHOT_SUFFIX));
+    }
+
+    private static long snapshotPosition(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+}
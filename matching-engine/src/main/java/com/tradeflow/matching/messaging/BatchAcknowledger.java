@@ -0,0 +1,80 @@
+package com.tradeflow.matching.messaging;
+
+import com.rabbitmq.client.Channel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Acknowledges batches of RabbitMQ deliveries on one channel with a single
+ * {@code basicAck(multiple=true)}.
+ *
+ * Deliveries settle out of order (different shards, Kafka callbacks), so
+ * batches are acked strictly in delivery order: a multiple ack only covers
+ * tags whose batch and every earlier batch on the channel have settled.
+ * Rejected deliveries are nacked individually before they count as settled,
+ * and the multiple ack always ends on a positively settled tag.
+ */
+@RequiredArgsConstructor
+@Slf4j
+final class BatchAcknowledger {
+
+    private final Channel channel;
+
+    // Batches not yet acked, in delivery order
+    private final ArrayDeque<Batch> open = new ArrayDeque<>();
+
+    /**
+     * Start tracking the next batch of {@code size} deliveries
+     */
+    synchronized Batch begin(int size) {
+        Batch batch = new Batch(size);
+        open.addLast(batch);
+        return batch;
+    }
+
+    private void ackSettledBatches() {
+        long ackTag = -1;
+        while (!open.isEmpty() && open.peekFirst().remaining == 0) {
+            ackTag = Math.max(ackTag, open.pollFirst().highestAcked);
+        }
+        if (ackTag < 0) {
+            return;
+        }
+        try {
+            channel.basicAck(ackTag, true);
+        } catch (IOException e) {
+            log.error("Failed to ack deliveries up to {}: {}", ackTag, e.getMessage());
+        }
+    }
+
+    /**
+     * Deliveries handed to the listener in one call
+     */
+    final class Batch {
+
+        private int remaining;
+        private long highestAcked = -1;
+
+        private Batch(int size) {
+            this.remaining = size;
+        }
+
+        /**
+         * Record one delivery as settled. Rejected deliveries must already
+         * have been nacked.
+         */
+        void settle(long deliveryTag, boolean acked) {
+            synchronized (BatchAcknowledger.this) {
+                if (acked) {
+                    highestAcked = Math.max(highestAcked, deliveryTag);
+                }
+                if (--remaining == 0) {
+                    ackSettledBatches();
+                }
+            }
+        }
+    }
+}
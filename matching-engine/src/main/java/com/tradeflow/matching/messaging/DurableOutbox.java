@@ -0,0 +1,240 @@
+package com.tradeflow.matching.messaging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Messages a broker did not acknowledge, kept on disk and resent until it
+ * does.
+ *
+ * Output that is parked belongs to a command that was already applied and
+ * journaled, so a redelivery of the command would be dropped as a duplicate
+ * and the message must not be lost. Each failed batch is written to a file
+ * of its own (to a temporary name, forced and atomically renamed, like
+ * snapshots) before the delivery is acked, then resent with exponential
+ * backoff until the broker acknowledges it, when the file is deleted.
+ * Files left behind by a previous run are resent on startup, oldest name
+ * first.
+ *
+ * File layout: {@code [magic][version](batch)[crc]}; subclasses encode the
+ * batch and send it.
+ */
+@Slf4j
+abstract class DurableOutbox<T> {
+
+    private final String name;
+    private final Path directory;
+    private final String suffix;
+    private final int magic;
+    private final int version;
+    private final long retryBackoffMillis;
+    private final long maxRetryBackoffMillis;
+
+    // Writes, resends and deletes batches; sends complete on the broker client's threads
+    private final ScheduledExecutorService executor;
+
+    protected DurableOutbox(String name, Path directory, String suffix, int magic, int version,
+            Duration retryBackoff, Duration maxRetryBackoff) {
+        this.name = name;
+        this.directory = directory;
+        this.suffix = suffix;
+        this.magic = magic;
+        this.version = version;
+        this.retryBackoffMillis = retryBackoff.toMillis();
+        this.maxRetryBackoffMillis = maxRetryBackoff.toMillis();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "matching-" + name));
+    }
+
+    /**
+     * Send a batch; the future fails if the broker did not acknowledge it
+     */
+    protected abstract CompletableFuture<Void> send(T batch);
+
+    /**
+     * File name of a batch, without the suffix: unique, and sorting older
+     * batches first
+     */
+    protected abstract String fileName(T batch);
+
+    protected abstract int encodedSize(T batch);
+
+    protected abstract void encode(T batch, ByteBuffer out);
+
+    protected abstract T decode(ByteBuffer in) throws IOException;
+
+    /**
+     * Short description of a batch for the logs
+     */
+    protected abstract String describe(T batch);
+
+    /**
+     * Resend the batches a previous run could not deliver
+     */
+    @PostConstruct
+    public void start() {
+        List<Path> files;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> list = Files.list(directory)) {
+                files = list.filter(path -> path.getFileName().toString().endsWith(suffix)).sorted().toList();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open " + name + " " + directory, e);
+        }
+        for (Path file : files) {
+            try {
+                T batch = read(file);
+                log.warn("Resending undelivered {} from {}", describe(batch), file);
+                executor.execute(() -> resend(file, batch, retryBackoffMillis));
+            } catch (IOException e) {
+                log.error("Skipping unreadable {} file {}: {}", name, file, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        // Batches not yet delivered stay on disk for the next start
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Store a batch whose send failed and retry it until delivered
+     *
+     * @return completes once the batch is on disk; storing is retried
+     * until it succeeds, so it never completes exceptionally
+     */
+    public CompletableFuture<Void> park(T batch, Throwable cause) {
+        log.error("Parking {} for retry, the broker did not acknowledge it: {}", describe(batch), cause.getMessage());
+        CompletableFuture<Void> stored = new CompletableFuture<>();
+        if (!schedule(() -> store(batch, stored, retryBackoffMillis), 0)) {
+            // Shutting down: store on the caller's thread, resent on the next start
+            store(batch, stored, retryBackoffMillis);
+        }
+        return stored;
+    }
+
+    private void store(T batch, CompletableFuture<Void> stored, long backoffMillis) {
+        Path file;
+        try {
+            file = write(batch);
+        } catch (IOException e) {
+            log.error("Failed to write {} to the {}, retrying in {} ms: {}",
+                    describe(batch), name, backoffMillis, e.getMessage(), e);
+            schedule(() -> store(batch, stored, nextBackoff(backoffMillis)), backoffMillis);
+            return;
+        }
+        stored.complete(null);
+        schedule(() -> resend(file, batch, retryBackoffMillis), retryBackoffMillis);
+    }
+
+    private void resend(Path file, T batch, long backoffMillis) {
+        CompletableFuture<Void> sent;
+        try {
+            sent = send(batch);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((ignored, failure) -> {
+            if (failure == null) {
+                log.info("Delivered parked {} from {}", describe(batch), file.getFileName());
+                schedule(() -> delete(file), 0);
+            } else {
+                log.warn("Resending {} failed, retrying in {} ms: {}", file.getFileName(), backoffMillis,
+                        failure.getMessage());
+                schedule(() -> resend(file, batch, nextBackoff(backoffMillis)), backoffMillis);
+            }
+        });
+    }
+
+    private boolean schedule(Runnable task, long delayMillis) {
+        try {
+            executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("The {} is shut down; parked batches are resent on the next start", name);
+            return false;
+        }
+    }
+
+    private long nextBackoff(long backoffMillis) {
+        return Math.min(backoffMillis * 2, maxRetryBackoffMillis);
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Resent again on the next start; consumers drop the copies
+            log.warn("Failed to delete delivered batch {}: {}", file, e.getMessage());
+        }
+    }
+
+    // ============================================
+    // Files
+    // ============================================
+
+    private Path write(T batch) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(4 + 4 + encodedSize(batch) + 4);
+        out.putInt(magic);
+        out.putInt(version);
+        encode(batch, out);
+        CRC32C crc = new CRC32C();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+        out.flip();
+
+        Path target = directory.resolve(fileName(batch) + suffix);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        Files.createDirectories(directory);
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    private T read(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        int length = in.limit();
+        if (length < 12 || in.getInt(0) != magic || in.getInt(4) != version) {
+            throw new IOException("Not a " + name + " file");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(in.array(), 0, length - 4);
+        if ((int) crc.getValue() != in.getInt(length - 4)) {
+            throw new IOException("Checksum mismatch");
+        }
+        in.position(8);
+        in.limit(length - 4);
+        return decode(in);
+    }
+}
@@ -0,0 +1,156 @@
+package com.tradeflow.matching.messaging;
+
+import com.tradeflow.common.event.OrderExpiredEvent;
+import com.tradeflow.matching.engine.DeliveryAck;
+import com.tradeflow.matching.engine.EngineOutput;
+import com.tradeflow.matching.engine.OutputHandler;
+import com.tradeflow.matching.metrics.LatencyStage;
+import com.tradeflow.matching.metrics.SymbolLatency;
+import com.tradeflow.matching.orderbook.MatchResult;
+import com.tradeflow.matching.orderbook.OrderBook;
+import com.tradeflow.matching.orderbook.Trade;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pipeline output stage: publishes what the matching thread produced, then
+ * settles the inbound delivery. Runs on the shard's output thread.
+ *
+ * Sends of trades and of messages to OMS (cancel/replace confirmations,
+ * IOC/FOK expiry notices) are not awaited here: a delivery is acked from
+ * the broker callbacks once everything it produced has been acknowledged.
+ * A command that was processed is never rejected or dead-lettered: it is
+ * journaled, and a redelivery would be dropped as a duplicate. Trades
+ * Kafka refuses go to the {@link TradeOutbox} and messages RabbitMQ
+ * refuses to the {@link ResponseOutbox}; the delivery is acked once they
+ * are stored there. Market data is best effort: the next delta or
+ * snapshot supersedes a lost one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EngineOutputPublisher implements OutputHandler {
+
+    private final TradePublisher tradePublisher;
+    private final OrderResponsePublisher orderResponsePublisher;
+    private final TradeOutbox tradeOutbox;
+    private final ResponseOutbox responseOutbox;
+
+    @Override
+    public void onOutput(EngineOutput output) {
+        if (output.getFailure() != null) {
+            reject(output, output.getFailure());
+            return;
+        }
+        if (output.isDuplicate()) {
+            // Matched and published when first delivered
+            if (output.getAck() != null) {
+                output.getAck().ack();
+            }
+            return;
+        }
+
+        OrderBook.CancelReplaceResult cancelReplace = output.getCancelReplace();
+        // A re-entered order may have matched straight away
+        MatchResult result = cancelReplace != null ? cancelReplace.match() : output.getResult();
+        CompletableFuture<Void> responseSent = null;
+        if (cancelReplace != null) {
+            responseSent = sendResponse(orderResponsePublisher.cancelReplaceResult(
+                    output.getSymbol(), output.getOrderId(), output.getRequestId(), cancelReplace));
+            log.info("Confirming cancel/replace of order {}: {}", output.getOrderId(), cancelReplace.status());
+        }
+        CompletableFuture<Void> tradesSent = null;
+        if (result != null && result.hasTrades()) {
+            tradesSent = sendTrades(result.getTrades());
+            log.info("Order {} produced {} trades", result.getOrder().getOrderId(), result.getTrades().size());
+        }
+        CompletableFuture<Void> expirySent = null;
+        if (result != null && result.getExpiredQuantity() > 0) {
+            OrderExpiredEvent expired = orderResponsePublisher.orderExpired(result);
+            expirySent = sendResponse(expired);
+            log.info("Order {} expired {} unfilled", expired.getOrderId(), expired.getExpiredQuantity());
+        }
+        publishMarketData(output);
+
+        DeliveryAck ack = output.getAck();
+        if (ack == null) {
+            return;
+        }
+        if (tradesSent == null && responseSent == null && expirySent == null) {
+            ack.ack();
+            return;
+        }
+        SymbolLatency latency = output.getLatency();
+        long outputNanos = output.getOutputNanos();
+        CompletableFuture<Void> tradesAcked = tradesSent == null ? null : tradesSent.thenRun(() -> {
+            if (latency != null) {
+                latency.record(LatencyStage.TRADE_ACK, outputNanos, System.nanoTime());
+            }
+        });
+        allOf(allOf(tradesAcked, responseSent), expirySent).thenRun(ack::ack);
+    }
+
+    /**
+     * Publish changed levels, the periodic full snapshot and L3 events
+     */
+    private void publishMarketData(EngineOutput output) {
+        try {
+            if (output.getOrderEvents() != null) {
+                tradePublisher.publishOrderEvents(output.getSymbol(), output.getOrderEvents());
+            }
+            if (output.getDelta() != null) {
+                tradePublisher.publishOrderBookDelta(output.getDelta());
+            }
+            if (output.getSnapshot() != null) {
+                tradePublisher.publishOrderBookUpdate(output.getSnapshot());
+            }
+        } catch (Exception e) {
+            log.error("Error publishing market data for {}: {}", output.getSymbol(), e.getMessage(), e);
+        }
+    }
+
+    private static CompletableFuture<Void> allOf(CompletableFuture<Void> first, CompletableFuture<Void> second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null ? first : CompletableFuture.allOf(first, second);
+    }
+
+    /**
+     * Send a match's trades; completes once Kafka acknowledged them or,
+     * failing that, once they are stored in the outbox for retry
+     */
+    private CompletableFuture<Void> sendTrades(List<Trade> trades) {
+        CompletableFuture<Void> sent;
+        try {
+            sent = tradePublisher.publishTrades(trades);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        return sent.exceptionallyCompose(failure -> tradeOutbox.park(trades, failure));
+    }
+
+    /**
+     * Send a confirmation to OMS; completes once RabbitMQ took it or,
+     * failing that, once it is stored in the outbox for retry
+     */
+    private CompletableFuture<Void> sendResponse(Object event) {
+        CompletableFuture<Void> sent;
+        try {
+            sent = orderResponsePublisher.publish(event);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        return sent.exceptionallyCompose(failure -> responseOutbox.park(event, failure));
+    }
+
+    private void reject(EngineOutput output, Throwable cause) {
+        if (output.getAck() != null) {
+            output.getAck().reject(cause);
+        }
+    }
+}
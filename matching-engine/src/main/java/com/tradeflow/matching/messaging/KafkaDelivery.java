@@ -0,0 +1,47 @@
+package com.tradeflow.matching.messaging;
+
+import com.tradeflow.matching.engine.DeliveryAck;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.Acknowledgment;
+
+/**
+ * Settlement of one orders.to-matching record, committed through its
+ * partition's {@link PartitionAcknowledger}.
+ *
+ * Kafka cannot redeliver a single record, and matching the same input
+ * again fails the same way, so failed records are logged and committed
+ * past; they stay in the topic for inspection.
+ */
+@Slf4j
+final class KafkaDelivery implements DeliveryAck {
+
+    private final PartitionAcknowledger partition;
+    final long offset;
+    final Acknowledgment acknowledgment;
+
+    // Guarded by the partition acknowledger
+    boolean settled;
+
+    KafkaDelivery(PartitionAcknowledger partition, long offset, Acknowledgment acknowledgment) {
+        this.partition = partition;
+        this.offset = offset;
+        this.acknowledgment = acknowledgment;
+    }
+
+    @Override
+    public void ack() {
+        partition.settle(this);
+    }
+
+    @Override
+    public void reject(Throwable cause) {
+        log.error("Skipping order record at offset {}: {}", offset, cause.getMessage());
+        partition.settle(this);
+    }
+
+    @Override
+    public void deadLetter(Throwable cause) {
+        log.error("Discarding order record at offset {}: {}", offset, cause.getMessage());
+        partition.settle(this);
+    }
+}
@@ -0,0 +1,321 @@
+package com.tradeflow.matching.messaging;
+
+import com.tradeflow.common.command.CancelReplaceOrderCommand;
+import com.tradeflow.common.constants.KafkaTopics;
+import com.tradeflow.common.event.OrderToMatchingEvent;
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.engine.MatchingPipeline;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Kafka consumer for incoming orders from OMS, used instead of
+ * {@link OrderConsumer} when the ingest transport is Kafka.
+ *
+ * OMS keys orders.to-matching by symbol, so each engine in the consumer
+ * group matches the symbols of the partitions it is assigned. Books are
+ * not journaled in this mode; the topic is their log, cut short by
+ * periodic per-partition checkpoints ({@link PartitionCheckpointStore}).
+ * On assignment the partition's books are restored from its checkpoint
+ * and the partition is read from the checkpoint's offset (from the
+ * beginning without one): records below the group's committed offset were
+ * matched and published by a previous owner and are only replayed into
+ * the books, the rest are matched live. On revocation in-flight orders are
+ * drained so their offsets get committed, and the books are released
+ * unless the partition comes straight back.
+ *
+ * A checkpoint copies the partition's books on their matching threads
+ * after the records submitted so far, and is only written once all of
+ * those records are published, so a next owner starting from it never
+ * skips output that was not sent. Retention of the topic only has to
+ * cover the records since the last checkpoint.
+ *
+ * Everything but offset commits and checkpoint writes runs on the single
+ * consumer thread.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaOrderConsumer implements ConsumerAwareRebalanceListener {
+
+    public static final String LISTENER_ID = "matchingOrdersKafka";
+
+    private final OrderSubmitter orderSubmitter;
+    private final MatchingPipeline matchingPipeline;
+    private final MatchingConfigProperties properties;
+    private final PartitionCheckpointStore checkpointStore;
+
+    // Writes checkpoints once their copies are complete and their records published
+    private final ExecutorService checkpointWriter = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "matching-checkpoint-writer"));
+
+    private final Map<TopicPartition, PartitionAcknowledger> acknowledgers = new HashMap<>();
+    // First offset of each partition not yet matched by any owner
+    private final Map<TopicPartition, Long> liveFrom = new HashMap<>();
+    // Symbols seen on each partition, i.e. the books it owns here
+    private final Map<TopicPartition, Set<String>> symbols = new HashMap<>();
+    // Revoked partitions whose books are kept until the rebalance settles
+    private final Set<TopicPartition> revoked = new HashSet<>();
+    // When each partition is next checkpointed (System.nanoTime)
+    private final Map<TopicPartition, Long> nextCheckpointNanos = new HashMap<>();
+    // Partitions with a checkpoint being copied or written
+    private final Set<TopicPartition> checkpointsInFlight = ConcurrentHashMap.newKeySet();
+
+    @PreDestroy
+    public void stop() {
+        checkpointWriter.shutdown();
+    }
+
+    /**
+     * Replay or match one order or cancel/replace command. Live records
+     * are committed once their results are published, in offset order.
+     */
+    @KafkaListener(id = LISTENER_ID, topics = KafkaTopics.ORDERS_TO_MATCHING,
+            containerFactory = "orderKafkaListenerContainerFactory")
+    public void handleOrder(ConsumerRecord<String, Object> record, Acknowledgment acknowledgment) {
+        long receivedNanos = System.nanoTime();
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        boolean replay = record.offset() < liveFrom.getOrDefault(partition, 0L);
+        Object payload = record.value();
+
+        String symbol = payload instanceof OrderToMatchingEvent event ? event.getSymbol()
+                : payload instanceof CancelReplaceOrderCommand command ? command.getSymbol()
+                : null;
+        if (symbol == null) {
+            log.error("Discarding record {}@{} with unexpected payload {}", partition, record.offset(),
+                    payload != null ? payload.getClass().getName() : "null");
+            if (!replay) {
+                acknowledger(partition).begin(record.offset(), acknowledgment).ack();
+            }
+            return;
+        }
+        symbols.computeIfAbsent(partition, p -> new HashSet<>()).add(symbol.toUpperCase());
+
+        // The producer timestamp stands in for a missing order timestamp, so replays rebuild the same book
+        Instant sentAt = Instant.ofEpochMilli(record.timestamp());
+        if (replay) {
+            try {
+                if (payload instanceof OrderToMatchingEvent event) {
+                    orderSubmitter.replayOrder(event, sentAt);
+                } else {
+                    orderSubmitter.replayCancelReplace((CancelReplaceOrderCommand) payload);
+                }
+            } catch (Exception e) {
+                log.error("Error replaying record {}@{}: {}", partition, record.offset(), e.getMessage(), e);
+            }
+            return;
+        }
+
+        KafkaDelivery delivery = acknowledger(partition).begin(record.offset(), acknowledgment);
+        try {
+            if (payload instanceof OrderToMatchingEvent event) {
+                log.debug("Received order from OMS: {}", event.getOrderId());
+                orderSubmitter.submitOrder(event, sentAt, delivery, receivedNanos);
+            } else {
+                CancelReplaceOrderCommand command = (CancelReplaceOrderCommand) payload;
+                log.info("Received cancel/replace from OMS for order {}", command.getOrderId());
+                orderSubmitter.submitCancelReplace(command, delivery, receivedNanos);
+            }
+        } catch (Exception e) {
+            log.error("Error submitting record {}@{}: {}", partition, record.offset(), e.getMessage(), e);
+            delivery.reject(e);
+        }
+        Long checkpointDue = nextCheckpointNanos.get(partition);
+        if (checkpointDue != null && System.nanoTime() - checkpointDue >= 0) {
+            checkpoint(partition, record.offset() + 1);
+        }
+    }
+
+    /**
+     * Copy the partition's books as of every record below {@code offset}
+     * and write them once those records are published
+     */
+    private void checkpoint(TopicPartition partition, long offset) {
+        if (!checkpointsInFlight.add(partition)) {
+            return;
+        }
+        nextCheckpointNanos.put(partition,
+                System.nanoTime() + properties.getIngest().getCheckpointInterval().toNanos());
+        PartitionAcknowledger acknowledger = acknowledger(partition);
+        Map<String, CompletableFuture<ByteBuffer>> copies = new TreeMap<>();
+        try {
+            for (String symbol : symbols.getOrDefault(partition, Set.of())) {
+                copies.put(symbol, matchingPipeline.copyBook(symbol));
+            }
+        } catch (Exception e) {
+            log.warn("Skipping checkpoint of partition {} at offset {}: {}", partition, offset, e.getMessage());
+            checkpointsInFlight.remove(partition);
+            return;
+        }
+        CompletableFuture.allOf(copies.values().toArray(CompletableFuture[]::new))
+                .thenCompose(ignored -> acknowledger.settledBelow(offset))
+                .thenRunAsync(() -> {
+                    Map<String, ByteBuffer> books = new TreeMap<>();
+                    copies.forEach((symbol, copy) -> {
+                        ByteBuffer state = copy.join();
+                        if (state != null) {
+                            books.put(symbol, state);
+                        }
+                    });
+                    checkpointStore.save(partition, new PartitionCheckpointStore.Checkpoint(offset, books));
+                    log.debug("Checkpointed {} books of partition {} at offset {}", books.size(), partition, offset);
+                }, checkpointWriter)
+                .whenComplete((ignored, failure) -> {
+                    checkpointsInFlight.remove(partition);
+                    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    if (cause != null && !(cause instanceof CancellationException)) {
+                        log.warn("Failed to checkpoint partition {} at offset {}: {}",
+                                partition, offset, cause.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Let in-flight orders of revoked partitions publish, so the container
+     * commits their offsets before the next owner reads them
+     */
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        long timeoutMillis = properties.getIngest().getRevokeDrainTimeout().toMillis();
+        for (TopicPartition partition : partitions) {
+            PartitionAcknowledger acknowledger = acknowledgers.get(partition);
+            try {
+                if (acknowledger != null && !acknowledger.awaitSettled(timeoutMillis)) {
+                    log.warn("Partition {} still has unpublished orders after {} ms; its next owner will match them again",
+                            partition, timeoutMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            revoked.add(partition);
+        }
+    }
+
+    /**
+     * Keep books of partitions that came back, release those that moved to
+     * another engine, and rebuild newly assigned ones from the topic
+     */
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        List<TopicPartition> rebuild = new ArrayList<>();
+        for (TopicPartition partition : partitions) {
+            if (!revoked.remove(partition)) {
+                rebuild.add(partition);
+            }
+        }
+        for (TopicPartition partition : revoked) {
+            release(partition);
+        }
+        revoked.clear();
+        if (rebuild.isEmpty()) {
+            return;
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(rebuild));
+        Map<TopicPartition, Long> firstOffsets = consumer.beginningOffsets(rebuild);
+        long nextCheckpoint = System.nanoTime() + properties.getIngest().getCheckpointInterval().toNanos();
+        List<TopicPartition> fromBeginning = new ArrayList<>();
+        Map<TopicPartition, Long> fromCheckpoint = new HashMap<>();
+        for (TopicPartition partition : rebuild) {
+            OffsetAndMetadata offset = committed.get(partition);
+            liveFrom.put(partition, offset != null ? offset.offset() : 0L);
+            acknowledgers.put(partition, new PartitionAcknowledger());
+            nextCheckpointNanos.put(partition, nextCheckpoint);
+
+            long firstOffset = firstOffsets.getOrDefault(partition, 0L);
+            PartitionCheckpointStore.Checkpoint checkpoint = loadCheckpoint(partition);
+            if (checkpoint == null) {
+                if (firstOffset > 0) {
+                    log.error("Partition {} has no checkpoint and its records before offset {} are gone; "
+                            + "its books are rebuilt without them", partition, firstOffset);
+                }
+                fromBeginning.add(partition);
+                continue;
+            }
+            if (checkpoint.offset() < firstOffset) {
+                log.error("Records {}..{} of partition {} after its checkpoint are gone; its books are rebuilt "
+                        + "without them", checkpoint.offset(), firstOffset - 1, partition);
+            }
+            Set<String> owned = symbols.computeIfAbsent(partition, p -> new HashSet<>());
+            checkpoint.books().forEach((symbol, state) -> {
+                matchingPipeline.restoreBook(symbol, state);
+                owned.add(symbol);
+            });
+            consumer.seek(partition, checkpoint.offset());
+            fromCheckpoint.put(partition, checkpoint.offset());
+        }
+        if (!fromBeginning.isEmpty()) {
+            consumer.seekToBeginning(fromBeginning);
+        }
+        log.info("Rebuilding books of partitions {} from the beginning and {} from checkpoints (live from {})",
+                fromBeginning, fromCheckpoint, liveFrom);
+    }
+
+    private PartitionCheckpointStore.Checkpoint loadCheckpoint(TopicPartition partition) {
+        try {
+            return checkpointStore.load(partition);
+        } catch (Exception e) {
+            log.error("Failed to load the checkpoint of partition {}: {}", partition, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Lost partitions already belong to another engine; drop their books at once
+     */
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            revoked.remove(partition);
+            release(partition);
+        }
+    }
+
+    private PartitionAcknowledger acknowledger(TopicPartition partition) {
+        return acknowledgers.computeIfAbsent(partition, p -> new PartitionAcknowledger());
+    }
+
+    private void release(TopicPartition partition) {
+        PartitionAcknowledger acknowledger = acknowledgers.remove(partition);
+        if (acknowledger != null) {
+            // Drop a pending checkpoint: its records may never be published here
+            acknowledger.close();
+        }
+        liveFrom.remove(partition);
+        nextCheckpointNanos.remove(partition);
+        Set<String> owned = symbols.remove(partition);
+        if (owned == null) {
+            return;
+        }
+        for (String symbol : owned) {
+            matchingPipeline.releaseBook(symbol);
+        }
+        log.info("Released books {} of partition {}", owned, partition);
+    }
+}
@@ -1,20 +1,20 @@
 package com.tradeflow.matching.messaging;
 
 import com.rabbitmq.client.Channel;
+import com.tradeflow.common.command.CancelReplaceOrderCommand;
 import com.tradeflow.common.event.OrderToMatchingEvent;
-import com.tradeflow.common.enums.OrderSide;
-import com.tradeflow.common.enums.OrderType;
-import com.tradeflow.matching.engine.MatchingEngine;
-import com.tradeflow.matching.orderbook.BookOrder;
-import com.tradeflow.matching.orderbook.MatchResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * RabbitMQ consumer for incoming orders from OMS
@@ -24,86 +24,59 @@ import java.time.Instant;
 @Slf4j
 public class OrderConsumer {
 
-    private final MatchingEngine matchingEngine;
-    private final TradePublisher tradePublisher;
+    public static final String LISTENER_ID = "matchingOrders";
 
-    /**
-     * Process incoming orders from OMS
-     */
-    @RabbitListener(queues = "#{@matchingOrderQueue.name}")
-    public void handleOrder(OrderToMatchingEvent event, Message message, Channel channel) throws IOException {
-        try {
-            log.info("Received order from OMS: {}", event.getOrderId());
-
-            BookOrder order = parseOrder(event);
+    private final OrderSubmitter orderSubmitter;
+    private final MessageConverter messageConverter;
 
-            // Process order through matching engine
-            MatchResult result = matchingEngine.processOrder(order);
-
-            // Publish trades if any
-            if (result.hasTrades()) {
-                tradePublisher.publishTrades(result.getTrades());
-                log.info("Order {} produced {} trades", order.getOrderId(), result.getTrades().size());
-            }
-
-            // Publish order book update
-            tradePublisher.publishOrderBookUpdate(order.getSymbol());
-
-            channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
-            log.debug("Order {} processed and acknowledged", order.getOrderId());
-
-        } catch (Exception e) {
-            log.error("Error processing order: {}", e.getMessage(), e);
-            
-            // Send to DLQ after max retries
-            if (shouldSendToDLQ(message)) {
-                log.warn("Sending order {} to DLQ after processing failures", event.getOrderId());
-                channel.basicNack(message.getMessageProperties().getDeliveryTag(), false, false);
-            } else {
-                // Retry by requeuing with exponential backoff handled by RabbitMQ
-                log.info("Requeuing order {} for retry", event.getOrderId());
-                channel.basicNack(message.getMessageProperties().getDeliveryTag(), false, true);
-            }
-        }
-    }
+    // Delivery tags are per channel, so each consumer channel acks on its own
+    private final Map<Channel, BatchAcknowledger> acknowledgers =
+            Collections.synchronizedMap(new WeakHashMap<>());
 
     /**
-     * Parse BookOrder from event
+     * Decode a batch of incoming orders and cancel/replace commands from OMS
+     * and hand them, in delivery order, to the matching pipeline. Both share
+     * the queue, so a command never overtakes its order. The pipeline output
+     * stage settles each delivery once its results are published; the batch
+     * is then acked with one multiple ack. A delivery that cannot be decoded
+     * is dead-lettered on its own without holding up the rest of the batch.
      */
-    private BookOrder parseOrder(OrderToMatchingEvent event) {
-        return BookOrder.builder()
-                .orderId(event.getOrderId())
-                .userId(event.getUserId())
-                .symbol(event.getSymbol())
-                .side(OrderSide.valueOf(event.getSide().name()))
-                .type(OrderType.valueOf(event.getType().name()))
-                .price(event.getPrice())
-                .originalQuantity(event.getQuantity())
-                .remainingQuantity(event.getQuantity())
-                .timestamp(event.getTimestamp() != null ? event.getTimestamp() : Instant.now())
-                .sequenceNumber(0)
-                .build();
-    }
+    @RabbitListener(id = LISTENER_ID, queues = "#{@matchingOrderQueue.name}")
+    public void handleOrders(List<Message> messages, Channel channel) {
+        BatchAcknowledger.Batch batch = acknowledgers
+                .computeIfAbsent(channel, BatchAcknowledger::new)
+                .begin(messages.size());
 
-    /**
-     * Determine if message should be sent to DLQ based on retry count
-     */
-    private boolean shouldSendToDLQ(Message message) {
-        // Check x-death header to count previous attempts
-        if (message.getMessageProperties().getHeaders() != null) {
-            Object deathHeader = message.getMessageProperties().getHeaders().get("x-death");
-            if (deathHeader instanceof java.util.List) {
-                java.util.List<?> deathList = (java.util.List<?>) deathHeader;
-                if (!deathList.isEmpty() && deathList.get(0) instanceof java.util.Map) {
-                    Object count = ((java.util.Map<?, ?>) deathList.get(0)).get("count");
-                    if (count instanceof Number) {
-                        int retryCount = ((Number) count).intValue();
-                        // Send to DLQ after 3 retry attempts
-                        return retryCount >= 3;
-                    }
+        for (Message message : messages) {
+            long receivedNanos = System.nanoTime();
+            RabbitDelivery delivery = new RabbitDelivery(channel, message, batch);
+            Object payload;
+            try {
+                payload = messageConverter.fromMessage(message);
+                if (!(payload instanceof OrderToMatchingEvent) && !(payload instanceof CancelReplaceOrderCommand)) {
+                    throw new IllegalArgumentException("Unexpected payload type: "
+                            + (payload != null ? payload.getClass().getName() : "null"));
+                }
+            } catch (Exception e) {
+                log.error("Discarding undecodable delivery {}: {}",
+                        message.getMessageProperties().getDeliveryTag(), e.getMessage(), e);
+                delivery.deadLetter(e);
+                continue;
+            }
+
+            try {
+                if (payload instanceof OrderToMatchingEvent event) {
+                    log.debug("Received order from OMS: {}", event.getOrderId());
+                    orderSubmitter.submitOrder(event, Instant.now(), delivery, receivedNanos);
+                } else if (payload instanceof CancelReplaceOrderCommand command) {
+                    log.info("Received cancel/replace from OMS for order {}", command.getOrderId());
+                    orderSubmitter.submitCancelReplace(command, delivery, receivedNanos);
                 }
+            } catch (Exception e) {
+                log.error("Error submitting delivery {}: {}",
+                        message.getMessageProperties().getDeliveryTag(), e.getMessage(), e);
+                delivery.reject(e);
             }
         }
-        return false; // First attempt, allow retry
     }
 }
@@ -0,0 +1,91 @@
+package com.tradeflow.matching.messaging;
+
+import com.tradeflow.common.constants.RabbitMQConstants;
+import com.tradeflow.common.event.CancelReplaceResultEvent;
+import com.tradeflow.common.event.OrderExpiredEvent;
+import com.tradeflow.matching.orderbook.FixedPoint;
+import com.tradeflow.matching.orderbook.MatchResult;
+import com.tradeflow.matching.orderbook.OrderBook;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends command confirmations back to OMS over RabbitMQ, on the queue its
+ * saga responses arrive on.
+ *
+ * With publisher confirms enabled, a send completes once the broker has
+ * taken the message; without them, once it was handed to the channel.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderResponsePublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    /**
+     * Confirmation of a cancel/replace the book has applied
+     */
+    public CancelReplaceResultEvent cancelReplaceResult(String symbol, UUID orderId, UUID commandId,
+            OrderBook.CancelReplaceResult result) {
+        return CancelReplaceResultEvent.builder()
+                .commandId(commandId)
+                .orderId(orderId)
+                .symbol(symbol)
+                .status(CancelReplaceResultEvent.Status.valueOf(result.status().name()))
+                .previousPrice(FixedPoint.toBigDecimal(result.previousPrice()))
+                .previousRemainingQuantity(FixedPoint.toBigDecimal(result.previousRemainingQuantity()))
+                .price(FixedPoint.toBigDecimal(result.price()))
+                .remainingQuantity(FixedPoint.toBigDecimal(result.remainingQuantity()))
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    /**
+     * Report of the unfilled part of an IOC/FOK order, which did not rest
+     */
+    public OrderExpiredEvent orderExpired(MatchResult result) {
+        return OrderExpiredEvent.builder()
+                .orderId(result.getOrder().getOrderId())
+                .symbol(result.getOrder().getSymbol())
+                .timeInForce(result.getOrder().getTimeInForce())
+                .filledQuantity(FixedPoint.toBigDecimal(result.getFilledQuantity()))
+                .expiredQuantity(FixedPoint.toBigDecimal(result.getExpiredQuantity()))
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    /**
+     * Send an event to OMS
+     *
+     * @return completes once the broker confirmed it; fails if the send
+     * threw or the broker refused it
+     */
+    public CompletableFuture<Void> publish(Object event) {
+        CorrelationData correlation = new CorrelationData();
+        try {
+            rabbitTemplate.convertAndSend(
+                    RabbitMQConstants.ORDER_EXCHANGE,
+                    RabbitMQConstants.ROUTING_ORDER_RESPONSE,
+                    event,
+                    correlation);
+        } catch (AmqpException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!rabbitTemplate.getConnectionFactory().isPublisherConfirms()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return correlation.getFuture().thenCompose(confirm -> confirm.isAck()
+                ? CompletableFuture.<Void>completedFuture(null)
+                : CompletableFuture.failedFuture(new AmqpException(
+                        "Broker refused " + event.getClass().getSimpleName() + ": " + confirm.getReason())));
+    }
+}
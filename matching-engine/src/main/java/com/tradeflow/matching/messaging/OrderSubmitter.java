@@ -0,0 +1,109 @@
+package com.tradeflow.matching.messaging;
+
+import com.tradeflow.common.command.CancelReplaceOrderCommand;
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
+import com.tradeflow.common.event.OrderToMatchingEvent;
+import com.tradeflow.matching.engine.DeliveryAck;
+import com.tradeflow.matching.engine.MatchingPipeline;
+import com.tradeflow.matching.metrics.LatencyMetrics;
+import com.tradeflow.matching.metrics.LatencyStage;
+import com.tradeflow.matching.metrics.SymbolLatency;
+import com.tradeflow.matching.orderbook.BookOrder;
+import com.tradeflow.matching.orderbook.FixedPoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Converts decoded OMS messages into pipeline commands, whichever
+ * transport they arrived on
+ */
+@Component
+@RequiredArgsConstructor
+class OrderSubmitter {
+
+    private final MatchingPipeline matchingPipeline;
+    private final LatencyMetrics latencyMetrics;
+
+    /**
+     * Queue a new order for matching
+     *
+     * @param sentAt when the message was sent, used if the event carries no timestamp
+     */
+    void submitOrder(OrderToMatchingEvent event, Instant sentAt, DeliveryAck ack, long receivedNanos) {
+        recordDelivery(event);
+        matchingPipeline.submitOrder(parseOrder(event, sentAt), ack, receivedNanos);
+    }
+
+    /**
+     * Queue a cancel/replace; a missing quantity cancels and a missing price keeps it
+     */
+    void submitCancelReplace(CancelReplaceOrderCommand command, DeliveryAck ack, long receivedNanos) {
+        matchingPipeline.submitCancelReplace(
+                command.getSymbol(),
+                command.getOrderId(),
+                command.getSide(),
+                FixedPoint.toLong(command.getNewPrice()),
+                FixedPoint.toLong(command.getNewQuantity()),
+                command.getCommandId(),
+                ack,
+                receivedNanos);
+    }
+
+    /**
+     * Queue an order that was already matched, to rebuild its book
+     */
+    void replayOrder(OrderToMatchingEvent event, Instant sentAt) {
+        matchingPipeline.replayOrder(parseOrder(event, sentAt));
+    }
+
+    /**
+     * Queue a cancel/replace that was already applied, to rebuild its book
+     */
+    void replayCancelReplace(CancelReplaceOrderCommand command) {
+        matchingPipeline.replayCancelReplace(
+                command.getSymbol(),
+                command.getOrderId(),
+                command.getSide(),
+                FixedPoint.toLong(command.getNewPrice()),
+                FixedPoint.toLong(command.getNewQuantity()));
+    }
+
+    /**
+     * Record how long an order took from OMS to here, by wall clock
+     */
+    private void recordDelivery(OrderToMatchingEvent event) {
+        Instant sent = event.getTimestamp();
+        if (sent == null || !latencyMetrics.isEnabled()) {
+            return;
+        }
+        SymbolLatency latency = latencyMetrics.forSymbol(event.getSymbol().toUpperCase());
+        Instant now = Instant.now();
+        latency.record(LatencyStage.DELIVERY,
+                (now.getEpochSecond() - sent.getEpochSecond()) * 1_000_000_000L + now.getNano() - sent.getNano());
+    }
+
+    /**
+     * Parse BookOrder from event, converting price and quantity to fixed-point
+     */
+    private static BookOrder parseOrder(OrderToMatchingEvent event, Instant sentAt) {
+        long quantity = FixedPoint.toLong(event.getQuantity());
+        return BookOrder.builder()
+                .orderId(event.getOrderId())
+                .userId(event.getUserId())
+                .symbol(event.getSymbol())
+                .side(OrderSide.valueOf(event.getSide().name()))
+                .type(OrderType.valueOf(event.getType().name()))
+                .price(FixedPoint.toLong(event.getPrice()))
+                .stopPrice(FixedPoint.toLong(event.getStopPrice()))
+                .timeInForce(event.getTimeInForce() != null ? event.getTimeInForce() : TimeInForce.GTC)
+                .originalQuantity(quantity)
+                .remainingQuantity(quantity)
+                .timestamp(event.getTimestamp() != null ? event.getTimestamp() : sentAt)
+                .sequenceNumber(0)
+                .build();
+    }
+}
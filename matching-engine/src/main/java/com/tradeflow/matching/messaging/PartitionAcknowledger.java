@@ -0,0 +1,119 @@
+package com.tradeflow.matching.messaging;
+
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Commits one orders.to-matching partition's offsets strictly in order.
+ *
+ * Records settle out of order (different shards, Kafka callbacks), but a
+ * Kafka commit covers every earlier offset, so only the last record of a
+ * settled run at the head of the partition is acknowledged. The container
+ * commits acknowledgements on its consumer thread.
+ */
+final class PartitionAcknowledger {
+
+    // Records handed to the pipeline and not yet committable, in offset order
+    private final ArrayDeque<KafkaDelivery> open = new ArrayDeque<>();
+    // Waiters for every record below an offset to settle
+    private final List<SettledWaiter> waiters = new ArrayList<>();
+    private boolean closed;
+
+    synchronized KafkaDelivery begin(long offset, Acknowledgment acknowledgment) {
+        KafkaDelivery delivery = new KafkaDelivery(this, offset, acknowledgment);
+        open.addLast(delivery);
+        return delivery;
+    }
+
+    void settle(KafkaDelivery delivery) {
+        List<CompletableFuture<Void>> ready;
+        synchronized (this) {
+            delivery.settled = true;
+            KafkaDelivery last = null;
+            while (!open.isEmpty() && open.peekFirst().settled) {
+                last = open.pollFirst();
+            }
+            if (last != null) {
+                last.acknowledgment.acknowledge();
+            }
+            if (open.isEmpty()) {
+                notifyAll();
+            }
+            ready = readyWaiters();
+        }
+        // Outside the lock: waiters run their continuations here
+        ready.forEach(future -> future.complete(null));
+    }
+
+    /**
+     * Completes once every record below {@code offset} handed out so far
+     * has settled, i.e. its output was published; cancelled if the
+     * partition is closed first
+     */
+    synchronized CompletableFuture<Void> settledBelow(long offset) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new CancellationException("Partition closed"));
+        }
+        if (open.isEmpty() || open.peekFirst().offset >= offset) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        waiters.add(new SettledWaiter(offset, future));
+        return future;
+    }
+
+    /**
+     * Cancel pending {@link #settledBelow} waiters; the partition is gone
+     */
+    void close() {
+        List<SettledWaiter> pending;
+        synchronized (this) {
+            closed = true;
+            pending = new ArrayList<>(waiters);
+            waiters.clear();
+        }
+        pending.forEach(waiter -> waiter.future.cancel(false));
+    }
+
+    private List<CompletableFuture<Void>> readyWaiters() {
+        if (waiters.isEmpty()) {
+            return List.of();
+        }
+        long firstOpen = open.isEmpty() ? Long.MAX_VALUE : open.peekFirst().offset;
+        List<CompletableFuture<Void>> ready = new ArrayList<>();
+        for (Iterator<SettledWaiter> it = waiters.iterator(); it.hasNext(); ) {
+            SettledWaiter waiter = it.next();
+            if (firstOpen >= waiter.offset) {
+                ready.add(waiter.future);
+                it.remove();
+            }
+        }
+        return ready;
+    }
+
+    private record SettledWaiter(long offset, CompletableFuture<Void> future) {
+    }
+
+    /**
+     * Wait until every record handed out so far has settled
+     *
+     * @return false if some had not by the timeout
+     */
+    synchronized boolean awaitSettled(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!open.isEmpty()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,127 @@
+package com.tradeflow.matching.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Checkpoints of the books of one orders.to-matching partition, kept in
+ * Redis so whichever engine is assigned the partition next can load them.
+ *
+ * A checkpoint holds the offset it was taken at, i.e. the first record
+ * not applied to its books, plus the serialized state of each book, and
+ * ends with a CRC32C of its contents:
+ * {@code [magic][version][offset][bookCount]([symbol][stateLength][state])*[crc]}.
+ * Each partition has one key, replaced in a single SET, so a reader never
+ * sees a half-written checkpoint.
+ */
+@Component
+@Slf4j
+public class PartitionCheckpointStore {
+
+    private static final int MAGIC = 0x54464B43; // "TFKC"
+    // Bump with the book state layout (see SnapshotStore)
+    private static final int VERSION = 1;
+
+    private static final String KEY_PREFIX = "tradeflow:matching:checkpoint:";
+
+    private final RedisTemplate<String, byte[]> redis;
+
+    public PartitionCheckpointStore(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        this.redis = template;
+    }
+
+    /**
+     * Books of a partition and the offset to resume reading from
+     */
+    public record Checkpoint(long offset, Map<String, ByteBuffer> books) {
+    }
+
+    /**
+     * Latest checkpoint of a partition, or null if it has none (or only an
+     * unreadable one)
+     */
+    public Checkpoint load(TopicPartition partition) {
+        byte[] bytes = redis.opsForValue().get(key(partition));
+        if (bytes == null) {
+            return null;
+        }
+        Checkpoint checkpoint = decode(ByteBuffer.wrap(bytes));
+        if (checkpoint == null) {
+            log.warn("Ignoring corrupt checkpoint of partition {}", partition);
+        }
+        return checkpoint;
+    }
+
+    public void save(TopicPartition partition, Checkpoint checkpoint) {
+        redis.opsForValue().set(key(partition), encode(checkpoint).array());
+    }
+
+    private static String key(TopicPartition partition) {
+        return KEY_PREFIX + partition.topic() + ":" + partition.partition();
+    }
+
+    static ByteBuffer encode(Checkpoint checkpoint) {
+        int size = 4 + 4 + 8 + 4 + 4;
+        for (Map.Entry<String, ByteBuffer> book : checkpoint.books().entrySet()) {
+            size += 2 + book.getKey().length() + 4 + book.getValue().remaining();
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putLong(checkpoint.offset());
+        out.putInt(checkpoint.books().size());
+        for (Map.Entry<String, ByteBuffer> book : checkpoint.books().entrySet()) {
+            byte[] symbol = book.getKey().getBytes(StandardCharsets.US_ASCII);
+            out.putShort((short) symbol.length);
+            out.put(symbol);
+            out.putInt(book.getValue().remaining());
+            out.put(book.getValue().duplicate());
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+        return out.flip();
+    }
+
+    /**
+     * @return null if the bytes are not a checkpoint of this version
+     */
+    static Checkpoint decode(ByteBuffer in) {
+        int length = in.remaining();
+        if (length < 24 || in.getInt(0) != MAGIC || in.getInt(4) != VERSION) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(in.array(), 0, length - 4);
+        if ((int) crc.getValue() != in.getInt(length - 4)) {
+            return null;
+        }
+        in.position(8);
+        long offset = in.getLong();
+        int count = in.getInt();
+        Map<String, ByteBuffer> books = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] symbol = new byte[in.getShort()];
+            in.get(symbol);
+            int stateLength = in.getInt();
+            books.put(new String(symbol, StandardCharsets.US_ASCII), in.slice(in.position(), stateLength));
+            in.position(in.position() + stateLength);
+        }
+        return new Checkpoint(offset, books);
+    }
+}
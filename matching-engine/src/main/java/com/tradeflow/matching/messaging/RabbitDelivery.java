@@ -0,0 +1,81 @@
+package com.tradeflow.matching.messaging;
+
+import com.rabbitmq.client.Channel;
+import com.tradeflow.matching.engine.DeliveryAck;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manual acknowledgement of one RabbitMQ delivery, settled by the pipeline
+ * output stage after the listener thread has handed the order off.
+ * Positive acks are folded into the batch's multiple ack; rejections are
+ * nacked for this delivery alone.
+ */
+@RequiredArgsConstructor
+@Slf4j
+class RabbitDelivery implements DeliveryAck {
+
+    private final Channel channel;
+    private final Message message;
+    private final BatchAcknowledger.Batch batch;
+
+    @Override
+    public void ack() {
+        batch.settle(message.getMessageProperties().getDeliveryTag(), true);
+    }
+
+    @Override
+    public void reject(Throwable cause) {
+        long tag = message.getMessageProperties().getDeliveryTag();
+        try {
+            // Send to DLQ after max retries
+            if (shouldSendToDLQ()) {
+                log.warn("Sending delivery {} to DLQ after processing failures", tag);
+                channel.basicNack(tag, false, false);
+            } else {
+                // Retry by requeuing with exponential backoff handled by RabbitMQ
+                log.info("Requeuing delivery {} for retry", tag);
+                channel.basicNack(tag, false, true);
+            }
+        } catch (IOException e) {
+            log.error("Failed to nack delivery {}: {}", tag, e.getMessage());
+        }
+        batch.settle(tag, false);
+    }
+
+    @Override
+    public void deadLetter(Throwable cause) {
+        long tag = message.getMessageProperties().getDeliveryTag();
+        try {
+            log.warn("Sending delivery {} to DLQ: {}", tag, cause.getMessage());
+            channel.basicNack(tag, false, false);
+        } catch (IOException e) {
+            log.error("Failed to nack delivery {}: {}", tag, e.getMessage());
+        }
+        batch.settle(tag, false);
+    }
+
+    /**
+     * Determine if message should be sent to DLQ based on retry count
+     */
+    private boolean shouldSendToDLQ() {
+        // Check x-death header to count previous attempts
+        if (message.getMessageProperties().getHeaders() != null) {
+            Object deathHeader = message.getMessageProperties().getHeaders().get("x-death");
+            if (deathHeader instanceof List<?> deathList) {
+                if (!deathList.isEmpty() && deathList.get(0) instanceof Map<?, ?> death) {
+                    if (death.get("count") instanceof Number count) {
+                        // Send to DLQ after 3 retry attempts
+                        return count.intValue() >= 3;
+                    }
+                }
+            }
+        }
+        return false; // First attempt, allow retry
+    }
+}
@@ -0,0 +1,109 @@
+package com.tradeflow.matching.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable outbox for messages to OMS that RabbitMQ did not accept; see
+ * {@link DurableOutbox}. Until OMS gets a cancel/replace confirmation its
+ * saga stays pending and blocks later cancels, and without an expiry
+ * notice the reservation for an IOC/FOK remainder is never released, so
+ * these must not be lost either.
+ *
+ * A message that was in fact delivered before the failure is sent again;
+ * OMS ignores a confirmation whose command is no longer pending and an
+ * expiry it already applied.
+ *
+ * Batch layout: {@code [type length][type][json length][json]}, one event
+ * per file.
+ */
+@Component
+public class ResponseOutbox extends DurableOutbox<Object> {
+
+    private static final int MAGIC = 0x5446524F; // "TFRO"
+    private static final int VERSION = 1;
+
+    // Only events shared with OMS are read back
+    private static final String EVENT_PACKAGE = "com.tradeflow.common.event.";
+
+    private final OrderResponsePublisher orderResponsePublisher;
+    private final ObjectMapper objectMapper;
+    // Microseconds at startup, then +1 per event: unique, and later runs sort after
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    public ResponseOutbox(OrderResponsePublisher orderResponsePublisher, ObjectMapper objectMapper,
+            MatchingConfigProperties properties) {
+        super("response-outbox", Path.of(properties.getPublishing().getResponseOutboxDirectory()), ".response",
+                MAGIC, VERSION,
+                properties.getPublishing().getRetryBackoff(), properties.getPublishing().getMaxRetryBackoff());
+        this.orderResponsePublisher = orderResponsePublisher;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected CompletableFuture<Void> send(Object event) {
+        return orderResponsePublisher.publish(event);
+    }
+
+    @Override
+    protected String fileName(Object event) {
+        return String.format("%020d", sequence.incrementAndGet());
+    }
+
+    @Override
+    protected String describe(Object event) {
+        return event.getClass().getSimpleName();
+    }
+
+    @Override
+    protected int encodedSize(Object event) {
+        return 4 + type(event).length + 4 + json(event).length;
+    }
+
+    @Override
+    protected void encode(Object event, ByteBuffer out) {
+        byte[] type = type(event);
+        byte[] json = json(event);
+        out.putInt(type.length);
+        out.put(type);
+        out.putInt(json.length);
+        out.put(json);
+    }
+
+    @Override
+    protected Object decode(ByteBuffer in) throws IOException {
+        byte[] type = new byte[in.getInt()];
+        in.get(type);
+        byte[] json = new byte[in.getInt()];
+        in.get(json);
+        String className = new String(type, StandardCharsets.US_ASCII);
+        if (!className.startsWith(EVENT_PACKAGE)) {
+            throw new IOException("Unexpected event type " + className);
+        }
+        try {
+            return objectMapper.readValue(json, Class.forName(className));
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown event type " + className, e);
+        }
+    }
+
+    private static byte[] type(Object event) {
+        return event.getClass().getName().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] json(Object event) {
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize " + event.getClass().getSimpleName(), e);
+        }
+    }
+}
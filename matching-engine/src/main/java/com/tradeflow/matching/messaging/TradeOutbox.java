@@ -0,0 +1,131 @@
+package com.tradeflow.matching.messaging;
+
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.orderbook.Trade;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Durable outbox for trades Kafka did not acknowledge; see
+ * {@link DurableOutbox}.
+ *
+ * Trade ids are derived from per-symbol sequences, so a batch that was in
+ * fact delivered before the failure is sent again with the same ids and
+ * consumers drop the copies. Resent trades may arrive after later trades
+ * of the same symbol; {@code tradeSequence} gives their order.
+ *
+ * Batch layout: {@code [count](trade)*}.
+ */
+@Component
+public class TradeOutbox extends DurableOutbox<List<Trade>> {
+
+    private static final int MAGIC = 0x5446544F; // "TFTO"
+    private static final int VERSION = 1;
+
+    // symbol length, id, sequence, 8 order/user ids, price, quantity, timestamp
+    private static final int TRADE_SIZE = 2 + 16 + 8 + 8 * 16 + 8 + 8 + 8;
+
+    private final TradePublisher tradePublisher;
+
+    public TradeOutbox(TradePublisher tradePublisher, MatchingConfigProperties properties) {
+        super("trade-outbox", Path.of(properties.getPublishing().getOutboxDirectory()), ".trades", MAGIC, VERSION,
+                properties.getPublishing().getRetryBackoff(), properties.getPublishing().getMaxRetryBackoff());
+        this.tradePublisher = tradePublisher;
+    }
+
+    @Override
+    protected CompletableFuture<Void> send(List<Trade> trades) {
+        return tradePublisher.publishTrades(trades);
+    }
+
+    @Override
+    protected String fileName(List<Trade> trades) {
+        Trade first = trades.get(0);
+        return String.format("%s-%020d", first.getSymbol(), first.getTradeSequence());
+    }
+
+    @Override
+    protected String describe(List<Trade> trades) {
+        return String.format("trades %d..%d of %s", trades.get(0).getTradeSequence(),
+                trades.get(trades.size() - 1).getTradeSequence(), trades.get(0).getSymbol());
+    }
+
+    @Override
+    protected int encodedSize(List<Trade> trades) {
+        int size = 4;
+        for (Trade trade : trades) {
+            size += TRADE_SIZE + trade.getSymbol().length();
+        }
+        return size;
+    }
+
+    @Override
+    protected void encode(List<Trade> trades, ByteBuffer out) {
+        out.putInt(trades.size());
+        for (Trade trade : trades) {
+            byte[] symbol = trade.getSymbol().getBytes(StandardCharsets.US_ASCII);
+            out.putShort((short) symbol.length);
+            out.put(symbol);
+            putUuid(out, trade.getTradeId());
+            out.putLong(trade.getTradeSequence());
+            putUuid(out, trade.getMakerOrderId());
+            putUuid(out, trade.getMakerUserId());
+            putUuid(out, trade.getTakerOrderId());
+            putUuid(out, trade.getTakerUserId());
+            putUuid(out, trade.getBuyOrderId());
+            putUuid(out, trade.getBuyUserId());
+            putUuid(out, trade.getSellOrderId());
+            putUuid(out, trade.getSellUserId());
+            out.putLong(trade.getPrice());
+            out.putLong(trade.getQuantity());
+            Instant timestamp = trade.getTimestamp();
+            out.putLong(timestamp != null ? timestamp.getEpochSecond() * 1_000_000_000L + timestamp.getNano() : 0L);
+        }
+    }
+
+    @Override
+    protected List<Trade> decode(ByteBuffer in) {
+        int count = in.getInt();
+        List<Trade> trades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] symbol = new byte[in.getShort()];
+            in.get(symbol);
+            trades.add(Trade.builder()
+                    .symbol(new String(symbol, StandardCharsets.US_ASCII))
+                    .tradeId(getUuid(in))
+                    .tradeSequence(in.getLong())
+                    .makerOrderId(getUuid(in))
+                    .makerUserId(getUuid(in))
+                    .takerOrderId(getUuid(in))
+                    .takerUserId(getUuid(in))
+                    .buyOrderId(getUuid(in))
+                    .buyUserId(getUuid(in))
+                    .sellOrderId(getUuid(in))
+                    .sellUserId(getUuid(in))
+                    .price(in.getLong())
+                    .quantity(in.getLong())
+                    .timestamp(Instant.ofEpochSecond(0, in.getLong()))
+                    .build());
+        }
+        return trades;
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id != null ? id.getMostSignificantBits() : 0L);
+        buffer.putLong(id != null ? id.getLeastSignificantBits() : 0L);
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        long hi = buffer.getLong();
+        long lo = buffer.getLong();
+        return hi == 0 && lo == 0 ? null : new UUID(hi, lo);
+    }
+}
@@ -1,85 +1,183 @@
 package com.tradeflow.matching.messaging;
 
 import com.tradeflow.common.constants.KafkaTopics;
+import com.tradeflow.common.event.MarketByOrderEvent;
+import com.tradeflow.common.event.OrderBookDeltaEvent;
 import com.tradeflow.common.event.OrderBookUpdateEvent;
 import com.tradeflow.common.event.TradeExecutedEvent;
-import com.tradeflow.matching.engine.MatchingEngine;
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.orderbook.FixedPoint;
 import com.tradeflow.matching.orderbook.OrderBook;
 import com.tradeflow.matching.orderbook.Trade;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 /**
- * Publishes trade events and order book updates to Kafka
+ * Publishes trade events and order book updates to Kafka.
+ * Fixed-point engine values are converted to BigDecimal here.
+ *
+ * Trades and market data go through separately tuned producers. Trade sends
+ * are asynchronous but bounded: at most {@code maxInFlightTrades} records
+ * may await Kafka acknowledgement, beyond which the caller blocks.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class TradePublisher {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final MatchingEngine matchingEngine;
+    private final KafkaTemplate<String, Object> marketDataKafkaTemplate;
+
+    private final int maxInFlightTrades;
+    private final Semaphore inFlightTrades;
+
+    public TradePublisher(
+            @Qualifier("kafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+            @Qualifier("marketDataKafkaTemplate") KafkaTemplate<String, Object> marketDataKafkaTemplate,
+            MatchingConfigProperties properties) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.marketDataKafkaTemplate = marketDataKafkaTemplate;
+        this.maxInFlightTrades = properties.getPublishing().getMaxInFlightTrades();
+        this.inFlightTrades = new Semaphore(maxInFlightTrades);
+    }
 
     /**
-     * Publish trade execution events
+     * Publish the trades of one match as a batch: all records are handed to
+     * the producer back to back (same symbol key, so the same partition and
+     * producer batch). Blocks while too many trades are in flight.
+     *
+     * @return completes once Kafka has acknowledged every trade, or
+     * exceptionally if any send failed
      */
-    public void publishTrades(List<Trade> trades) {
-        for (Trade trade : Objects.requireNonNull(trades, "trades must not be null")) {
-            String symbol = Objects.requireNonNull(trade.getSymbol(), "trade symbol must not be null");
-            TradeExecutedEvent event = TradeExecutedEvent.builder()
-                    .tradeId(trade.getTradeId())
-                    .symbol(symbol)
-                    .buyOrderId(trade.getBuyOrderId())
-                    .buyUserId(trade.getBuyUserId())
-                    .sellOrderId(trade.getSellOrderId())
-                    .sellUserId(trade.getSellUserId())
-                    .price(trade.getPrice())
-                    .quantity(trade.getQuantity())
-                    .makerOrderId(trade.getMakerOrderId())
-                    .takerOrderId(trade.getTakerOrderId())
-                    .timestamp(trade.getTimestamp())
-                    .build();
-
-            kafkaTemplate.send(KafkaTopics.TRADES_EXECUTED, symbol, event);
-            log.debug("Published trade event: {} {} @ {}",
-                    trade.getTradeId(), trade.getQuantity(), trade.getPrice());
+    public CompletableFuture<Void> publishTrades(List<Trade> trades) {
+        Objects.requireNonNull(trades, "trades must not be null");
+        int permits = Math.min(trades.size(), maxInFlightTrades);
+        inFlightTrades.acquireUninterruptibly(permits);
+
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[trades.size()];
+        try {
+            for (int i = 0; i < trades.size(); i++) {
+                sends[i] = send(trades.get(i));
+            }
+        } catch (RuntimeException e) {
+            inFlightTrades.release(permits);
+            throw e;
         }
+        return CompletableFuture.allOf(sends)
+                .whenComplete((ignored, failure) -> inFlightTrades.release(permits));
+    }
+
+    private CompletableFuture<?> send(Trade trade) {
+        String symbol = Objects.requireNonNull(trade.getSymbol(), "trade symbol must not be null");
+        TradeExecutedEvent event = TradeExecutedEvent.builder()
+                .tradeId(trade.getTradeId())
+                .tradeSequence(trade.getTradeSequence())
+                .symbol(symbol)
+                .buyOrderId(trade.getBuyOrderId())
+                .buyUserId(trade.getBuyUserId())
+                .sellOrderId(trade.getSellOrderId())
+                .sellUserId(trade.getSellUserId())
+                .price(FixedPoint.toBigDecimal(trade.getPrice()))
+                .quantity(FixedPoint.toBigDecimal(trade.getQuantity()))
+                .makerOrderId(trade.getMakerOrderId())
+                .takerOrderId(trade.getTakerOrderId())
+                .timestamp(trade.getTimestamp())
+                .build();
+
+        log.debug("Publishing trade event: {} {} @ {}",
+                trade.getTradeId(), trade.getQuantity(), trade.getPrice());
+        return kafkaTemplate.send(KafkaTopics.TRADES_EXECUTED, symbol, event);
     }
 
     /**
-     * Publish order book update event
+     * Publish the levels one or more book updates changed
      */
-    public void publishOrderBookUpdate(String symbol) {
-        String safeSymbol = Objects.requireNonNull(symbol, "symbol must not be null");
-        OrderBook.OrderBookSnapshot snapshot = matchingEngine.getSnapshot(safeSymbol, 10);
-        if (snapshot == null) {
-            return;
-        }
+    public void publishOrderBookDelta(OrderBook.BookDelta delta) {
+        String symbol = Objects.requireNonNull(delta.symbol(), "symbol must not be null");
+        List<OrderBookDeltaEvent.LevelChange> changes = delta.changes().stream()
+                .map(change -> new OrderBookDeltaEvent.LevelChange(
+                        change.side(),
+                        FixedPoint.toBigDecimal(change.price()),
+                        FixedPoint.toBigDecimal(change.quantity())))
+                .collect(Collectors.toList());
+
+        OrderBookDeltaEvent event = OrderBookDeltaEvent.builder()
+                .symbol(symbol)
+                .firstUpdateId(delta.firstUpdateId())
+                .updateId(delta.updateId())
+                .changes(changes)
+                .timestamp(delta.timestamp())
+                .build();
+
+        marketDataKafkaTemplate.send(KafkaTopics.ORDERBOOK_DELTAS, symbol, event);
+        log.debug("Published order book delta for {} ({} changes, update {})",
+                symbol, changes.size(), delta.updateId());
+    }
+
+    /**
+     * Publish the market-by-order events one command caused
+     */
+    public void publishOrderEvents(String symbol, List<OrderBook.OrderEvent> orderEvents) {
+        Objects.requireNonNull(symbol, "symbol must not be null");
+        List<MarketByOrderEvent.OrderChange> events = orderEvents.stream()
+                .map(event -> new MarketByOrderEvent.OrderChange(
+                        event.sequence(),
+                        MarketByOrderEvent.Action.valueOf(event.action().name()),
+                        event.handle(),
+                        event.side(),
+                        FixedPoint.toBigDecimal(event.price()),
+                        FixedPoint.toBigDecimal(event.quantity()),
+                        FixedPoint.toBigDecimal(event.remainingQuantity())))
+                .collect(Collectors.toList());
+
+        MarketByOrderEvent event = MarketByOrderEvent.builder()
+                .symbol(symbol)
+                .events(events)
+                .timestamp(Instant.now())
+                .build();
+
+        marketDataKafkaTemplate.send(KafkaTopics.ORDERBOOK_ORDERS, symbol, event);
+        log.debug("Published {} market-by-order events for {}", events.size(), symbol);
+    }
+
+    /**
+     * Publish a full order book snapshot taken on the matching thread
+     */
+    public void publishOrderBookUpdate(OrderBook.OrderBookSnapshot snapshot) {
+        String safeSymbol = Objects.requireNonNull(snapshot.symbol(), "symbol must not be null");
 
         // Convert to DTO format
         List<OrderBookUpdateEvent.PriceLevel> bids = snapshot.bids().stream()
-                .map(pl -> new OrderBookUpdateEvent.PriceLevel(pl.price(), pl.quantity()))
+                .map(TradePublisher::toEventLevel)
                 .collect(Collectors.toList());
 
         List<OrderBookUpdateEvent.PriceLevel> asks = snapshot.asks().stream()
-                .map(pl -> new OrderBookUpdateEvent.PriceLevel(pl.price(), pl.quantity()))
+                .map(TradePublisher::toEventLevel)
                 .collect(Collectors.toList());
 
         OrderBookUpdateEvent event = OrderBookUpdateEvent.builder()
                 .symbol(safeSymbol)
+                .updateId(snapshot.updateId())
                 .bids(bids)
                 .asks(asks)
-                .timestamp(Instant.now())
+                .timestamp(snapshot.timestamp())
                 .build();
 
-        kafkaTemplate.send(KafkaTopics.ORDERBOOK_UPDATES, safeSymbol, event);
+        marketDataKafkaTemplate.send(KafkaTopics.ORDERBOOK_UPDATES, safeSymbol, event);
         log.debug("Published order book update for {}", safeSymbol);
     }
+
+    private static OrderBookUpdateEvent.PriceLevel toEventLevel(OrderBook.PriceLevel level) {
+        return new OrderBookUpdateEvent.PriceLevel(
+                FixedPoint.toBigDecimal(level.price()),
+                FixedPoint.toBigDecimal(level.quantity()));
+    }
 }
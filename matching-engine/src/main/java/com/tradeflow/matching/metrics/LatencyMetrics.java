@@ -0,0 +1,134 @@
+package com.tradeflow.matching.metrics;
+
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-symbol, per-stage latency histograms of the matching path.
+ *
+ * Hot paths only take {@link System#nanoTime()} readings and record into
+ * {@link SymbolLatency} recorders. A background thread rolls every
+ * symbol's histograms over once per interval; the percentiles of the
+ * last interval are exported as {@code matching.latency} gauges (tagged
+ * by symbol, stage and quantile), and the full distributions can be
+ * dumped through the monitoring API.
+ */
+@Component
+@Slf4j
+public class LatencyMetrics {
+
+    private static final String METRIC = "matching.latency";
+    private static final String[] QUANTILE_TAGS = {"0.5", "0.99", "0.999", "max"};
+
+    private final MeterRegistry registry;
+    private final MatchingConfigProperties.Latency config;
+    private final Map<String, SymbolLatency> symbols = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService roller = Executors.newSingleThreadScheduledExecutor(
+            r -> new Thread(r, "matching-latency-roller"));
+
+    public LatencyMetrics(MeterRegistry registry, MatchingConfigProperties properties) {
+        this.registry = registry;
+        this.config = properties.getLatency();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long intervalMillis = config.getInterval().toMillis();
+        roller.scheduleAtFixedRate(this::rollIntervals, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        roller.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Histograms of a symbol, created (and registered) on first use; null
+     * when latency recording is disabled
+     */
+    public SymbolLatency forSymbol(String symbol) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        SymbolLatency latency = symbols.get(symbol);
+        if (latency == null) {
+            latency = symbols.computeIfAbsent(symbol, this::register);
+        }
+        return latency;
+    }
+
+    /**
+     * Symbols with recorded latencies
+     */
+    public List<String> getSymbols() {
+        return symbols.keySet().stream().sorted().toList();
+    }
+
+    /**
+     * Full percentile distributions of a symbol's stages as text, or null
+     * if nothing was recorded for it
+     */
+    public String dump(String symbol, boolean lastInterval) {
+        SymbolLatency latency = symbols.get(symbol);
+        if (latency == null) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8)) {
+            latency.print(out, lastInterval);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private SymbolLatency register(String symbol) {
+        SymbolLatency latency = new SymbolLatency(
+                symbol, config.getHighestTrackable().toNanos(), config.getSignificantDigits());
+        for (LatencyStage stage : LatencyStage.values()) {
+            for (int p = 0; p < QUANTILE_TAGS.length; p++) {
+                int percentileIndex = p;
+                Gauge.builder(METRIC, latency, l -> l.valueAt(stage, percentileIndex) / 1e9)
+                        .description("Matching path stage latency over the last interval")
+                        .baseUnit("seconds")
+                        .tag("symbol", symbol)
+                        .tag("stage", stage.tag())
+                        .tag("quantile", QUANTILE_TAGS[p])
+                        .register(registry);
+            }
+        }
+        log.info("Recording matching latencies for {}", symbol);
+        return latency;
+    }
+
+    private void rollIntervals() {
+        for (SymbolLatency latency : symbols.values()) {
+            try {
+                latency.rollInterval();
+            } catch (Exception e) {
+                log.error("Failed to roll latency histograms for {}: {}", latency.getSymbol(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.tradeflow.matching.metrics;
+
+/**
+ * Stages of the matching path that are timed per symbol. Stages are
+ * consecutive, so for one order they add up to {@link #TOTAL}, apart
+ * from {@link #DELIVERY} and {@link #TRADE_ACK} which lie outside it.
+ */
+public enum LatencyStage {
+
+    /**
+     * OMS order timestamp to listener receipt; spans hosts, so only as
+     * good as their clock sync
+     */
+    DELIVERY("delivery"),
+
+    /**
+     * Message conversion and BookOrder parsing on the listener thread
+     */
+    DECODE("decode"),
+
+    /**
+     * Waiting in the shard's inbound ring
+     */
+    QUEUE("queue"),
+
+    /**
+     * Journal append and matching on the shard thread
+     */
+    MATCH("match"),
+
+    /**
+     * Draining order events and book changes (or conflating them) after the match
+     */
+    BOOK_UPDATE("book_update"),
+
+    /**
+     * Building a periodic full book snapshot
+     */
+    BOOK_SNAPSHOT("book_snapshot"),
+
+    /**
+     * Held back for the journal sync, then waiting in the output ring
+     */
+    OUTPUT_QUEUE("output_queue"),
+
+    /**
+     * Handing trades and market data to the Kafka producers
+     */
+    PUBLISH("publish"),
+
+    /**
+     * Output stage start until Kafka acknowledged every trade of the order
+     */
+    TRADE_ACK("trade_ack"),
+
+    /**
+     * Listener receipt until published
+     */
+    TOTAL("total");
+
+    private final String tag;
+
+    LatencyStage(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Value of the {@code stage} metric tag
+     */
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,106 @@
+package com.tradeflow.matching.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+
+/**
+ * Latency histograms of one symbol, one per {@link LatencyStage}.
+ *
+ * Any thread records into a wait-free {@link Recorder}. Once per interval
+ * the metrics thread swaps each recorder's histogram out, keeps its
+ * percentiles for export and folds it into a running total; recording
+ * threads never see that work.
+ */
+public final class SymbolLatency {
+
+    static final double[] PERCENTILES = {50.0, 99.0, 99.9, 100.0};
+
+    private static final LatencyStage[] STAGES = LatencyStage.values();
+
+    private final String symbol;
+    private final long highestTrackableNanos;
+    private final Recorder[] recorders = new Recorder[STAGES.length];
+
+    // Metrics thread only, guarded by this
+    private final Histogram[] interval = new Histogram[STAGES.length];
+    private final Histogram[] cumulative = new Histogram[STAGES.length];
+
+    // Percentiles (nanos) of the last completed interval, read by the registry
+    private volatile long[][] summary = new long[STAGES.length][PERCENTILES.length];
+
+    SymbolLatency(String symbol, long highestTrackableNanos, int significantDigits) {
+        this.symbol = symbol;
+        this.highestTrackableNanos = highestTrackableNanos;
+        for (int i = 0; i < STAGES.length; i++) {
+            recorders[i] = new Recorder(highestTrackableNanos, significantDigits);
+            cumulative[i] = new Histogram(highestTrackableNanos, significantDigits);
+        }
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Record one stage duration; negative values (clock skew) are dropped
+     * and values beyond the trackable range are clamped to it
+     */
+    public void record(LatencyStage stage, long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        recorders[stage.ordinal()].recordValue(Math.min(nanos, highestTrackableNanos));
+    }
+
+    /**
+     * Record the duration between two {@link System#nanoTime()} readings,
+     * skipping a stage the command never went through (start 0)
+     */
+    public void record(LatencyStage stage, long startNanos, long endNanos) {
+        if (startNanos != 0) {
+            record(stage, endNanos - startNanos);
+        }
+    }
+
+    /**
+     * Percentile of a stage over the last completed interval, in nanos
+     */
+    long valueAt(LatencyStage stage, int percentileIndex) {
+        return summary[stage.ordinal()][percentileIndex];
+    }
+
+    /**
+     * Close the current interval: swap the recorders out, summarise and
+     * accumulate what they held
+     */
+    synchronized void rollInterval() {
+        long[][] next = new long[STAGES.length][PERCENTILES.length];
+        for (int i = 0; i < STAGES.length; i++) {
+            interval[i] = recorders[i].getIntervalHistogram(interval[i]);
+            cumulative[i].add(interval[i]);
+            for (int p = 0; p < PERCENTILES.length; p++) {
+                next[i][p] = interval[i].getValueAtPercentile(PERCENTILES[p]);
+            }
+        }
+        summary = next;
+    }
+
+    /**
+     * Write the full percentile distribution of every stage in microseconds,
+     * either since startup or for the last completed interval
+     */
+    synchronized void print(PrintStream out, boolean lastInterval) {
+        for (int i = 0; i < STAGES.length; i++) {
+            Histogram histogram = lastInterval ? interval[i] : cumulative[i];
+            out.printf("# %s %s (us)%n", symbol, STAGES[i].tag());
+            if (histogram == null || histogram.getTotalCount() == 0) {
+                out.println("# no samples");
+            } else {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+            out.println();
+        }
+    }
+}
@@ -0,0 +1,850 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Price-time priority matching shared by all order book implementations.
+ * Subclasses only decide how price levels are stored and located.
+ *
+ * Not thread-safe: a book is owned by a single matching thread
+ * (see {@code MatchingPipeline}), so matching takes no locks.
+ */
+@Slf4j
+public abstract class AbstractOrderBook implements OrderBook {
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+
+    // side, price, order id, user id, original/remaining qty, timestamp, sequence
+    private static final int ORDER_STATE_SIZE = 1 + 9 * 8;
+
+    private static final long UNNUMBERED = -1;
+
+    @Getter
+    private final String symbol;
+
+    // Sequence number for FIFO ordering
+    private long sequenceGenerator;
+
+    // Last trade sequence handed out (see TradeIds), UNNUMBERED until the
+    // first order fixes the epoch, and the symbol half of trade ids
+    private long tradeSequence = UNNUMBERED;
+    private final long tradeIdSymbolBits;
+
+    // Resting orders: pooled nodes plus an orderId -> node index for O(1) cancel
+    private final OrderNodePool nodes;
+    private final OrderIdIndex orderIndex = new OrderIdIndex(1024);
+
+    // Cumulative quantity per side by price, for fill-or-kill checks
+    private final DepthTree bidDepth = new DepthTree(256);
+    private final DepthTree askDepth = new DepthTree(256);
+    // Last depth handed out by getDepth, reused while a side is unchanged
+    private BookDepth publishedDepth;
+
+    // Recycled empty price levels
+    private BookLevel freeLevels;
+
+    // Book update id, advanced once per add/cancel that changes a level
+    private long updateId;
+    private long firstUndrainedUpdateId;
+    private boolean operationChanged;
+
+    // Levels (side, price) changed since the last drainChanges()
+    private byte[] changedSides = new byte[64];
+    private long[] changedPrices = new long[64];
+    private int changedCount;
+
+    // Market-by-order events since the last drainOrderEvents(), null when disabled
+    private List<OrderEvent> orderEvents;
+    private long orderEventSequence;
+
+    // Stop orders waiting for the last trade price to reach them
+    private final TriggerBook triggers = new TriggerBook();
+
+    // Ids of the last accepted orders, null when not remembered
+    private RecentOrderIds recentOrderIds;
+
+    /**
+     * @param offHeap keep resting orders in direct memory (see {@link OffHeapOrderNodePool})
+     */
+    protected AbstractOrderBook(String symbol, boolean offHeap) {
+        this.symbol = symbol;
+        this.tradeIdSymbolBits = TradeIds.symbolBits(symbol);
+        this.nodes = offHeap ? new OffHeapOrderNodePool(this::findLevel) : new HeapOrderNodePool(1024);
+        log.info("{} created for symbol: {}{}", getClass().getSimpleName(), symbol, offHeap ? " (off-heap orders)" : "");
+    }
+
+    // ============================================
+    // Level storage (implemented per book type)
+    // ============================================
+
+    /**
+     * Best (highest bid / lowest ask) level on a side, or null if empty
+     */
+    abstract BookLevel bestLevel(OrderSide side);
+
+    /**
+     * Level at an exact price, or null if none
+     */
+    abstract BookLevel findLevel(OrderSide side, long price);
+
+    /**
+     * Level at an exact price, created with {@link #newLevel} if it does not exist
+     */
+    abstract BookLevel getOrCreateLevel(OrderSide side, long price);
+
+    /**
+     * Remove an empty level from a side
+     */
+    abstract void removeLevel(OrderSide side, BookLevel level);
+
+    /**
+     * Visit levels from best to worst until the visitor returns false
+     */
+    abstract void forEachLevel(OrderSide side, Predicate<BookLevel> visitor);
+
+    /**
+     * Number of price levels on a side
+     */
+    abstract int levelCount(OrderSide side);
+
+    /**
+     * Empty level for a price, reusing a recycled one when available
+     */
+    final BookLevel newLevel(long price) {
+        BookLevel level = freeLevels;
+        if (level == null) {
+            return new BookLevel(price);
+        }
+        freeLevels = level.nextFree;
+        level.nextFree = null;
+        level.price = price;
+        return level;
+    }
+
+    private DepthTree depth(OrderSide side) {
+        return side == OrderSide.BUY ? bidDepth : askDepth;
+    }
+
+    private void dropLevel(OrderSide side, BookLevel level) {
+        removeLevel(side, level);
+        level.head = OrderNodePool.NIL;
+        level.tail = OrderNodePool.NIL;
+        level.orderCount = 0;
+        level.totalQuantity = 0;
+        level.changed = false;
+        level.nextFree = freeLevels;
+        freeLevels = level;
+    }
+
+    // ============================================
+    // Matching
+    // ============================================
+
+    @Override
+    public MatchResult addOrder(BookOrder order) {
+        // Guarded: the arguments would box prices and quantities on every order
+        if (log.isDebugEnabled()) {
+            log.debug("Adding order to book: {} {} {} @ {}",
+                    order.getSide(), order.getOriginalQuantity(),
+                    symbol, order.getPrice());
+        }
+
+        long idHi = order.getOrderId().getMostSignificantBits();
+        long idLo = order.getOrderId().getLeastSignificantBits();
+        if (orderIndex.get(idHi, idLo) != OrderNodePool.NIL || triggers.contains(order.getOrderId())) {
+            throw new IllegalArgumentException("Order " + order.getOrderId() + " is already in book " + symbol);
+        }
+        if (recentOrderIds != null) {
+            recentOrderIds.add(idHi, idLo);
+        }
+
+        if (tradeSequence == UNNUMBERED) {
+            tradeSequence = TradeIds.initialSequence(order.getTimestamp());
+        }
+
+        // A stop waits off the book until a trade reaches its stop price
+        if (order.isStop()) {
+            if (!triggers.isCrossed(order)) {
+                triggers.park(order);
+                log.debug("Parked stop order {} until {}", order.getOrderId(), order.getStopPrice());
+                return unfilled(order, 0);
+            }
+            order = TriggerBook.activate(order);
+        }
+
+        // Sequence number for FIFO ordering, stamped on the resting node
+        long sequence = ++sequenceGenerator;
+
+        // For market orders, match immediately;
+        // for limit orders, attempt matching then add remaining to book.
+        // IOC and FOK orders never rest.
+        boolean limit = order.getType() == OrderType.LIMIT;
+        MatchResult result = switch (order.getTimeInForce()) {
+            case GTC -> limit ? matchLimitOrder(order, sequence) : matchMarketOrder(order, sequence);
+            case IOC -> expireRemainder(sweep(order, sequence, limit));
+            case FOK -> isFillable(order)
+                    ? sweep(order, sequence, limit)
+                    : expireRemainder(unfilled(order, sequence));
+        };
+        completeUpdate();
+        if (result.hasTrades()) {
+            // Stops crossed by where this order left the price are matched next
+            triggers.onTrade(result.getTrades().get(result.getTrades().size() - 1).getPrice());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isKnownOrder(UUID orderId) {
+        long idHi = orderId.getMostSignificantBits();
+        long idLo = orderId.getLeastSignificantBits();
+        return orderIndex.get(idHi, idLo) != OrderNodePool.NIL
+                || triggers.contains(orderId)
+                || recentOrderIds != null && recentOrderIds.contains(idHi, idLo);
+    }
+
+    @Override
+    public BookOrder pollTriggered() {
+        return triggers.pollTriggered();
+    }
+
+    @Override
+    public int getStopOrderCount() {
+        return triggers.size();
+    }
+
+    /**
+     * Whether the opposite side holds the whole order within its limit.
+     * Reads the cumulative depth only, so a killed order leaves the book
+     * exactly as it was.
+     */
+    private boolean isFillable(BookOrder order) {
+        return available(order.getSide(), order.getType() == OrderType.LIMIT, order.getPrice())
+                >= order.getRemainingQuantity();
+    }
+
+    @Override
+    public long availableQuantity(OrderSide takerSide, long limitPrice) {
+        return available(takerSide, limitPrice != NO_PRICE, limitPrice);
+    }
+
+    private long available(OrderSide takerSide, boolean limited, long limitPrice) {
+        if (takerSide == OrderSide.BUY) {
+            return limited ? askDepth.quantityAtOrBelow(limitPrice) : askDepth.total();
+        }
+        return limited ? bidDepth.quantityAtOrAbove(limitPrice) : bidDepth.total();
+    }
+
+    @Override
+    public FillEstimate estimateFill(OrderSide takerSide, long quantity) {
+        return takerSide == OrderSide.BUY
+                ? askDepth.fillQuantity(true, quantity)
+                : bidDepth.fillQuantity(false, quantity);
+    }
+
+    @Override
+    public FillEstimate estimateFillForNotional(OrderSide takerSide, long notional) {
+        return takerSide == OrderSide.BUY
+                ? askDepth.fillNotional(true, notional)
+                : bidDepth.fillNotional(false, notional);
+    }
+
+    @Override
+    public BookDepth getDepth() {
+        BookDepth last = publishedDepth;
+        boolean bidsChanged = last == null || last.bids().version() != bidDepth.version();
+        boolean asksChanged = last == null || last.asks().version() != askDepth.version();
+        if (bidsChanged || asksChanged) {
+            publishedDepth = new BookDepth(
+                    bidsChanged ? bidDepth.copy() : last.bids(),
+                    asksChanged ? askDepth.copy() : last.asks());
+        }
+        return publishedDepth;
+    }
+
+    private MatchResult unfilled(BookOrder order, long sequence) {
+        return MatchResult.builder()
+                .order(order)
+                .sequenceNumber(sequence)
+                .remainingQuantity(order.getRemainingQuantity())
+                .trades(new ArrayList<>())
+                .fullyFilled(false)
+                .build();
+    }
+
+    private MatchResult expireRemainder(MatchResult result) {
+        result.setExpiredQuantity(result.getRemainingQuantity());
+        return result;
+    }
+
+    /**
+     * Match a market order against the book (aggressive matching)
+     */
+    private MatchResult matchMarketOrder(BookOrder order, long sequence) {
+        return sweep(order, sequence, false);
+    }
+
+    /**
+     * Match a limit order and add remainder to book
+     */
+    private MatchResult matchLimitOrder(BookOrder order, long sequence) {
+        MatchResult result = sweep(order, sequence, true);
+
+        // Add remaining quantity to book
+        if (!result.isFullyFilled()) {
+            addToBook(order, result.getRemainingQuantity(), sequence);
+        }
+        return result;
+    }
+
+    /**
+     * Walk the opposite side from the best level, filling FIFO at each level
+     * until the order is filled, the side is empty or (for limits) the price
+     * no longer crosses. Makers are updated in place in their pooled nodes.
+     */
+    private MatchResult sweep(BookOrder order, long sequence, boolean checkPrice) {
+        List<Trade> trades = new ArrayList<>();
+        // Read the clock once, on the first fill, for every trade of this match
+        Instant executedAt = null;
+        long remainingQty = order.getRemainingQuantity();
+        long totalFilled = 0;
+        long totalValue = 0;
+
+        // Get opposite side book
+        OrderSide oppositeSide = order.getSide() == OrderSide.BUY ? OrderSide.SELL : OrderSide.BUY;
+
+        while (remainingQty > 0) {
+            BookLevel level = bestLevel(oppositeSide);
+            if (level == null) {
+                break;
+            }
+            long price = level.price;
+
+            // Check price compatibility
+            if (checkPrice) {
+                boolean priceCompatible = order.getSide() == OrderSide.BUY
+                        ? order.getPrice() >= price // Buy: willing to pay >= ask
+                        : order.getPrice() <= price; // Sell: willing to accept <= bid
+                if (!priceCompatible) {
+                    break; // No more matches possible
+                }
+            }
+
+            int node = level.head;
+
+            while (node != OrderNodePool.NIL && remainingQty > 0) {
+                long makerRemaining = nodes.remainingQuantity(node);
+
+                // Calculate fill quantity
+                long fillQty = Math.min(remainingQty, makerRemaining);
+
+                // Create trade (at maker's price)
+                if (executedAt == null) {
+                    executedAt = Instant.now();
+                }
+                Trade trade = createTrade(order, node, price, fillQty, executedAt);
+                trades.add(trade);
+
+                // Update quantities
+                remainingQty -= fillQty;
+                totalFilled += fillQty;
+                totalValue += FixedPoint.multiply(price, fillQty);
+
+                // Remove or update maker order
+                makerRemaining -= fillQty;
+                if (orderEvents != null) {
+                    recordOrderEvent(OrderAction.EXECUTE, node, fillQty, makerRemaining);
+                }
+                if (makerRemaining <= 0) {
+                    int filled = node;
+                    node = nodes.next(node);
+                    removeNode(filled);
+                } else {
+                    // Update maker order in place, keeping its queue position
+                    nodes.remainingQuantity(node, makerRemaining);
+                    level.totalQuantity -= fillQty;
+                    depth(oppositeSide).add(price, -fillQty);
+                    markChanged(oppositeSide, level);
+                    break;
+                }
+            }
+
+            // Remove empty price level
+            if (level.isEmpty()) {
+                dropLevel(oppositeSide, level);
+            }
+        }
+
+        return MatchResult.builder()
+                .order(order)
+                .sequenceNumber(sequence)
+                .remainingQuantity(remainingQty)
+                .trades(trades)
+                .fullyFilled(remainingQty <= 0)
+                .filledQuantity(totalFilled)
+                .filledNotional(totalValue)
+                .build();
+    }
+
+    /**
+     * Add order to the appropriate side of the book
+     */
+    private void addToBook(BookOrder order, long remainingQty, long sequence) {
+        int node = nodes.acquire(order, remainingQty, sequence);
+        appendNode(node, getOrCreateLevel(order.getSide(), order.getPrice()));
+        if (orderEvents != null) {
+            recordOrderEvent(OrderAction.ADD, node, remainingQty);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Added to book: {} {} @ {} (remaining: {})",
+                    order.getSide(), symbol, order.getPrice(), remainingQty);
+        }
+    }
+
+    /**
+     * Append a node at the back of a level queue (lowest time priority) and index it
+     */
+    private void appendNode(int node, BookLevel level) {
+        nodes.level(node, level);
+        nodes.prev(node, level.tail);
+        if (level.tail != OrderNodePool.NIL) {
+            nodes.next(level.tail, node);
+        } else {
+            level.head = node;
+        }
+        level.tail = node;
+        level.orderCount++;
+        level.totalQuantity += nodes.remainingQuantity(node);
+        depth(nodes.side(node)).add(level.price, nodes.remainingQuantity(node));
+        markChanged(nodes.side(node), level);
+
+        orderIndex.put(nodes.orderIdHi(node), nodes.orderIdLo(node), node);
+    }
+
+    /**
+     * Unlink a node from its level, drop it from the index and recycle it.
+     * The caller removes the level if it is now empty.
+     */
+    private void removeNode(int node) {
+        BookLevel level = nodes.level(node);
+        int prev = nodes.prev(node);
+        int next = nodes.next(node);
+        if (prev != OrderNodePool.NIL) {
+            nodes.next(prev, next);
+        } else {
+            level.head = next;
+        }
+        if (next != OrderNodePool.NIL) {
+            nodes.prev(next, prev);
+        } else {
+            level.tail = prev;
+        }
+        level.orderCount--;
+        level.totalQuantity -= nodes.remainingQuantity(node);
+        depth(nodes.side(node)).add(level.price, -nodes.remainingQuantity(node));
+        markChanged(nodes.side(node), level);
+
+        orderIndex.remove(nodes.orderIdHi(node), nodes.orderIdLo(node));
+        nodes.release(node);
+    }
+
+    @Override
+    public boolean cancelOrder(UUID orderId, OrderSide side) {
+        int node = orderIndex.get(orderId.getMostSignificantBits(), orderId.getLeastSignificantBits());
+        if (node == OrderNodePool.NIL || nodes.side(node) != side) {
+            if (triggers.remove(orderId, side) != null) {
+                log.debug("Cancelled stop order {}", orderId);
+                return true;
+            }
+            log.warn("Order {} not found in book for cancellation", orderId);
+            return false;
+        }
+
+        BookLevel level = nodes.level(node);
+        if (orderEvents != null) {
+            recordOrderEvent(OrderAction.DELETE, node, nodes.remainingQuantity(node), 0);
+        }
+        removeNode(node);
+
+        // Clean up empty price level
+        if (level.isEmpty()) {
+            dropLevel(side, level);
+        }
+
+        completeUpdate();
+        log.debug("Cancelled order {} from book", orderId);
+        return true;
+    }
+
+    @Override
+    public CancelReplaceResult cancelReplace(UUID orderId, OrderSide side, long newPrice, long newQuantity) {
+        int node = orderIndex.get(orderId.getMostSignificantBits(), orderId.getLeastSignificantBits());
+        if (node == OrderNodePool.NIL || nodes.side(node) != side) {
+            BookOrder stop = triggers.get(orderId, side);
+            if (stop != null) {
+                return cancelReplaceStop(stop, newPrice, newQuantity);
+            }
+            log.warn("Order {} not found in book for cancel/replace", orderId);
+            return CancelReplaceResult.notFound();
+        }
+
+        BookLevel level = nodes.level(node);
+        long price = level.price;
+        long remaining = nodes.remainingQuantity(node);
+        long filled = nodes.originalQuantity(node) - remaining;
+        long targetPrice = newPrice != NO_PRICE ? newPrice : price;
+        long newRemaining = newQuantity - filled;
+
+        if (newRemaining <= 0) {
+            if (orderEvents != null) {
+                recordOrderEvent(OrderAction.DELETE, node, remaining, 0);
+            }
+            removeNode(node);
+            if (level.isEmpty()) {
+                dropLevel(side, level);
+            }
+            completeUpdate();
+            return new CancelReplaceResult(CancelReplaceStatus.CANCELLED, price, remaining, price, 0, null);
+        }
+
+        if (targetPrice == price && newRemaining <= remaining) {
+            if (newRemaining == remaining) {
+                return new CancelReplaceResult(CancelReplaceStatus.UNCHANGED, price, remaining, price, remaining, null);
+            }
+            // Reduce in place, keeping the queue position
+            nodes.remainingQuantity(node, newRemaining);
+            nodes.originalQuantity(node, newQuantity);
+            level.totalQuantity -= remaining - newRemaining;
+            depth(side).add(price, -(remaining - newRemaining));
+            markChanged(side, level);
+            if (orderEvents != null) {
+                recordOrderEvent(OrderAction.REDUCE, node, remaining - newRemaining);
+            }
+            completeUpdate();
+            return new CancelReplaceResult(CancelReplaceStatus.REDUCED, price, remaining, price, newRemaining, null);
+        }
+
+        // Price change or larger size: take the order out and re-enter it at the back
+        BookOrder replacement = BookOrder.builder()
+                .orderId(orderId)
+                .userId(nodes.userId(node))
+                .symbol(symbol)
+                .side(side)
+                .type(OrderType.LIMIT)
+                .price(targetPrice)
+                .originalQuantity(newQuantity)
+                .remainingQuantity(newRemaining)
+                .timestamp(Instant.ofEpochSecond(0, nodes.timestampNanos(node)))
+                .build();
+        if (orderEvents != null) {
+            recordOrderEvent(OrderAction.DELETE, node, remaining, 0);
+        }
+        removeNode(node);
+        if (level.isEmpty()) {
+            dropLevel(side, level);
+        }
+        // One update id covers the removal and the re-entry
+        MatchResult match = addOrder(replacement);
+        return new CancelReplaceResult(CancelReplaceStatus.REPLACED, price, remaining, targetPrice, newRemaining, match);
+    }
+
+    /**
+     * Cancel or replace a parked stop. Stops never fill while parked; a
+     * replacement goes to the back of its stop price and only a stop-limit
+     * has a price to change. The book itself does not change.
+     */
+    private CancelReplaceResult cancelReplaceStop(BookOrder stop, long newPrice, long newQuantity) {
+        long price = stop.getPrice();
+        long remaining = stop.getRemainingQuantity();
+        long targetPrice = newPrice != NO_PRICE && stop.getType() == OrderType.STOP_LIMIT ? newPrice : price;
+
+        if (newQuantity <= 0) {
+            triggers.remove(stop.getOrderId(), stop.getSide());
+            return new CancelReplaceResult(CancelReplaceStatus.CANCELLED, price, remaining, price, 0, null);
+        }
+        if (targetPrice == price && newQuantity == remaining) {
+            return new CancelReplaceResult(CancelReplaceStatus.UNCHANGED, price, remaining, price, remaining, null);
+        }
+        triggers.remove(stop.getOrderId(), stop.getSide());
+        triggers.park(stop.toBuilder()
+                .price(targetPrice)
+                .originalQuantity(newQuantity)
+                .remainingQuantity(newQuantity)
+                .build());
+        return new CancelReplaceResult(CancelReplaceStatus.REPLACED, price, remaining, targetPrice, newQuantity, null);
+    }
+
+    // ============================================
+    // Change tracking (L2 deltas)
+    // ============================================
+
+    /**
+     * Record that a level's size changed, once per level between drains
+     */
+    private void markChanged(OrderSide side, BookLevel level) {
+        operationChanged = true;
+        if (level.changed) {
+            return;
+        }
+        level.changed = true;
+        if (changedCount == changedPrices.length) {
+            changedSides = Arrays.copyOf(changedSides, changedCount * 2);
+            changedPrices = Arrays.copyOf(changedPrices, changedCount * 2);
+        }
+        changedSides[changedCount] = (byte) side.ordinal();
+        changedPrices[changedCount] = level.price;
+        changedCount++;
+    }
+
+    /**
+     * End of an add or cancel: assign it the next update id if it changed anything
+     */
+    private void completeUpdate() {
+        if (operationChanged) {
+            operationChanged = false;
+            updateId++;
+            if (firstUndrainedUpdateId == 0) {
+                firstUndrainedUpdateId = updateId;
+            }
+        }
+    }
+
+    @Override
+    public long getUpdateId() {
+        return updateId;
+    }
+
+    @Override
+    public BookDelta drainChanges() {
+        if (changedCount == 0) {
+            return null;
+        }
+        List<LevelChange> changes = new ArrayList<>(changedCount);
+        for (int i = 0; i < changedCount; i++) {
+            OrderSide side = SIDES[changedSides[i]];
+            long price = changedPrices[i];
+            BookLevel level = findLevel(side, price);
+            if (level == null) {
+                changes.add(new LevelChange(side, price, 0, 0));
+            } else if (level.changed) {
+                // Skips a level removed and recreated at the same price, already reported
+                level.changed = false;
+                changes.add(new LevelChange(side, price, level.totalQuantity, level.orderCount));
+            }
+        }
+        BookDelta delta = new BookDelta(symbol, firstUndrainedUpdateId, updateId, changes, Instant.now());
+        changedCount = 0;
+        firstUndrainedUpdateId = 0;
+        return delta;
+    }
+
+    // ============================================
+    // Market-by-order events (L3)
+    // ============================================
+
+    @Override
+    public void setOrderEventsEnabled(boolean enabled) {
+        if (!enabled) {
+            orderEvents = null;
+        } else if (orderEvents == null) {
+            orderEvents = new ArrayList<>();
+        }
+    }
+
+    @Override
+    public void setDuplicateWindow(int orderIds) {
+        recentOrderIds = orderIds > 0 ? new RecentOrderIds(orderIds) : null;
+    }
+
+    @Override
+    public List<OrderEvent> drainOrderEvents() {
+        if (orderEvents == null || orderEvents.isEmpty()) {
+            return List.of();
+        }
+        List<OrderEvent> drained = orderEvents;
+        orderEvents = new ArrayList<>();
+        return drained;
+    }
+
+    private void recordOrderEvent(OrderAction action, int node, long quantity) {
+        recordOrderEvent(action, node, quantity, nodes.remainingQuantity(node));
+    }
+
+    private void recordOrderEvent(OrderAction action, int node, long quantity, long remaining) {
+        orderEvents.add(new OrderEvent(++orderEventSequence, action, nodes.sequenceNumber(node),
+                nodes.side(node), nodes.level(node).price, quantity, remaining));
+    }
+
+    /**
+     * Create a trade record
+     */
+    private Trade createTrade(BookOrder taker, int maker, long price, long quantity, Instant timestamp) {
+        UUID makerOrderId = nodes.orderId(maker);
+        UUID makerUserId = nodes.userId(maker);
+        UUID buyOrderId, buyUserId, sellOrderId, sellUserId;
+
+        if (taker.getSide() == OrderSide.BUY) {
+            buyOrderId = taker.getOrderId();
+            buyUserId = taker.getUserId();
+            sellOrderId = makerOrderId;
+            sellUserId = makerUserId;
+        } else {
+            buyOrderId = makerOrderId;
+            buyUserId = makerUserId;
+            sellOrderId = taker.getOrderId();
+            sellUserId = taker.getUserId();
+        }
+
+        long sequence = ++tradeSequence;
+        return Trade.builder()
+                .tradeId(TradeIds.toUuid(tradeIdSymbolBits, sequence))
+                .tradeSequence(sequence)
+                .symbol(symbol)
+                .makerOrderId(makerOrderId)
+                .makerUserId(makerUserId)
+                .takerOrderId(taker.getOrderId())
+                .takerUserId(taker.getUserId())
+                .buyOrderId(buyOrderId)
+                .buyUserId(buyUserId)
+                .sellOrderId(sellOrderId)
+                .sellUserId(sellUserId)
+                .price(price)
+                .quantity(quantity)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    // ============================================
+    // Queries
+    // ============================================
+
+    @Override
+    public long getBestBid() {
+        BookLevel level = bestLevel(OrderSide.BUY);
+        return level != null ? level.price : NO_PRICE;
+    }
+
+    @Override
+    public long getBestAsk() {
+        BookLevel level = bestLevel(OrderSide.SELL);
+        return level != null ? level.price : NO_PRICE;
+    }
+
+    @Override
+    public long getBestBidQuantity() {
+        BookLevel level = bestLevel(OrderSide.BUY);
+        return level != null ? level.totalQuantity : 0;
+    }
+
+    @Override
+    public long getBestAskQuantity() {
+        BookLevel level = bestLevel(OrderSide.SELL);
+        return level != null ? level.totalQuantity : 0;
+    }
+
+    @Override
+    public int getBidDepth() {
+        return levelCount(OrderSide.BUY);
+    }
+
+    @Override
+    public int getAskDepth() {
+        return levelCount(OrderSide.SELL);
+    }
+
+    @Override
+    public OrderBookSnapshot getSnapshot(int depth) {
+        return new OrderBookSnapshot(symbol, updateId,
+                collectLevels(OrderSide.BUY, depth),
+                collectLevels(OrderSide.SELL, depth),
+                Instant.now());
+    }
+
+    private List<PriceLevel> collectLevels(OrderSide side, int depth) {
+        List<PriceLevel> levels = new ArrayList<>();
+        if (depth <= 0) {
+            return levels;
+        }
+        forEachLevel(side, level -> {
+            levels.add(new PriceLevel(level.price, level.totalQuantity, level.orderCount));
+            return levels.size() < depth;
+        });
+        return levels;
+    }
+
+    // ============================================
+    // State (binary snapshots)
+    // ============================================
+
+    @Override
+    public int stateSize() {
+        return 8 + 8 + 8 + 8 + 4 + nodes.size() * ORDER_STATE_SIZE + triggers.stateSize()
+                + (recentOrderIds != null ? recentOrderIds.stateSize() : 4);
+    }
+
+    @Override
+    public void writeState(ByteBuffer out) {
+        out.putLong(sequenceGenerator);
+        out.putLong(updateId);
+        out.putLong(tradeSequence);
+        out.putLong(orderEventSequence);
+        out.putInt(nodes.size());
+        for (OrderSide side : SIDES) {
+            forEachLevel(side, level -> {
+                for (int node = level.head; node != OrderNodePool.NIL; node = nodes.next(node)) {
+                    out.put((byte) side.ordinal());
+                    out.putLong(level.price);
+                    out.putLong(nodes.orderIdHi(node));
+                    out.putLong(nodes.orderIdLo(node));
+                    out.putLong(nodes.userIdHi(node));
+                    out.putLong(nodes.userIdLo(node));
+                    out.putLong(nodes.originalQuantity(node));
+                    out.putLong(nodes.remainingQuantity(node));
+                    out.putLong(nodes.timestampNanos(node));
+                    out.putLong(nodes.sequenceNumber(node));
+                }
+                return true;
+            });
+        }
+        triggers.writeState(out);
+        if (recentOrderIds != null) {
+            recentOrderIds.writeState(out);
+        } else {
+            out.putInt(0);
+        }
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        if (nodes.size() > 0 || triggers.size() > 0) {
+            throw new IllegalStateException("Cannot restore state into a non-empty book: " + symbol);
+        }
+        sequenceGenerator = in.getLong();
+        updateId = in.getLong();
+        tradeSequence = in.getLong();
+        orderEventSequence = in.getLong();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            OrderSide side = SIDES[in.get()];
+            long price = in.getLong();
+            int node = nodes.acquire(in.getLong(), in.getLong(), in.getLong(), in.getLong(),
+                    side, price, in.getLong(), in.getLong(), in.getLong(), in.getLong());
+            // Orders were written best level first and in queue order
+            appendNode(node, getOrCreateLevel(side, price));
+        }
+        triggers.readState(in, symbol);
+        RecentOrderIds.readState(in, recentOrderIds);
+        // Restored levels are not news to feed consumers
+        drainChanges();
+        operationChanged = false;
+    }
+}
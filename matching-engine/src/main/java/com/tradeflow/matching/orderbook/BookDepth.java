@@ -0,0 +1,48 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+
+/**
+ * Cumulative depth of both sides of a book at one update, every level
+ * included, for pricing fills on threads other than the book's.
+ *
+ * Holds frozen copies of the book's {@link DepthTree}s, so estimates are
+ * the same O(log levels) walks, with the same answers, as
+ * {@link OrderBook#estimateFill} at that update.
+ */
+public final class BookDepth {
+
+    private final DepthTree bids;
+    private final DepthTree asks;
+
+    BookDepth(DepthTree bids, DepthTree asks) {
+        this.bids = bids;
+        this.asks = asks;
+    }
+
+    /**
+     * Like {@link OrderBook#estimateFill}
+     */
+    public OrderBook.FillEstimate estimateFill(OrderSide takerSide, long quantity) {
+        return takerSide == OrderSide.BUY
+                ? asks.fillQuantity(true, quantity)
+                : bids.fillQuantity(false, quantity);
+    }
+
+    /**
+     * Like {@link OrderBook#estimateFillForNotional}
+     */
+    public OrderBook.FillEstimate estimateFillForNotional(OrderSide takerSide, long notional) {
+        return takerSide == OrderSide.BUY
+                ? asks.fillNotional(true, notional)
+                : bids.fillNotional(false, notional);
+    }
+
+    DepthTree bids() {
+        return bids;
+    }
+
+    DepthTree asks() {
+        return asks;
+    }
+}
@@ -0,0 +1,36 @@
+package com.tradeflow.matching.orderbook;
+
+/**
+ * A single price level: resting orders at one price in FIFO order, kept as
+ * an intrusive doubly-linked list of {@link OrderNodePool} handles.
+ * Total quantity and order count are kept up to date on every add, fill and
+ * cancel, so summarizing a level never walks its queue.
+ * Levels are recycled by the book once they empty out.
+ */
+final class BookLevel {
+
+    long price;
+
+    int head = OrderNodePool.NIL;
+
+    int tail = OrderNodePool.NIL;
+
+    int orderCount;
+
+    // Sum of remaining quantity over the queue
+    long totalQuantity;
+
+    // Already in the book's change log since the last drain
+    boolean changed;
+
+    // Free-list link while the level is pooled
+    BookLevel nextFree;
+
+    BookLevel(long price) {
+        this.price = price;
+    }
+
+    boolean isEmpty() {
+        return head == OrderNodePool.NIL;
+    }
+}
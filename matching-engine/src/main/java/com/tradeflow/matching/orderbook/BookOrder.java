@@ -2,16 +2,18 @@ package com.tradeflow.matching.orderbook;
 
 import com.tradeflow.common.enums.OrderSide;
 import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
 import lombok.Builder;
 import lombok.Data;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
 
 /**
- * Internal order representation in the order book.
- * Immutable snapshots are created for each state change.
+ * Incoming order as handed to the order book.
+ * Immutable; once an order rests, its mutable state lives in the book's
+ * pooled nodes rather than in copies of this object.
+ * Price and quantities are fixed-point longs (see {@link FixedPoint}).
  */
 @Data
 @Builder(toBuilder = true)
@@ -22,26 +24,27 @@ public class BookOrder {
     private final String symbol;
     private final OrderSide side;
     private final OrderType type;
-    private final BigDecimal price;
-    private final BigDecimal originalQuantity;
-    private final BigDecimal remainingQuantity;
+    private final long price; // 0 for market orders
+    private final long stopPrice; // Trigger price of stop orders, 0 otherwise
+    @Builder.Default
+    private final TimeInForce timeInForce = TimeInForce.GTC;
+    private final long originalQuantity;
+    private final long remainingQuantity;
     private final Instant timestamp;
     private final long sequenceNumber; // For FIFO ordering at same price
 
     /**
-     * Check if order is fully filled
+     * Whether this is a stop order still waiting for its trigger price
      */
-    public boolean isFullyFilled() {
-        return remainingQuantity.compareTo(BigDecimal.ZERO) <= 0;
+    public boolean isStop() {
+        return type == OrderType.STOP || type == OrderType.STOP_LIMIT;
     }
 
     /**
-     * Create a new order with reduced quantity after partial fill
+     * Check if order is fully filled
      */
-    public BookOrder withReducedQuantity(BigDecimal filledQuantity) {
-        return this.toBuilder()
-                .remainingQuantity(remainingQuantity.subtract(filledQuantity))
-                .build();
+    public boolean isFullyFilled() {
+        return remainingQuantity <= 0;
     }
 
     /**
@@ -54,10 +57,10 @@ public class BookOrder {
 
         if (this.side == OrderSide.BUY) {
             // Buy order: matches if buy price >= sell price
-            return this.price.compareTo(other.price) >= 0;
+            return this.price >= other.price;
         } else {
             // Sell order: matches if sell price <= buy price
-            return this.price.compareTo(other.price) <= 0;
+            return this.price <= other.price;
         }
     }
 }
@@ -0,0 +1,321 @@
+package com.tradeflow.matching.orderbook;
+
+import java.util.Arrays;
+
+/**
+ * Cumulative resting quantity and notional of one book side, keyed by price.
+ *
+ * A treap over the side's price levels where every node also carries the
+ * quantity and notional of its whole subtree, so the quantity resting at or
+ * below any price, or the cost of the best Q, is a single root-to-leaf
+ * walk: O(log levels) expected, for any price distribution. Nodes live in
+ * parallel primitive arrays like {@link OrderNodePool}; a level's node is
+ * recycled when its quantity reaches zero.
+ *
+ * Kept in step with {@link BookLevel#totalQuantity} by the book, so a
+ * fill-or-kill order can be checked, or a fill priced, before any level is
+ * touched.
+ */
+final class DepthTree {
+
+    // Slot 0 is the empty subtree: its sum stays 0 and it is never written
+    private static final int NIL = 0;
+
+    private long[] prices;
+    private long[] quantities;
+    private long[] sums;
+    // Per level price * quantity, and its subtree sum
+    private long[] notionals;
+    private long[] notionalSums;
+    private int[] priorities;
+    private int[] left;
+    private int[] right;
+
+    private int root = NIL;
+    private int freeHead = NIL;
+    private int highWater = 1;
+
+    // xorshift state for node priorities; fixed seed keeps shapes reproducible
+    private int seed = 0x2545F491;
+
+    // Bumped by every change, so an unchanged side can share its last copy
+    private long version;
+
+    DepthTree(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        prices = new long[capacity];
+        quantities = new long[capacity];
+        sums = new long[capacity];
+        notionals = new long[capacity];
+        notionalSums = new long[capacity];
+        priorities = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+    }
+
+    /**
+     * Copy of the used nodes of {@code source}, for readers on other threads
+     */
+    private DepthTree(DepthTree source) {
+        int used = source.highWater;
+        prices = Arrays.copyOf(source.prices, used);
+        quantities = Arrays.copyOf(source.quantities, used);
+        sums = Arrays.copyOf(source.sums, used);
+        notionals = Arrays.copyOf(source.notionals, used);
+        notionalSums = Arrays.copyOf(source.notionalSums, used);
+        priorities = Arrays.copyOf(source.priorities, used);
+        left = Arrays.copyOf(source.left, used);
+        right = Arrays.copyOf(source.right, used);
+        root = source.root;
+        freeHead = source.freeHead;
+        highWater = used;
+        seed = source.seed;
+        version = source.version;
+    }
+
+    /**
+     * Snapshot of the side to read from other threads; never changed after,
+     * so it must not be passed to {@link #add}. O(levels) array copies.
+     */
+    DepthTree copy() {
+        return new DepthTree(this);
+    }
+
+    long version() {
+        return version;
+    }
+
+    /**
+     * Total quantity on the side
+     */
+    long total() {
+        return sums[root];
+    }
+
+    /**
+     * Quantity resting at prices {@code <= price}
+     */
+    long quantityAtOrBelow(long price) {
+        long sum = 0;
+        int t = root;
+        while (t != NIL) {
+            if (prices[t] <= price) {
+                sum += sums[left[t]] + quantities[t];
+                t = right[t];
+            } else {
+                t = left[t];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Quantity resting at prices {@code >= price}
+     */
+    long quantityAtOrAbove(long price) {
+        return price == Long.MIN_VALUE ? total() : total() - quantityAtOrBelow(price - 1);
+    }
+
+    /**
+     * Fill {@code quantity} from the best price outwards: lowest prices
+     * first when {@code lowestFirst} (asks), highest first otherwise (bids).
+     * The estimate falls short of {@code quantity} when the side runs out.
+     */
+    OrderBook.FillEstimate fillQuantity(boolean lowestFirst, long quantity) {
+        long filled = 0;
+        long notional = 0;
+        long worstPrice = OrderBook.NO_PRICE;
+        long need = quantity;
+        int t = root;
+        while (t != NIL && need > 0) {
+            int near = lowestFirst ? left[t] : right[t];
+            if (need <= sums[near]) {
+                t = near;
+                continue;
+            }
+            // The whole nearer subtree fills, then this level
+            need -= sums[near];
+            filled += sums[near];
+            notional += notionalSums[near];
+            long take = Math.min(need, quantities[t]);
+            filled += take;
+            notional += take == quantities[t] ? notionals[t] : FixedPoint.multiply(prices[t], take);
+            worstPrice = prices[t];
+            need -= take;
+            t = lowestFirst ? right[t] : left[t];
+        }
+        return new OrderBook.FillEstimate(filled, notional, worstPrice, need > 0);
+    }
+
+    /**
+     * Spend up to {@code budget} of notional from the best price outwards,
+     * in the same order as {@link #fillQuantity}
+     */
+    OrderBook.FillEstimate fillNotional(boolean lowestFirst, long budget) {
+        long filled = 0;
+        long notional = 0;
+        long worstPrice = OrderBook.NO_PRICE;
+        long remaining = budget;
+        int t = root;
+        while (t != NIL && remaining > 0) {
+            int near = lowestFirst ? left[t] : right[t];
+            if (remaining <= notionalSums[near]) {
+                t = near;
+                continue;
+            }
+            remaining -= notionalSums[near];
+            filled += sums[near];
+            notional += notionalSums[near];
+            long take = remaining >= notionals[t] ? quantities[t]
+                    : Math.min(quantities[t], FixedPoint.divide(remaining, prices[t]));
+            long spent = take == quantities[t] ? notionals[t] : FixedPoint.multiply(prices[t], take);
+            if (take > 0) {
+                worstPrice = prices[t];
+            }
+            filled += take;
+            notional += spent;
+            if (take < quantities[t]) {
+                // Budget ran out inside this level
+                return new OrderBook.FillEstimate(filled, notional, worstPrice, false);
+            }
+            remaining -= spent;
+            t = lowestFirst ? right[t] : left[t];
+        }
+        return new OrderBook.FillEstimate(filled, notional, worstPrice, remaining > 0);
+    }
+
+    /**
+     * Change the quantity at a price, adding the price on first use and
+     * dropping it once its quantity is back to zero
+     */
+    void add(long price, long delta) {
+        if (delta != 0) {
+            root = add(root, price, delta);
+            version++;
+        }
+    }
+
+    private int add(int t, long price, long delta) {
+        if (t == NIL) {
+            if (delta < 0) {
+                throw new IllegalStateException("No depth at price " + price + " to remove " + -delta);
+            }
+            return newNode(price, delta);
+        }
+        if (price == prices[t]) {
+            quantities[t] += delta;
+            if (quantities[t] == 0) {
+                int merged = merge(left[t], right[t]);
+                release(t);
+                return merged;
+            }
+            long notional = FixedPoint.multiply(price, quantities[t]);
+            sums[t] += delta;
+            notionalSums[t] += notional - notionals[t];
+            notionals[t] = notional;
+            return t;
+        }
+        if (price < prices[t]) {
+            int child = add(left[t], price, delta);
+            left[t] = child;
+            if (child != NIL && priorities[child] > priorities[t]) {
+                return rotateRight(t);
+            }
+        } else {
+            int child = add(right[t], price, delta);
+            right[t] = child;
+            if (child != NIL && priorities[child] > priorities[t]) {
+                return rotateLeft(t);
+            }
+        }
+        update(t);
+        return t;
+    }
+
+    private int rotateRight(int t) {
+        int l = left[t];
+        left[t] = right[l];
+        right[l] = t;
+        update(t);
+        update(l);
+        return l;
+    }
+
+    private int rotateLeft(int t) {
+        int r = right[t];
+        right[t] = left[r];
+        left[r] = t;
+        update(t);
+        update(r);
+        return r;
+    }
+
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (priorities[a] > priorities[b]) {
+            right[a] = merge(right[a], b);
+            update(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        update(b);
+        return b;
+    }
+
+    private void update(int t) {
+        sums[t] = sums[left[t]] + sums[right[t]] + quantities[t];
+        notionalSums[t] = notionalSums[left[t]] + notionalSums[right[t]] + notionals[t];
+    }
+
+    private int newNode(long price, long quantity) {
+        int t;
+        if (freeHead != NIL) {
+            t = freeHead;
+            freeHead = left[t];
+        } else {
+            if (highWater == prices.length) {
+                grow();
+            }
+            t = highWater++;
+        }
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        prices[t] = price;
+        quantities[t] = quantity;
+        sums[t] = quantity;
+        notionals[t] = FixedPoint.multiply(price, quantity);
+        notionalSums[t] = notionals[t];
+        priorities[t] = seed;
+        left[t] = NIL;
+        right[t] = NIL;
+        return t;
+    }
+
+    private void release(int t) {
+        quantities[t] = 0;
+        sums[t] = 0;
+        notionals[t] = 0;
+        notionalSums[t] = 0;
+        right[t] = NIL;
+        left[t] = freeHead;
+        freeHead = t;
+    }
+
+    private void grow() {
+        int capacity = prices.length * 2;
+        prices = Arrays.copyOf(prices, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        sums = Arrays.copyOf(sums, capacity);
+        notionals = Arrays.copyOf(notionals, capacity);
+        notionalSums = Arrays.copyOf(notionalSums, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+    }
+}
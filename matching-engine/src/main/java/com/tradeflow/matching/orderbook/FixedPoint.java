@@ -0,0 +1,60 @@
+package com.tradeflow.matching.orderbook;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point conversions for prices and quantities inside the matching engine.
+ * Values are held as {@code long} with 8 implied decimals (1 unit = 1e-8), so
+ * the matching path never touches BigDecimal. Conversion happens only at the
+ * edges (order ingestion, publishing, REST).
+ */
+public final class FixedPoint {
+
+    public static final int SCALE = 8;
+
+    public static final long ONE = 100_000_000L;
+
+    private FixedPoint() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Convert a decimal value to scaled ticks/lots (null maps to 0)
+     */
+    public static long toLong(BigDecimal value) {
+        if (value == null) {
+            return 0L;
+        }
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convert scaled ticks/lots back to a decimal value
+     */
+    public static BigDecimal toBigDecimal(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    /**
+     * Multiply two fixed-point values (e.g. price * quantity = quote notional),
+     * truncating below 1e-8. Splits both operands at the scale so that
+     * realistic prices and sizes do not overflow the intermediate product.
+     */
+    public static long multiply(long a, long b) {
+        long aHi = a / ONE, aLo = a % ONE;
+        long bHi = b / ONE, bLo = b % ONE;
+        return aHi * bHi * ONE + aHi * bLo + aLo * bHi + (aLo * bLo) / ONE;
+    }
+
+    /**
+     * Divide two fixed-point values (e.g. quote notional / price = quantity),
+     * truncating below 1e-8. Goes through BigInteger, so keep it off the
+     * matching path.
+     */
+    public static long divide(long a, long b) {
+        return BigInteger.valueOf(a).multiply(BigInteger.valueOf(ONE))
+                .divide(BigInteger.valueOf(b)).longValueExact();
+    }
+}
@@ -0,0 +1,176 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+
+import java.util.Arrays;
+
+/**
+ * Node pool stored as parallel primitive arrays on the Java heap, plus a
+ * reference from each node to its level. Arrays double when full.
+ */
+final class HeapOrderNodePool extends OrderNodePool {
+
+    private long[] orderIdHi;
+    private long[] orderIdLo;
+    private long[] userIdHi;
+    private long[] userIdLo;
+    private long[] price;
+    private long[] originalQuantity;
+    private long[] remainingQuantity;
+    private long[] timestampNanos;
+    private long[] sequenceNumber;
+    private byte[] side;
+    private int[] prev;
+    private int[] next;
+    private BookLevel[] level;
+
+    HeapOrderNodePool(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        orderIdHi = new long[capacity];
+        orderIdLo = new long[capacity];
+        userIdHi = new long[capacity];
+        userIdLo = new long[capacity];
+        price = new long[capacity];
+        originalQuantity = new long[capacity];
+        remainingQuantity = new long[capacity];
+        timestampNanos = new long[capacity];
+        sequenceNumber = new long[capacity];
+        side = new byte[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        level = new BookLevel[capacity];
+    }
+
+    @Override
+    void ensureCapacity(int nodes) {
+        if (nodes <= price.length) {
+            return;
+        }
+        int capacity = price.length * 2;
+        orderIdHi = Arrays.copyOf(orderIdHi, capacity);
+        orderIdLo = Arrays.copyOf(orderIdLo, capacity);
+        userIdHi = Arrays.copyOf(userIdHi, capacity);
+        userIdLo = Arrays.copyOf(userIdLo, capacity);
+        price = Arrays.copyOf(price, capacity);
+        originalQuantity = Arrays.copyOf(originalQuantity, capacity);
+        remainingQuantity = Arrays.copyOf(remainingQuantity, capacity);
+        timestampNanos = Arrays.copyOf(timestampNanos, capacity);
+        sequenceNumber = Arrays.copyOf(sequenceNumber, capacity);
+        side = Arrays.copyOf(side, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+        level = Arrays.copyOf(level, capacity);
+    }
+
+    @Override
+    void fill(int node, long orderIdHi, long orderIdLo, long userIdHi, long userIdLo,
+            OrderSide orderSide, long orderPrice, long original, long remaining, long timestamp, long sequence) {
+        this.orderIdHi[node] = orderIdHi;
+        this.orderIdLo[node] = orderIdLo;
+        this.userIdHi[node] = userIdHi;
+        this.userIdLo[node] = userIdLo;
+        price[node] = orderPrice;
+        originalQuantity[node] = original;
+        remainingQuantity[node] = remaining;
+        timestampNanos[node] = timestamp;
+        sequenceNumber[node] = sequence;
+        side[node] = (byte) orderSide.ordinal();
+        prev[node] = NIL;
+        next[node] = NIL;
+        level[node] = null;
+    }
+
+    // ============================================
+    // Field access
+    // ============================================
+
+    @Override
+    long orderIdHi(int node) {
+        return orderIdHi[node];
+    }
+
+    @Override
+    long orderIdLo(int node) {
+        return orderIdLo[node];
+    }
+
+    @Override
+    long userIdHi(int node) {
+        return userIdHi[node];
+    }
+
+    @Override
+    long userIdLo(int node) {
+        return userIdLo[node];
+    }
+
+    @Override
+    long price(int node) {
+        return price[node];
+    }
+
+    @Override
+    long originalQuantity(int node) {
+        return originalQuantity[node];
+    }
+
+    @Override
+    void originalQuantity(int node, long quantity) {
+        originalQuantity[node] = quantity;
+    }
+
+    @Override
+    long remainingQuantity(int node) {
+        return remainingQuantity[node];
+    }
+
+    @Override
+    void remainingQuantity(int node, long quantity) {
+        remainingQuantity[node] = quantity;
+    }
+
+    @Override
+    long timestampNanos(int node) {
+        return timestampNanos[node];
+    }
+
+    @Override
+    long sequenceNumber(int node) {
+        return sequenceNumber[node];
+    }
+
+    @Override
+    OrderSide side(int node) {
+        return SIDES[side[node]];
+    }
+
+    @Override
+    int prev(int node) {
+        return prev[node];
+    }
+
+    @Override
+    void prev(int node, int value) {
+        prev[node] = value;
+    }
+
+    @Override
+    int next(int node) {
+        return next[node];
+    }
+
+    @Override
+    void next(int node, int value) {
+        next[node] = value;
+    }
+
+    @Override
+    BookLevel level(int node) {
+        return level[node];
+    }
+
+    @Override
+    void level(int node, BookLevel value) {
+        level[node] = value;
+    }
+}
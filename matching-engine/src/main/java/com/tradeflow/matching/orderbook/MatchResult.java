@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
 
 /**
@@ -18,9 +19,24 @@ import java.util.List;
 public class MatchResult {
 
     /**
-     * The incoming order (updated with remaining quantity)
+     * The incoming order, as received
      */
-    private BookOrder remainingOrder;
+    private BookOrder order;
+
+    /**
+     * Sequence number assigned to the incoming order by the book
+     */
+    private long sequenceNumber;
+
+    /**
+     * Quantity left after matching (rests on the book for limit orders)
+     */
+    private long remainingQuantity;
+
+    /**
+     * Quantity cancelled instead of resting (IOC/FOK remainder)
+     */
+    private long expiredQuantity;
 
     /**
      * List of trades executed
@@ -33,14 +49,14 @@ public class MatchResult {
     private boolean fullyFilled;
 
     /**
-     * Total quantity filled
+     * Total quantity filled (fixed-point)
      */
-    private BigDecimal filledQuantity;
+    private long filledQuantity;
 
     /**
-     * Average execution price
+     * Total quote value filled, sum of price * quantity (fixed-point)
      */
-    private BigDecimal avgPrice;
+    private long filledNotional;
 
     /**
      * Check if any trades occurred
@@ -48,4 +64,15 @@ public class MatchResult {
     public boolean hasTrades() {
         return trades != null && !trades.isEmpty();
     }
+
+    /**
+     * Average execution price, derived from the fixed-point totals
+     */
+    public BigDecimal getAvgPrice() {
+        if (filledQuantity <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return FixedPoint.toBigDecimal(filledNotional)
+                .divide(FixedPoint.toBigDecimal(filledQuantity), FixedPoint.SCALE, RoundingMode.HALF_UP);
+    }
 }
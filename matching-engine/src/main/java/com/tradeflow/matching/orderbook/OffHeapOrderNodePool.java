@@ -0,0 +1,197 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Node pool stored in fixed-width slots of direct memory, for books deep
+ * enough that resting orders would dominate the heap.
+ *
+ * Slots live in chunks of {@value #CHUNK_SLOTS}, added as the book grows,
+ * so growing never copies existing orders. The heap only holds the chunk
+ * table: the collector neither scans nor moves resting orders. A node keeps
+ * no reference to its level; the level is looked up by the node's side and
+ * price, which costs a level lookup (O(1) on a tick ladder, O(log n) on a
+ * skip list) per fill and cancel.
+ *
+ * Chunks are freed when the book is dropped and its buffers are collected,
+ * so {@code -XX:MaxDirectMemorySize} must cover every off-heap book at
+ * about {@value #SLOT_SIZE} bytes per resting order.
+ */
+final class OffHeapOrderNodePool extends OrderNodePool {
+
+    /**
+     * Finds the level holding orders of a side at a price
+     */
+    @FunctionalInterface
+    interface LevelLocator {
+        BookLevel findLevel(OrderSide side, long price);
+    }
+
+    static final int SLOT_SIZE = 88;
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SLOTS - 1;
+
+    // Slot layout
+    private static final int ORDER_ID_HI = 0;
+    private static final int ORDER_ID_LO = 8;
+    private static final int USER_ID_HI = 16;
+    private static final int USER_ID_LO = 24;
+    private static final int PRICE = 32;
+    private static final int ORIGINAL_QUANTITY = 40;
+    private static final int REMAINING_QUANTITY = 48;
+    private static final int TIMESTAMP = 56;
+    private static final int SEQUENCE = 64;
+    private static final int PREV = 72;
+    private static final int NEXT = 76;
+    private static final int SIDE = 80;
+
+    private final LevelLocator levels;
+
+    private ByteBuffer[] chunks = new ByteBuffer[16];
+    private int chunkCount;
+
+    OffHeapOrderNodePool(LevelLocator levels) {
+        this.levels = levels;
+    }
+
+    @Override
+    void ensureCapacity(int nodes) {
+        while (nodes > chunkCount << CHUNK_SHIFT) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            chunks[chunkCount++] = ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_SIZE)
+                    .order(ByteOrder.nativeOrder());
+        }
+    }
+
+    private ByteBuffer chunk(int node) {
+        return chunks[node >>> CHUNK_SHIFT];
+    }
+
+    private static int offset(int node, int field) {
+        return (node & CHUNK_MASK) * SLOT_SIZE + field;
+    }
+
+    @Override
+    void fill(int node, long orderIdHi, long orderIdLo, long userIdHi, long userIdLo,
+            OrderSide orderSide, long orderPrice, long original, long remaining, long timestamp, long sequence) {
+        ByteBuffer chunk = chunk(node);
+        int slot = offset(node, 0);
+        chunk.putLong(slot + ORDER_ID_HI, orderIdHi);
+        chunk.putLong(slot + ORDER_ID_LO, orderIdLo);
+        chunk.putLong(slot + USER_ID_HI, userIdHi);
+        chunk.putLong(slot + USER_ID_LO, userIdLo);
+        chunk.putLong(slot + PRICE, orderPrice);
+        chunk.putLong(slot + ORIGINAL_QUANTITY, original);
+        chunk.putLong(slot + REMAINING_QUANTITY, remaining);
+        chunk.putLong(slot + TIMESTAMP, timestamp);
+        chunk.putLong(slot + SEQUENCE, sequence);
+        chunk.putInt(slot + PREV, NIL);
+        chunk.putInt(slot + NEXT, NIL);
+        chunk.put(slot + SIDE, (byte) orderSide.ordinal());
+    }
+
+    // ============================================
+    // Field access
+    // ============================================
+
+    @Override
+    long orderIdHi(int node) {
+        return chunk(node).getLong(offset(node, ORDER_ID_HI));
+    }
+
+    @Override
+    long orderIdLo(int node) {
+        return chunk(node).getLong(offset(node, ORDER_ID_LO));
+    }
+
+    @Override
+    long userIdHi(int node) {
+        return chunk(node).getLong(offset(node, USER_ID_HI));
+    }
+
+    @Override
+    long userIdLo(int node) {
+        return chunk(node).getLong(offset(node, USER_ID_LO));
+    }
+
+    @Override
+    long price(int node) {
+        return chunk(node).getLong(offset(node, PRICE));
+    }
+
+    @Override
+    long originalQuantity(int node) {
+        return chunk(node).getLong(offset(node, ORIGINAL_QUANTITY));
+    }
+
+    @Override
+    void originalQuantity(int node, long quantity) {
+        chunk(node).putLong(offset(node, ORIGINAL_QUANTITY), quantity);
+    }
+
+    @Override
+    long remainingQuantity(int node) {
+        return chunk(node).getLong(offset(node, REMAINING_QUANTITY));
+    }
+
+    @Override
+    void remainingQuantity(int node, long quantity) {
+        chunk(node).putLong(offset(node, REMAINING_QUANTITY), quantity);
+    }
+
+    @Override
+    long timestampNanos(int node) {
+        return chunk(node).getLong(offset(node, TIMESTAMP));
+    }
+
+    @Override
+    long sequenceNumber(int node) {
+        return chunk(node).getLong(offset(node, SEQUENCE));
+    }
+
+    @Override
+    OrderSide side(int node) {
+        return SIDES[chunk(node).get(offset(node, SIDE))];
+    }
+
+    @Override
+    int prev(int node) {
+        return chunk(node).getInt(offset(node, PREV));
+    }
+
+    @Override
+    void prev(int node, int value) {
+        chunk(node).putInt(offset(node, PREV), value);
+    }
+
+    @Override
+    int next(int node) {
+        return chunk(node).getInt(offset(node, NEXT));
+    }
+
+    @Override
+    void next(int node, int value) {
+        chunk(node).putInt(offset(node, NEXT), value);
+    }
+
+    /**
+     * Resting orders sit in the level at their own side and price
+     */
+    @Override
+    BookLevel level(int node) {
+        return levels.findLevel(side(node), price(node));
+    }
+
+    @Override
+    void level(int node, BookLevel value) {
+        // Implied by side and price
+    }
+}
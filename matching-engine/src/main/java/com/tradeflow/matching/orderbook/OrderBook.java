@@ -1,385 +1,297 @@
 package com.tradeflow.matching.orderbook;
 
 import com.tradeflow.common.enums.OrderSide;
-import com.tradeflow.common.enums.OrderType;
-import lombok.Getter;
-import lombok.extern.slf4j.Slf4j;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.ByteBuffer;
 import java.time.Instant;
-import java.util.*;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * In-memory Order Book for a single trading symbol.
  * Implements price-time priority matching (FIFO at each price level).
- * 
- * Thread-safe using ConcurrentSkipListMap for price levels.
- * Uses Platform Threads for CPU-bound matching (not Virtual Threads).
+ * Prices and quantities are fixed-point longs ({@link FixedPoint}).
+ *
+ * Implementations differ only in how price levels are stored:
+ * {@link SkipListOrderBook} (sorted map) and {@link TickLadderOrderBook}
+ * (tick-indexed circular array).
  */
-@Slf4j
-public class OrderBook {
+public interface OrderBook {
 
-    @Getter
-    private final String symbol;
+    /**
+     * Returned by best bid/ask and spread when a side is empty
+     */
+    long NO_PRICE = 0L;
 
-    // Bids: highest price first (descending)
-    private final ConcurrentSkipListMap<BigDecimal, LinkedList<BookOrder>> bids = new ConcurrentSkipListMap<>(
-            Comparator.reverseOrder());
+    String getSymbol();
 
-    // Asks: lowest price first (ascending)
-    private final ConcurrentSkipListMap<BigDecimal, LinkedList<BookOrder>> asks = new ConcurrentSkipListMap<>();
+    /**
+     * Add an order to the book and attempt matching.
+     * Returns match result with any trades executed.
+     *
+     * @throws IllegalArgumentException if an order with the same id is
+     *         resting or parked; the book is left unchanged
+     */
+    MatchResult addOrder(BookOrder incomingOrder);
 
-    // Sequence number for FIFO ordering
-    private final AtomicLong sequenceGenerator = new AtomicLong(0);
+    /**
+     * Whether an order id was already seen: resting, parked as a stop, or
+     * among the last ids this book accepted (see {@link #setDuplicateWindow})
+     */
+    boolean isKnownOrder(UUID orderId);
 
-    private static final int SCALE = 8;
+    /**
+     * Cancel an order from the book, or a stop order still waiting for its trigger
+     */
+    boolean cancelOrder(UUID orderId, OrderSide side);
 
-    public OrderBook(String symbol) {
-        this.symbol = symbol;
-        log.info("OrderBook created for symbol: {}", symbol);
-    }
+    /**
+     * Next stop order triggered by this book's trades, already turned into
+     * the market or limit order it becomes, or null if none is waiting.
+     * Stops are parked by {@link #addOrder} until a trade reaches their stop
+     * price (or matched at once if the last trade already has); the caller
+     * matches each triggered one with {@link #addOrder} before any other
+     * order, which may trigger more.
+     */
+    BookOrder pollTriggered();
 
     /**
-     * Add an order to the book and attempt matching.
-     * Returns match result with any trades executed.
+     * Number of stop orders waiting for their trigger price
      */
-    public synchronized MatchResult addOrder(BookOrder incomingOrder) {
-        log.debug("Adding order to book: {} {} {} @ {}",
-                incomingOrder.getSide(), incomingOrder.getOriginalQuantity(),
-                symbol, incomingOrder.getPrice());
+    int getStopOrderCount();
 
-        // Assign sequence number for FIFO ordering
-        BookOrder order = incomingOrder.toBuilder()
-                .sequenceNumber(sequenceGenerator.incrementAndGet())
-                .build();
+    /**
+     * Quantity a taker on {@code takerSide} could fill right now at prices
+     * no worse than {@code limitPrice} ({@link #NO_PRICE} for no limit).
+     * O(log levels).
+     */
+    long availableQuantity(OrderSide takerSide, long limitPrice);
 
-        // For market orders, match immediately
-        if (order.getType() == OrderType.MARKET) {
-            return matchMarketOrder(order);
-        }
+    /**
+     * Quote notional a taker on {@code takerSide} would pay (buy) or receive
+     * (sell) to fill {@code quantity} against the book right now, best price
+     * first. O(log levels); the estimate's quantity falls short when the
+     * book is too thin.
+     */
+    FillEstimate estimateFill(OrderSide takerSide, long quantity);
 
-        // For limit orders, attempt matching then add remaining to book
-        return matchLimitOrder(order);
-    }
+    /**
+     * Quantity a taker on {@code takerSide} could fill right now for at most
+     * {@code notional} of quote, best price first. O(log levels).
+     */
+    FillEstimate estimateFillForNotional(OrderSide takerSide, long notional);
 
     /**
-     * Match a market order against the book (aggressive matching)
-     */
-    private MatchResult matchMarketOrder(BookOrder order) {
-        List<Trade> trades = new ArrayList<>();
-        BigDecimal remainingQty = order.getRemainingQuantity();
-        BigDecimal totalFilled = BigDecimal.ZERO;
-        BigDecimal totalValue = BigDecimal.ZERO;
-
-        // Get opposite side book
-        ConcurrentSkipListMap<BigDecimal, LinkedList<BookOrder>> oppositeBook = order.getSide() == OrderSide.BUY ? asks
-                : bids;
-
-        Iterator<Map.Entry<BigDecimal, LinkedList<BookOrder>>> priceIterator = oppositeBook.entrySet().iterator();
-
-        while (priceIterator.hasNext() && remainingQty.compareTo(BigDecimal.ZERO) > 0) {
-            Map.Entry<BigDecimal, LinkedList<BookOrder>> priceLevel = priceIterator.next();
-            BigDecimal price = priceLevel.getKey();
-            LinkedList<BookOrder> ordersAtPrice = priceLevel.getValue();
-
-            Iterator<BookOrder> orderIterator = ordersAtPrice.iterator();
-            while (orderIterator.hasNext() && remainingQty.compareTo(BigDecimal.ZERO) > 0) {
-                BookOrder makerOrder = orderIterator.next();
-
-                // Calculate fill quantity
-                BigDecimal fillQty = remainingQty.min(makerOrder.getRemainingQuantity());
-
-                // Create trade
-                Trade trade = createTrade(order, makerOrder, price, fillQty);
-                trades.add(trade);
-
-                // Update quantities
-                remainingQty = remainingQty.subtract(fillQty);
-                totalFilled = totalFilled.add(fillQty);
-                totalValue = totalValue.add(price.multiply(fillQty));
-
-                // Remove or update maker order
-                if (makerOrder.getRemainingQuantity().subtract(fillQty).compareTo(BigDecimal.ZERO) <= 0) {
-                    orderIterator.remove();
-                } else {
-                    // Update maker order in place
-                    BookOrder updatedMaker = makerOrder.withReducedQuantity(fillQty);
-                    orderIterator.remove();
-                    ordersAtPrice.addFirst(updatedMaker); // Re-add at front
-                    break; // Move to result as maker has remaining
-                }
-            }
-
-            // Remove empty price level
-            if (ordersAtPrice.isEmpty()) {
-                priceIterator.remove();
-            }
-        }
+     * Cumulative depth of both sides as of now, safe to read from any
+     * thread. Copies a side only if it changed since the last call.
+     */
+    BookDepth getDepth();
 
-        // Calculate average price
-        BigDecimal avgPrice = totalFilled.compareTo(BigDecimal.ZERO) > 0
-                ? totalValue.divide(totalFilled, SCALE, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
-
-        return MatchResult.builder()
-                .remainingOrder(order.toBuilder().remainingQuantity(remainingQty).build())
-                .trades(trades)
-                .fullyFilled(remainingQty.compareTo(BigDecimal.ZERO) <= 0)
-                .filledQuantity(totalFilled)
-                .avgPrice(avgPrice)
-                .build();
-    }
+    /**
+     * Get best bid price ({@link #NO_PRICE} if no bids)
+     */
+    long getBestBid();
 
     /**
-     * Match a limit order and add remainder to book
-     */
-    private MatchResult matchLimitOrder(BookOrder order) {
-        List<Trade> trades = new ArrayList<>();
-        BigDecimal remainingQty = order.getRemainingQuantity();
-        BigDecimal totalFilled = BigDecimal.ZERO;
-        BigDecimal totalValue = BigDecimal.ZERO;
-
-        // Get opposite side book
-        ConcurrentSkipListMap<BigDecimal, LinkedList<BookOrder>> oppositeBook = order.getSide() == OrderSide.BUY ? asks
-                : bids;
-
-        Iterator<Map.Entry<BigDecimal, LinkedList<BookOrder>>> priceIterator = oppositeBook.entrySet().iterator();
-
-        while (priceIterator.hasNext() && remainingQty.compareTo(BigDecimal.ZERO) > 0) {
-            Map.Entry<BigDecimal, LinkedList<BookOrder>> priceLevel = priceIterator.next();
-            BigDecimal price = priceLevel.getKey();
-
-            // Check price compatibility
-            boolean priceCompatible = order.getSide() == OrderSide.BUY
-                    ? order.getPrice().compareTo(price) >= 0 // Buy: willing to pay >= ask
-                    : order.getPrice().compareTo(price) <= 0; // Sell: willing to accept <= bid
-
-            if (!priceCompatible) {
-                break; // No more matches possible
-            }
-
-            LinkedList<BookOrder> ordersAtPrice = priceLevel.getValue();
-            Iterator<BookOrder> orderIterator = ordersAtPrice.iterator();
-
-            while (orderIterator.hasNext() && remainingQty.compareTo(BigDecimal.ZERO) > 0) {
-                BookOrder makerOrder = orderIterator.next();
-
-                // Calculate fill quantity
-                BigDecimal fillQty = remainingQty.min(makerOrder.getRemainingQuantity());
-
-                // Create trade (at maker's price)
-                Trade trade = createTrade(order, makerOrder, price, fillQty);
-                trades.add(trade);
-
-                // Update quantities
-                remainingQty = remainingQty.subtract(fillQty);
-                totalFilled = totalFilled.add(fillQty);
-                totalValue = totalValue.add(price.multiply(fillQty));
-
-                // Remove or update maker order
-                BigDecimal makerRemaining = makerOrder.getRemainingQuantity().subtract(fillQty);
-                if (makerRemaining.compareTo(BigDecimal.ZERO) <= 0) {
-                    orderIterator.remove();
-                } else {
-                    // Update maker order in place
-                    BookOrder updatedMaker = makerOrder.withReducedQuantity(fillQty);
-                    orderIterator.remove();
-                    ordersAtPrice.addFirst(updatedMaker);
-                    break;
-                }
-            }
-
-            // Remove empty price level
-            if (ordersAtPrice.isEmpty()) {
-                priceIterator.remove();
-            }
-        }
+     * Get best ask price ({@link #NO_PRICE} if no asks)
+     */
+    long getBestAsk();
 
-        // Add remaining quantity to book
-        if (remainingQty.compareTo(BigDecimal.ZERO) > 0) {
-            BookOrder remainingOrder = order.toBuilder()
-                    .remainingQuantity(remainingQty)
-                    .build();
-            addToBook(remainingOrder);
-        }
+    /**
+     * Total quantity resting at the best bid (0 if no bids)
+     */
+    long getBestBidQuantity();
+
+    /**
+     * Total quantity resting at the best ask (0 if no asks)
+     */
+    long getBestAskQuantity();
+
+    /**
+     * Get spread (best ask - best bid), {@link #NO_PRICE} if either side is empty
+     */
+    default long getSpread() {
+        long bestBid = getBestBid();
+        long bestAsk = getBestAsk();
 
-        // Calculate average price
-        BigDecimal avgPrice = totalFilled.compareTo(BigDecimal.ZERO) > 0
-                ? totalValue.divide(totalFilled, SCALE, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
-
-        return MatchResult.builder()
-                .remainingOrder(order.toBuilder().remainingQuantity(remainingQty).build())
-                .trades(trades)
-                .fullyFilled(remainingQty.compareTo(BigDecimal.ZERO) <= 0)
-                .filledQuantity(totalFilled)
-                .avgPrice(avgPrice)
-                .build();
+        if (bestBid != NO_PRICE && bestAsk != NO_PRICE) {
+            return bestAsk - bestBid;
+        }
+        return NO_PRICE;
     }
 
     /**
-     * Add order to the appropriate side of the book
+     * Get book depth (number of price levels)
      */
-    private void addToBook(BookOrder order) {
-        ConcurrentSkipListMap<BigDecimal, LinkedList<BookOrder>> book = order.getSide() == OrderSide.BUY ? bids : asks;
+    int getBidDepth();
 
-        book.computeIfAbsent(order.getPrice(), k -> new LinkedList<>()).addLast(order);
+    int getAskDepth();
 
-        log.debug("Added to book: {} {} @ {} (remaining: {})",
-                order.getSide(), symbol, order.getPrice(), order.getRemainingQuantity());
-    }
+    /**
+     * Get snapshot of top N price levels for each side
+     */
+    OrderBookSnapshot getSnapshot(int depth);
 
     /**
-     * Cancel an order from the book
+     * Cancel or replace a resting order in one book update.
+     * {@code newQuantity} is the new total order quantity, filled part
+     * included; when nothing would be left the order is cancelled.
+     * {@code newPrice} of {@link #NO_PRICE} keeps the current price.
+     * Reducing quantity at the same price keeps time priority; a price
+     * change or a quantity increase re-queues the order, which matches
+     * first if the new price crosses.
      */
-    public synchronized boolean cancelOrder(UUID orderId, OrderSide side) {
-        ConcurrentSkipListMap<BigDecimal, LinkedList<BookOrder>> book = side == OrderSide.BUY ? bids : asks;
+    CancelReplaceResult cancelReplace(UUID orderId, OrderSide side, long newPrice, long newQuantity);
 
-        for (Map.Entry<BigDecimal, LinkedList<BookOrder>> entry : book.entrySet()) {
-            LinkedList<BookOrder> orders = entry.getValue();
-            Iterator<BookOrder> iterator = orders.iterator();
+    /**
+     * Id of the latest book update. Every add or cancel that changes at least
+     * one level advances it by one.
+     */
+    long getUpdateId();
 
-            while (iterator.hasNext()) {
-                BookOrder order = iterator.next();
-                if (order.getOrderId().equals(orderId)) {
-                    iterator.remove();
+    /**
+     * Levels changed since the previous call, with their current size
+     * (0 when the level is gone), or null if nothing changed
+     */
+    BookDelta drainChanges();
 
-                    // Clean up empty price level
-                    if (orders.isEmpty()) {
-                        book.remove(entry.getKey());
-                    }
+    /**
+     * Start or stop recording market-by-order (L3) events; off by default,
+     * in which case nothing is recorded
+     */
+    void setOrderEventsEnabled(boolean enabled);
 
-                    log.info("Cancelled order {} from book", orderId);
-                    return true;
-                }
-            }
-        }
+    /**
+     * Remember the ids of the last {@code orderIds} accepted orders, so
+     * {@link #isKnownOrder} still knows them after they leave the book;
+     * 0 (the default) only knows the orders still in it. The ids are part
+     * of the book's state. Set before {@link #readState}.
+     */
+    void setDuplicateWindow(int orderIds);
 
-        log.warn("Order {} not found in book for cancellation", orderId);
-        return false;
-    }
+    /**
+     * Market-by-order events recorded since the previous call, oldest first
+     * (empty if none). Sequences are per book and increase by one per event.
+     */
+    List<OrderEvent> drainOrderEvents();
 
     /**
-     * Create a trade record
+     * Bytes {@link #writeState} will produce for the current book
      */
-    private Trade createTrade(BookOrder taker, BookOrder maker, BigDecimal price, BigDecimal quantity) {
-        UUID buyOrderId, buyUserId, sellOrderId, sellUserId;
+    int stateSize();
 
-        if (taker.getSide() == OrderSide.BUY) {
-            buyOrderId = taker.getOrderId();
-            buyUserId = taker.getUserId();
-            sellOrderId = maker.getOrderId();
-            sellUserId = maker.getUserId();
-        } else {
-            buyOrderId = maker.getOrderId();
-            buyUserId = maker.getUserId();
-            sellOrderId = taker.getOrderId();
-            sellUserId = taker.getUserId();
-        }
+    /**
+     * Serialize resting orders (in priority order) and the sequence counter
+     */
+    void writeState(ByteBuffer out);
 
-        return Trade.builder()
-                .tradeId(UUID.randomUUID())
-                .symbol(symbol)
-                .makerOrderId(maker.getOrderId())
-                .makerUserId(maker.getUserId())
-                .takerOrderId(taker.getOrderId())
-                .takerUserId(taker.getUserId())
-                .buyOrderId(buyOrderId)
-                .buyUserId(buyUserId)
-                .sellOrderId(sellOrderId)
-                .sellUserId(sellUserId)
-                .price(price)
-                .quantity(quantity)
-                .timestamp(Instant.now())
-                .build();
-    }
+    /**
+     * Restore state written by {@link #writeState} into an empty book
+     */
+    void readState(ByteBuffer in);
 
     /**
-     * Get best bid price
+     * Price level summary (fixed-point price and quantity)
      */
-    public BigDecimal getBestBid() {
-        Map.Entry<BigDecimal, LinkedList<BookOrder>> entry = bids.firstEntry();
-        return entry != null ? entry.getKey() : null;
+    record PriceLevel(long price, long quantity, int orderCount) {
     }
 
     /**
-     * Get best ask price
+     * Order book snapshot, as of update id {@code updateId}
      */
-    public BigDecimal getBestAsk() {
-        Map.Entry<BigDecimal, LinkedList<BookOrder>> entry = asks.firstEntry();
-        return entry != null ? entry.getKey() : null;
+    record OrderBookSnapshot(
+            String symbol,
+            long updateId,
+            List<PriceLevel> bids,
+            List<PriceLevel> asks,
+            Instant timestamp) {
     }
 
     /**
-     * Get spread (best ask - best bid)
+     * Fill priced against the resting book without touching it: filled
+     * quantity, its quote notional and the last (worst) price reached
+     * ({@link #NO_PRICE} if nothing fills). {@code exhausted} when the side
+     * ran out before the requested quantity or budget was used up.
      */
-    public BigDecimal getSpread() {
-        BigDecimal bestBid = getBestBid();
-        BigDecimal bestAsk = getBestAsk();
-
-        if (bestBid != null && bestAsk != null) {
-            return bestAsk.subtract(bestBid);
-        }
-        return null;
+    record FillEstimate(long quantity, long notional, long worstPrice, boolean exhausted) {
     }
 
     /**
-     * Get book depth (number of price levels)
+     * New state of one changed level ({@code quantity} 0 = removed)
      */
-    public int getBidDepth() {
-        return bids.size();
+    record LevelChange(OrderSide side, long price, long quantity, int orderCount) {
     }
 
-    public int getAskDepth() {
-        return asks.size();
+    enum CancelReplaceStatus {
+        /** Nothing left to work; the order is gone */
+        CANCELLED,
+        /** Quantity reduced in place, time priority kept */
+        REDUCED,
+        /** Re-entered with a new price or larger quantity, time priority lost */
+        REPLACED,
+        /** Same price and quantity, nothing to do */
+        UNCHANGED,
+        /** Not resting in the book (filled, cancelled or unknown) */
+        NOT_FOUND
     }
 
     /**
-     * Get snapshot of top N price levels for each side
+     * Outcome of {@link #cancelReplace}: the order's price and unfilled
+     * quantity before and after. {@code remainingQuantity} is what was
+     * re-entered, before any immediate match, which {@code match} holds
+     * for REPLACED orders.
      */
-    public OrderBookSnapshot getSnapshot(int depth) {
-        List<PriceLevel> bidLevels = new ArrayList<>();
-        List<PriceLevel> askLevels = new ArrayList<>();
-
-        int count = 0;
-        for (Map.Entry<BigDecimal, LinkedList<BookOrder>> entry : bids.entrySet()) {
-            if (count++ >= depth)
-                break;
-            BigDecimal totalQty = entry.getValue().stream()
-                    .map(BookOrder::getRemainingQuantity)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            bidLevels.add(new PriceLevel(entry.getKey(), totalQty, entry.getValue().size()));
-        }
-
-        count = 0;
-        for (Map.Entry<BigDecimal, LinkedList<BookOrder>> entry : asks.entrySet()) {
-            if (count++ >= depth)
-                break;
-            BigDecimal totalQty = entry.getValue().stream()
-                    .map(BookOrder::getRemainingQuantity)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            askLevels.add(new PriceLevel(entry.getKey(), totalQty, entry.getValue().size()));
+    record CancelReplaceResult(
+            CancelReplaceStatus status,
+            long previousPrice,
+            long previousRemainingQuantity,
+            long price,
+            long remainingQuantity,
+            MatchResult match) {
+
+        public static CancelReplaceResult notFound() {
+            return new CancelReplaceResult(CancelReplaceStatus.NOT_FOUND, NO_PRICE, 0, NO_PRICE, 0, null);
         }
+    }
 
-        return new OrderBookSnapshot(symbol, bidLevels, askLevels, Instant.now());
+    /**
+     * What happened to a resting order in a market-by-order event
+     */
+    enum OrderAction {
+        /** Order joined the back of its level's queue */
+        ADD,
+        /** Quantity reduced in place, keeping queue position */
+        REDUCE,
+        /** Filled against an incoming order, at its resting price */
+        EXECUTE,
+        /** Removed without a fill (cancelled) */
+        DELETE
     }
 
     /**
-     * Price level summary
+     * One resting-order change. {@code handle} anonymizes the order (its
+     * per-book FIFO sequence, also its queue priority); {@code quantity} is
+     * the amount added, reduced, executed or deleted. An execution leaving
+     * no remaining quantity removes the order.
      */
-    public record PriceLevel(BigDecimal price, BigDecimal quantity, int orderCount) {
+    record OrderEvent(
+            long sequence,
+            OrderAction action,
+            long handle,
+            OrderSide side,
+            long price,
+            long quantity,
+            long remainingQuantity) {
     }
 
     /**
-     * Order book snapshot
+     * Level changes covering updates {@code firstUpdateId..updateId}
      */
-    public record OrderBookSnapshot(
+    record BookDelta(
             String symbol,
-            List<PriceLevel> bids,
-            List<PriceLevel> asks,
+            long firstUpdateId,
+            long updateId,
+            List<LevelChange> changes,
             Instant timestamp) {
     }
 }
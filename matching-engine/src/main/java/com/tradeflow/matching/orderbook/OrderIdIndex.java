@@ -0,0 +1,134 @@
+package com.tradeflow.matching.orderbook;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Open-addressing hash map from a 128-bit order id to a node handle.
+ *
+ * Keys are stored as two primitive longs and removal uses backward-shift
+ * deletion (no tombstones), so puts and removes allocate nothing once the
+ * table is large enough for the book.
+ */
+final class OrderIdIndex {
+
+    private static final int EMPTY = OrderNodePool.NIL;
+
+    private long[] keyHi;
+    private long[] keyLo;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    OrderIdIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keyHi = new long[capacity];
+        keyLo = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private static int hash(long hi, long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Handle for an order id, or {@link OrderNodePool#NIL} if absent
+     */
+    int get(long hi, long lo) {
+        int slot = hash(hi, lo) & mask;
+        while (values[slot] != EMPTY) {
+            if (keyHi[slot] == hi && keyLo[slot] == lo) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Insert the handle for an order id
+     *
+     * @throws IllegalStateException if the id is already present; two live
+     *         orders sharing an id would make one of them unreachable
+     */
+    void put(long hi, long lo, int node) {
+        if ((size + 1) * 2 > values.length) {
+            rehash(values.length * 2);
+        }
+        int slot = hash(hi, lo) & mask;
+        while (values[slot] != EMPTY) {
+            if (keyHi[slot] == hi && keyLo[slot] == lo) {
+                throw new IllegalStateException("Duplicate order id " + new UUID(hi, lo));
+            }
+            slot = (slot + 1) & mask;
+        }
+        keyHi[slot] = hi;
+        keyLo[slot] = lo;
+        values[slot] = node;
+        size++;
+    }
+
+    /**
+     * Remove an order id, returning its handle or {@link OrderNodePool#NIL}
+     */
+    int remove(long hi, long lo) {
+        int slot = hash(hi, lo) & mask;
+        while (values[slot] != EMPTY) {
+            if (keyHi[slot] == hi && keyLo[slot] == lo) {
+                int node = values[slot];
+                shiftBack(slot);
+                size--;
+                return node;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Close the gap left at {@code gap} by moving later entries of the
+     * probe chain back, so lookups never need tombstones.
+     */
+    private void shiftBack(int gap) {
+        int slot = (gap + 1) & mask;
+        while (values[slot] != EMPTY) {
+            int home = hash(keyHi[slot], keyLo[slot]) & mask;
+            // Move the entry if its home is not cyclically within (gap, slot]
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keyHi[gap] = keyHi[slot];
+                keyLo[gap] = keyLo[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        values[gap] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldHi = keyHi;
+        long[] oldLo = keyLo;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != EMPTY) {
+                put(oldHi[i], oldLo[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+
+import java.util.UUID;
+
+/**
+ * Pool of mutable resting-order nodes addressed by {@code int} handles.
+ *
+ * Nodes carry intrusive prev/next links for their price level queue, so
+ * fills and cancels update or unlink a node in place. Released handles go
+ * on a free list and are reused, so once the pool has grown to the book's
+ * working size, resting orders cost no allocation.
+ *
+ * Subclasses decide where the fields live: {@link HeapOrderNodePool} in
+ * parallel primitive arrays, {@link OffHeapOrderNodePool} in fixed-width
+ * slots outside the Java heap.
+ */
+abstract class OrderNodePool {
+
+    static final int NIL = -1;
+
+    static final OrderSide[] SIDES = OrderSide.values();
+
+    private int freeHead = NIL;
+    private int highWater;
+    private int size;
+
+    /**
+     * Take a node from the pool and fill it from an incoming order
+     */
+    final int acquire(BookOrder order, long remaining, long sequence) {
+        UUID orderId = order.getOrderId();
+        UUID userId = order.getUserId();
+        return acquire(
+                orderId.getMostSignificantBits(), orderId.getLeastSignificantBits(),
+                userId != null ? userId.getMostSignificantBits() : 0L,
+                userId != null ? userId.getLeastSignificantBits() : 0L,
+                order.getSide(), order.getPrice(), order.getOriginalQuantity(), remaining,
+                order.getTimestamp() != null
+                        ? order.getTimestamp().getEpochSecond() * 1_000_000_000L + order.getTimestamp().getNano()
+                        : 0L,
+                sequence);
+    }
+
+    /**
+     * Take a node from the pool and fill it field by field
+     */
+    final int acquire(long orderIdHi, long orderIdLo, long userIdHi, long userIdLo, OrderSide orderSide,
+            long orderPrice, long original, long remaining, long timestamp, long sequence) {
+        int node;
+        if (freeHead != NIL) {
+            node = freeHead;
+            freeHead = next(node);
+        } else {
+            ensureCapacity(highWater + 1);
+            node = highWater++;
+        }
+        fill(node, orderIdHi, orderIdLo, userIdHi, userIdLo, orderSide,
+                orderPrice, original, remaining, timestamp, sequence);
+        size++;
+        return node;
+    }
+
+    /**
+     * Return a node to the free list
+     */
+    final void release(int node) {
+        level(node, null);
+        prev(node, NIL);
+        next(node, freeHead);
+        freeHead = node;
+        size--;
+    }
+
+    final int size() {
+        return size;
+    }
+
+    /**
+     * Make room for handles up to {@code nodes - 1}
+     */
+    abstract void ensureCapacity(int nodes);
+
+    /**
+     * Write every field of a fresh node, unlinked and without a level
+     */
+    abstract void fill(int node, long orderIdHi, long orderIdLo, long userIdHi, long userIdLo,
+            OrderSide orderSide, long orderPrice, long original, long remaining, long timestamp, long sequence);
+
+    // ============================================
+    // Field access
+    // ============================================
+
+    abstract long orderIdHi(int node);
+
+    abstract long orderIdLo(int node);
+
+    abstract long userIdHi(int node);
+
+    abstract long userIdLo(int node);
+
+    final UUID orderId(int node) {
+        return new UUID(orderIdHi(node), orderIdLo(node));
+    }
+
+    final UUID userId(int node) {
+        return new UUID(userIdHi(node), userIdLo(node));
+    }
+
+    abstract long price(int node);
+
+    abstract long originalQuantity(int node);
+
+    abstract void originalQuantity(int node, long quantity);
+
+    abstract long remainingQuantity(int node);
+
+    abstract void remainingQuantity(int node, long quantity);
+
+    abstract long timestampNanos(int node);
+
+    abstract long sequenceNumber(int node);
+
+    abstract OrderSide side(int node);
+
+    abstract int prev(int node);
+
+    abstract void prev(int node, int value);
+
+    abstract int next(int node);
+
+    abstract void next(int node, int value);
+
+    /**
+     * Level the node is queued in
+     */
+    abstract BookLevel level(int node);
+
+    abstract void level(int node, BookLevel value);
+}
@@ -0,0 +1,91 @@
+package com.tradeflow.matching.orderbook;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The last {@code capacity} order ids a book accepted, oldest dropped
+ * first, so an order delivered again after it filled or was cancelled can
+ * still be recognised.
+ *
+ * Ids sit in a ring of primitive longs with an {@link OrderIdIndex} over
+ * it, so adding and looking up allocate nothing.
+ */
+final class RecentOrderIds {
+
+    private final long[] idHi;
+    private final long[] idLo;
+    private final OrderIdIndex index;
+    // Slot of the oldest id and number of ids held
+    private int head;
+    private int size;
+
+    RecentOrderIds(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.idHi = new long[capacity];
+        this.idLo = new long[capacity];
+        this.index = new OrderIdIndex(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(long hi, long lo) {
+        return index.get(hi, lo) != OrderNodePool.NIL;
+    }
+
+    /**
+     * Remember an id, forgetting the oldest if full; an id already held
+     * (a stop re-entering as it triggers, a replaced order) keeps its place
+     */
+    void add(long hi, long lo) {
+        if (contains(hi, lo)) {
+            return;
+        }
+        int slot;
+        if (size == idHi.length) {
+            slot = head;
+            index.remove(idHi[slot], idLo[slot]);
+            head = (head + 1) % idHi.length;
+        } else {
+            slot = (head + size) % idHi.length;
+            size++;
+        }
+        idHi[slot] = hi;
+        idLo[slot] = lo;
+        index.put(hi, lo, slot);
+    }
+
+    int stateSize() {
+        return 4 + size * 16;
+    }
+
+    /**
+     * Serialize the ids, oldest first
+     */
+    void writeState(ByteBuffer out) {
+        out.putInt(size);
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % idHi.length;
+            out.putLong(idHi[slot]);
+            out.putLong(idLo[slot]);
+        }
+    }
+
+    /**
+     * Restore ids written by {@link #writeState}; if this ring is smaller,
+     * only the newest are kept
+     */
+    static void readState(ByteBuffer in, RecentOrderIds into) {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            long hi = in.getLong();
+            long lo = in.getLong();
+            if (into != null) {
+                into.add(hi, lo);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/**
+ * Order book storing price levels in sorted skip lists.
+ * Works for any price distribution; every level insert/remove is O(log n).
+ */
+public class SkipListOrderBook extends AbstractOrderBook {
+
+    // Bids: highest price first (descending)
+    private final ConcurrentSkipListMap<Long, BookLevel> bids = new ConcurrentSkipListMap<>(
+            Comparator.reverseOrder());
+
+    // Asks: lowest price first (ascending)
+    private final ConcurrentSkipListMap<Long, BookLevel> asks = new ConcurrentSkipListMap<>();
+
+    public SkipListOrderBook(String symbol) {
+        this(symbol, false);
+    }
+
+    /**
+     * @param offHeap keep resting orders in direct memory
+     */
+    public SkipListOrderBook(String symbol, boolean offHeap) {
+        super(symbol, offHeap);
+    }
+
+    private ConcurrentSkipListMap<Long, BookLevel> side(OrderSide side) {
+        return side == OrderSide.BUY ? bids : asks;
+    }
+
+    @Override
+    BookLevel bestLevel(OrderSide side) {
+        Map.Entry<Long, BookLevel> entry = side(side).firstEntry();
+        return entry != null ? entry.getValue() : null;
+    }
+
+    @Override
+    BookLevel findLevel(OrderSide side, long price) {
+        return side(side).get(price);
+    }
+
+    @Override
+    BookLevel getOrCreateLevel(OrderSide side, long price) {
+        return side(side).computeIfAbsent(price, this::newLevel);
+    }
+
+    @Override
+    void removeLevel(OrderSide side, BookLevel level) {
+        side(side).remove(level.price, level);
+    }
+
+    @Override
+    void forEachLevel(OrderSide side, Predicate<BookLevel> visitor) {
+        for (BookLevel level : side(side).values()) {
+            if (!visitor.test(level)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    int levelCount(OrderSide side) {
+        return side(side).size();
+    }
+}
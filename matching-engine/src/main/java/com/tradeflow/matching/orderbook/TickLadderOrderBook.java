@@ -0,0 +1,285 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Order book storing price levels in a circular array indexed by price tick.
+ *
+ * Each side keeps a window of {@code capacity} consecutive ticks anchored near
+ * the touch, so inserting, removing and finding the best level are array
+ * operations. Prices outside the window (or off the tick grid) fall back to a
+ * sparse sorted map. The window re-anchors on the touch when a new best level
+ * lands outside it or when it runs empty.
+ */
+public class TickLadderOrderBook extends AbstractOrderBook {
+
+    private final long tickSize;
+    private final int capacity;
+
+    private final Ladder bids;
+    private final Ladder asks;
+
+    public TickLadderOrderBook(String symbol, long tickSize, int capacity) {
+        this(symbol, tickSize, capacity, false);
+    }
+
+    /**
+     * @param tickSize fixed-point price increment of one ladder slot
+     * @param capacity number of ticks in the window, power of two
+     * @param offHeap  keep resting orders in direct memory
+     */
+    public TickLadderOrderBook(String symbol, long tickSize, int capacity, boolean offHeap) {
+        super(symbol, offHeap);
+        if (tickSize <= 0) {
+            throw new IllegalArgumentException("tickSize must be positive: " + tickSize);
+        }
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.tickSize = tickSize;
+        this.capacity = capacity;
+        this.bids = new Ladder(true);
+        this.asks = new Ladder(false);
+    }
+
+    private Ladder side(OrderSide side) {
+        return side == OrderSide.BUY ? bids : asks;
+    }
+
+    @Override
+    BookLevel bestLevel(OrderSide side) {
+        return side(side).best;
+    }
+
+    @Override
+    BookLevel findLevel(OrderSide side, long price) {
+        return side(side).find(price);
+    }
+
+    @Override
+    BookLevel getOrCreateLevel(OrderSide side, long price) {
+        return side(side).getOrCreate(price);
+    }
+
+    @Override
+    void removeLevel(OrderSide side, BookLevel level) {
+        side(side).remove(level);
+    }
+
+    @Override
+    void forEachLevel(OrderSide side, Predicate<BookLevel> visitor) {
+        side(side).forEach(visitor);
+    }
+
+    @Override
+    int levelCount(OrderSide side) {
+        Ladder ladder = side(side);
+        return ladder.windowCount + ladder.sparse.size();
+    }
+
+    /**
+     * One side of the book
+     */
+    private final class Ladder {
+
+        // Bids rank higher prices first, asks lower prices first
+        private final boolean descending;
+
+        private final BookLevel[] slots = new BookLevel[capacity];
+        private final int mask = capacity - 1;
+
+        // Levels outside the window or off the tick grid, ascending by price
+        private final TreeMap<Long, BookLevel> sparse = new TreeMap<>();
+
+        private long baseTick;
+        private int windowCount;
+        private long windowBestTick;
+
+        private BookLevel best;
+
+        Ladder(boolean descending) {
+            this.descending = descending;
+        }
+
+        private boolean better(long a, long b) {
+            return descending ? a > b : a < b;
+        }
+
+        private boolean onGrid(long price) {
+            return price >= 0 && price % tickSize == 0;
+        }
+
+        private boolean inWindow(long tick) {
+            return tick >= baseTick && tick < baseTick + capacity;
+        }
+
+        private BookLevel slot(long tick) {
+            return slots[(int) (tick & mask)];
+        }
+
+        BookLevel find(long price) {
+            if (onGrid(price)) {
+                long tick = price / tickSize;
+                if (inWindow(tick)) {
+                    return slot(tick);
+                }
+            }
+            return sparse.get(price);
+        }
+
+        BookLevel getOrCreate(long price) {
+            BookLevel level;
+            if (onGrid(price)) {
+                long tick = price / tickSize;
+                if (!inWindow(tick) && (windowCount == 0 || best == null || better(price, best.price))) {
+                    // Touch moved away from the window: follow it
+                    recenter(tick);
+                }
+                if (inWindow(tick)) {
+                    level = slot(tick);
+                    if (level == null) {
+                        level = newLevel(price);
+                        slots[(int) (tick & mask)] = level;
+                        if (windowCount == 0 || better(tick, windowBestTick)) {
+                            windowBestTick = tick;
+                        }
+                        windowCount++;
+                    }
+                } else {
+                    level = sparse.computeIfAbsent(price, TickLadderOrderBook.this::newLevel);
+                }
+            } else {
+                level = sparse.computeIfAbsent(price, TickLadderOrderBook.this::newLevel);
+            }
+
+            if (best == null || better(level.price, best.price)) {
+                best = level;
+            }
+            return level;
+        }
+
+        void remove(BookLevel level) {
+            long price = level.price;
+            long tick = price / tickSize;
+            if (onGrid(price) && inWindow(tick) && slot(tick) == level) {
+                slots[(int) (tick & mask)] = null;
+                windowCount--;
+                if (windowCount > 0 && tick == windowBestTick) {
+                    // Scan towards worse prices for the next occupied slot
+                    long step = descending ? -1 : 1;
+                    long t = tick + step;
+                    while (slot(t) == null) {
+                        t += step;
+                    }
+                    windowBestTick = t;
+                }
+            } else {
+                sparse.remove(price, level);
+            }
+
+            if (windowCount == 0 && !sparse.isEmpty()) {
+                BookLevel sparseBest = sparseBest();
+                if (onGrid(sparseBest.price)) {
+                    recenter(sparseBest.price / tickSize);
+                }
+            }
+
+            if (level == best) {
+                best = computeBest();
+            }
+        }
+
+        private BookLevel sparseBest() {
+            Map.Entry<Long, BookLevel> entry = descending ? sparse.lastEntry() : sparse.firstEntry();
+            return entry != null ? entry.getValue() : null;
+        }
+
+        private BookLevel computeBest() {
+            BookLevel windowBest = windowCount > 0 ? slot(windowBestTick) : null;
+            BookLevel sparseBest = sparseBest();
+            if (windowBest == null) {
+                return sparseBest;
+            }
+            if (sparseBest == null) {
+                return windowBest;
+            }
+            return better(sparseBest.price, windowBest.price) ? sparseBest : windowBest;
+        }
+
+        /**
+         * Move the window so that {@code tick} sits a quarter of the way in from
+         * the side that prices improve towards, then pull in any sparse levels
+         * that now fall inside it.
+         */
+        private void recenter(long tick) {
+            if (windowCount > 0) {
+                for (int i = 0; i < capacity; i++) {
+                    BookLevel level = slots[i];
+                    if (level != null) {
+                        sparse.put(level.price, level);
+                        slots[i] = null;
+                    }
+                }
+                windowCount = 0;
+            }
+
+            long margin = capacity / 4;
+            baseTick = Math.max(0, descending ? tick - (capacity - 1 - margin) : tick - margin);
+
+            long fromPrice = baseTick * tickSize;
+            long toPrice = (baseTick + capacity) * tickSize;
+            Iterator<BookLevel> it = sparse.subMap(fromPrice, true, toPrice, false).values().iterator();
+            while (it.hasNext()) {
+                BookLevel level = it.next();
+                if (!onGrid(level.price)) {
+                    continue;
+                }
+                long levelTick = level.price / tickSize;
+                slots[(int) (levelTick & mask)] = level;
+                if (windowCount == 0 || better(levelTick, windowBestTick)) {
+                    windowBestTick = levelTick;
+                }
+                windowCount++;
+                it.remove();
+            }
+        }
+
+        /**
+         * Visit levels best-first, merging the window with the sparse map
+         */
+        void forEach(Predicate<BookLevel> visitor) {
+            Iterator<BookLevel> sparseIt = (descending ? sparse.descendingMap() : sparse).values().iterator();
+            BookLevel nextSparse = sparseIt.hasNext() ? sparseIt.next() : null;
+
+            long step = descending ? -1 : 1;
+            int windowLeft = windowCount;
+            long tick = windowBestTick;
+            BookLevel nextWindow = windowLeft > 0 ? slot(tick) : null;
+
+            while (nextSparse != null || nextWindow != null) {
+                BookLevel level;
+                if (nextWindow == null || (nextSparse != null && better(nextSparse.price, nextWindow.price))) {
+                    level = nextSparse;
+                    nextSparse = sparseIt.hasNext() ? sparseIt.next() : null;
+                } else {
+                    level = nextWindow;
+                    nextWindow = null;
+                    if (--windowLeft > 0) {
+                        do {
+                            tick += step;
+                        } while (slot(tick) == null);
+                        nextWindow = slot(tick);
+                    }
+                }
+                if (!visitor.test(level)) {
+                    return;
+                }
+            }
+        }
+    }
+}
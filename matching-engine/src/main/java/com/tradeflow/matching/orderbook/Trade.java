@@ -5,7 +5,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -19,6 +18,8 @@ import java.util.UUID;
 public class Trade {
 
     private UUID tradeId;
+    // Per-symbol monotonic sequence the trade id is derived from (see TradeIds)
+    private long tradeSequence;
     private String symbol;
 
     // Maker is the order that was resting in the book
@@ -35,7 +36,7 @@ public class Trade {
     private UUID sellOrderId;
     private UUID sellUserId;
 
-    private BigDecimal price; // Execution price (maker's price)
-    private BigDecimal quantity; // Execution quantity
+    private long price; // Execution price (maker's price), fixed-point
+    private long quantity; // Execution quantity, fixed-point
     private Instant timestamp;
 }
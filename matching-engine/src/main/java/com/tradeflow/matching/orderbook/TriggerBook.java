@@ -0,0 +1,237 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Stop orders of one book waiting for their trigger price, kept per side
+ * by stop price.
+ *
+ * A buy stop triggers once a trade prints at or above its stop price, a
+ * sell stop at or below it. A stop is only parked while the last price has
+ * not reached it, so each side is ordered nearest stop first and a new last
+ * price crosses a run at its head: finding and taking k of n stops costs
+ * O(log n + k). Stops at one price trigger in arrival order.
+ *
+ * Triggered stops wait in a queue, already turned into the market or limit
+ * orders they become, until the book matches them.
+ *
+ * Not thread-safe: owned by the book's matching thread.
+ */
+final class TriggerBook {
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final TimeInForce[] TIME_IN_FORCE = TimeInForce.values();
+
+    // side, type, time in force, stop price, price, order id, user id, original/remaining qty, timestamp
+    private static final int STOP_STATE_SIZE = 3 + 9 * 8;
+
+    // Nearest stop first: buy stops ascending, sell stops descending
+    private final TreeMap<Long, ArrayDeque<BookOrder>> buyStops = new TreeMap<>();
+    private final TreeMap<Long, ArrayDeque<BookOrder>> sellStops = new TreeMap<>(Comparator.reverseOrder());
+    private final Map<UUID, BookOrder> stopsById = new HashMap<>();
+
+    private final ArrayDeque<BookOrder> triggered = new ArrayDeque<>();
+
+    private long lastPrice = OrderBook.NO_PRICE;
+
+    /**
+     * Market or limit order a stop turns into once triggered
+     */
+    static BookOrder activate(BookOrder stop) {
+        return stop.toBuilder()
+                .type(stop.getType() == OrderType.STOP ? OrderType.MARKET : OrderType.LIMIT)
+                .build();
+    }
+
+    /**
+     * Price of the last trade ({@link OrderBook#NO_PRICE} before the first)
+     */
+    long lastPrice() {
+        return lastPrice;
+    }
+
+    /**
+     * Number of parked stops
+     */
+    int size() {
+        return stopsById.size();
+    }
+
+    /**
+     * Whether the last trade already reached a stop's trigger price
+     */
+    boolean isCrossed(BookOrder stop) {
+        if (lastPrice == OrderBook.NO_PRICE) {
+            return false;
+        }
+        return stop.getSide() == OrderSide.BUY
+                ? lastPrice >= stop.getStopPrice()
+                : lastPrice <= stop.getStopPrice();
+    }
+
+    /**
+     * Park a stop the last price has not reached yet
+     */
+    void park(BookOrder stop) {
+        stops(stop.getSide())
+                .computeIfAbsent(stop.getStopPrice(), price -> new ArrayDeque<>())
+                .addLast(stop);
+        stopsById.put(stop.getOrderId(), stop);
+    }
+
+    /**
+     * Whether a stop with this id is parked, on either side
+     */
+    boolean contains(UUID orderId) {
+        return stopsById.containsKey(orderId);
+    }
+
+    /**
+     * Parked stop by order id and side, or null if none
+     */
+    BookOrder get(UUID orderId, OrderSide side) {
+        BookOrder stop = stopsById.get(orderId);
+        return stop != null && stop.getSide() == side ? stop : null;
+    }
+
+    /**
+     * Take a parked stop out
+     *
+     * @return the stop, or null if no such stop is parked
+     */
+    BookOrder remove(UUID orderId, OrderSide side) {
+        BookOrder stop = get(orderId, side);
+        if (stop == null) {
+            return null;
+        }
+        stopsById.remove(orderId);
+        TreeMap<Long, ArrayDeque<BookOrder>> stops = stops(side);
+        ArrayDeque<BookOrder> level = stops.get(stop.getStopPrice());
+        level.removeIf(parked -> parked == stop);
+        if (level.isEmpty()) {
+            stops.remove(stop.getStopPrice());
+        }
+        return stop;
+    }
+
+    /**
+     * Record a trade price and queue every stop it crosses. Only one side
+     * can be crossed by a move, but a first trade may reach both.
+     */
+    void onTrade(long price) {
+        lastPrice = price;
+        trigger(buyStops, price);
+        trigger(sellStops, price);
+    }
+
+    private void trigger(TreeMap<Long, ArrayDeque<BookOrder>> stops, long price) {
+        // Checked on the nearest stop first, so a trade that crosses nothing allocates nothing
+        if (stops.isEmpty() || !reaches(stops, stops.firstKey(), price)) {
+            return;
+        }
+        NavigableMap<Long, ArrayDeque<BookOrder>> crossed = stops.headMap(price, true);
+        for (ArrayDeque<BookOrder> level : crossed.values()) {
+            for (BookOrder stop : level) {
+                stopsById.remove(stop.getOrderId());
+                triggered.addLast(activate(stop));
+            }
+        }
+        crossed.clear();
+    }
+
+    /**
+     * Next triggered stop, as the order it became, or null if none
+     */
+    BookOrder pollTriggered() {
+        return triggered.pollFirst();
+    }
+
+    private boolean reaches(TreeMap<Long, ArrayDeque<BookOrder>> stops, long stopPrice, long price) {
+        return stops == buyStops ? price >= stopPrice : price <= stopPrice;
+    }
+
+    private TreeMap<Long, ArrayDeque<BookOrder>> stops(OrderSide side) {
+        return side == OrderSide.BUY ? buyStops : sellStops;
+    }
+
+    // ============================================
+    // State
+    // ============================================
+
+    int stateSize() {
+        return 8 + 4 + stopsById.size() * STOP_STATE_SIZE;
+    }
+
+    /**
+     * Serialize the last price and parked stops, nearest first per side.
+     * Books are only copied between commands, when no triggered stop is
+     * still waiting to be matched.
+     */
+    void writeState(ByteBuffer out) {
+        if (!triggered.isEmpty()) {
+            throw new IllegalStateException("Triggered stops are still waiting to be matched");
+        }
+        out.putLong(lastPrice);
+        out.putInt(stopsById.size());
+        for (OrderSide side : SIDES) {
+            for (ArrayDeque<BookOrder> level : stops(side).values()) {
+                for (BookOrder stop : level) {
+                    out.put((byte) side.ordinal());
+                    out.put((byte) stop.getType().ordinal());
+                    out.put((byte) stop.getTimeInForce().ordinal());
+                    out.putLong(stop.getStopPrice());
+                    out.putLong(stop.getPrice());
+                    out.putLong(stop.getOrderId().getMostSignificantBits());
+                    out.putLong(stop.getOrderId().getLeastSignificantBits());
+                    out.putLong(stop.getUserId().getMostSignificantBits());
+                    out.putLong(stop.getUserId().getLeastSignificantBits());
+                    out.putLong(stop.getOriginalQuantity());
+                    out.putLong(stop.getRemainingQuantity());
+                    Instant timestamp = stop.getTimestamp();
+                    out.putLong(timestamp != null
+                            ? timestamp.getEpochSecond() * 1_000_000_000L + timestamp.getNano()
+                            : 0L);
+                }
+            }
+        }
+    }
+
+    /**
+     * Restore state written by {@link #writeState}
+     */
+    void readState(ByteBuffer in, String symbol) {
+        lastPrice = in.getLong();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            OrderSide side = SIDES[in.get()];
+            OrderType type = ORDER_TYPES[in.get()];
+            TimeInForce timeInForce = TIME_IN_FORCE[in.get()];
+            park(BookOrder.builder()
+                    .side(side)
+                    .type(type)
+                    .timeInForce(timeInForce)
+                    .stopPrice(in.getLong())
+                    .price(in.getLong())
+                    .orderId(new UUID(in.getLong(), in.getLong()))
+                    .userId(new UUID(in.getLong(), in.getLong()))
+                    .symbol(symbol)
+                    .originalQuantity(in.getLong())
+                    .remainingQuantity(in.getLong())
+                    .timestamp(Instant.ofEpochSecond(0, in.getLong()))
+                    .build());
+        }
+    }
+}
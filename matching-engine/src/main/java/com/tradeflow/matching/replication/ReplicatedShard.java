@@ -0,0 +1,43 @@
+package com.tradeflow.matching.replication;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Standby side of a matching shard: what a {@link StandbyReplica} applies
+ * the primary's stream to. Only called from the replica's thread, which
+ * owns the shard's books until promotion.
+ */
+public interface ReplicatedShard {
+
+    int id();
+
+    /**
+     * Position the next applied record must have
+     */
+    long position();
+
+    /**
+     * Replace the shard's books with the primary's as of {@code position}
+     * and restart the local journal there
+     */
+    void restore(long position, Map<String, ByteBuffer> books);
+
+    /**
+     * Journal and apply one replicated record body
+     *
+     * @return next position
+     */
+    long apply(ByteBuffer record);
+
+    /**
+     * Force the local journal if its fsync policy says so, and publish
+     * views of the books changed since the last call
+     */
+    void flush();
+
+    /**
+     * CRC32C of the shard's book states, comparable across engines
+     */
+    long checksum();
+}
@@ -0,0 +1,364 @@
+package com.tradeflow.matching.replication;
+
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.engine.IdleStrategy;
+import com.tradeflow.matching.engine.RingBuffer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Primary side of one shard's replication: streams the shard's journaled
+ * commands to a connected standby.
+ *
+ * The matching thread queues messages onto a ring; a sender thread writes
+ * them to the socket and a reader thread tracks the standby's
+ * acknowledged position. When a standby connects, the matching thread
+ * first queues a copy of its books at the current journal position, then
+ * every record appended after it. If the standby disconnects, falls a
+ * full ring behind or takes longer than the ack timeout, it is dropped and
+ * the primary carries on alone until it reconnects.
+ */
+@Slf4j
+public final class ReplicationLink {
+
+    private static final int DRAIN_LIMIT = 256;
+
+    private final int shard;
+    private final boolean synchronous;
+    private final long ackTimeoutNanos;
+    private final long heartbeatIntervalNanos;
+    private final RingBuffer<ReplicationMessage> ring;
+    private final Thread sender;
+
+    private volatile boolean running;
+
+    // Current standby connection, replaced on reconnect
+    private volatile Connection connection;
+    private long lastSession;
+
+    // Session the matching thread is streaming to (matching thread only)
+    private long streamingSession;
+
+    private volatile long lastChecksumPosition = -1;
+
+    public ReplicationLink(int shard, MatchingConfigProperties.Replication config) {
+        this.shard = shard;
+        this.synchronous = config.isSynchronous();
+        this.ackTimeoutNanos = config.getAckTimeout().toNanos();
+        this.heartbeatIntervalNanos = config.getHeartbeatInterval().toNanos();
+        this.ring = new RingBuffer<>(config.getRingSize(), ReplicationMessage::new);
+        this.sender = new Thread(this::sendLoop, "replication-sender-" + shard);
+    }
+
+    public void start() {
+        running = true;
+        sender.start();
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        sender.join();
+        Connection current = connection;
+        if (current != null) {
+            current.close("primary stopping");
+        }
+    }
+
+    /**
+     * Take over a standby connection whose handshake has been read,
+     * dropping any previous one
+     */
+    synchronized void connect(Socket socket, DataInputStream in) throws IOException {
+        if (connection != null) {
+            connection.close("replaced by a new standby connection");
+        }
+        connection = new Connection(++lastSession, socket, in);
+        connection.startReader();
+        log.info("Standby {} connected to shard {}", socket.getRemoteSocketAddress(), shard);
+    }
+
+    public boolean isConnected() {
+        return connection != null;
+    }
+
+    /**
+     * Standby's next journal position, or -1 without a standby
+     */
+    public long acknowledgedPosition() {
+        Connection current = connection;
+        return current != null ? current.acked : -1;
+    }
+
+    public long lastChecksumPosition() {
+        return lastChecksumPosition;
+    }
+
+    // ============================================
+    // Matching thread
+    // ============================================
+
+    /**
+     * Whether a standby is waiting for the books to start from
+     */
+    public boolean attachPending() {
+        Connection current = connection;
+        return current != null && current.session != streamingSession;
+    }
+
+    /**
+     * Whether appended records should be handed to {@link #record}
+     */
+    public boolean isStreaming() {
+        Connection current = connection;
+        return current != null && current.session == streamingSession;
+    }
+
+    /**
+     * Start streaming to the pending standby from a copy of the books at
+     * journal {@code position}
+     */
+    public void attach(long position, Map<String, ByteBuffer> books) {
+        Connection current = connection;
+        if (current == null) {
+            return;
+        }
+        streamingSession = current.session;
+        long sequence = ring.claim();
+        ReplicationMessage message = ring.get(sequence);
+        message.session = streamingSession;
+        message.type = ReplicationProtocol.SNAPSHOT;
+        message.position = position;
+        message.books = books;
+        ring.publish(sequence);
+        log.info("Shard {} streaming to standby from position {} ({} books)", shard, position, books.size());
+    }
+
+    /**
+     * Queue an appended journal record body
+     */
+    public void record(ByteBuffer body) {
+        if (!hasCapacity()) {
+            return;
+        }
+        long sequence = ring.claim();
+        ReplicationMessage message = ring.get(sequence);
+        int length = body.remaining();
+        if (message.record.length < length) {
+            message.record = new byte[Math.max(length, message.record.length * 2)];
+        }
+        body.get(message.record, 0, length);
+        message.session = streamingSession;
+        message.type = ReplicationProtocol.RECORD;
+        message.length = length;
+        ring.publish(sequence);
+    }
+
+    /**
+     * Queue the checksum of the books before journal {@code position}
+     */
+    public void checksum(long position, long checksum) {
+        if (!hasCapacity()) {
+            return;
+        }
+        long sequence = ring.claim();
+        ReplicationMessage message = ring.get(sequence);
+        message.session = streamingSession;
+        message.type = ReplicationProtocol.CHECKSUM;
+        message.position = position;
+        message.checksum = checksum;
+        ring.publish(sequence);
+        lastChecksumPosition = position;
+    }
+
+    /**
+     * Drop a standby the sender cannot keep up with rather than block matching
+     */
+    private boolean hasCapacity() {
+        if (ring.backlog() < ring.capacity()) {
+            return true;
+        }
+        Connection current = connection;
+        if (current != null) {
+            current.close("fell " + ring.capacity() + " messages behind");
+        }
+        return false;
+    }
+
+    /**
+     * In synchronous mode, wait until the standby has applied everything
+     * before journal {@code position}. A standby that takes longer than the
+     * ack timeout is dropped.
+     */
+    public void awaitAcknowledged(long position, IdleStrategy idleStrategy) {
+        if (!synchronous) {
+            return;
+        }
+        Connection current = connection;
+        if (current == null || current.session != streamingSession || current.acked >= position) {
+            return;
+        }
+        long deadline = System.nanoTime() + ackTimeoutNanos;
+        int idle = 0;
+        while (current.acked < position && !current.closed) {
+            if (System.nanoTime() - deadline >= 0) {
+                current.close("no acknowledgement of position " + position + " within the ack timeout");
+                return;
+            }
+            idleStrategy.idle(idle++);
+        }
+    }
+
+    // ============================================
+    // Sender thread
+    // ============================================
+
+    private void sendLoop() {
+        int idle = 0;
+        long lastSentNanos = System.nanoTime();
+        while (running || ring.backlog() > 0) {
+            Connection current = connection;
+            if (ring.drain(this::send, DRAIN_LIMIT) > 0) {
+                idle = 0;
+                lastSentNanos = System.nanoTime();
+                if (current != null) {
+                    current.flush();
+                }
+                continue;
+            }
+            if (current != null && System.nanoTime() - lastSentNanos >= heartbeatIntervalNanos) {
+                current.heartbeat();
+                lastSentNanos = System.nanoTime();
+            }
+            IdleStrategy.BACKOFF.idle(idle++);
+        }
+    }
+
+    private void send(ReplicationMessage message) {
+        Connection current = connection;
+        if (current != null && current.session == message.session) {
+            current.write(message);
+        }
+        message.books = null;
+    }
+
+    /**
+     * One standby connection; written by the sender thread, read by its own
+     * reader thread
+     */
+    private final class Connection {
+
+        final long session;
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        volatile long acked = -1;
+        volatile boolean closed;
+
+        Connection(long session, Socket socket, DataInputStream in) throws IOException {
+            this.session = session;
+            this.socket = socket;
+            this.in = in;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+        }
+
+        void startReader() {
+            Thread reader = new Thread(this::readAcks, "replication-acks-" + shard);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void readAcks() {
+            try {
+                while (!closed) {
+                    acked = in.readLong();
+                }
+            } catch (IOException e) {
+                close("standby disconnected: " + e.getMessage());
+            }
+        }
+
+        void write(ReplicationMessage message) {
+            if (closed) {
+                return;
+            }
+            try {
+                out.writeByte(message.type);
+                switch (message.type) {
+                    case ReplicationProtocol.SNAPSHOT -> {
+                        out.writeLong(message.position);
+                        out.writeInt(message.books.size());
+                        for (Map.Entry<String, ByteBuffer> book : message.books.entrySet()) {
+                            byte[] symbol = book.getKey().getBytes(StandardCharsets.US_ASCII);
+                            ByteBuffer state = book.getValue();
+                            out.writeShort(symbol.length);
+                            out.write(symbol);
+                            out.writeInt(state.remaining());
+                            out.write(state.array(), state.arrayOffset() + state.position(), state.remaining());
+                        }
+                    }
+                    case ReplicationProtocol.RECORD -> {
+                        out.writeInt(message.length);
+                        out.write(message.record, 0, message.length);
+                    }
+                    case ReplicationProtocol.CHECKSUM -> {
+                        out.writeLong(message.position);
+                        out.writeLong(message.checksum);
+                    }
+                    default -> throw new IllegalStateException("Unknown replication message " + message.type);
+                }
+            } catch (IOException e) {
+                close("write failed: " + e.getMessage());
+            }
+        }
+
+        void heartbeat() {
+            if (closed) {
+                return;
+            }
+            try {
+                out.writeByte(ReplicationProtocol.HEARTBEAT);
+                out.flush();
+            } catch (IOException e) {
+                close("heartbeat failed: " + e.getMessage());
+            }
+        }
+
+        void flush() {
+            if (closed) {
+                return;
+            }
+            try {
+                out.flush();
+            } catch (IOException e) {
+                close("flush failed: " + e.getMessage());
+            }
+        }
+
+        void close(String reason) {
+            synchronized (ReplicationLink.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (connection == this) {
+                    connection = null;
+                }
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Failed to close standby socket of shard {}: {}", shard, e.getMessage());
+            }
+            log.warn("Dropped standby of shard {}: {}", shard, reason);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.tradeflow.matching.replication;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Reusable ring entry: one message for the standby, queued by the matching
+ * thread and written out by the link's sender thread
+ */
+final class ReplicationMessage {
+
+    // Connection the message was queued for; stale ones are dropped
+    long session;
+    byte type;
+
+    // SNAPSHOT, CHECKSUM
+    long position;
+    long checksum;
+    Map<String, ByteBuffer> books;
+
+    // RECORD, grown on demand
+    byte[] record = new byte[256];
+    int length;
+}
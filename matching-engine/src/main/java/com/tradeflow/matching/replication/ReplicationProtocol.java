@@ -0,0 +1,29 @@
+package com.tradeflow.matching.replication;
+
+/**
+ * Wire format of the replication stream, one TCP connection per shard.
+ *
+ * The standby opens with {@code [magic][version][shard][shardCount]}. The
+ * primary answers with a snapshot of the shard's books, then streams
+ * messages, each starting with a type byte:
+ * <ul>
+ *   <li>{@code SNAPSHOT [position][bookCount]([symbol][stateLength][state])*}</li>
+ *   <li>{@code RECORD [length][journal record body]}</li>
+ *   <li>{@code CHECKSUM [position][crc]} of the books before {@code position}</li>
+ *   <li>{@code HEARTBEAT}</li>
+ * </ul>
+ * The standby acknowledges with its next journal position, as a long.
+ */
+final class ReplicationProtocol {
+
+    static final int MAGIC = 0x5446524C; // "TFRL"
+    static final int VERSION = 3;
+
+    static final byte SNAPSHOT = 1;
+    static final byte RECORD = 2;
+    static final byte CHECKSUM = 3;
+    static final byte HEARTBEAT = 4;
+
+    private ReplicationProtocol() {
+    }
+}
@@ -0,0 +1,22 @@
+package com.tradeflow.matching.replication;
+
+/**
+ * Part an engine instance plays in primary/standby replication
+ */
+public enum ReplicationRole {
+
+    /**
+     * Stand-alone, nothing replicated
+     */
+    NONE,
+
+    /**
+     * Matches orders and streams its journaled commands to a standby
+     */
+    PRIMARY,
+
+    /**
+     * Applies the primary's command stream; consumes no orders until promoted
+     */
+    STANDBY
+}
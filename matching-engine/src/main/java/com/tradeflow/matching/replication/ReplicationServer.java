@@ -0,0 +1,90 @@
+package com.tradeflow.matching.replication;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Accepts standby connections and hands each, after its handshake, to the
+ * {@link ReplicationLink} of the shard it asked for
+ */
+@Slf4j
+public final class ReplicationServer implements AutoCloseable {
+
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5_000;
+
+    private final ReplicationLink[] links;
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+
+    public ReplicationServer(String bindAddress, int port, ReplicationLink[] links) throws IOException {
+        this.links = links;
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(bindAddress, port));
+        this.acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+    }
+
+    public void start() {
+        acceptor.start();
+        log.info("Accepting standbys on {}", serverSocket.getLocalSocketAddress());
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.error("Failed to accept standby connection: {}", e.getMessage(), e);
+                }
+                continue;
+            }
+            try {
+                handshake(socket);
+            } catch (Exception e) {
+                log.warn("Rejected standby {}: {}", socket.getRemoteSocketAddress(), e.getMessage());
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // Already failed
+                }
+            }
+        }
+    }
+
+    private void handshake(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        if (in.readInt() != ReplicationProtocol.MAGIC) {
+            throw new IOException("not a replication handshake");
+        }
+        int version = in.readInt();
+        if (version != ReplicationProtocol.VERSION) {
+            throw new IOException("unsupported protocol version " + version);
+        }
+        int shard = in.readInt();
+        int shardCount = in.readInt();
+        if (shardCount != links.length) {
+            throw new IOException("standby has " + shardCount + " shards, primary has " + links.length);
+        }
+        if (shard < 0 || shard >= links.length) {
+            throw new IOException("no shard " + shard);
+        }
+        socket.setSoTimeout(0);
+        links[shard].connect(socket, in);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
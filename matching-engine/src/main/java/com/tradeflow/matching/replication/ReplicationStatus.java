@@ -0,0 +1,20 @@
+package com.tradeflow.matching.replication;
+
+import java.util.List;
+
+/**
+ * Replication role and per-shard progress of an engine
+ */
+public record ReplicationStatus(ReplicationRole role, List<Shard> shards) {
+
+    /**
+     * @param connected        whether the standby (on a primary) or the
+     *                         primary (on a standby) is connected
+     * @param position         next journal position the standby will apply
+     * @param checksumPosition position of the last checksum sent (primary)
+     *                         or matched (standby)
+     * @param mismatches       checksum mismatches seen by the standby
+     */
+    public record Shard(int shard, boolean connected, long position, long checksumPosition, int mismatches) {
+    }
+}
@@ -0,0 +1,205 @@
+package com.tradeflow.matching.replication;
+
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Standby side of one shard's replication: connects to the primary, loads
+ * its books, then journals and applies every record it streams, in order,
+ * acknowledging its position as it goes.
+ *
+ * Whenever the primary sends a checksum, the standby compares it with its
+ * own books at the same position. A mismatch, a gap or a lost connection
+ * makes it reconnect and start over from a fresh copy of the books.
+ *
+ * The replica's thread owns the shard's books until {@link #stop()}, after
+ * which the shard can be started as a primary.
+ */
+@Slf4j
+public final class StandbyReplica {
+
+    private final ReplicatedShard shard;
+    private final int shardCount;
+    private final String host;
+    private final int port;
+    private final int peerTimeoutMillis;
+    private final long reconnectDelayNanos;
+    private final Thread thread;
+
+    private volatile boolean running;
+    private volatile Socket socket;
+
+    private volatile boolean connected;
+    private volatile boolean bootstrapped;
+    private volatile long position = -1;
+    private volatile long verifiedPosition = -1;
+    private volatile int mismatches;
+
+    private byte[] record = new byte[256];
+
+    public StandbyReplica(ReplicatedShard shard, int shardCount, MatchingConfigProperties.Replication config) {
+        this.shard = shard;
+        this.shardCount = shardCount;
+        this.host = config.getPrimaryHost();
+        this.port = config.getPrimaryPort();
+        this.peerTimeoutMillis = (int) config.getPeerTimeout().toMillis();
+        this.reconnectDelayNanos = config.getReconnectDelay().toNanos();
+        this.thread = new Thread(this::run, "replication-standby-" + shard.id());
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Disconnect and wait for the replica thread to finish the record it is applying
+     */
+    public void stop() throws InterruptedException {
+        running = false;
+        closeSocket();
+        // Not interrupted: that would close the journal's file channel mid-write
+        LockSupport.unpark(thread);
+        thread.join();
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Whether books have been loaded from the primary at least once
+     */
+    public boolean isBootstrapped() {
+        return bootstrapped;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public long verifiedPosition() {
+        return verifiedPosition;
+    }
+
+    public int mismatches() {
+        return mismatches;
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                s.connect(new InetSocketAddress(host, port), peerTimeoutMillis);
+                s.setTcpNoDelay(true);
+                s.setSoTimeout(peerTimeoutMillis);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream(), 64 * 1024));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                out.writeInt(ReplicationProtocol.MAGIC);
+                out.writeInt(ReplicationProtocol.VERSION);
+                out.writeInt(shard.id());
+                out.writeInt(shardCount);
+                out.flush();
+                connected = true;
+                log.info("Shard {} connected to primary {}:{}", shard.id(), host, port);
+                receive(in, out);
+            } catch (Exception e) {
+                if (running) {
+                    log.warn("Shard {} replication from {}:{} interrupted: {}", shard.id(), host, port, e.getMessage());
+                }
+            } finally {
+                connected = false;
+                socket = null;
+            }
+            long deadline = System.nanoTime() + reconnectDelayNanos;
+            while (running && System.nanoTime() - deadline < 0) {
+                LockSupport.parkNanos(deadline - System.nanoTime());
+            }
+        }
+    }
+
+    private void receive(DataInputStream in, DataOutputStream out) throws IOException {
+        boolean unacked = false;
+        while (running) {
+            byte type = in.readByte();
+            switch (type) {
+                case ReplicationProtocol.SNAPSHOT -> {
+                    long snapshotPosition = in.readLong();
+                    int count = in.readInt();
+                    Map<String, ByteBuffer> books = new TreeMap<>();
+                    for (int i = 0; i < count; i++) {
+                        byte[] symbol = new byte[in.readShort()];
+                        in.readFully(symbol);
+                        byte[] state = new byte[in.readInt()];
+                        in.readFully(state);
+                        books.put(new String(symbol, StandardCharsets.US_ASCII), ByteBuffer.wrap(state));
+                    }
+                    shard.restore(snapshotPosition, books);
+                    position = snapshotPosition;
+                    bootstrapped = true;
+                    unacked = true;
+                    log.info("Shard {} loaded {} books from primary at position {}", shard.id(), count, snapshotPosition);
+                }
+                case ReplicationProtocol.RECORD -> {
+                    int length = in.readInt();
+                    if (record.length < length) {
+                        record = new byte[Math.max(length, record.length * 2)];
+                    }
+                    in.readFully(record, 0, length);
+                    position = shard.apply(ByteBuffer.wrap(record, 0, length));
+                    unacked = true;
+                }
+                case ReplicationProtocol.CHECKSUM -> verify(in.readLong(), in.readLong());
+                case ReplicationProtocol.HEARTBEAT -> {
+                    // Only keeps the read timeout from firing
+                }
+                default -> throw new IOException("Unknown replication message " + type);
+            }
+            // Acknowledge once caught up with what has arrived
+            if (unacked && in.available() == 0) {
+                shard.flush();
+                out.writeLong(position);
+                out.flush();
+                unacked = false;
+            }
+        }
+    }
+
+    private void verify(long checksumPosition, long primaryChecksum) throws IOException {
+        long localPosition = shard.position();
+        long localChecksum = shard.checksum();
+        if (localPosition == checksumPosition && localChecksum == primaryChecksum) {
+            verifiedPosition = checksumPosition;
+            log.debug("Shard {} books match the primary at position {}", shard.id(), checksumPosition);
+            return;
+        }
+        mismatches++;
+        throw new IOException(String.format(
+                "books diverged from the primary: position %d checksum %08x, primary position %d checksum %08x",
+                localPosition, localChecksum, checksumPosition, primaryChecksum));
+    }
+
+    private void closeSocket() {
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                log.debug("Failed to close primary socket of shard {}: {}", shard.id(), e.getMessage());
+            }
+        }
+    }
+}
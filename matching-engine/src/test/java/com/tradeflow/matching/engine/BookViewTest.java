@@ -0,0 +1,124 @@
+package com.tradeflow.matching.engine;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.orderbook.BookOrder;
+import com.tradeflow.matching.orderbook.FixedPoint;
+import com.tradeflow.matching.orderbook.OrderBook;
+import com.tradeflow.matching.orderbook.SkipListOrderBook;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fill estimates served from a view must match the book's own at the
+ * view's update, however many levels the view lists, and must not move
+ * when the book changes after it was published. A republished view keeps
+ * the previous depth copy unless the engine is told to take a new one.
+ */
+class BookViewTest {
+
+    private static final long UNIT = FixedPoint.toLong(BigDecimal.ONE);
+    private static final long TICK = FixedPoint.toLong(new BigDecimal("0.01"));
+    private static final int LEVELS = 200;
+    private static final int VIEW_DEPTH = 5;
+
+    private final OrderBook book = new SkipListOrderBook("VIEWUSDT", false);
+    private int sequence;
+
+    @Test
+    void estimatesCoverLevelsBeyondTheViewDepth() {
+        restLevels();
+        BookView view = BookView.of(book, VIEW_DEPTH);
+
+        assertThat(view.asks()).hasSize(VIEW_DEPTH);
+        for (OrderSide taker : OrderSide.values()) {
+            for (long quantity : new long[]{UNIT / 2, 7 * UNIT, 150 * UNIT, LEVELS * UNIT, 500 * UNIT}) {
+                assertThat(view.estimateFill(taker, quantity))
+                        .isEqualTo(book.estimateFill(taker, quantity));
+            }
+            for (long notional : new long[]{50 * UNIT, 5_000 * UNIT, 100_000 * UNIT, 1_000_000 * UNIT}) {
+                assertThat(view.estimateFillForNotional(taker, notional))
+                        .isEqualTo(book.estimateFillForNotional(taker, notional));
+            }
+        }
+
+        // Deeper than the listed levels, yet not past the whole side
+        OrderBook.FillEstimate deep = view.estimateFill(OrderSide.BUY, 150 * UNIT);
+        assertThat(deep.exhausted()).isFalse();
+        assertThat(deep.quantity()).isEqualTo(150 * UNIT);
+        assertThat(view.estimateFill(OrderSide.BUY, 500 * UNIT).exhausted()).isTrue();
+    }
+
+    @Test
+    void publishedEstimatesDoNotFollowLaterChanges() {
+        restLevels();
+        BookView view = BookView.of(book, VIEW_DEPTH);
+        OrderBook.FillEstimate before = view.estimateFill(OrderSide.BUY, 150 * UNIT);
+
+        // Sweep most of the asks after publishing
+        book.addOrder(order(OrderSide.BUY, OrderType.MARKET, 0, 180 * UNIT));
+
+        assertThat(view.estimateFill(OrderSide.BUY, 150 * UNIT)).isEqualTo(before);
+        assertThat(BookView.of(book, VIEW_DEPTH).estimateFill(OrderSide.BUY, 150 * UNIT))
+                .isEqualTo(book.estimateFill(OrderSide.BUY, 150 * UNIT));
+        // Nothing changed since, so the depth is not copied again
+        assertThat(BookView.of(book, VIEW_DEPTH).depth()).isSameAs(book.getDepth());
+    }
+
+    @Test
+    void viewsKeepTheirDepthCopyUntilANewOneIsDue() {
+        restLevels();
+        ByteBuffer state = ByteBuffer.allocate(book.stateSize());
+        book.writeState(state);
+        MatchingEngine engine = new MatchingEngine(new MatchingConfigProperties());
+        engine.restoreOrderBook("VIEWUSDT", state.flip());
+        OrderBook engineBook = engine.getOrderBook("VIEWUSDT");
+
+        // The first view of a book copies its depth either way
+        engine.publishView(engineBook, false);
+        OrderBook.FillEstimate before = engine.estimateFill("VIEWUSDT", OrderSide.BUY, 150 * UNIT);
+        assertThat(before).isEqualTo(engineBook.estimateFill(OrderSide.BUY, 150 * UNIT));
+
+        engineBook.addOrder(order(OrderSide.BUY, OrderType.MARKET, 0, 180 * UNIT));
+        engine.publishView(engineBook, false);
+        assertThat(engine.getView("VIEWUSDT").bestAsk()).isEqualTo(engineBook.getBestAsk());
+        assertThat(engine.estimateFill("VIEWUSDT", OrderSide.BUY, 150 * UNIT)).isEqualTo(before);
+
+        engine.publishView(engineBook, true);
+        assertThat(engine.estimateFill("VIEWUSDT", OrderSide.BUY, 150 * UNIT))
+                .isEqualTo(engineBook.estimateFill(OrderSide.BUY, 150 * UNIT));
+    }
+
+    /**
+     * One unit at each of {@link #LEVELS} prices per side around 100
+     */
+    private void restLevels() {
+        for (int i = 1; i <= LEVELS; i++) {
+            book.addOrder(order(OrderSide.SELL, OrderType.LIMIT, 100 * UNIT + i * TICK, UNIT));
+            book.addOrder(order(OrderSide.BUY, OrderType.LIMIT, 100 * UNIT - i * TICK, UNIT));
+        }
+    }
+
+    private BookOrder order(OrderSide side, OrderType type, long price, long quantity) {
+        BookOrder.BookOrderBuilder order = BookOrder.builder()
+                .orderId(new UUID(7, sequence))
+                .userId(new UUID(0, side.ordinal()))
+                .symbol("VIEWUSDT")
+                .side(side)
+                .type(type)
+                .originalQuantity(quantity)
+                .remainingQuantity(quantity)
+                .timestamp(Instant.parse("2026-01-05T00:00:00Z").plusMillis(sequence++));
+        if (type == OrderType.LIMIT) {
+            order.price(price);
+        }
+        return order.build();
+    }
+}
@@ -0,0 +1,371 @@
+package com.tradeflow.matching.engine;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.metrics.LatencyMetrics;
+import com.tradeflow.matching.orderbook.BookOrder;
+import com.tradeflow.matching.orderbook.FixedPoint;
+import com.tradeflow.matching.orderbook.OrderBook;
+import com.tradeflow.matching.orderbook.Trade;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Books rebuilt from the journal, with or without a snapshot to start
+ * from, must come back byte for byte as the engine left them (stops a
+ * replayed order sets off included), and an order delivered again after
+ * it was journaled must not match twice.
+ *
+ * Each run drives a real pipeline over a temporary journal directory with
+ * a seeded order flow, waits until every command is settled, stops it and
+ * starts a fresh engine on the same directory.
+ */
+class JournalRecoveryTest {
+
+    private static final String[] SYMBOLS = {"AAAUSDT", "BBBUSDT", "CCCUSDT"};
+    private static final long TICK = FixedPoint.toLong(new BigDecimal("0.01"));
+    private static final long UNIT = FixedPoint.toLong(BigDecimal.ONE);
+    private static final Instant START = Instant.parse("2026-01-05T00:00:00Z");
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    void journalReplayRebuildsIdenticalBooks() throws Exception {
+        MatchingConfigProperties properties = properties(0);
+        OrderFlow flow = new OrderFlow(42);
+
+        Run first = Run.start(properties);
+        first.submit(flow, 3_000);
+        Map<String, byte[]> expected = first.stop();
+
+        Run recovered = Run.start(properties);
+        Map<String, byte[]> actual = recovered.stop();
+
+        assertThat(expected).hasSize(SYMBOLS.length);
+        assertSameBooks(actual, expected);
+    }
+
+    @Test
+    void snapshotPlusJournalTailRebuildsIdenticalBooks() throws Exception {
+        MatchingConfigProperties properties = properties(2);
+        // One shard, so both stops leave a snapshot of every book in one place
+        properties.getPipeline().setShards(1);
+        OrderFlow flow = new OrderFlow(7);
+
+        // Snapshot taken on the first stop, then a journal tail after it
+        Run first = Run.start(properties);
+        first.submit(flow, 1_500);
+        first.stop();
+        Run second = Run.start(properties);
+        second.submit(flow, 1_500);
+        Map<String, byte[]> expected = second.stop();
+
+        // Drop the snapshot the second stop took, so recovery replays the tail
+        List<Path> snapshots = snapshots();
+        assertThat(snapshots).hasSize(2);
+        Files.delete(snapshots.get(1));
+
+        Run recovered = Run.start(properties);
+        Map<String, byte[]> actual = recovered.stop();
+
+        assertSameBooks(actual, expected);
+    }
+
+    @Test
+    void redeliveredOrderIsSettledWithoutMatchingAgain() throws Exception {
+        MatchingConfigProperties properties = properties(0);
+        BookOrder ask = limit(SYMBOLS[0], OrderSide.SELL, 100 * UNIT, 5 * UNIT, 0);
+        BookOrder bid = limit(SYMBOLS[0], OrderSide.BUY, 100 * UNIT, 2 * UNIT, 1);
+
+        Run first = Run.start(properties);
+        first.submitOrders(ask, bid);
+        Map<String, byte[]> matched = first.stop();
+        assertThat(first.trades).hasSize(1);
+
+        // The broker never saw the acks: both orders come again after a restart
+        Run redelivered = Run.start(properties);
+        redelivered.submitOrders(bid, ask);
+        Map<String, byte[]> after = redelivered.stop();
+
+        assertThat(redelivered.trades).isEmpty();
+        assertThat(redelivered.duplicates).hasValue(2);
+        assertSameBooks(after, matched);
+    }
+
+    @Test
+    void replayTriggersTheSameStops() throws Exception {
+        MatchingConfigProperties properties = properties(0);
+        String symbol = SYMBOLS[0];
+        BookOrder[] orders = {
+                limit(symbol, OrderSide.SELL, 101 * UNIT, UNIT, 0),
+                limit(symbol, OrderSide.SELL, 102 * UNIT, UNIT, 1),
+                limit(symbol, OrderSide.SELL, 104 * UNIT, 2 * UNIT, 2),
+                stop(symbol, OrderSide.BUY, OrderType.STOP, 101 * UNIT, 0, UNIT, 3),
+                stop(symbol, OrderSide.BUY, OrderType.STOP_LIMIT, 102 * UNIT, 104 * UNIT, UNIT, 4),
+                stop(symbol, OrderSide.BUY, OrderType.STOP, 110 * UNIT, 0, UNIT, 5),
+                // Trades at 101, whose stop buys at 102, whose stop buys at 104
+                limit(symbol, OrderSide.BUY, 101 * UNIT, UNIT, 6)
+        };
+
+        Run first = Run.start(properties);
+        first.submitOrders(orders);
+        Map<String, byte[]> expected = first.stop();
+        assertThat(first.trades).extracting(Trade::getPrice)
+                .containsExactlyInAnyOrder(101 * UNIT, 102 * UNIT, 104 * UNIT);
+
+        // Replay matches the triggered stops again, without publishing them
+        Run recovered = Run.start(properties);
+        Map<String, byte[]> actual = recovered.stop();
+
+        assertThat(recovered.trades).isEmpty();
+        assertSameBooks(actual, expected);
+        OrderBook book = recovered.engine.getOrderBook(symbol);
+        assertThat(book.getStopOrderCount()).isEqualTo(1);
+        assertThat(book.getBestAsk()).isEqualTo(104 * UNIT);
+        assertThat(book.getBestAskQuantity()).isEqualTo(UNIT);
+    }
+
+    @Test
+    void copiedBooksRestoreIdenticallyWithoutAJournal() throws Exception {
+        MatchingConfigProperties properties = properties(0);
+        properties.getJournal().setEnabled(false);
+        OrderFlow flow = new OrderFlow(11);
+
+        // Kafka ingest: no journal, books move between engines as copies
+        Run first = Run.start(properties);
+        first.submit(flow, 2_000);
+        Map<String, ByteBuffer> copies = new TreeMap<>();
+        for (String symbol : SYMBOLS) {
+            copies.put(symbol, first.pipeline.copyBook(symbol).get(5, TimeUnit.SECONDS));
+        }
+        Map<String, byte[]> expected = first.stop();
+
+        Run restored = Run.start(properties);
+        copies.forEach(restored.pipeline::restoreBook);
+        // Queued behind the restores, so they see the restored books
+        for (String symbol : SYMBOLS) {
+            assertThat(restored.pipeline.copyBook(symbol).get(5, TimeUnit.SECONDS)).isEqualTo(copies.get(symbol));
+        }
+        assertThat(restored.pipeline.copyBook("NONEUSDT").get(5, TimeUnit.SECONDS)).isNull();
+        Map<String, byte[]> actual = restored.stop();
+
+        assertSameBooks(actual, expected);
+    }
+
+    private MatchingConfigProperties properties(int snapshotsRetained) {
+        MatchingConfigProperties properties = new MatchingConfigProperties();
+        properties.getPipeline().setShards(2);
+        properties.getPipeline().setBookSnapshotInterval(Duration.ofHours(1));
+        properties.getJournal().setDirectory(journalDirectory.toString());
+        properties.getJournal().setSnapshotsRetained(snapshotsRetained);
+        properties.getJournal().setSnapshotInterval(Duration.ofHours(1));
+        properties.getLatency().setEnabled(false);
+        return properties;
+    }
+
+    private List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(journalDirectory.resolve("shard-0"))) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".snap")).sorted().toList();
+        }
+    }
+
+    private static void assertSameBooks(Map<String, byte[]> actual, Map<String, byte[]> expected) {
+        assertThat(actual.keySet()).isEqualTo(expected.keySet());
+        for (String symbol : expected.keySet()) {
+            assertThat(actual.get(symbol)).as("state of %s", symbol).isEqualTo(expected.get(symbol));
+        }
+    }
+
+    private static BookOrder limit(String symbol, OrderSide side, long price, long quantity, int sequence) {
+        return BookOrder.builder()
+                .orderId(UUID.nameUUIDFromBytes((symbol + sequence).getBytes()))
+                .userId(UUID.nameUUIDFromBytes(side.name().getBytes()))
+                .symbol(symbol)
+                .side(side)
+                .type(OrderType.LIMIT)
+                .price(price)
+                .originalQuantity(quantity)
+                .remainingQuantity(quantity)
+                .timestamp(START.plusMillis(sequence))
+                .build();
+    }
+
+    private static BookOrder stop(String symbol, OrderSide side, OrderType type, long stopPrice, long price,
+            long quantity, int sequence) {
+        return limit(symbol, side, price, quantity, sequence).toBuilder()
+                .type(type)
+                .stopPrice(stopPrice)
+                .build();
+    }
+
+    /**
+     * Seeded mix of limit, market, IOC and stop orders around a moving
+     * price, plus cancels of earlier orders
+     */
+    private static final class OrderFlow {
+
+        private final Random random;
+        private final List<BookOrder> submitted = new ArrayList<>();
+        private long mid = 100 * UNIT;
+        private int sequence;
+
+        OrderFlow(long seed) {
+            this.random = new Random(seed);
+        }
+
+        void next(MatchingPipeline pipeline, DeliveryAck ack) {
+            int kind = random.nextInt(100);
+            if (kind < 10 && !submitted.isEmpty()) {
+                BookOrder target = submitted.get(random.nextInt(submitted.size()));
+                pipeline.submitCancel(target.getSymbol(), target.getOrderId(), target.getSide(), ack, System.nanoTime());
+                return;
+            }
+            String symbol = SYMBOLS[random.nextInt(SYMBOLS.length)];
+            OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+            long quantity = (1 + random.nextInt(20)) * UNIT / 4;
+            mid += (random.nextInt(3) - 1) * TICK;
+            long price = mid + (random.nextInt(21) - 10) * TICK;
+            BookOrder.BookOrderBuilder order = BookOrder.builder()
+                    .orderId(new UUID(random.nextLong(), random.nextLong()))
+                    .userId(new UUID(0, random.nextInt(50)))
+                    .symbol(symbol)
+                    .side(side)
+                    .originalQuantity(quantity)
+                    .remainingQuantity(quantity)
+                    .timestamp(START.plusMillis(sequence++));
+            if (kind < 75) {
+                order.type(OrderType.LIMIT).price(price);
+            } else if (kind < 83) {
+                order.type(OrderType.MARKET);
+            } else if (kind < 90) {
+                order.type(OrderType.LIMIT).price(price).timeInForce(TimeInForce.IOC);
+            } else {
+                long stop = side == OrderSide.BUY ? mid + 5 * TICK : mid - 5 * TICK;
+                order.type(OrderType.STOP_LIMIT).stopPrice(stop).price(stop);
+            }
+            BookOrder built = order.build();
+            submitted.add(built);
+            pipeline.submitOrder(built, ack, System.nanoTime());
+        }
+    }
+
+    /**
+     * One engine lifetime over the shared journal directory
+     */
+    private static final class Run implements OutputHandler {
+
+        final MatchingEngine engine;
+        final MatchingPipeline pipeline;
+        final ConcurrentLinkedQueue<Trade> trades = new ConcurrentLinkedQueue<>();
+        final AtomicInteger duplicates = new AtomicInteger();
+
+        private Run(MatchingConfigProperties properties) {
+            this.engine = new MatchingEngine(properties);
+            this.pipeline = new MatchingPipeline(engine, this,
+                    properties, new LatencyMetrics(new SimpleMeterRegistry(), properties));
+        }
+
+        static Run start(MatchingConfigProperties properties) {
+            Run run = new Run(properties);
+            run.pipeline.start();
+            return run;
+        }
+
+        @Override
+        public void onOutput(EngineOutput output) {
+            if (output.isDuplicate()) {
+                duplicates.incrementAndGet();
+            }
+            if (output.getResult() != null) {
+                trades.addAll(output.getResult().getTrades());
+            }
+            if (output.getAck() != null) {
+                output.getAck().ack();
+            }
+        }
+
+        void submit(OrderFlow flow, int commands) throws InterruptedException {
+            Settled settled = new Settled(commands);
+            for (int i = 0; i < commands; i++) {
+                flow.next(pipeline, settled);
+            }
+            settled.await();
+        }
+
+        void submitOrders(BookOrder... orders) throws InterruptedException {
+            Settled settled = new Settled(orders.length);
+            for (BookOrder order : orders) {
+                pipeline.submitOrder(order, settled, System.nanoTime());
+            }
+            settled.await();
+        }
+
+        /**
+         * Stop the pipeline and copy the state of every book it held
+         */
+        Map<String, byte[]> stop() throws InterruptedException {
+            pipeline.stop();
+            Map<String, byte[]> states = new TreeMap<>();
+            for (String symbol : engine.getActiveSymbols()) {
+                OrderBook book = engine.getOrderBook(symbol);
+                ByteBuffer state = ByteBuffer.allocate(book.stateSize());
+                book.writeState(state);
+                states.put(symbol, state.array());
+            }
+            return states;
+        }
+    }
+
+    private static final class Settled implements DeliveryAck {
+
+        private final CountDownLatch latch;
+
+        Settled(int commands) {
+            this.latch = new CountDownLatch(commands);
+        }
+
+        void await() throws InterruptedException {
+            assertThat(latch.await(30, TimeUnit.SECONDS)).as("commands settled").isTrue();
+        }
+
+        @Override
+        public void ack() {
+            latch.countDown();
+        }
+
+        @Override
+        public void reject(Throwable cause) {
+            latch.countDown();
+        }
+
+        @Override
+        public void deadLetter(Throwable cause) {
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.tradeflow.matching.messaging;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
+import com.tradeflow.common.event.CancelReplaceResultEvent;
+import com.tradeflow.common.event.OrderExpiredEvent;
+import com.tradeflow.matching.engine.DeliveryAck;
+import com.tradeflow.matching.engine.EngineCommand;
+import com.tradeflow.matching.engine.EngineOutput;
+import com.tradeflow.matching.orderbook.BookOrder;
+import com.tradeflow.matching.orderbook.MatchResult;
+import com.tradeflow.matching.orderbook.OrderBook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.net.ConnectException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A confirmation or expiry notice to OMS that RabbitMQ did not take is
+ * parked, and the command is only acked once it is stored, so it cannot
+ * be lost.
+ */
+class EngineOutputPublisherTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final TradeOutbox tradeOutbox = mock(TradeOutbox.class);
+    private final ResponseOutbox responseOutbox = mock(ResponseOutbox.class);
+    private final DeliveryAck ack = mock(DeliveryAck.class);
+    private EngineOutputPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        publisher = new EngineOutputPublisher(mock(TradePublisher.class),
+                new OrderResponsePublisher(rabbitTemplate), tradeOutbox, responseOutbox);
+    }
+
+    @Test
+    void confirmationIsAckedOnceSent() {
+        publisher.onOutput(cancelReplaceOutput());
+
+        verify(responseOutbox, never()).park(any(), any());
+        verify(ack).ack();
+    }
+
+    @Test
+    void failedConfirmationIsParkedBeforeTheAck() {
+        doThrow(new AmqpConnectException(new ConnectException("refused")))
+                .when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                        any(CorrelationData.class));
+        CompletableFuture<Void> stored = new CompletableFuture<>();
+        when(responseOutbox.park(any(), any())).thenReturn(stored);
+
+        publisher.onOutput(cancelReplaceOutput());
+
+        verify(responseOutbox).park(any(CancelReplaceResultEvent.class), any());
+        verify(ack, never()).ack();
+        stored.complete(null);
+        verify(ack).ack();
+        verify(ack, never()).reject(any());
+    }
+
+    @Test
+    void failedExpiryNoticeIsParkedBeforeTheAck() {
+        doThrow(new AmqpConnectException(new ConnectException("refused")))
+                .when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class),
+                        any(CorrelationData.class));
+        CompletableFuture<Void> stored = new CompletableFuture<>();
+        when(responseOutbox.park(any(), any())).thenReturn(stored);
+
+        publisher.onOutput(expiredOutput());
+
+        verify(responseOutbox).park(any(OrderExpiredEvent.class), any());
+        verify(ack, never()).ack();
+        stored.complete(null);
+        verify(ack).ack();
+    }
+
+    private EngineOutput expiredOutput() {
+        BookOrder order = BookOrder.builder()
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .symbol("BTCUSDT")
+                .side(OrderSide.BUY)
+                .type(OrderType.LIMIT)
+                .timeInForce(TimeInForce.IOC)
+                .price(100L)
+                .originalQuantity(5L)
+                .remainingQuantity(5L)
+                .build();
+        EngineOutput output = new EngineOutput();
+        output.setType(EngineCommand.Type.NEW_ORDER);
+        output.setSymbol("BTCUSDT");
+        output.setResult(MatchResult.builder()
+                .order(order)
+                .remainingQuantity(0L)
+                .expiredQuantity(5L)
+                .trades(List.of())
+                .build());
+        output.setAck(ack);
+        return output;
+    }
+
+    private EngineOutput cancelReplaceOutput() {
+        EngineOutput output = new EngineOutput();
+        output.setType(EngineCommand.Type.CANCEL_REPLACE);
+        output.setSymbol("BTCUSDT");
+        output.setOrderId(UUID.randomUUID());
+        output.setRequestId(UUID.randomUUID());
+        output.setCancelReplace(new OrderBook.CancelReplaceResult(
+                OrderBook.CancelReplaceStatus.CANCELLED, 100L, 5L, 100L, 0L, null));
+        output.setAck(ack);
+        return output;
+    }
+}
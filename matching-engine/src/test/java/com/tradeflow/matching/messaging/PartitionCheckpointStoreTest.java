@@ -0,0 +1,45 @@
+package com.tradeflow.matching.messaging;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A checkpoint reads back as the offset and book states it was written
+ * with, and a damaged one reads back as no checkpoint at all.
+ */
+class PartitionCheckpointStoreTest {
+
+    @Test
+    void checkpointRoundTrips() {
+        Map<String, ByteBuffer> books = new TreeMap<>();
+        books.put("BTCUSDT", ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}));
+        books.put("ETHUSDT", ByteBuffer.wrap(new byte[0]));
+        PartitionCheckpointStore.Checkpoint checkpoint = new PartitionCheckpointStore.Checkpoint(4_217L, books);
+
+        PartitionCheckpointStore.Checkpoint decoded =
+                PartitionCheckpointStore.decode(PartitionCheckpointStore.encode(checkpoint));
+
+        assertThat(decoded).isNotNull();
+        assertThat(decoded.offset()).isEqualTo(4_217L);
+        assertThat(decoded.books()).containsOnlyKeys("BTCUSDT", "ETHUSDT");
+        assertThat(decoded.books().get("BTCUSDT")).isEqualTo(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}));
+        assertThat(decoded.books().get("ETHUSDT").remaining()).isZero();
+    }
+
+    @Test
+    void damagedCheckpointIsIgnored() {
+        Map<String, ByteBuffer> books = Map.of("BTCUSDT", ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        ByteBuffer encoded = PartitionCheckpointStore.encode(new PartitionCheckpointStore.Checkpoint(9L, books));
+        byte[] bytes = encoded.array();
+
+        bytes[20] ^= 0x40;
+        assertThat(PartitionCheckpointStore.decode(ByteBuffer.wrap(bytes))).isNull();
+
+        assertThat(PartitionCheckpointStore.decode(ByteBuffer.wrap(new byte[]{0, 1, 2}))).isNull();
+    }
+}
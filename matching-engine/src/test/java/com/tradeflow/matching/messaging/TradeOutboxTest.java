@@ -0,0 +1,138 @@
+package com.tradeflow.matching.messaging;
+
+import com.tradeflow.matching.config.MatchingConfigProperties;
+import com.tradeflow.matching.orderbook.Trade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Trades Kafka refused are stored before the delivery is acked, resent
+ * with backoff until one attempt succeeds, and survive a restart.
+ */
+class TradeOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    private final TradePublisher tradePublisher = mock(TradePublisher.class);
+    private final List<List<Trade>> delivered = new CopyOnWriteArrayList<>();
+    private TradeOutbox outbox;
+
+    @AfterEach
+    void stopOutbox() {
+        if (outbox != null) {
+            outbox.stop();
+        }
+    }
+
+    @Test
+    void parkedTradesAreResentUntilAcknowledged() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        when(tradePublisher.publishTrades(anyList())).thenAnswer(invocation -> {
+            if (attempts.incrementAndGet() < 3) {
+                return CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+            }
+            delivered.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(null);
+        });
+        outbox = start();
+        List<Trade> trades = List.of(trade(7), trade(8));
+
+        outbox.park(trades, new IllegalStateException("broker down")).get(5, TimeUnit.SECONDS);
+        assertThat(batchFiles()).hasSize(1);
+
+        awaitDelivery();
+        assertThat(delivered).containsExactly(trades);
+        assertThat(attempts).hasValue(3);
+        awaitNoBatchFiles();
+    }
+
+    @Test
+    void batchesLeftByAPreviousRunAreResentOnStart() throws Exception {
+        when(tradePublisher.publishTrades(anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        TradeOutbox crashed = start();
+        List<Trade> trades = List.of(trade(1), trade(2), trade(3));
+        crashed.park(trades, new IllegalStateException("broker down")).get(5, TimeUnit.SECONDS);
+        crashed.stop();
+
+        when(tradePublisher.publishTrades(anyList())).thenAnswer(invocation -> {
+            delivered.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(null);
+        });
+        outbox = start();
+
+        awaitDelivery();
+        assertThat(delivered).containsExactly(trades);
+        awaitNoBatchFiles();
+    }
+
+    private TradeOutbox start() {
+        MatchingConfigProperties properties = new MatchingConfigProperties();
+        properties.getPublishing().setOutboxDirectory(directory.toString());
+        properties.getPublishing().setRetryBackoff(Duration.ofMillis(10));
+        properties.getPublishing().setMaxRetryBackoff(Duration.ofMillis(40));
+        TradeOutbox started = new TradeOutbox(tradePublisher, properties);
+        started.start();
+        return started;
+    }
+
+    private void awaitDelivery() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (delivered.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitNoBatchFiles() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!batchFiles().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(batchFiles()).isEmpty();
+    }
+
+    private List<Path> batchFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".trades")).toList();
+        }
+    }
+
+    private static Trade trade(long sequence) {
+        return Trade.builder()
+                .tradeId(new UUID(42, sequence))
+                .tradeSequence(sequence)
+                .symbol("BTCUSDT")
+                .makerOrderId(UUID.randomUUID())
+                .makerUserId(UUID.randomUUID())
+                .takerOrderId(UUID.randomUUID())
+                .takerUserId(UUID.randomUUID())
+                .buyOrderId(UUID.randomUUID())
+                .buyUserId(UUID.randomUUID())
+                .sellOrderId(UUID.randomUUID())
+                .sellUserId(UUID.randomUUID())
+                .price(65_000_00000000L)
+                .quantity(sequence * 1_000_000L)
+                .timestamp(Instant.parse("2026-01-05T00:00:00.123456789Z"))
+                .build();
+    }
+}
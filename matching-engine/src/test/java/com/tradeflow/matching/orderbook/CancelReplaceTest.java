@@ -0,0 +1,192 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.matching.config.MatchingConfigProperties.BookType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Cancel/replace against a resting order, on every book type: reducing
+ * at the same price keeps the order's place in its queue, a price change
+ * or a larger size re-enters it at the back (matching first if it now
+ * crosses), and nothing left to work cancels it.
+ */
+class CancelReplaceTest {
+
+    private static final long UNIT = FixedPoint.toLong(BigDecimal.ONE);
+    private static final long TICK = FixedPoint.toLong(new BigDecimal("0.01"));
+
+    private int sequence;
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void reducingKeepsTimePriority(BookType type) {
+        OrderBook book = newBook(type);
+        BookOrder first = order(OrderSide.SELL, 101 * UNIT, 5 * UNIT);
+        BookOrder second = order(OrderSide.SELL, 101 * UNIT, 5 * UNIT);
+        book.addOrder(first);
+        book.addOrder(second);
+        long updateId = book.getUpdateId();
+
+        OrderBook.CancelReplaceResult result =
+                book.cancelReplace(first.getOrderId(), OrderSide.SELL, OrderBook.NO_PRICE, 3 * UNIT);
+
+        assertThat(result.status()).isEqualTo(OrderBook.CancelReplaceStatus.REDUCED);
+        assertThat(result.previousRemainingQuantity()).isEqualTo(5 * UNIT);
+        assertThat(result.remainingQuantity()).isEqualTo(3 * UNIT);
+        assertThat(result.price()).isEqualTo(101 * UNIT);
+        assertThat(book.getUpdateId()).isEqualTo(updateId + 1);
+        assertThat(book.getBestAskQuantity()).isEqualTo(8 * UNIT);
+
+        MatchResult taker = book.addOrder(order(OrderSide.BUY, 101 * UNIT, 4 * UNIT));
+        assertThat(taker.getTrades()).extracting(Trade::getMakerOrderId, Trade::getQuantity)
+                .containsExactly(
+                        tuple(first.getOrderId(), 3 * UNIT),
+                        tuple(second.getOrderId(), UNIT));
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void reducingAPartiallyFilledOrderCountsItsFills(BookType type) {
+        OrderBook book = newBook(type);
+        BookOrder maker = order(OrderSide.SELL, 101 * UNIT, 5 * UNIT);
+        book.addOrder(maker);
+        book.addOrder(order(OrderSide.BUY, 101 * UNIT, 2 * UNIT));
+
+        // New total of 4 with 2 filled leaves 2 to work
+        OrderBook.CancelReplaceResult result =
+                book.cancelReplace(maker.getOrderId(), OrderSide.SELL, OrderBook.NO_PRICE, 4 * UNIT);
+
+        assertThat(result.status()).isEqualTo(OrderBook.CancelReplaceStatus.REDUCED);
+        assertThat(result.previousRemainingQuantity()).isEqualTo(3 * UNIT);
+        assertThat(result.remainingQuantity()).isEqualTo(2 * UNIT);
+        assertThat(book.getBestAskQuantity()).isEqualTo(2 * UNIT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void growingLosesTimePriority(BookType type) {
+        OrderBook book = newBook(type);
+        BookOrder first = order(OrderSide.SELL, 101 * UNIT, 5 * UNIT);
+        BookOrder second = order(OrderSide.SELL, 101 * UNIT, 5 * UNIT);
+        book.addOrder(first);
+        book.addOrder(second);
+
+        OrderBook.CancelReplaceResult result =
+                book.cancelReplace(first.getOrderId(), OrderSide.SELL, OrderBook.NO_PRICE, 6 * UNIT);
+
+        assertThat(result.status()).isEqualTo(OrderBook.CancelReplaceStatus.REPLACED);
+        assertThat(result.remainingQuantity()).isEqualTo(6 * UNIT);
+        assertThat(result.match().getTrades()).isEmpty();
+        assertThat(book.getBestAskQuantity()).isEqualTo(11 * UNIT);
+
+        MatchResult taker = book.addOrder(order(OrderSide.BUY, 101 * UNIT, 5 * UNIT));
+        assertThat(taker.getTrades()).extracting(Trade::getMakerOrderId).containsExactly(second.getOrderId());
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void repricingAcrossTheSpreadMatches(BookType type) {
+        OrderBook book = newBook(type);
+        BookOrder bid = order(OrderSide.BUY, 100 * UNIT, 3 * UNIT);
+        BookOrder ask = order(OrderSide.SELL, 102 * UNIT, 5 * UNIT);
+        book.addOrder(bid);
+        book.addOrder(ask);
+
+        OrderBook.CancelReplaceResult result =
+                book.cancelReplace(ask.getOrderId(), OrderSide.SELL, 100 * UNIT, 5 * UNIT);
+
+        assertThat(result.status()).isEqualTo(OrderBook.CancelReplaceStatus.REPLACED);
+        assertThat(result.previousPrice()).isEqualTo(102 * UNIT);
+        assertThat(result.price()).isEqualTo(100 * UNIT);
+        assertThat(result.match().getTrades()).singleElement().satisfies(trade -> {
+            assertThat(trade.getMakerOrderId()).isEqualTo(bid.getOrderId());
+            assertThat(trade.getTakerOrderId()).isEqualTo(ask.getOrderId());
+            assertThat(trade.getPrice()).isEqualTo(100 * UNIT);
+            assertThat(trade.getQuantity()).isEqualTo(3 * UNIT);
+        });
+        // The rest of the replaced order now rests at its new price
+        assertThat(book.getBidDepth()).isZero();
+        assertThat(book.getBestAsk()).isEqualTo(100 * UNIT);
+        assertThat(book.getBestAskQuantity()).isEqualTo(2 * UNIT);
+        assertThat(book.estimateFill(OrderSide.BUY, 2 * UNIT).quantity()).isEqualTo(2 * UNIT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void samePriceAndSizeChangesNothing(BookType type) {
+        OrderBook book = newBook(type);
+        BookOrder maker = order(OrderSide.BUY, 100 * UNIT, 5 * UNIT);
+        book.addOrder(maker);
+        long updateId = book.getUpdateId();
+
+        OrderBook.CancelReplaceResult result =
+                book.cancelReplace(maker.getOrderId(), OrderSide.BUY, 100 * UNIT, 5 * UNIT);
+
+        assertThat(result.status()).isEqualTo(OrderBook.CancelReplaceStatus.UNCHANGED);
+        assertThat(result.remainingQuantity()).isEqualTo(5 * UNIT);
+        assertThat(book.getUpdateId()).isEqualTo(updateId);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void unknownOrWrongSideOrdersAreNotFound(BookType type) {
+        OrderBook book = newBook(type);
+        BookOrder maker = order(OrderSide.BUY, 100 * UNIT, 5 * UNIT);
+        book.addOrder(maker);
+
+        assertThat(book.cancelReplace(UUID.randomUUID(), OrderSide.BUY, OrderBook.NO_PRICE, UNIT))
+                .isEqualTo(OrderBook.CancelReplaceResult.notFound());
+        assertThat(book.cancelReplace(maker.getOrderId(), OrderSide.SELL, OrderBook.NO_PRICE, UNIT))
+                .isEqualTo(OrderBook.CancelReplaceResult.notFound());
+        assertThat(book.getBestBidQuantity()).isEqualTo(5 * UNIT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void reducingToTheFilledQuantityCancels(BookType type) {
+        OrderBook book = newBook(type);
+        BookOrder maker = order(OrderSide.SELL, 101 * UNIT, 5 * UNIT);
+        book.addOrder(maker);
+        book.addOrder(order(OrderSide.BUY, 101 * UNIT, 2 * UNIT));
+
+        OrderBook.CancelReplaceResult result =
+                book.cancelReplace(maker.getOrderId(), OrderSide.SELL, OrderBook.NO_PRICE, 2 * UNIT);
+
+        assertThat(result.status()).isEqualTo(OrderBook.CancelReplaceStatus.CANCELLED);
+        assertThat(result.previousRemainingQuantity()).isEqualTo(3 * UNIT);
+        assertThat(result.remainingQuantity()).isZero();
+        assertThat(book.getAskDepth()).isZero();
+        assertThat(book.estimateFill(OrderSide.BUY, UNIT).exhausted()).isTrue();
+        assertThat(book.cancelOrder(maker.getOrderId(), OrderSide.SELL)).isFalse();
+    }
+
+    private static OrderBook newBook(BookType type) {
+        return switch (type) {
+            case SKIP_LIST -> new SkipListOrderBook("CRUSDT", false);
+            case TICK_LADDER -> new TickLadderOrderBook("CRUSDT", TICK, 1024, false);
+        };
+    }
+
+    private BookOrder order(OrderSide side, long price, long quantity) {
+        return BookOrder.builder()
+                .orderId(new UUID(3, sequence))
+                .userId(new UUID(0, side.ordinal()))
+                .symbol("CRUSDT")
+                .side(side)
+                .type(OrderType.LIMIT)
+                .price(price)
+                .originalQuantity(quantity)
+                .remainingQuantity(quantity)
+                .timestamp(Instant.parse("2026-01-05T00:00:00Z").plusMillis(sequence++))
+                .build();
+    }
+}
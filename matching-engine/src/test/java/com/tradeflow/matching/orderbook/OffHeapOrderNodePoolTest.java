@@ -0,0 +1,236 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Off-heap nodes must hold exactly what heap nodes hold: every field
+ * written or updated reads back unchanged, across chunk boundaries and
+ * handle reuse, and books built on either pool match the same way.
+ */
+class OffHeapOrderNodePoolTest {
+
+    private static final long UNIT = FixedPoint.toLong(BigDecimal.ONE);
+    private static final long TICK = FixedPoint.toLong(new BigDecimal("0.01"));
+
+    // Levels by side and price, standing in for the book's own lookup
+    private final Map<String, BookLevel> levels = new HashMap<>();
+    private final OffHeapOrderNodePool pool = new OffHeapOrderNodePool(
+            (side, price) -> levels.get(side + "@" + price));
+
+    @Test
+    void fieldsReadBackAsWritten() {
+        int node = pool.acquire(1L, 2L, 3L, 4L, OrderSide.SELL, 5L, 6L, 7L, 8L, 9L);
+
+        assertThat(pool.orderIdHi(node)).isEqualTo(1L);
+        assertThat(pool.orderIdLo(node)).isEqualTo(2L);
+        assertThat(pool.userIdHi(node)).isEqualTo(3L);
+        assertThat(pool.userIdLo(node)).isEqualTo(4L);
+        assertThat(pool.side(node)).isEqualTo(OrderSide.SELL);
+        assertThat(pool.price(node)).isEqualTo(5L);
+        assertThat(pool.originalQuantity(node)).isEqualTo(6L);
+        assertThat(pool.remainingQuantity(node)).isEqualTo(7L);
+        assertThat(pool.timestampNanos(node)).isEqualTo(8L);
+        assertThat(pool.sequenceNumber(node)).isEqualTo(9L);
+        assertThat(pool.prev(node)).isEqualTo(OrderNodePool.NIL);
+        assertThat(pool.next(node)).isEqualTo(OrderNodePool.NIL);
+
+        pool.remainingQuantity(node, 3L);
+        pool.originalQuantity(node, 4L);
+        pool.prev(node, 11);
+        pool.next(node, 12);
+        assertThat(pool.remainingQuantity(node)).isEqualTo(3L);
+        assertThat(pool.originalQuantity(node)).isEqualTo(4L);
+        assertThat(pool.prev(node)).isEqualTo(11);
+        assertThat(pool.next(node)).isEqualTo(12);
+        // Neighbouring fields are untouched by the updates
+        assertThat(pool.timestampNanos(node)).isEqualTo(8L);
+        assertThat(pool.side(node)).isEqualTo(OrderSide.SELL);
+    }
+
+    @Test
+    void levelIsFoundBySideAndPrice() {
+        BookLevel bid = new BookLevel(100L);
+        BookLevel ask = new BookLevel(100L);
+        levels.put(OrderSide.BUY + "@100", bid);
+        levels.put(OrderSide.SELL + "@100", ask);
+
+        int buy = pool.acquire(1L, 1L, 0L, 0L, OrderSide.BUY, 100L, 1L, 1L, 0L, 1L);
+        int sell = pool.acquire(2L, 2L, 0L, 0L, OrderSide.SELL, 100L, 1L, 1L, 0L, 2L);
+
+        assertThat(pool.level(buy)).isSameAs(bid);
+        assertThat(pool.level(sell)).isSameAs(ask);
+    }
+
+    @Test
+    void growsAcrossChunksWithoutDisturbingEarlierNodes() {
+        int count = 3 * 1024 + 17;
+        int[] nodes = new int[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = pool.acquire(i, -i, i * 3L, i * 5L, i % 2 == 0 ? OrderSide.BUY : OrderSide.SELL,
+                    i * 7L, i * 11L, i * 13L, i * 17L, i * 19L);
+            pool.next(nodes[i], i - 1);
+        }
+
+        assertThat(pool.size()).isEqualTo(count);
+        for (int i = 0; i < count; i++) {
+            int node = nodes[i];
+            assertThat(node).isEqualTo(i);
+            assertThat(pool.orderIdHi(node)).isEqualTo(i);
+            assertThat(pool.orderIdLo(node)).isEqualTo(-i);
+            assertThat(pool.userIdHi(node)).isEqualTo(i * 3L);
+            assertThat(pool.userIdLo(node)).isEqualTo(i * 5L);
+            assertThat(pool.side(node)).isEqualTo(i % 2 == 0 ? OrderSide.BUY : OrderSide.SELL);
+            assertThat(pool.price(node)).isEqualTo(i * 7L);
+            assertThat(pool.originalQuantity(node)).isEqualTo(i * 11L);
+            assertThat(pool.remainingQuantity(node)).isEqualTo(i * 13L);
+            assertThat(pool.timestampNanos(node)).isEqualTo(i * 17L);
+            assertThat(pool.sequenceNumber(node)).isEqualTo(i * 19L);
+            assertThat(pool.next(node)).isEqualTo(i - 1);
+        }
+    }
+
+    @Test
+    void releasedHandlesAreReusedLikeOnHeap() {
+        OrderNodePool heap = new HeapOrderNodePool(16);
+        Random random = new Random(3);
+        List<Integer> live = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            if (live.isEmpty() || random.nextInt(3) > 0) {
+                long id = random.nextLong();
+                int offHeapNode = pool.acquire(id, step, 0L, 0L, OrderSide.BUY, step, step, step, step, step);
+                int heapNode = heap.acquire(id, step, 0L, 0L, OrderSide.BUY, step, step, step, step, step);
+                assertThat(offHeapNode).isEqualTo(heapNode);
+                live.add(offHeapNode);
+            } else {
+                int node = live.remove(random.nextInt(live.size()));
+                pool.release(node);
+                heap.release(node);
+            }
+        }
+
+        assertThat(pool.size()).isEqualTo(live.size()).isEqualTo(heap.size());
+        for (int node : live) {
+            assertThat(pool.orderIdHi(node)).isEqualTo(heap.orderIdHi(node));
+            assertThat(pool.orderIdLo(node)).isEqualTo(heap.orderIdLo(node));
+            assertThat(pool.price(node)).isEqualTo(heap.price(node));
+        }
+    }
+
+    @Test
+    void skipListBooksMatchTheSameWayOnAndOffHeap() {
+        assertSameMatching(offHeap -> new SkipListOrderBook("PARITYUSDT", offHeap));
+    }
+
+    @Test
+    void tickLadderBooksMatchTheSameWayOnAndOffHeap() {
+        assertSameMatching(offHeap -> new TickLadderOrderBook("PARITYUSDT", TICK, 1024, offHeap));
+    }
+
+    /**
+     * Run one seeded flow of adds, cancels and amends through a heap and an
+     * off-heap book and compare every result and the final state
+     */
+    private static void assertSameMatching(Function<Boolean, OrderBook> books) {
+        OrderBook heap = books.apply(false);
+        OrderBook offHeap = books.apply(true);
+        Random random = new Random(11);
+        List<BookOrder> resting = new ArrayList<>();
+        Instant start = Instant.parse("2026-01-05T00:00:00Z");
+
+        for (int i = 0; i < 20_000; i++) {
+            int kind = random.nextInt(100);
+            if (kind < 15 && !resting.isEmpty()) {
+                BookOrder target = resting.remove(random.nextInt(resting.size()));
+                assertThat(offHeap.cancelOrder(target.getOrderId(), target.getSide()))
+                        .isEqualTo(heap.cancelOrder(target.getOrderId(), target.getSide()));
+            } else if (kind < 25 && !resting.isEmpty()) {
+                BookOrder target = resting.get(random.nextInt(resting.size()));
+                long price = (10_000 + random.nextInt(60) - 30) * TICK;
+                long quantity = (1 + random.nextInt(40)) * UNIT / 4;
+                assertThat(describe(offHeap.cancelReplace(target.getOrderId(), target.getSide(), price, quantity)))
+                        .isEqualTo(describe(heap.cancelReplace(target.getOrderId(), target.getSide(), price, quantity)));
+            } else {
+                OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+                long quantity = (1 + random.nextInt(40)) * UNIT / 4;
+                BookOrder.BookOrderBuilder builder = BookOrder.builder()
+                        .orderId(new UUID(random.nextLong(), random.nextLong()))
+                        .userId(new UUID(0, random.nextInt(100)))
+                        .symbol("PARITYUSDT")
+                        .side(side)
+                        .originalQuantity(quantity)
+                        .remainingQuantity(quantity)
+                        .timestamp(start.plusMillis(i));
+                if (kind < 90) {
+                    builder.type(OrderType.LIMIT).price((10_000 + random.nextInt(60) - 30) * TICK);
+                } else if (kind < 95) {
+                    builder.type(OrderType.MARKET);
+                } else {
+                    builder.type(OrderType.LIMIT).price((10_000 + random.nextInt(60) - 30) * TICK)
+                            .timeInForce(TimeInForce.IOC);
+                }
+                BookOrder order = builder.build();
+                MatchResult heapResult = heap.addOrder(order);
+                MatchResult offHeapResult = offHeap.addOrder(order);
+                assertThat(describe(offHeapResult)).isEqualTo(describe(heapResult));
+                if (heapResult.getRemainingQuantity() > 0 && order.getType() == OrderType.LIMIT
+                        && order.getTimeInForce() == TimeInForce.GTC) {
+                    resting.add(order);
+                }
+            }
+            assertThat(offHeap.drainChanges()).usingRecursiveComparison().ignoringFields("timestamp")
+                    .isEqualTo(heap.drainChanges());
+        }
+
+        assertThat(offHeap.getSnapshot(100)).usingRecursiveComparison().ignoringFields("timestamp")
+                .isEqualTo(heap.getSnapshot(100));
+        assertThat(state(offHeap)).isEqualTo(state(heap));
+    }
+
+    /**
+     * Everything about a match except the clock readings of its trades
+     */
+    private static String describe(MatchResult result) {
+        if (result == null) {
+            return "none";
+        }
+        StringBuilder description = new StringBuilder()
+                .append(result.getRemainingQuantity()).append('/')
+                .append(result.getFilledQuantity()).append('/')
+                .append(result.getFilledNotional()).append('/')
+                .append(result.getExpiredQuantity());
+        for (Trade trade : result.getTrades()) {
+            description.append(' ').append(trade.getTradeId())
+                    .append(':').append(trade.getMakerOrderId())
+                    .append(':').append(trade.getPrice())
+                    .append(':').append(trade.getQuantity());
+        }
+        return description.toString();
+    }
+
+    private static String describe(OrderBook.CancelReplaceResult result) {
+        return result.status() + " " + result.previousPrice() + " " + result.previousRemainingQuantity()
+                + " " + result.price() + " " + result.remainingQuantity() + " " + describe(result.match());
+    }
+
+    private static byte[] state(OrderBook book) {
+        ByteBuffer state = ByteBuffer.allocate(book.stateSize());
+        book.writeState(state);
+        return state.array();
+    }
+}
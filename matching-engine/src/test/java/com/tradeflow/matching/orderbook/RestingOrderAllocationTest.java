@@ -0,0 +1,155 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Steady-state matching must allocate nothing for resting-order
+ * bookkeeping: orders rest in pooled nodes, fills update them in place and
+ * emptied levels are recycled. The only objects left are the outputs
+ * handed back to the caller: match results, trades and level deltas.
+ *
+ * JFR samples allocations on the matching thread while a warm tick ladder
+ * book cycles through rest, partial fill and cancel. Samples are taken as
+ * allocations fill up thread-local buffers, so anything allocated on every
+ * cycle shows up among them.
+ */
+class RestingOrderAllocationTest {
+
+    private static final long TICK = FixedPoint.toLong(BigDecimal.ONE);
+    private static final int PRICES = 16;
+    private static final int WARMUP_CYCLES = 300_000;
+    private static final int MEASURED_CYCLES = 1_000_000;
+
+    // What addOrder hands back: the result, its trade list and the one
+    // clock reading its trades share
+    private static final Set<String> RESULT_CLASSES = Set.of(
+            MatchResult.class.getName(),
+            MatchResult.MatchResultBuilder.class.getName(),
+            ArrayList.class.getName(),
+            Object[].class.getName(),
+            Instant.class.getName());
+
+    // Methods building outputs; everything they allocate is handed out
+    private static final Set<String> OUTPUT_METHODS = Set.of("createTrade", "drainChanges");
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest(name = "offHeap={0}")
+    @ValueSource(booleans = {false, true})
+    void steadyStateMatchingAllocatesNothingForRestingOrders(boolean offHeap) throws Exception {
+        OrderBook book = new TickLadderOrderBook("ALLOCUSDT", TICK, 1024, offHeap);
+        BookOrder[] bids = new BookOrder[PRICES];
+        BookOrder[] asks = new BookOrder[PRICES];
+        for (int i = 0; i < PRICES; i++) {
+            long price = (100 + i) * TICK;
+            bids[i] = order(OrderSide.BUY, price, 10 * TICK);
+            asks[i] = order(OrderSide.SELL, price, 4 * TICK);
+        }
+
+        cycle(book, bids, asks, WARMUP_CYCLES);
+
+        Path dump = tempDir.resolve("allocations.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.ObjectAllocationSample").with("throttle", "off").withStackTrace();
+            recording.enable("jdk.ObjectAllocationOutsideTLAB").withStackTrace();
+            recording.start();
+            cycle(book, bids, asks, MEASURED_CYCLES);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        long threadId = Thread.currentThread().threadId();
+        Map<String, Integer> bookkeeping = new TreeMap<>();
+        int samples = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            if (event.getThread() == null || event.getThread().getJavaThreadId() != threadId
+                    || !fromOrderBook(event)) {
+                continue;
+            }
+            samples++;
+            String allocated = event.getClass("objectClass").getName();
+            if (!RESULT_CLASSES.contains(allocated) && !buildsOutput(event)) {
+                bookkeeping.merge(allocated + " at " + allocationSite(event), 1, Integer::sum);
+            }
+        }
+
+        assertThat(samples).as("allocation samples from the order book").isPositive();
+        assertThat(bookkeeping).as("allocations other than match results").isEmpty();
+        assertThat(book.getBidDepth()).isZero();
+        assertThat(book.getAskDepth()).isZero();
+    }
+
+    /**
+     * Each cycle rests a bid, fills part of it with an ask and cancels the
+     * rest, draining level changes after every command like a shard does
+     */
+    private static void cycle(OrderBook book, BookOrder[] bids, BookOrder[] asks, int cycles) {
+        for (int i = 0; i < cycles; i++) {
+            int slot = i % PRICES;
+            book.addOrder(bids[slot]);
+            book.drainChanges();
+            book.addOrder(asks[slot]);
+            book.drainChanges();
+            if (!book.cancelOrder(bids[slot].getOrderId(), OrderSide.BUY)) {
+                throw new AssertionError("Partially filled bid was not resting");
+            }
+            book.drainChanges();
+        }
+    }
+
+    private static BookOrder order(OrderSide side, long price, long quantity) {
+        return BookOrder.builder()
+                .orderId(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .symbol("ALLOCUSDT")
+                .side(side)
+                .type(OrderType.LIMIT)
+                .price(price)
+                .originalQuantity(quantity)
+                .remainingQuantity(quantity)
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    private static boolean fromOrderBook(RecordedEvent event) {
+        return event.getStackTrace() != null && event.getStackTrace().getFrames().stream()
+                .map(frame -> frame.getMethod().getType().getName())
+                .anyMatch(type -> type.startsWith(OrderBook.class.getPackageName() + ".")
+                        && !type.startsWith(RestingOrderAllocationTest.class.getName()));
+    }
+
+    private static boolean buildsOutput(RecordedEvent event) {
+        return event.getStackTrace().getFrames().stream()
+                .anyMatch(frame -> OUTPUT_METHODS.contains(frame.getMethod().getName()));
+    }
+
+    private static String allocationSite(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        return frames.stream()
+                .limit(6)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .toList()
+                .toString();
+    }
+}
@@ -0,0 +1,218 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.matching.config.MatchingConfigProperties.BookType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stop and stop-limit orders on every book type: parked off the book until
+ * a trade reaches their stop price, then matched as the market or limit
+ * order they become, possibly triggering further stops. Parked stops can
+ * be cancelled and survive a copy of the book's state.
+ */
+class StopOrderTest {
+
+    private static final long UNIT = FixedPoint.toLong(BigDecimal.ONE);
+    private static final long TICK = FixedPoint.toLong(new BigDecimal("0.01"));
+
+    private int sequence;
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void stopWaitsForATradeAtItsPrice(BookType type) {
+        OrderBook book = newBook(type);
+        book.addOrder(limit(OrderSide.SELL, 101 * UNIT, UNIT));
+        book.addOrder(limit(OrderSide.SELL, 103 * UNIT, 5 * UNIT));
+        BookOrder stop = stop(OrderSide.BUY, OrderType.STOP, 101 * UNIT, 0, 2 * UNIT);
+
+        MatchResult parked = book.addOrder(stop);
+        assertThat(parked.getTrades()).isEmpty();
+        assertThat(book.getStopOrderCount()).isEqualTo(1);
+        assertThat(book.isKnownOrder(stop.getOrderId())).isTrue();
+        assertThat(book.pollTriggered()).isNull();
+        // Parked off the book: no depth, nothing for a taker to fill
+        assertThat(book.getBidDepth()).isZero();
+
+        book.addOrder(limit(OrderSide.BUY, 101 * UNIT, UNIT));
+
+        BookOrder triggered = book.pollTriggered();
+        assertThat(triggered.getOrderId()).isEqualTo(stop.getOrderId());
+        assertThat(triggered.getType()).isEqualTo(OrderType.MARKET);
+        assertThat(book.getStopOrderCount()).isZero();
+        MatchResult result = book.addOrder(triggered);
+        assertThat(result.getTrades()).extracting(Trade::getPrice).containsExactly(103 * UNIT);
+        assertThat(result.getFilledQuantity()).isEqualTo(2 * UNIT);
+        assertThat(book.pollTriggered()).isNull();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void stopLimitRestsAtItsLimitOnceTriggered(BookType type) {
+        OrderBook book = newBook(type);
+        book.addOrder(limit(OrderSide.BUY, 100 * UNIT, UNIT));
+        book.addOrder(limit(OrderSide.BUY, 95 * UNIT, 5 * UNIT));
+        BookOrder stop = stop(OrderSide.SELL, OrderType.STOP_LIMIT, 100 * UNIT, 98 * UNIT, 3 * UNIT);
+        book.addOrder(stop);
+
+        book.addOrder(limit(OrderSide.SELL, 100 * UNIT, UNIT));
+        BookOrder triggered = book.pollTriggered();
+        assertThat(triggered.getType()).isEqualTo(OrderType.LIMIT);
+        assertThat(triggered.getPrice()).isEqualTo(98 * UNIT);
+
+        // Nothing left at or above 98, so the whole order rests there
+        MatchResult result = book.addOrder(triggered);
+        assertThat(result.getTrades()).isEmpty();
+        assertThat(book.getBestAsk()).isEqualTo(98 * UNIT);
+        assertThat(book.getBestAskQuantity()).isEqualTo(3 * UNIT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void triggeredStopsTriggerFurtherStops(BookType type) {
+        OrderBook book = newBook(type);
+        book.addOrder(limit(OrderSide.BUY, 100 * UNIT, UNIT));
+        book.addOrder(limit(OrderSide.BUY, 99 * UNIT, UNIT));
+        book.addOrder(limit(OrderSide.BUY, 97 * UNIT, 5 * UNIT));
+        BookOrder near = stop(OrderSide.SELL, OrderType.STOP, 100 * UNIT, 0, UNIT);
+        BookOrder further = stop(OrderSide.SELL, OrderType.STOP, 99 * UNIT, 0, UNIT);
+        BookOrder untouched = stop(OrderSide.SELL, OrderType.STOP, 90 * UNIT, 0, UNIT);
+        book.addOrder(further);
+        book.addOrder(near);
+        book.addOrder(untouched);
+
+        // Trades at 100 trigger the first stop only; its sale at 99 triggers the next
+        List<Trade> trades = new ArrayList<>(book.addOrder(limit(OrderSide.SELL, 100 * UNIT, UNIT)).getTrades());
+        List<UUID> triggered = new ArrayList<>();
+        for (BookOrder stop = book.pollTriggered(); stop != null; stop = book.pollTriggered()) {
+            triggered.add(stop.getOrderId());
+            trades.addAll(book.addOrder(stop).getTrades());
+        }
+
+        assertThat(triggered).containsExactly(near.getOrderId(), further.getOrderId());
+        assertThat(trades).extracting(Trade::getPrice).containsExactly(100 * UNIT, 99 * UNIT, 97 * UNIT);
+        assertThat(book.getStopOrderCount()).isEqualTo(1);
+        assertThat(book.isKnownOrder(untouched.getOrderId())).isTrue();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void stopAlreadyCrossedMatchesAtOnce(BookType type) {
+        OrderBook book = newBook(type);
+        book.addOrder(limit(OrderSide.SELL, 101 * UNIT, UNIT));
+        book.addOrder(limit(OrderSide.SELL, 102 * UNIT, UNIT));
+        book.addOrder(limit(OrderSide.BUY, 101 * UNIT, UNIT));
+
+        // The last trade at 101 already reached a buy stop at 100
+        MatchResult result = book.addOrder(stop(OrderSide.BUY, OrderType.STOP, 100 * UNIT, 0, UNIT));
+
+        assertThat(result.getTrades()).extracting(Trade::getPrice).containsExactly(102 * UNIT);
+        assertThat(book.getStopOrderCount()).isZero();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void cancelledStopNeverTriggers(BookType type) {
+        OrderBook book = newBook(type);
+        book.addOrder(limit(OrderSide.SELL, 101 * UNIT, UNIT));
+        book.addOrder(limit(OrderSide.SELL, 102 * UNIT, UNIT));
+        BookOrder stop = stop(OrderSide.BUY, OrderType.STOP, 101 * UNIT, 0, UNIT);
+        book.addOrder(stop);
+
+        assertThat(book.cancelOrder(stop.getOrderId(), OrderSide.SELL)).isFalse();
+        assertThat(book.cancelOrder(stop.getOrderId(), OrderSide.BUY)).isTrue();
+        assertThat(book.getStopOrderCount()).isZero();
+        assertThat(book.cancelOrder(stop.getOrderId(), OrderSide.BUY)).isFalse();
+
+        book.addOrder(limit(OrderSide.BUY, 101 * UNIT, UNIT));
+        assertThat(book.pollTriggered()).isNull();
+        assertThat(book.getBestAskQuantity()).isEqualTo(UNIT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void parkedStopsSurviveAStateCopy(BookType type) {
+        OrderBook book = newBook(type);
+        book.addOrder(limit(OrderSide.SELL, 101 * UNIT, UNIT));
+        book.addOrder(limit(OrderSide.SELL, 102 * UNIT, 3 * UNIT));
+        book.addOrder(limit(OrderSide.BUY, 98 * UNIT, 3 * UNIT));
+        book.addOrder(limit(OrderSide.BUY, 101 * UNIT, UNIT / 2));
+        book.addOrder(stop(OrderSide.BUY, OrderType.STOP, 102 * UNIT, 0, UNIT));
+        book.addOrder(stop(OrderSide.BUY, OrderType.STOP_LIMIT, 102 * UNIT, 103 * UNIT, UNIT));
+        book.addOrder(stop(OrderSide.SELL, OrderType.STOP, 99 * UNIT, 0, UNIT));
+
+        byte[] state = state(book);
+        OrderBook copy = newBook(type);
+        copy.readState(ByteBuffer.wrap(state));
+
+        assertThat(copy.getStopOrderCount()).isEqualTo(3);
+        assertThat(state(copy)).isEqualTo(state);
+
+        // The same trade triggers the same stops, in the same order, on both
+        BookOrder taker = limit(OrderSide.BUY, 102 * UNIT, UNIT);
+        List<String> fills = drain(book, taker);
+        assertThat(fills).hasSize(4);
+        assertThat(drain(copy, taker)).isEqualTo(fills);
+        assertThat(state(copy)).isEqualTo(state(book));
+        assertThat(copy.getStopOrderCount()).isEqualTo(1);
+    }
+
+    /**
+     * Match an order and every stop it sets off, like the engine does
+     */
+    private static List<String> drain(OrderBook book, BookOrder order) {
+        List<String> fills = new ArrayList<>();
+        for (BookOrder next = order; next != null; next = book.pollTriggered()) {
+            for (Trade trade : book.addOrder(next).getTrades()) {
+                fills.add(trade.getTakerOrderId() + " " + trade.getPrice() + " " + trade.getQuantity());
+            }
+        }
+        return fills;
+    }
+
+    private static byte[] state(OrderBook book) {
+        ByteBuffer state = ByteBuffer.allocate(book.stateSize());
+        book.writeState(state);
+        return state.array();
+    }
+
+    private static OrderBook newBook(BookType type) {
+        return switch (type) {
+            case SKIP_LIST -> new SkipListOrderBook("STOPUSDT", false);
+            case TICK_LADDER -> new TickLadderOrderBook("STOPUSDT", TICK, 1024, false);
+        };
+    }
+
+    private BookOrder limit(OrderSide side, long price, long quantity) {
+        return order(side, OrderType.LIMIT, 0, price, quantity);
+    }
+
+    private BookOrder stop(OrderSide side, OrderType type, long stopPrice, long price, long quantity) {
+        return order(side, type, stopPrice, price, quantity);
+    }
+
+    private BookOrder order(OrderSide side, OrderType type, long stopPrice, long price, long quantity) {
+        return BookOrder.builder()
+                .orderId(new UUID(5, sequence))
+                .userId(new UUID(0, sequence))
+                .symbol("STOPUSDT")
+                .side(side)
+                .type(type)
+                .stopPrice(stopPrice)
+                .price(price)
+                .originalQuantity(quantity)
+                .remainingQuantity(quantity)
+                .timestamp(Instant.parse("2026-01-05T00:00:00Z").plusMillis(sequence++))
+                .build();
+    }
+}
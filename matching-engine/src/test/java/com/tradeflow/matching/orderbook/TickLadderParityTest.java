@@ -0,0 +1,268 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * A tick ladder must behave exactly like the skip list it replaces, also
+ * where it leaves its window: prices outside it, re-anchoring once the
+ * best level empties and prices off the tick grid.
+ *
+ * Every command goes to both books; results, levels, update ids and
+ * estimates must match after each one, and the serialized books along
+ * the way. The ladder's window is kept small so the order flow crosses
+ * it all the time.
+ */
+class TickLadderParityTest {
+
+    private static final long UNIT = FixedPoint.toLong(BigDecimal.ONE);
+    private static final long TICK = FixedPoint.toLong(new BigDecimal("0.01"));
+    private static final int CAPACITY = 16;
+    private static final int LEVELS = 1_000;
+
+    private final OrderBook skipList = new SkipListOrderBook("PARUSDT", false);
+    private final OrderBook ladder = new TickLadderOrderBook("PARUSDT", TICK, CAPACITY, false);
+    private int sequence;
+
+    @Test
+    void pricesOutsideTheWindowMatchInPriceOrder() {
+        // One level near the first ask, the rest far beyond the 16-tick window
+        add(limit(OrderSide.SELL, 100 * UNIT, UNIT));
+        add(limit(OrderSide.SELL, 150 * UNIT, UNIT));
+        add(limit(OrderSide.SELL, 100 * UNIT + 40 * TICK, UNIT));
+        add(limit(OrderSide.SELL, 100 * UNIT + 3 * TICK, UNIT));
+        add(limit(OrderSide.SELL, 99 * UNIT, UNIT));
+        add(limit(OrderSide.BUY, 50 * UNIT, UNIT));
+        add(limit(OrderSide.BUY, 98 * UNIT, UNIT));
+        assertThat(ladder.getAskDepth()).isEqualTo(5);
+
+        MatchResult sweep = add(market(OrderSide.BUY, 4 * UNIT));
+        assertThat(sweep.getTrades()).extracting(Trade::getPrice)
+                .containsExactly(99 * UNIT, 100 * UNIT, 100 * UNIT + 3 * TICK, 100 * UNIT + 40 * TICK);
+        assertThat(ladder.getBestAsk()).isEqualTo(150 * UNIT);
+
+        add(market(OrderSide.SELL, 2 * UNIT));
+        assertThat(ladder.getBidDepth()).isZero();
+    }
+
+    @Test
+    void windowFollowsTheTouchOnceTheBestLevelEmpties() {
+        BookOrder best = limit(OrderSide.SELL, 100 * UNIT, UNIT);
+        add(best);
+        add(limit(OrderSide.SELL, 100 * UNIT + 5 * TICK, UNIT));
+        add(limit(OrderSide.SELL, 101 * UNIT, 2 * UNIT));
+        add(limit(OrderSide.SELL, 101 * UNIT + 2 * TICK, UNIT));
+
+        // Emptying the window leaves only levels that were outside it
+        cancel(best.getOrderId(), OrderSide.SELL);
+        add(market(OrderSide.BUY, UNIT));
+        assertThat(ladder.getBestAsk()).isEqualTo(101 * UNIT);
+
+        // New levels either side of the re-anchored touch
+        add(limit(OrderSide.SELL, 101 * UNIT - TICK, UNIT));
+        add(limit(OrderSide.SELL, 101 * UNIT + TICK, UNIT));
+        add(limit(OrderSide.SELL, 100 * UNIT, UNIT));
+        MatchResult sweep = add(market(OrderSide.BUY, 6 * UNIT));
+        assertThat(sweep.getTrades()).extracting(Trade::getPrice).containsExactly(
+                100 * UNIT, 101 * UNIT - TICK, 101 * UNIT, 101 * UNIT + TICK, 101 * UNIT + 2 * TICK);
+        assertThat(ladder.getAskDepth()).isZero();
+
+        // Same on the bid side, where the window grows downwards
+        BookOrder bestBid = limit(OrderSide.BUY, 100 * UNIT, UNIT);
+        add(bestBid);
+        add(limit(OrderSide.BUY, 99 * UNIT, UNIT));
+        add(limit(OrderSide.BUY, 99 * UNIT - 3 * TICK, UNIT));
+        add(market(OrderSide.SELL, UNIT));
+        assertThat(ladder.getBestBid()).isEqualTo(99 * UNIT);
+        add(limit(OrderSide.BUY, 99 * UNIT + TICK, UNIT));
+        add(market(OrderSide.SELL, 3 * UNIT));
+        assertThat(ladder.getBidDepth()).isZero();
+    }
+
+    @Test
+    void offTickPricesKeepTheirPlaceAmongTickPrices() {
+        long halfTick = TICK / 2;
+        add(limit(OrderSide.SELL, 100 * UNIT + halfTick, UNIT));
+        add(limit(OrderSide.SELL, 100 * UNIT, UNIT));
+        add(limit(OrderSide.SELL, 100 * UNIT + TICK, UNIT));
+        add(limit(OrderSide.SELL, 100 * UNIT - halfTick, UNIT));
+        add(limit(OrderSide.BUY, 99 * UNIT + halfTick, UNIT));
+        add(limit(OrderSide.BUY, 99 * UNIT, UNIT));
+        assertThat(ladder.getBestAsk()).isEqualTo(100 * UNIT - halfTick);
+
+        MatchResult sweep = add(limit(OrderSide.BUY, 100 * UNIT + halfTick, 5 * UNIT));
+        assertThat(sweep.getTrades()).extracting(Trade::getPrice)
+                .containsExactly(100 * UNIT - halfTick, 100 * UNIT, 100 * UNIT + halfTick);
+        // The rest bids off the grid, above the former best bid
+        assertThat(ladder.getBestBid()).isEqualTo(100 * UNIT + halfTick);
+
+        // Moved behind the bid already resting off the grid at 99.005
+        replace(sweep.getOrder().getOrderId(), OrderSide.BUY, 99 * UNIT + halfTick, 5 * UNIT);
+        MatchResult sale = add(market(OrderSide.SELL, 3 * UNIT));
+        assertThat(sale.getTrades()).extracting(Trade::getMakerOrderId, Trade::getQuantity).containsExactly(
+                tuple(new UUID(6, 4), UNIT),
+                tuple(sweep.getOrder().getOrderId(), 2 * UNIT));
+        assertThat(ladder.getBestBid()).isEqualTo(99 * UNIT);
+    }
+
+    @Test
+    void randomOrderFlowMatchesTheSkipList() {
+        Random random = new Random(2026);
+        List<BookOrder> submitted = new ArrayList<>();
+        long mid = 100 * UNIT;
+        for (int i = 0; i < 20_000; i++) {
+            // Mostly drift, now and then a jump well past the window
+            mid += random.nextInt(50) == 0 ? (random.nextInt(401) - 200) * TICK : (random.nextInt(3) - 1) * TICK;
+            mid = Math.max(mid, 50 * UNIT);
+            long price = mid + (random.nextInt(61) - 30) * TICK + (random.nextInt(10) == 0 ? TICK / 2 : 0);
+            OrderSide side = random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL;
+            long quantity = (1 + random.nextInt(12)) * UNIT / 4;
+            int kind = random.nextInt(100);
+            if (kind < 10 && !submitted.isEmpty()) {
+                BookOrder target = submitted.get(random.nextInt(submitted.size()));
+                cancel(target.getOrderId(), target.getSide());
+            } else if (kind < 20 && !submitted.isEmpty()) {
+                BookOrder target = submitted.get(random.nextInt(submitted.size()));
+                long newPrice = random.nextBoolean() ? OrderBook.NO_PRICE : price;
+                replace(target.getOrderId(), target.getSide(), newPrice, quantity);
+            } else {
+                BookOrder order;
+                if (kind < 70) {
+                    order = limit(side, price, quantity);
+                } else if (kind < 78) {
+                    order = market(side, quantity);
+                } else if (kind < 86) {
+                    order = limit(side, price, quantity).toBuilder().timeInForce(TimeInForce.IOC).build();
+                } else if (kind < 92) {
+                    order = limit(side, price, quantity).toBuilder().timeInForce(TimeInForce.FOK).build();
+                } else {
+                    long stop = side == OrderSide.BUY ? mid + 10 * TICK : mid - 10 * TICK;
+                    order = limit(side, stop, quantity).toBuilder().type(OrderType.STOP_LIMIT).stopPrice(stop).build();
+                }
+                submitted.add(order);
+                add(order);
+            }
+            if (i % 500 == 0) {
+                assertSameState();
+            }
+        }
+        assertThat(ladder.getBidDepth() + ladder.getAskDepth()).isPositive();
+        assertSameState();
+    }
+
+    /**
+     * Add an order to both books, then match the stops it set off
+     */
+    private MatchResult add(BookOrder order) {
+        MatchResult expected = skipList.addOrder(order);
+        MatchResult actual = ladder.addOrder(order);
+        assertSameResult(actual, expected);
+        for (BookOrder stop = skipList.pollTriggered(); stop != null; stop = skipList.pollTriggered()) {
+            assertThat(ladder.pollTriggered()).isEqualTo(stop);
+            assertSameResult(ladder.addOrder(stop), skipList.addOrder(stop));
+        }
+        assertThat(ladder.pollTriggered()).isNull();
+        return actual;
+    }
+
+    private void cancel(UUID orderId, OrderSide side) {
+        assertThat(ladder.cancelOrder(orderId, side)).isEqualTo(skipList.cancelOrder(orderId, side));
+        assertSameBook();
+    }
+
+    private void replace(UUID orderId, OrderSide side, long newPrice, long newQuantity) {
+        OrderBook.CancelReplaceResult expected = skipList.cancelReplace(orderId, side, newPrice, newQuantity);
+        OrderBook.CancelReplaceResult actual = ladder.cancelReplace(orderId, side, newPrice, newQuantity);
+        assertThat(actual.status()).isEqualTo(expected.status());
+        assertThat(actual.previousPrice()).isEqualTo(expected.previousPrice());
+        assertThat(actual.previousRemainingQuantity()).isEqualTo(expected.previousRemainingQuantity());
+        assertThat(actual.price()).isEqualTo(expected.price());
+        assertThat(actual.remainingQuantity()).isEqualTo(expected.remainingQuantity());
+        if (expected.match() != null) {
+            assertSameResult(actual.match(), expected.match());
+        }
+        assertSameBook();
+    }
+
+    private void assertSameResult(MatchResult actual, MatchResult expected) {
+        assertThat(fills(actual)).isEqualTo(fills(expected));
+        assertThat(actual.getRemainingQuantity()).isEqualTo(expected.getRemainingQuantity());
+        assertThat(actual.getExpiredQuantity()).isEqualTo(expected.getExpiredQuantity());
+        assertThat(actual.getFilledNotional()).isEqualTo(expected.getFilledNotional());
+        assertThat(actual.isFullyFilled()).isEqualTo(expected.isFullyFilled());
+        assertSameBook();
+    }
+
+    private void assertSameBook() {
+        assertThat(ladder.getUpdateId()).isEqualTo(skipList.getUpdateId());
+        assertThat(ladder.getBestBid()).isEqualTo(skipList.getBestBid());
+        assertThat(ladder.getBestAsk()).isEqualTo(skipList.getBestAsk());
+        assertThat(ladder.getBidDepth()).isEqualTo(skipList.getBidDepth());
+        assertThat(ladder.getAskDepth()).isEqualTo(skipList.getAskDepth());
+        OrderBook.OrderBookSnapshot expected = skipList.getSnapshot(LEVELS);
+        OrderBook.OrderBookSnapshot actual = ladder.getSnapshot(LEVELS);
+        assertThat(actual.bids()).isEqualTo(expected.bids());
+        assertThat(actual.asks()).isEqualTo(expected.asks());
+        assertThat(changes(ladder)).isEqualTo(changes(skipList));
+    }
+
+    private void assertSameState() {
+        assertThat(state(ladder)).isEqualTo(state(skipList));
+        for (OrderSide taker : OrderSide.values()) {
+            assertThat(ladder.estimateFill(taker, 25 * UNIT)).isEqualTo(skipList.estimateFill(taker, 25 * UNIT));
+        }
+    }
+
+    private static List<String> fills(MatchResult result) {
+        return result.getTrades().stream()
+                .map(trade -> trade.getTradeSequence() + " " + trade.getMakerOrderId() + " "
+                        + trade.getTakerOrderId() + " " + trade.getPrice() + " " + trade.getQuantity())
+                .toList();
+    }
+
+    private static List<OrderBook.LevelChange> changes(OrderBook book) {
+        OrderBook.BookDelta delta = book.drainChanges();
+        return delta != null ? delta.changes() : List.of();
+    }
+
+    private static byte[] state(OrderBook book) {
+        ByteBuffer state = ByteBuffer.allocate(book.stateSize());
+        book.writeState(state);
+        return state.array();
+    }
+
+    private BookOrder limit(OrderSide side, long price, long quantity) {
+        return order(side, OrderType.LIMIT, price, quantity);
+    }
+
+    private BookOrder market(OrderSide side, long quantity) {
+        return order(side, OrderType.MARKET, 0, quantity);
+    }
+
+    private BookOrder order(OrderSide side, OrderType type, long price, long quantity) {
+        return BookOrder.builder()
+                .orderId(new UUID(6, sequence))
+                .userId(new UUID(0, sequence % 20))
+                .symbol("PARUSDT")
+                .side(side)
+                .type(type)
+                .price(price)
+                .originalQuantity(quantity)
+                .remainingQuantity(quantity)
+                .timestamp(Instant.parse("2026-01-05T00:00:00Z").plusMillis(sequence++))
+                .build();
+    }
+}
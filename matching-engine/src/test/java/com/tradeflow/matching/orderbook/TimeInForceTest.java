@@ -0,0 +1,158 @@
+package com.tradeflow.matching.orderbook;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
+import com.tradeflow.matching.config.MatchingConfigProperties.BookType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * IOC and FOK orders on every book type: neither ever rests, an IOC
+ * expires whatever it could not fill at once, and a FOK either fills
+ * completely within its limit or expires without touching the book.
+ */
+class TimeInForceTest {
+
+    private static final long UNIT = FixedPoint.toLong(BigDecimal.ONE);
+    private static final long TICK = FixedPoint.toLong(new BigDecimal("0.01"));
+
+    private int sequence;
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void iocExpiresWhatItCannotFillWithinItsLimit(BookType type) {
+        OrderBook book = bookWithAsks(type);
+
+        MatchResult result = book.addOrder(limit(OrderSide.BUY, TimeInForce.IOC, 101 * UNIT, 4 * UNIT));
+
+        assertThat(result.getTrades()).extracting(Trade::getQuantity).containsExactly(2 * UNIT);
+        assertThat(result.getFilledQuantity()).isEqualTo(2 * UNIT);
+        assertThat(result.getExpiredQuantity()).isEqualTo(2 * UNIT);
+        assertThat(result.isFullyFilled()).isFalse();
+        // The remainder did not rest at its limit
+        assertThat(book.getBidDepth()).isZero();
+        assertThat(book.getBestAsk()).isEqualTo(102 * UNIT);
+        assertThat(book.getBestAskQuantity()).isEqualTo(3 * UNIT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void iocMarketOrderExpiresPastTheLastLevel(BookType type) {
+        OrderBook book = bookWithAsks(type);
+
+        MatchResult result = book.addOrder(market(OrderSide.BUY, TimeInForce.IOC, 7 * UNIT));
+
+        assertThat(result.getFilledQuantity()).isEqualTo(5 * UNIT);
+        assertThat(result.getExpiredQuantity()).isEqualTo(2 * UNIT);
+        assertThat(book.getAskDepth()).isZero();
+        assertThat(book.getBidDepth()).isZero();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void iocFilledInFullExpiresNothing(BookType type) {
+        OrderBook book = bookWithAsks(type);
+
+        MatchResult result = book.addOrder(limit(OrderSide.BUY, TimeInForce.IOC, 102 * UNIT, 4 * UNIT));
+
+        assertThat(result.getFilledQuantity()).isEqualTo(4 * UNIT);
+        assertThat(result.getExpiredQuantity()).isZero();
+        assertThat(result.isFullyFilled()).isTrue();
+        assertThat(book.getBestAskQuantity()).isEqualTo(UNIT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void fokFillsCompletelyWhenTheDepthWithinItsLimitSuffices(BookType type) {
+        OrderBook book = bookWithAsks(type);
+
+        MatchResult result = book.addOrder(limit(OrderSide.BUY, TimeInForce.FOK, 102 * UNIT, 5 * UNIT));
+
+        assertThat(result.getTrades()).extracting(Trade::getPrice).containsExactly(101 * UNIT, 102 * UNIT);
+        assertThat(result.getFilledQuantity()).isEqualTo(5 * UNIT);
+        assertThat(result.getExpiredQuantity()).isZero();
+        assertThat(result.isFullyFilled()).isTrue();
+        assertThat(book.getAskDepth()).isZero();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void fokIsKilledWhenItsLimitCutsTheDepthShort(BookType type) {
+        OrderBook book = bookWithAsks(type);
+        OrderBook.OrderBookSnapshot before = book.getSnapshot(10);
+
+        // 5 rest in total, but only 2 at or below 101
+        MatchResult result = book.addOrder(limit(OrderSide.BUY, TimeInForce.FOK, 101 * UNIT, 3 * UNIT));
+
+        assertThat(result.getTrades()).isEmpty();
+        assertThat(result.getFilledQuantity()).isZero();
+        assertThat(result.getExpiredQuantity()).isEqualTo(3 * UNIT);
+        assertThat(book.getSnapshot(10).asks()).isEqualTo(before.asks());
+        assertThat(book.getBidDepth()).isZero();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookType.class)
+    void fokMarketOrderIsKilledWhenTheSideIsTooThin(BookType type) {
+        OrderBook book = newBook(type);
+        book.addOrder(limit(OrderSide.BUY, TimeInForce.GTC, 99 * UNIT, 2 * UNIT));
+        book.addOrder(limit(OrderSide.BUY, TimeInForce.GTC, 98 * UNIT, 2 * UNIT));
+
+        MatchResult killed = book.addOrder(market(OrderSide.SELL, TimeInForce.FOK, 5 * UNIT));
+        assertThat(killed.getTrades()).isEmpty();
+        assertThat(killed.getExpiredQuantity()).isEqualTo(5 * UNIT);
+        assertThat(book.getBestBidQuantity()).isEqualTo(2 * UNIT);
+
+        MatchResult filled = book.addOrder(market(OrderSide.SELL, TimeInForce.FOK, 4 * UNIT));
+        assertThat(filled.getFilledQuantity()).isEqualTo(4 * UNIT);
+        assertThat(filled.getExpiredQuantity()).isZero();
+        assertThat(book.getBidDepth()).isZero();
+    }
+
+    /**
+     * Asks of 2 at 101 and 3 at 102
+     */
+    private OrderBook bookWithAsks(BookType type) {
+        OrderBook book = newBook(type);
+        book.addOrder(limit(OrderSide.SELL, TimeInForce.GTC, 101 * UNIT, 2 * UNIT));
+        book.addOrder(limit(OrderSide.SELL, TimeInForce.GTC, 102 * UNIT, 3 * UNIT));
+        return book;
+    }
+
+    private static OrderBook newBook(BookType type) {
+        return switch (type) {
+            case SKIP_LIST -> new SkipListOrderBook("TIFUSDT", false);
+            case TICK_LADDER -> new TickLadderOrderBook("TIFUSDT", TICK, 1024, false);
+        };
+    }
+
+    private BookOrder limit(OrderSide side, TimeInForce timeInForce, long price, long quantity) {
+        return order(side, OrderType.LIMIT, timeInForce, price, quantity);
+    }
+
+    private BookOrder market(OrderSide side, TimeInForce timeInForce, long quantity) {
+        return order(side, OrderType.MARKET, timeInForce, 0, quantity);
+    }
+
+    private BookOrder order(OrderSide side, OrderType type, TimeInForce timeInForce, long price, long quantity) {
+        return BookOrder.builder()
+                .orderId(new UUID(4, sequence))
+                .userId(new UUID(0, side.ordinal()))
+                .symbol("TIFUSDT")
+                .side(side)
+                .type(type)
+                .timeInForce(timeInForce)
+                .price(price)
+                .originalQuantity(quantity)
+                .remainingQuantity(quantity)
+                .timestamp(Instant.parse("2026-01-05T00:00:00Z").plusMillis(sequence++))
+                .build();
+    }
+}
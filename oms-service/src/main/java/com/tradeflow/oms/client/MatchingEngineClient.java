@@ -0,0 +1,78 @@
+package com.tradeflow.oms.client;
+
+import com.tradeflow.common.enums.OrderSide;
+import com.tradeflow.oms.config.OmsConfigProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Client for the Matching Engine's internal API.
+ * Quantities and notionals cross the wire as fixed-point longs with 8
+ * implied decimals, the engine's own representation.
+ */
+@Component
+@Slf4j
+public class MatchingEngineClient {
+
+    private static final int SCALE = 8;
+
+    private final RestClient client;
+
+    public MatchingEngineClient(OmsConfigProperties config, RestClient.Builder restClientBuilder) {
+        OmsConfigProperties.MatchingEngine engine = config.getMatchingEngine();
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) engine.getTimeoutMs());
+        requestFactory.setReadTimeout((int) engine.getTimeoutMs());
+        this.client = restClientBuilder
+                .baseUrl(Objects.requireNonNull(engine.getBaseUrl(), "Matching Engine baseUrl must not be null"))
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    /**
+     * Quote cost of filling {@code quantity} against the book right now,
+     * or empty if the engine cannot tell (unreachable, no book)
+     */
+    public Optional<FillCost> getFillCost(String symbol, OrderSide side, BigDecimal quantity) {
+        try {
+            FillEstimate estimate = client.get()
+                    .uri("/internal/matching/{symbol}/fill-cost?side={side}&quantity={quantity}",
+                            symbol, side, quantity.setScale(SCALE, RoundingMode.UP).unscaledValue().longValueExact())
+                    .retrieve()
+                    .body(FillEstimate.class);
+            if (estimate == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new FillCost(
+                    BigDecimal.valueOf(estimate.quantity(), SCALE),
+                    BigDecimal.valueOf(estimate.notional(), SCALE),
+                    BigDecimal.valueOf(estimate.worstPrice(), SCALE),
+                    estimate.exhausted()));
+        } catch (Exception e) {
+            log.warn("Fill cost for {} {} {} unavailable: {}", side, quantity, symbol, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Estimated fill: {@code fillableQuantity} is short of the request when
+     * the book is too thin ({@code bookExhausted}); {@code worstPrice} is
+     * the last level reached (0 if none)
+     */
+    public record FillCost(BigDecimal fillableQuantity, BigDecimal notional, BigDecimal worstPrice,
+            boolean bookExhausted) {
+    }
+
+    /**
+     * Wire form of the engine's estimate
+     */
+    private record FillEstimate(long quantity, long notional, long worstPrice, boolean exhausted) {
+    }
+}
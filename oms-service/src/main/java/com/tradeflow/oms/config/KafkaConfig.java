@@ -14,7 +14,9 @@ public class KafkaConfig {
 
     /**
      * Topic for orders going to matching engine
-     * Partitioned by symbol for ordered processing
+     * Partitioned by symbol for ordered processing. Retention is left to
+     * the matching engine, which checkpoints its books and declares how
+     * long records must be kept.
      */
     @Bean
     public NewTopic ordersToMatchingTopic() {
@@ -0,0 +1,64 @@
+package com.tradeflow.oms.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+
+/**
+ * Configuration properties for OMS
+ */
+@Configuration
+@ConfigurationProperties(prefix = "tradeflow.oms")
+@Data
+public class OmsConfigProperties {
+
+    /**
+     * Matching Engine internal API, used to size market order reservations
+     */
+    private MatchingEngine matchingEngine = new MatchingEngine();
+
+    public enum OrderTransport {
+        /**
+         * The matching order queue on RabbitMQ, consumed by a single engine
+         */
+        RABBITMQ,
+
+        /**
+         * The orders.to-matching topic keyed by symbol, partitioned over engines
+         */
+        KAFKA
+    }
+
+    @Data
+    public static class MatchingEngine {
+        /**
+         * Matching Engine base URL
+         */
+        private String baseUrl = "http://localhost:8084";
+
+        /**
+         * Connect and read timeout in milliseconds; order placement waits on it
+         */
+        private long timeoutMs = 200;
+
+        /**
+         * Fraction added on top of the estimated cost of a market buy, to
+         * absorb book movement before the order reaches the engine
+         */
+        private BigDecimal marketBuyBuffer = new BigDecimal("0.05");
+
+        /**
+         * Per-unit price reserved for a market buy when no estimate is
+         * available (engine unreachable or no book)
+         */
+        private BigDecimal fallbackMarketPrice = new BigDecimal("100000");
+
+        /**
+         * How orders and cancel/replaces reach the engines; must match the
+         * engines' tradeflow.matching.ingest.transport
+         */
+        private OrderTransport orderTransport = OrderTransport.RABBITMQ;
+    }
+}
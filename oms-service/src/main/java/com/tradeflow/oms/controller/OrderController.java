@@ -1,5 +1,6 @@
 package com.tradeflow.oms.controller;
 
+import com.tradeflow.oms.dto.AmendOrderRequest;
 import com.tradeflow.oms.dto.CancelOrderRequest;
 import com.tradeflow.oms.dto.OrderResponse;
 import com.tradeflow.oms.dto.PlaceOrderRequest;
@@ -38,7 +39,7 @@ public class OrderController {
     /**
      * Place a new order
      */
-    @Operation(summary = "Place new order", description = "Submit a new trading order (LIMIT or MARKET)")
+    @Operation(summary = "Place new order", description = "Submit a new trading order (LIMIT, MARKET, STOP or STOP_LIMIT)")
     @ApiResponse(responseCode = "201", description = "Order placed successfully")
     @ApiResponse(responseCode = "400", description = "Invalid order data")
     @ApiResponse(responseCode = "401", description = "Unauthorized")
@@ -82,6 +83,27 @@ public class OrderController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Amend an order
+     */
+    @Operation(summary = "Amend order", description = "Reduce quantity (keeps queue position) or change price of an open limit order")
+    @ApiResponse(responseCode = "200", description = "Amend accepted, applied when the matching engine confirms")
+    @ApiResponse(responseCode = "400", description = "Order cannot be amended")
+    @ApiResponse(responseCode = "401", description = "Unauthorized")
+    @ApiResponse(responseCode = "404", description = "Order not found")
+    @PatchMapping("/{orderId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<OrderResponse> amendOrder(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable UUID orderId,
+            @Valid @RequestBody AmendOrderRequest request) {
+        UUID userId = UUID.fromString(jwt.getClaimAsString("userId"));
+        log.info("User {} amending order {}", userId, orderId);
+
+        OrderResponse response = orderService.amendOrder(userId, orderId, request);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Get order by ID
      */
@@ -0,0 +1,41 @@
+package com.tradeflow.oms.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMin;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Request DTO for amending an open limit order in place.
+ * Reducing quantity keeps the order's queue position; changing the price
+ * sends it to the back of the queue at the new price.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request to amend an open limit order")
+public class AmendOrderRequest {
+
+    /**
+     * New limit price (null keeps the current price)
+     */
+    @Schema(description = "New limit price; buy orders may only lower it", type = "string", example = "49900.00000000")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Price must be positive")
+    @JsonSerialize(using = ToStringSerializer.class)
+    private BigDecimal price;
+
+    /**
+     * New total order quantity, filled part included (null keeps it)
+     */
+    @Schema(description = "New total quantity; may only be reduced", type = "string", example = "1.00000000")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Quantity must be positive")
+    @JsonSerialize(using = ToStringSerializer.class)
+    private BigDecimal quantity;
+}
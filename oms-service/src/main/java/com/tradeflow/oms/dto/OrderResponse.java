@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import com.tradeflow.common.enums.OrderSide;
 import com.tradeflow.common.enums.OrderStatus;
 import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -37,13 +38,20 @@ public class OrderResponse {
     @Schema(description = "Order side", example = "BUY", allowableValues = {"BUY", "SELL"})
     private OrderSide side;
 
-    @Schema(description = "Order type", example = "LIMIT", allowableValues = {"LIMIT", "MARKET"})
+    @Schema(description = "Order type", example = "LIMIT", allowableValues = {"LIMIT", "MARKET", "STOP", "STOP_LIMIT"})
     private OrderType type;
 
+    @Schema(description = "Time in force", example = "GTC", allowableValues = {"GTC", "IOC", "FOK"})
+    private TimeInForce timeInForce;
+
     @Schema(description = "Order price in quote currency", type = "string", example = "50000.12345678")
     @JsonSerialize(using = ToStringSerializer.class)
     private BigDecimal price;
 
+    @Schema(description = "Trigger price of stop orders", type = "string", example = "51000.00000000")
+    @JsonSerialize(using = ToStringSerializer.class)
+    private BigDecimal stopPrice;
+
     @Schema(description = "Total order quantity in base currency", type = "string", example = "1.50000000")
     @JsonSerialize(using = ToStringSerializer.class)
     private BigDecimal quantity;
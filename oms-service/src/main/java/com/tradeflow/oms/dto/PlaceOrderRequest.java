@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import com.tradeflow.common.enums.OrderSide;
 import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -35,18 +36,34 @@ public class PlaceOrderRequest {
     @NotNull(message = "Order side is required")
     private OrderSide side;
 
-    @Schema(description = "Order type", example = "LIMIT", allowableValues = {"LIMIT", "MARKET"}, required = true)
+    @Schema(description = "Order type", example = "LIMIT", allowableValues = {"LIMIT", "MARKET", "STOP", "STOP_LIMIT"}, required = true)
     @NotNull(message = "Order type is required")
     private OrderType type;
 
     /**
-     * Price for limit orders (required for LIMIT, ignored for MARKET)
+     * How long the order stays working (GTC when omitted)
      */
-    @Schema(description = "Price in quote currency (required for LIMIT orders)", type = "string", example = "50000.12345678")
+    @Schema(description = "Time in force: GTC rests, IOC cancels the unfilled rest, FOK fills fully or not at all",
+            example = "GTC", allowableValues = {"GTC", "IOC", "FOK"})
+    private TimeInForce timeInForce;
+
+    /**
+     * Price for limit orders (required for LIMIT and STOP_LIMIT, ignored for MARKET and STOP)
+     */
+    @Schema(description = "Price in quote currency (required for LIMIT and STOP_LIMIT orders)", type = "string", example = "50000.12345678")
     @DecimalMin(value = "0.0", inclusive = false, message = "Price must be positive")
     @JsonSerialize(using = ToStringSerializer.class)
     private BigDecimal price;
 
+    /**
+     * Trigger price for stop orders (required for STOP and STOP_LIMIT)
+     */
+    @Schema(description = "Last trade price at or through which a STOP/STOP_LIMIT order is released (buy: at or above, sell: at or below)",
+            type = "string", example = "51000.00000000")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Stop price must be positive")
+    @JsonSerialize(using = ToStringSerializer.class)
+    private BigDecimal stopPrice;
+
     /**
      * Quantity to buy/sell
      */
@@ -3,6 +3,7 @@ package com.tradeflow.oms.entity;
 import com.tradeflow.common.enums.OrderSide;
 import com.tradeflow.common.enums.OrderStatus;
 import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -45,16 +46,34 @@ public class Order {
     @Column(name = "side", nullable = false, length = 10)
     private OrderSide side;
 
+    /**
+     * New values must also be added to the check in db/schema-upgrade.sql,
+     * which Hibernate does not update on existing tables
+     */
     @Enumerated(EnumType.STRING)
     @Column(name = "type", nullable = false, length = 10)
     private OrderType type;
 
+    /**
+     * Existing rows are backfilled as GTC by db/schema-upgrade.sql
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "time_in_force", nullable = false, length = 10)
+    @Builder.Default
+    private TimeInForce timeInForce = TimeInForce.GTC;
+
     /**
      * Limit price (null for market orders)
      */
     @Column(name = "price", precision = 20, scale = 8)
     private BigDecimal price;
 
+    /**
+     * Trigger price of stop orders (null otherwise)
+     */
+    @Column(name = "stop_price", precision = 20, scale = 8)
+    private BigDecimal stopPrice;
+
     /**
      * Original order quantity
      */
@@ -2,7 +2,9 @@ package com.tradeflow.oms.messaging;
 
 import com.rabbitmq.client.Channel;
 import com.tradeflow.common.constants.RabbitMQConstants;
+import com.tradeflow.common.event.CancelReplaceResultEvent;
 import com.tradeflow.common.event.FundsReservationFailedEvent;
+import com.tradeflow.common.event.OrderExpiredEvent;
 import com.tradeflow.common.event.FundsReservedEvent;
 import com.tradeflow.oms.saga.OrderSagaOrchestrator;
 import lombok.RequiredArgsConstructor;
@@ -14,7 +16,8 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 
 /**
- * RabbitMQ message handler for Saga responses from Wallet Service
+ * RabbitMQ message handler for Saga responses from Wallet Service and
+ * cancel/replace confirmations and IOC/FOK expiries from Matching Engine
  */
 @Component
 @RequiredArgsConstructor
@@ -45,6 +48,18 @@ public class SagaResponseHandler {
                 sagaOrchestrator.onFundsReservationFailed(event.getSagaId(), event.getReason());
                 channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
 
+            } else if (response instanceof CancelReplaceResultEvent event) {
+                log.info("Received CancelReplaceResultEvent for order {}: {}",
+                        event.getOrderId(), event.getStatus());
+                sagaOrchestrator.onCancelReplaceResult(event);
+                channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
+
+            } else if (response instanceof OrderExpiredEvent event) {
+                log.info("Received OrderExpiredEvent for order {}: {} unfilled",
+                        event.getOrderId(), event.getExpiredQuantity());
+                sagaOrchestrator.onOrderExpired(event);
+                channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
+
             } else {
                 log.warn("Unknown message type received: {}", response.getClass().getName());
                 channel.basicAck(message.getMessageProperties().getDeliveryTag(), false);
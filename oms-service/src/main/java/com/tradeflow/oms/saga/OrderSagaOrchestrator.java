@@ -2,14 +2,20 @@ package com.tradeflow.oms.saga;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tradeflow.common.command.CancelReplaceOrderCommand;
 import com.tradeflow.common.command.ReleaseFundsCommand;
 import com.tradeflow.common.command.ReserveFundsCommand;
+import com.tradeflow.common.constants.KafkaTopics;
 import com.tradeflow.common.constants.RabbitMQConstants;
 import com.tradeflow.common.enums.OrderSide;
 import com.tradeflow.common.enums.OrderStatus;
 import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.event.CancelReplaceResultEvent;
+import com.tradeflow.common.event.OrderExpiredEvent;
 import com.tradeflow.common.event.OrderToMatchingEvent;
 import com.tradeflow.common.enums.SagaState;
+import com.tradeflow.oms.client.MatchingEngineClient;
+import com.tradeflow.oms.config.OmsConfigProperties;
 import com.tradeflow.oms.entity.Order;
 import com.tradeflow.oms.entity.SagaInstance;
 import com.tradeflow.oms.event.OrderStatusUpdateEvent;
@@ -19,6 +25,7 @@ import com.tradeflow.oms.service.OrderUpdateBroadcaster;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -36,6 +43,9 @@ import java.util.UUID;
  * 
  * Compensation flow on failure:
  * Release Funds → Mark Order as Rejected/Cancelled
+ *
+ * Cancel/amend of an order already in the matching engine:
+ * Send Cancel/Replace → await engine confirmation → Release unused funds
  */
 @Service
 @RequiredArgsConstructor
@@ -45,11 +55,18 @@ public class OrderSagaOrchestrator {
     private final OrderRepository orderRepository;
     private final SagaInstanceRepository sagaRepository;
     private final RabbitTemplate rabbitTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
     private final ObjectMapper objectMapper;
     private final OrderUpdateBroadcaster orderUpdateBroadcaster;
+    private final MatchingEngineClient matchingEngineClient;
+    private final OmsConfigProperties omsConfig;
 
     private static final int SCALE = 8;
 
+    // Saga steps while a cancel/replace is waiting for the engine
+    private static final String STEP_CANCEL_REQUESTED = "CANCEL_REQUESTED";
+    private static final String STEP_AMEND_REQUESTED = "AMEND_REQUESTED";
+
     /**
      * Start a new order saga
      */
@@ -168,7 +185,7 @@ public class OrderSagaOrchestrator {
     }
 
     /**
-     * Step 2: Send order to Matching Engine via RabbitMQ
+     * Step 2: Send order to Matching Engine via RabbitMQ, or Kafka when engines are sharded
      */
     private void sendToMatchingEngine(SagaInstance saga, OrderSagaContext context) {
         log.info("Saga {}: Sending order to matching engine", saga.getSagaId());
@@ -181,16 +198,14 @@ public class OrderSagaOrchestrator {
                 .symbol(order.getSymbol())
                 .side(order.getSide())
                 .type(order.getType())
+                .timeInForce(order.getTimeInForce())
                 .price(order.getPrice())
+                .stopPrice(order.getStopPrice())
                 .quantity(order.getQuantity())
                 .timestamp(Instant.now())
                 .build();
 
-        // Send to RabbitMQ exchange for matching engine
-        rabbitTemplate.convertAndSend(
-                RabbitMQConstants.ORDER_EXCHANGE,
-                RabbitMQConstants.ROUTING_ORDER_TO_MATCHING,
-                event);
+        sendToMatching(order, RabbitMQConstants.ROUTING_ORDER_TO_MATCHING, event);
 
         // Update saga and order
         saga.transitionTo(SagaState.ORDER_SENT);
@@ -308,7 +323,10 @@ public class OrderSagaOrchestrator {
     }
 
     /**
-     * Cancel an order (triggers compensation)
+     * Cancel an order. An order already in the matching engine is pulled
+     * from the book first; funds are released once the engine confirms
+     * (see {@link #onCancelReplaceResult}). Otherwise compensation is
+     * immediate.
      */
     @Transactional
     public void cancelOrder(UUID orderId, String reason) {
@@ -323,6 +341,13 @@ public class OrderSagaOrchestrator {
         }
 
         SagaInstance saga = sagaRepository.findByOrderOrderId(safeOrderId).orElse(null);
+        if (saga != null && deserializeContext(saga.getPayload()).isOrderSentToMatching()) {
+            requireNoPendingCancelReplace(saga);
+            order.setRejectReason(reason);
+            orderRepository.save(order);
+            sendCancelReplace(saga, order, null, BigDecimal.ZERO, STEP_CANCEL_REQUESTED);
+            return;
+        }
         if (saga != null) {
             compensate(saga, reason);
         }
@@ -346,6 +371,259 @@ public class OrderSagaOrchestrator {
         log.info("Order {} cancelled", orderId);
     }
 
+    /**
+     * Amend an open limit order in the matching engine. Only changes that
+     * need no extra funds are allowed: quantity may only go down and a buy
+     * price may only go down. Unused funds are released once the engine
+     * confirms.
+     */
+    @Transactional
+    public void amendOrder(UUID orderId, @Nullable BigDecimal newPrice, @Nullable BigDecimal newQuantity) {
+        UUID safeOrderId = Objects.requireNonNull(orderId, "orderId must not be null");
+        log.info("Amending order {}: price {} quantity {}", safeOrderId, newPrice, newQuantity);
+
+        Order order = orderRepository.findById(safeOrderId)
+                .orElseThrow(() -> new RuntimeException("Order not found: " + safeOrderId));
+
+        if (order.getStatus() != OrderStatus.OPEN && order.getStatus() != OrderStatus.PARTIALLY_FILLED) {
+            throw new IllegalStateException("Order cannot be amended in state: " + order.getStatus());
+        }
+        if (order.getType() != OrderType.LIMIT) {
+            throw new IllegalStateException("Only limit orders can be amended");
+        }
+        BigDecimal quantity = newQuantity != null ? newQuantity : order.getQuantity();
+        if (quantity.compareTo(order.getQuantity()) > 0) {
+            throw new IllegalArgumentException("Order quantity can only be reduced");
+        }
+        if (quantity.compareTo(order.getFilledQuantity()) <= 0) {
+            throw new IllegalArgumentException("New quantity must exceed the filled quantity; cancel instead");
+        }
+        if (newPrice != null && order.getSide() == OrderSide.BUY && newPrice.compareTo(order.getPrice()) > 0) {
+            throw new IllegalArgumentException("Buy order price can only be lowered");
+        }
+
+        SagaInstance saga = sagaRepository.findByOrderOrderId(safeOrderId)
+                .orElseThrow(() -> new IllegalStateException("No saga for order " + safeOrderId));
+        requireNoPendingCancelReplace(saga);
+        sendCancelReplace(saga, order, newPrice, quantity, STEP_AMEND_REQUESTED);
+    }
+
+    private void requireNoPendingCancelReplace(SagaInstance saga) {
+        if (STEP_CANCEL_REQUESTED.equals(saga.getCurrentStep()) || STEP_AMEND_REQUESTED.equals(saga.getCurrentStep())) {
+            throw new IllegalStateException("A cancel or amend is already pending for this order");
+        }
+    }
+
+    /**
+     * Send a cancel/replace to the matching engine on the order queue, so it
+     * is applied after the order itself
+     */
+    private void sendCancelReplace(SagaInstance saga, Order order, @Nullable BigDecimal newPrice,
+            BigDecimal newQuantity, String step) {
+        CancelReplaceOrderCommand command = CancelReplaceOrderCommand.builder()
+                .commandId(UUID.randomUUID())
+                .orderId(order.getOrderId())
+                .userId(order.getUserId())
+                .symbol(order.getSymbol())
+                .side(order.getSide())
+                .newPrice(newPrice)
+                .newQuantity(newQuantity)
+                .commandTimestamp(Instant.now())
+                .build();
+
+        sendToMatching(order, RabbitMQConstants.ROUTING_ORDER_CANCEL_REPLACE, command);
+
+        saga.setCurrentStep(step);
+        sagaRepository.save(saga);
+        log.info("Saga {}: Cancel/replace sent for order {}", saga.getSagaId(), order.getOrderId());
+    }
+
+    /**
+     * Publish an order or cancel/replace for the matching engines. On Kafka it
+     * is keyed by symbol, so it lands on the partition (and engine) owning the
+     * symbol, behind everything sent earlier for it.
+     */
+    private void sendToMatching(Order order, String routingKey, Object message) {
+        if (omsConfig.getMatchingEngine().getOrderTransport() == OmsConfigProperties.OrderTransport.KAFKA) {
+            kafkaTemplate.send(KafkaTopics.ORDERS_TO_MATCHING, order.getSymbol().toUpperCase(), message)
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            log.error("Failed to send {} for order {} to matching: {}",
+                                    message.getClass().getSimpleName(), order.getOrderId(), ex.getMessage(), ex);
+                        }
+                    });
+            return;
+        }
+        rabbitTemplate.convertAndSend(RabbitMQConstants.ORDER_EXCHANGE, routingKey, message);
+    }
+
+    /**
+     * Handle the matching engine's confirmation of a cancel/replace: release
+     * what the order no longer needs reserved and update it to match the book
+     */
+    @Transactional
+    public void onCancelReplaceResult(CancelReplaceResultEvent event) {
+        UUID orderId = Objects.requireNonNull(event.getOrderId(), "orderId must not be null");
+        log.info("Order {}: Cancel/replace {}", orderId, event.getStatus());
+
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+        SagaInstance saga = sagaRepository.findByOrderOrderId(orderId)
+                .orElseThrow(() -> new RuntimeException("Saga not found for order: " + orderId));
+        boolean cancelRequested = STEP_CANCEL_REQUESTED.equals(saga.getCurrentStep());
+        if (!cancelRequested && !STEP_AMEND_REQUESTED.equals(saga.getCurrentStep())) {
+            // The engine resends confirmations it could not deliver; this one was applied
+            log.warn("Order {}: no cancel/replace pending, ignoring repeated confirmation {}",
+                    orderId, event.getCommandId());
+            return;
+        }
+
+        switch (event.getStatus()) {
+            case CANCELLED, REDUCED, REPLACED -> {
+                // Reserved for the working quantity before vs. after
+                BigDecimal released;
+                if (order.getSide() == OrderSide.SELL) {
+                    released = event.getPreviousRemainingQuantity().subtract(event.getRemainingQuantity());
+                } else if (order.getType() == OrderType.STOP && order.getReservedAmount() != null) {
+                    // A stop buy has no price in the book; it reserved per unit
+                    // around its stop price (see buildContext)
+                    released = order.getReservedAmount()
+                            .multiply(event.getPreviousRemainingQuantity().subtract(event.getRemainingQuantity()))
+                            .divide(order.getQuantity(), SCALE, RoundingMode.HALF_UP);
+                } else {
+                    released = event.getPreviousPrice().multiply(event.getPreviousRemainingQuantity())
+                            .subtract(event.getPrice().multiply(event.getRemainingQuantity()));
+                }
+                released = released.setScale(SCALE, RoundingMode.HALF_UP);
+                if (released.signum() > 0) {
+                    releaseFunds(saga, released, cancelRequested ? order.getRejectReason() : "ORDER_AMENDED");
+                    if (order.getReservedAmount() != null) {
+                        order.setReservedAmount(order.getReservedAmount().subtract(released));
+                    }
+                }
+            }
+            case UNCHANGED, NOT_FOUND -> {
+                // Nothing rested to change: the order already filled or is
+                // still being filled; its trades settle the reservation
+            }
+        }
+
+        if (event.getStatus() == CancelReplaceResultEvent.Status.CANCELLED) {
+            order.setStatus(OrderStatus.CANCELLED);
+            saga.transitionTo(SagaState.COMPENSATING);
+            saga.setCurrentStep("RELEASE_FUNDS");
+        } else {
+            if (event.getStatus() == CancelReplaceResultEvent.Status.REDUCED
+                    || event.getStatus() == CancelReplaceResultEvent.Status.REPLACED) {
+                BigDecimal reduction = event.getPreviousRemainingQuantity().subtract(event.getRemainingQuantity());
+                order.setQuantity(order.getQuantity().subtract(reduction));
+                order.setPrice(event.getPrice());
+            }
+            if (event.getStatus() == CancelReplaceResultEvent.Status.NOT_FOUND) {
+                log.warn("Order {}: not in the book for cancel/replace", orderId);
+            }
+            saga.setCurrentStep("ORDER_SENT");
+        }
+        sagaRepository.save(saga);
+        orderRepository.save(order);
+
+        orderUpdateBroadcaster.broadcastOrderUpdate(
+                OrderStatusUpdateEvent.builder()
+                        .orderId(order.getOrderId())
+                        .userId(order.getUserId())
+                        .symbol(order.getSymbol())
+                        .status(order.getStatus().name())
+                        .filledQuantity(order.getFilledQuantity().doubleValue())
+                        .timestamp(Instant.now())
+                        .build()
+        );
+    }
+
+    /**
+     * Handle the unfilled part of an IOC/FOK order, which the engine
+     * dropped instead of resting: release its share of the reservation.
+     * The order's quantity becomes what actually filled, so its trades
+     * (which may arrive before or after this event) complete it.
+     */
+    @Transactional
+    public void onOrderExpired(OrderExpiredEvent event) {
+        UUID orderId = Objects.requireNonNull(event.getOrderId(), "orderId must not be null");
+        log.info("Order {}: {} expired {} unfilled", orderId, event.getTimeInForce(), event.getExpiredQuantity());
+
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+        SagaInstance saga = sagaRepository.findByOrderOrderId(orderId)
+                .orElseThrow(() -> new RuntimeException("Saga not found for order: " + orderId));
+        // Applying it cut the quantity to the filled part (or expired the order)
+        if (order.getStatus() == OrderStatus.EXPIRED
+                || order.getQuantity().compareTo(event.getFilledQuantity()) == 0) {
+            log.warn("Order {}: expiry already applied, ignoring repeated notice", orderId);
+            return;
+        }
+
+        // Reserved per unit: limit price (buy), market estimate (buy) or 1 (sell)
+        BigDecimal released = order.getReservedAmount()
+                .multiply(event.getExpiredQuantity())
+                .divide(order.getQuantity(), SCALE, RoundingMode.HALF_UP);
+        if (released.signum() > 0) {
+            releaseFunds(saga, released, "ORDER_EXPIRED");
+            order.setReservedAmount(order.getReservedAmount().subtract(released));
+        }
+
+        if (event.getFilledQuantity().signum() == 0) {
+            order.setStatus(OrderStatus.EXPIRED);
+            order.setRejectReason(event.getTimeInForce() + " order not filled");
+            saga.transitionTo(SagaState.COMPENSATING);
+            saga.setCurrentStep("RELEASE_FUNDS");
+        } else {
+            order.setQuantity(event.getFilledQuantity());
+            if (order.isFullyFilled()) {
+                order.setStatus(OrderStatus.FILLED);
+                order.setFilledAt(Instant.now());
+                saga.complete();
+            }
+        }
+        sagaRepository.save(saga);
+        orderRepository.save(order);
+
+        orderUpdateBroadcaster.broadcastOrderUpdate(
+                OrderStatusUpdateEvent.builder()
+                        .orderId(order.getOrderId())
+                        .userId(order.getUserId())
+                        .symbol(order.getSymbol())
+                        .status(order.getStatus().name())
+                        .filledQuantity(order.getFilledQuantity().doubleValue())
+                        .timestamp(Instant.now())
+                        .build()
+        );
+    }
+
+    /**
+     * Release part of an order's reservation
+     */
+    private void releaseFunds(SagaInstance saga, BigDecimal amount, String reason) {
+        OrderSagaContext context = deserializeContext(saga.getPayload());
+        ReleaseFundsCommand command = ReleaseFundsCommand.builder()
+                .commandId(UUID.randomUUID())
+                .sagaId(saga.getSagaId())
+                .orderId(context.getOrderId())
+                .userId(context.getUserId())
+                .currency(context.getReserveCurrency())
+                .amount(amount.toPlainString())
+                .reason(reason)
+                .commandTimestamp(Instant.now())
+                .build();
+
+        rabbitTemplate.convertAndSend(
+                RabbitMQConstants.WALLET_EXCHANGE,
+                RabbitMQConstants.ROUTING_WALLET_RELEASE,
+                command);
+
+        context.setReserveAmount(context.getReserveAmount().subtract(amount));
+        saga.setPayload(serializeContext(context));
+        log.info("Saga {}: Releasing {} {}", saga.getSagaId(), amount, context.getReserveCurrency());
+    }
+
     /**
      * Compensation: Release reserved funds
      */
@@ -394,15 +672,18 @@ public class OrderSagaOrchestrator {
         if (order.getSide() == OrderSide.BUY) {
             // Buy order: reserve quote currency (e.g., USDT)
             reserveCurrency = quoteCurrency;
-            if (order.getType() == OrderType.LIMIT) {
+            if (order.getType() == OrderType.LIMIT || order.getType() == OrderType.STOP_LIMIT) {
                 // For limit buy: reserve price * quantity
                 reserveAmount = order.getPrice().multiply(order.getQuantity())
                         .setScale(SCALE, RoundingMode.HALF_UP);
-            } else {
-                // For market buy: need to estimate (use a buffer - this is simplified)
-                // In production, you'd get the best ask price * quantity * buffer
-                reserveAmount = order.getQuantity().multiply(new BigDecimal("100000"))
+            } else if (order.getType() == OrderType.STOP) {
+                // For stop buy: it becomes a market buy around the stop price, plus a buffer
+                reserveAmount = order.getStopPrice().multiply(order.getQuantity())
+                        .multiply(BigDecimal.ONE.add(omsConfig.getMatchingEngine().getMarketBuyBuffer()))
                         .setScale(SCALE, RoundingMode.HALF_UP);
+            } else {
+                // For market buy: the book's current cost to fill, plus a buffer
+                reserveAmount = estimateMarketBuyCost(order);
             }
         } else {
             // Sell order: reserve base currency (e.g., BTC)
@@ -427,6 +708,37 @@ public class OrderSagaOrchestrator {
                 .build();
     }
 
+    /**
+     * Reservation for a market buy: what filling it against the book would
+     * cost now (asked of the matching engine), plus a buffer for movement.
+     * When the book cannot fill all of it, the rest is priced at the
+     * fallback price (or the worst level reached, if higher), since asks
+     * arriving before the order does may fill it. Falls back to a flat
+     * per-unit price when there is no estimate.
+     */
+    private BigDecimal estimateMarketBuyCost(Order order) {
+        OmsConfigProperties.MatchingEngine config = omsConfig.getMatchingEngine();
+        BigDecimal buffer = BigDecimal.ONE.add(config.getMarketBuyBuffer());
+        return matchingEngineClient.getFillCost(order.getSymbol(), OrderSide.BUY, order.getQuantity())
+                .filter(cost -> cost.fillableQuantity().signum() > 0)
+                .map(cost -> {
+                    BigDecimal unfilled = order.getQuantity().subtract(cost.fillableQuantity());
+                    if (!cost.bookExhausted() || unfilled.signum() <= 0) {
+                        return cost.notional().multiply(buffer);
+                    }
+                    BigDecimal unfilledPrice = cost.worstPrice().max(config.getFallbackMarketPrice());
+                    log.info("Book too thin for market buy {} ({} of {} fillable), reserving the rest at {}",
+                            order.getOrderId(), cost.fillableQuantity(), order.getQuantity(), unfilledPrice);
+                    return cost.notional().add(unfilled.multiply(unfilledPrice)).multiply(buffer);
+                })
+                .orElseGet(() -> {
+                    log.warn("No fill estimate for market buy {}, reserving at the fallback price",
+                            order.getOrderId());
+                    return order.getQuantity().multiply(config.getFallbackMarketPrice());
+                })
+                .setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
     private String serializeContext(OrderSagaContext context) {
         try {
             return objectMapper.writeValueAsString(context);
@@ -2,6 +2,8 @@ package com.tradeflow.oms.service;
 
 import com.tradeflow.common.enums.OrderStatus;
 import com.tradeflow.common.enums.OrderType;
+import com.tradeflow.common.enums.TimeInForce;
+import com.tradeflow.oms.dto.AmendOrderRequest;
 import com.tradeflow.oms.dto.CancelOrderRequest;
 import com.tradeflow.oms.dto.OrderResponse;
 import com.tradeflow.oms.dto.PlaceOrderRequest;
@@ -52,18 +54,26 @@ public class OrderService {
         }
 
         // Validate limit order has price
-        if (request.getType() == OrderType.LIMIT &&
-                (request.getPrice() == null || request.getPrice().compareTo(BigDecimal.ZERO) <= 0)) {
+        boolean limit = request.getType() == OrderType.LIMIT || request.getType() == OrderType.STOP_LIMIT;
+        if (limit && (request.getPrice() == null || request.getPrice().compareTo(BigDecimal.ZERO) <= 0)) {
             throw new IllegalArgumentException("Limit orders require a positive price");
         }
 
+        // Validate stop order has a trigger price
+        boolean stop = request.getType() == OrderType.STOP || request.getType() == OrderType.STOP_LIMIT;
+        if (stop && (request.getStopPrice() == null || request.getStopPrice().compareTo(BigDecimal.ZERO) <= 0)) {
+            throw new IllegalArgumentException("Stop orders require a positive stop price");
+        }
+
         // Create order entity
         Order order = Order.builder()
                 .userId(userId)
                 .symbol(request.getSymbol().toUpperCase())
                 .side(request.getSide())
                 .type(request.getType())
+                .timeInForce(request.getTimeInForce() != null ? request.getTimeInForce() : TimeInForce.GTC)
                 .price(request.getPrice())
+                .stopPrice(stop ? request.getStopPrice() : null)
                 .quantity(request.getQuantity())
                 .filledQuantity(BigDecimal.ZERO)
                 .status(OrderStatus.PENDING_VALIDATION)
@@ -110,6 +120,28 @@ public class OrderService {
         return toResponse(order);
     }
 
+    /**
+     * Amend an open limit order. The engine applies it asynchronously; the
+     * order is updated when it confirms.
+     */
+    @Transactional
+    public OrderResponse amendOrder(UUID userId, UUID orderId, AmendOrderRequest request) {
+        UUID safeOrderId = Objects.requireNonNull(orderId, "orderId must not be null");
+        log.info("User {} amending order {}", userId, safeOrderId);
+
+        Order order = orderRepository.findById(safeOrderId)
+                .orElseThrow(() -> new OrderNotFoundException(safeOrderId));
+
+        // Verify ownership
+        if (!order.getUserId().equals(userId)) {
+            throw new IllegalArgumentException("Order does not belong to user");
+        }
+
+        sagaOrchestrator.amendOrder(safeOrderId, request.getPrice(), request.getQuantity());
+
+        return toResponse(order);
+    }
+
     /**
      * Get order by ID
      */
@@ -169,7 +201,9 @@ public class OrderService {
                 .symbol(order.getSymbol())
                 .side(order.getSide())
                 .type(order.getType())
+                .timeInForce(order.getTimeInForce())
                 .price(order.getPrice())
+                .stopPrice(order.getStopPrice())
                 .quantity(order.getQuantity())
                 .filledQuantity(order.getFilledQuantity())
                 .remainingQuantity(order.getRemainingQuantity())
@@ -0,0 +1,19 @@
+-- ============================================
+-- OMS schema upgrades
+-- Run on every startup, before Hibernate (ddl-auto: update) checks the
+-- schema. Hibernate only adds missing tables and columns: it cannot add a
+-- NOT NULL column to a table that has rows, nor change an existing
+-- column's constraints. Every statement here must be safe to re-run and
+-- a no-op on a fresh database.
+-- ============================================
+
+-- Time in force (IOC/FOK support): orders placed before it are GTC
+ALTER TABLE IF EXISTS orders.orders
+    ADD COLUMN IF NOT EXISTS time_in_force VARCHAR(10) NOT NULL DEFAULT 'GTC';
+
+-- Stop orders: widen the check Hibernate generated for the type enum,
+-- which only allows the values it had when the table was created
+ALTER TABLE IF EXISTS orders.orders
+    DROP CONSTRAINT IF EXISTS orders_type_check;
+ALTER TABLE IF EXISTS orders.orders
+    ADD CONSTRAINT orders_type_check CHECK (type IN ('LIMIT', 'MARKET', 'STOP', 'STOP_LIMIT'));
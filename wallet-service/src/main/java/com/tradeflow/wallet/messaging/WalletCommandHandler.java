@@ -150,7 +150,8 @@ public class WalletCommandHandler {
      */
     @RabbitListener(queues = RabbitMQConstants.WALLET_RELEASE_QUEUE)
     public void handleReleaseFunds(ReleaseFundsCommand command, Message message, Channel channel) throws IOException {
-        String sagaId = command.getSagaId().toString() + ":release";
+        // An order may release funds more than once (amends, then cancel)
+        String sagaId = command.getSagaId().toString() + ":release:" + command.getCommandId();
         log.info("Received ReleaseFundsCommand for saga {}", command.getSagaId());
 
         try {